@@ -1,5 +1,6 @@
 package com.example.StyleStore.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
@@ -21,4 +22,17 @@ public class AsyncConfig {
         executor.initialize();
         return executor;
     }
+
+    // Các phần của dashboard admin chạy song song; hàng đợi nhỏ để quá tải thì trả về thiếu phần thay vì xếp hàng
+    @Bean(name = "dashboardTaskExecutor")
+    public Executor dashboardTaskExecutor(@Value("${stats.dashboard.pool-size:8}") int poolSize,
+            @Value("${stats.dashboard.queue-capacity:32}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("dashboard-");
+        executor.initialize();
+        return executor;
+    }
 }
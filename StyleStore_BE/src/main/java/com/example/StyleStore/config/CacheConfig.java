@@ -1,5 +1,8 @@
 package com.example.StyleStore.config;
 
+import com.example.StyleStore.service.StatsCacheKeys;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.cache.RedisCacheManagerBuilderCustomizer;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -24,4 +27,13 @@ public class CacheConfig {
             .serializeKeysWith(RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer()))
             .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(new GenericJackson2JsonRedisSerializer()));
     }
+
+    // Cache thống kê được xóa theo sự kiện (StatsCacheInvalidator), TTL chỉ là lưới an toàn
+    @Bean
+    public RedisCacheManagerBuilderCustomizer statsCacheTtlCustomizer(RedisCacheConfiguration cacheConfiguration,
+            @Value("${stats.cache.ttl-hours:24}") long ttlHours) {
+        RedisCacheConfiguration statsConfiguration = cacheConfiguration.entryTtl(Duration.ofHours(ttlHours));
+        return builder -> StatsCacheKeys.ALL_CACHES
+                .forEach(cacheName -> builder.withCacheConfiguration(cacheName, statsConfiguration));
+    }
 }
@@ -0,0 +1,39 @@
+package com.example.StyleStore.config;
+
+import com.example.StyleStore.service.ProductChangedEvent;
+import com.example.StyleStore.service.impl.ProductCacheServiceImpl;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+@Configuration
+@ConditionalOnProperty(name = "product.cache.redis.enabled", havingValue = "true", matchIfMissing = true)
+public class ProductCacheConfig {
+
+    // Mỗi node subscribe kênh invalidation và phát lại ProductChangedEvent (remote) khi node khác sửa sản phẩm.
+    // Redis chưa lên thì app vẫn khởi động, container tự subscribe lại sau
+    @Bean
+    public RedisMessageListenerContainer productCacheListenerContainer(RedisConnectionFactory redisConnectionFactory,
+            ApplicationEventPublisher eventPublisher, TaskScheduler taskScheduler,
+            @Value("${redis.listener.retry-seconds:30}") long retrySeconds) {
+        RedisMessageListenerContainer container = new TolerantRedisListenerContainer(redisConnectionFactory,
+                taskScheduler, Duration.ofSeconds(retrySeconds));
+        container.addMessageListener((message, pattern) -> {
+            String body = new String(message.getBody(), StandardCharsets.UTF_8);
+            try {
+                eventPublisher.publishEvent(new ProductChangedEvent(Long.valueOf(body), true));
+            } catch (NumberFormatException ignored) {
+            }
+        }, new ChannelTopic(ProductCacheServiceImpl.INVALIDATION_CHANNEL));
+        return container;
+    }
+}
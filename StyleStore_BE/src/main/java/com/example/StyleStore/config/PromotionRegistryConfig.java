@@ -0,0 +1,38 @@
+package com.example.StyleStore.config;
+
+import com.example.StyleStore.service.PromotionService;
+import com.example.StyleStore.service.impl.PromotionServiceImpl;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.time.Duration;
+
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "promotion.registry.broadcast-enabled", havingValue = "true", matchIfMissing = true)
+public class PromotionRegistryConfig {
+
+    // Mỗi node subscribe kênh reload để nạp lại registry khuyến mãi khi node khác tạo / sửa
+    @Bean
+    public RedisMessageListenerContainer promotionRegistryListenerContainer(
+            RedisConnectionFactory redisConnectionFactory, PromotionService promotionService,
+            TaskScheduler taskScheduler, @Value("${redis.listener.retry-seconds:30}") long retrySeconds) {
+        RedisMessageListenerContainer container = new TolerantRedisListenerContainer(redisConnectionFactory,
+                taskScheduler, Duration.ofSeconds(retrySeconds));
+        container.addMessageListener((message, pattern) -> {
+            try {
+                promotionService.reloadLocal();
+            } catch (RuntimeException ex) {
+                log.warn("Không thể nạp lại registry khuyến mãi: {}", ex.getMessage());
+            }
+        }, new ChannelTopic(PromotionServiceImpl.RELOAD_CHANNEL));
+        return container;
+    }
+}
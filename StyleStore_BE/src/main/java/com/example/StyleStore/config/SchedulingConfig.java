@@ -0,0 +1,10 @@
+package com.example.StyleStore.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Kích thước pool của TaskScheduler: spring.task.scheduling.pool.size (mặc định Spring Boot chỉ 1 thread)
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -47,6 +47,7 @@ public class SecurityConfig {
                         .requestMatchers("/api/user/categories/**").permitAll()
                         .requestMatchers("/api/user/promotions/**").permitAll()
                         .requestMatchers(HttpMethod.POST, "/api/user/orders").permitAll()
+                        .requestMatchers(HttpMethod.POST, "/api/user/orders/quote").permitAll()
                         .requestMatchers("/ws/**").permitAll()
                         .requestMatchers("/ws-native/**").permitAll()
                         .requestMatchers("/api/admin/**").hasRole("ADMIN")
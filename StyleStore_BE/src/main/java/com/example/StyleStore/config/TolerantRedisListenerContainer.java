@@ -0,0 +1,54 @@
+package com.example.StyleStore.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Listener container không làm hỏng khởi động khi Redis chưa sẵn sàng: subscribe lỗi thì log,
+ * dừng container và thử lại sau retryInterval. Trong lúc chưa subscribe được, node chỉ không nhận
+ * thông báo từ node khác (cache L1 vẫn hết hạn theo TTL / nạp lại định kỳ).
+ */
+@Slf4j
+public class TolerantRedisListenerContainer extends RedisMessageListenerContainer {
+
+    private final TaskScheduler taskScheduler;
+    private final Duration retryInterval;
+    private volatile boolean destroyed;
+    private ScheduledFuture<?> retry;
+
+    public TolerantRedisListenerContainer(RedisConnectionFactory connectionFactory, TaskScheduler taskScheduler,
+            Duration retryInterval) {
+        this.taskScheduler = taskScheduler;
+        this.retryInterval = retryInterval;
+        setConnectionFactory(connectionFactory);
+    }
+
+    @Override
+    public synchronized void start() {
+        if (destroyed) {
+            return;
+        }
+        try {
+            super.start();
+        } catch (RuntimeException ex) {
+            log.warn("Không subscribe được Redis, thử lại sau {}s: {}", retryInterval.toSeconds(), ex.getMessage());
+            super.stop();
+            retry = taskScheduler.schedule(this::start, Instant.now().plus(retryInterval));
+        }
+    }
+
+    @Override
+    public synchronized void destroy() throws Exception {
+        destroyed = true;
+        if (retry != null) {
+            retry.cancel(false);
+        }
+        super.destroy();
+    }
+}
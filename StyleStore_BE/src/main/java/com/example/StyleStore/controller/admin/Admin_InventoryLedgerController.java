@@ -0,0 +1,70 @@
+package com.example.StyleStore.controller.admin;
+
+import com.example.StyleStore.dto.response.ApiResponse;
+import com.example.StyleStore.dto.response.InventoryMovementResponse;
+import com.example.StyleStore.dto.response.InventoryStockAsOfResponse;
+import com.example.StyleStore.service.InventoryLedgerService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/inventory-ledger")
+@CrossOrigin(origins = "*")
+@RequiredArgsConstructor
+public class Admin_InventoryLedgerController {
+
+    private final InventoryLedgerService inventoryLedgerService;
+
+    // Lịch sử nhập/xuất của 1 SKU, mới nhất trước
+    @GetMapping("/movements")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Page<InventoryMovementResponse>>> getMovements(
+            @RequestParam Long productId,
+            @RequestParam Long sizeId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            Page<InventoryMovementResponse> movements = inventoryLedgerService.getMovements(productId, sizeId, page, size);
+            return ResponseEntity.ok(ApiResponse.ok("Lấy lịch sử tồn kho thành công", movements));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.fail("Lỗi khi lấy lịch sử tồn kho: " + e.getMessage()));
+        }
+    }
+
+    // Tồn kho của 1 SKU tại thời điểm at (mặc định: hiện tại)
+    @GetMapping("/stock-as-of")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<InventoryStockAsOfResponse>> getStockAsOf(
+            @RequestParam Long productId,
+            @RequestParam Long sizeId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+        try {
+            InventoryStockAsOfResponse stock = inventoryLedgerService.getStockAsOf(productId, sizeId, at);
+            return ResponseEntity.ok(ApiResponse.ok("Lấy tồn kho theo thời điểm thành công", stock));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.fail("Lỗi khi lấy tồn kho theo thời điểm: " + e.getMessage()));
+        }
+    }
+
+    // Gộp sổ kho vào snapshot ngay (bình thường chạy định kỳ)
+    @PostMapping("/snapshots")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> compactSnapshots() {
+        int created = inventoryLedgerService.compactSnapshots();
+        return ResponseEntity.ok(ApiResponse.ok("Gộp snapshot tồn kho thành công", Map.of("snapshots", created)));
+    }
+}
@@ -1,6 +1,9 @@
 package com.example.StyleStore.controller.admin;
 
+import com.example.StyleStore.dto.request.BulkOrderRequest;
 import com.example.StyleStore.dto.response.ApiResponse;
+import com.example.StyleStore.dto.response.BulkOrderTransitionResponse;
+import com.example.StyleStore.dto.response.CursorPage;
 import com.example.StyleStore.dto.response.OrderResponse;
 import com.example.StyleStore.service.OrderService;
 import lombok.RequiredArgsConstructor;
@@ -35,6 +38,24 @@ public class Admin_OrderController {
         }
     }
 
+    // Phân trang bằng cursor (keyset): truyền nextCursor của trang trước vào after
+    @GetMapping("/cursor")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<CursorPage<OrderResponse>>> getOrdersByCursor(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "createdAt") String sortBy,
+            @RequestParam(defaultValue = "desc") String sortDir) {
+        try {
+            CursorPage<OrderResponse> orders = orderService.getAllOrdersAfter(after, size, sortBy, sortDir);
+            return ResponseEntity.ok(
+                    new ApiResponse<>(true, "Danh sách đơn hàng được tải thành công", orders));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(
+                    new ApiResponse<>(false, "Lỗi khi tải danh sách đơn hàng: " + e.getMessage(), null));
+        }
+    }
+
     @GetMapping("/search")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<ApiResponse<Page<OrderResponse>>> searchOrders(
@@ -123,6 +144,50 @@ public class Admin_OrderController {
         }
     }
 
+    // Chuyển trạng thái hàng loạt: đơn không ở trạng thái hợp lệ được trả về trong skippedOrderIds
+    @PutMapping("/bulk/confirm")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<BulkOrderTransitionResponse>> bulkConfirmOrders(
+            @RequestBody BulkOrderRequest request) {
+        try {
+            BulkOrderTransitionResponse result = orderService.bulkConfirmOrders(request.getOrderIds());
+            return ResponseEntity.ok(
+                    new ApiResponse<>(true, "Đã xác nhận " + result.getUpdatedOrderIds().size() + " đơn hàng", result));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(
+                    new ApiResponse<>(false, "Lỗi khi xác nhận đơn hàng: " + e.getMessage(), null));
+        }
+    }
+
+    @PutMapping("/bulk/deliver")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<BulkOrderTransitionResponse>> bulkDeliverOrders(
+            @RequestBody BulkOrderRequest request) {
+        try {
+            BulkOrderTransitionResponse result = orderService.bulkDeliverOrders(request.getOrderIds());
+            return ResponseEntity.ok(
+                    new ApiResponse<>(true, "Đã chuyển " + result.getUpdatedOrderIds().size()
+                            + " đơn hàng sang trạng thái đã giao", result));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(
+                    new ApiResponse<>(false, "Lỗi khi cập nhật trạng thái đơn hàng: " + e.getMessage(), null));
+        }
+    }
+
+    @PutMapping("/bulk/cancel")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<BulkOrderTransitionResponse>> bulkCancelOrders(
+            @RequestBody BulkOrderRequest request) {
+        try {
+            BulkOrderTransitionResponse result = orderService.bulkCancelOrders(request.getOrderIds());
+            return ResponseEntity.ok(
+                    new ApiResponse<>(true, "Đã hủy " + result.getUpdatedOrderIds().size() + " đơn hàng", result));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(
+                    new ApiResponse<>(false, "Lỗi khi hủy đơn hàng: " + e.getMessage(), null));
+        }
+    }
+
     // user and admin can cancel order
     @PutMapping("/{id}/cancel")
     public ResponseEntity<ApiResponse<OrderResponse>> cancelOrder(@PathVariable Long id) {
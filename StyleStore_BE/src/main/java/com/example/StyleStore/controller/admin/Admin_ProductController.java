@@ -1,9 +1,11 @@
 package com.example.StyleStore.controller.admin;
 
 import com.example.StyleStore.dto.response.ApiResponse;
+import com.example.StyleStore.dto.response.ProductSizeStockResponse;
 import com.example.StyleStore.model.Product;
 import com.example.StyleStore.model.ProductImage;
 import com.example.StyleStore.service.ProductService;
+import com.example.StyleStore.service.StockBucketService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -32,6 +34,9 @@ public class Admin_ProductController {
     @Autowired
     private ProductService productService;
 
+    @Autowired
+    private StockBucketService stockBucketService;
+
     // get list product, pagination, sort
     @GetMapping
     @PreAuthorize("hasRole('ADMIN')")
@@ -114,6 +119,22 @@ public class Admin_ProductController {
                 : ResponseEntity.status(404).body(ApiResponse.fail("Không tìm thấy sản phẩm"));
     }
 
+    // chia tồn kho của SKU bán chạy thành nhiều bucket để các checkout đồng thời không tranh 1 row lock
+    // buckets = 1 để gộp lại
+    @PutMapping("/{productId}/sizes/{sizeId}/stock-buckets")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<ProductSizeStockResponse>> stripeStock(
+            @PathVariable Long productId,
+            @PathVariable Long sizeId,
+            @RequestParam int buckets) {
+        try {
+            ProductSizeStockResponse result = stockBucketService.stripeStock(productId, sizeId, buckets);
+            return ResponseEntity.ok(ApiResponse.ok("Cập nhật bucket tồn kho thành công", result));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.fail(e.getMessage()));
+        }
+    }
+
     // ============ Product Images Endpoints ============
 
     @GetMapping("/{productId}/images")
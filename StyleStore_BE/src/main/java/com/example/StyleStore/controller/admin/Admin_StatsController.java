@@ -1,14 +1,22 @@
 package com.example.StyleStore.controller.admin;
 
+import com.example.StyleStore.dto.request.SalesCubeRequest;
 import com.example.StyleStore.dto.response.ApiResponse;
+import com.example.StyleStore.dto.response.stats.AdminDashboardResponse;
 import com.example.StyleStore.dto.response.stats.BestSellingProductsInCategoriesDTO;
 import com.example.StyleStore.dto.response.stats.CategoryStockDto;
 import com.example.StyleStore.dto.response.stats.MonthlyRevenueDto;
 import com.example.StyleStore.dto.response.stats.MonthlyUserDto;
+import com.example.StyleStore.dto.response.stats.OrderSketchStatsResponse;
 import com.example.StyleStore.dto.response.stats.RevenueGrowthDto;
 import com.example.StyleStore.dto.response.stats.RevenueWithProductsDto;
+import com.example.StyleStore.dto.response.stats.SalesCubeResponse;
+import com.example.StyleStore.service.AdminDashboardService;
+import com.example.StyleStore.service.DailySalesService;
 import com.example.StyleStore.service.OrderService;
+import com.example.StyleStore.service.OrderSketchService;
 import com.example.StyleStore.service.ProductService;
+import com.example.StyleStore.service.SalesCubeService;
 import com.example.StyleStore.service.UserService;
 
 import org.springframework.format.annotation.DateTimeFormat;
@@ -16,6 +24,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -31,11 +41,37 @@ public class Admin_StatsController {
     private final UserService userService;
     private final OrderService orderService;
     private final ProductService productService;
-
-    public Admin_StatsController(UserService userService, OrderService orderService, ProductService productService) {
+    private final DailySalesService dailySalesService;
+    private final AdminDashboardService adminDashboardService;
+    private final SalesCubeService salesCubeService;
+    private final OrderSketchService orderSketchService;
+
+    public Admin_StatsController(UserService userService, OrderService orderService, ProductService productService,
+            DailySalesService dailySalesService, AdminDashboardService adminDashboardService,
+            SalesCubeService salesCubeService, OrderSketchService orderSketchService) {
         this.userService = userService;
         this.orderService = orderService;
         this.productService = productService;
+        this.dailySalesService = dailySalesService;
+        this.adminDashboardService = adminDashboardService;
+        this.salesCubeService = salesCubeService;
+        this.orderSketchService = orderSketchService;
+    }
+
+    // Toàn bộ số liệu dashboard trong 1 request, các phần được tính song song
+    @GetMapping("/dashboard")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<AdminDashboardResponse>> getDashboard() {
+        AdminDashboardResponse result = adminDashboardService.getDashboard();
+        return ResponseEntity.ok(ApiResponse.ok("Lấy dữ liệu dashboard thành công", result));
+    }
+
+    // Phân tích doanh số theo chiều tùy chọn, tính trên cube trong bộ nhớ (không truy vấn MySQL)
+    @GetMapping("/cube")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<SalesCubeResponse>> querySalesCube(@ModelAttribute SalesCubeRequest request) {
+        SalesCubeResponse result = salesCubeService.query(request);
+        return ResponseEntity.ok(ApiResponse.ok("Truy vấn cube doanh số thành công", result));
     }
 
     @GetMapping("/monthly-user-registrations")
@@ -112,6 +148,39 @@ public class Admin_StatsController {
         return ResponseEntity.ok(ApiResponse.ok("Lấy doanh thu theo năm thành công", revenueData));
     }
 
+    // Tính lại bảng doanh thu theo ngày từ lịch sử đơn hàng (backfill / đối soát thủ công)
+    @PostMapping("/revenue/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> rebuildDailyRevenue(
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        int days = dailySalesService.rebuild(from, to);
+        Map<String, Object> response = Map.of("daysWithRevenue", days);
+        return ResponseEntity.ok(ApiResponse.ok("Tính lại doanh thu theo ngày thành công", response));
+    }
+
+    // Số khách phân biệt và phân vị giá trị đơn (xấp xỉ), gộp từ sketch theo ngày
+    @GetMapping("/order-sketches")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<OrderSketchStatsResponse>> getOrderSketchStats(
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(value = "granularity", required = false) String granularity) {
+        OrderSketchStatsResponse result = orderSketchService.getStats(from, to, granularity);
+        return ResponseEntity.ok(ApiResponse.ok("Lấy thống kê khách hàng và giá trị đơn thành công", result));
+    }
+
+    // Tính lại sketch theo ngày từ lịch sử đơn hàng (backfill sau khi triển khai / đối soát)
+    @PostMapping("/order-sketches/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> rebuildOrderSketches(
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        int days = orderSketchService.rebuild(from, to);
+        Map<String, Object> response = Map.of("daysWithOrders", days);
+        return ResponseEntity.ok(ApiResponse.ok("Tính lại sketch đơn hàng thành công", response));
+    }
+
     // get best-selling products in categories
     @GetMapping("/best-selling-product-in-categories")
     @PreAuthorize("hasRole('ADMIN')")
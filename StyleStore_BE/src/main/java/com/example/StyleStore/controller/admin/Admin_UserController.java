@@ -2,6 +2,7 @@ package com.example.StyleStore.controller.admin;
 
 import com.example.StyleStore.dto.response.ApiResponse;
 import com.example.StyleStore.dto.response.AdminUserResponse;
+import com.example.StyleStore.dto.response.CursorPage;
 import com.example.StyleStore.model.User;
 import com.example.StyleStore.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -47,6 +48,22 @@ public class Admin_UserController {
         return ResponseEntity.ok(ApiResponse.ok("Lấy danh sách người dùng thành công", result));
     }
 
+    // Phân trang bằng cursor (keyset): truyền nextCursor của trang trước vào after
+    @GetMapping("/cursor")
+    public ResponseEntity<ApiResponse<CursorPage<AdminUserResponse>>> getUsersByCursor(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "createdAt") String sortBy,
+            @RequestParam(defaultValue = "desc") String sortDir) {
+        try {
+            CursorPage<AdminUserResponse> result = userService.getUsersAfter(after, size, sortBy, sortDir)
+                    .map(AdminUserResponse::from);
+            return ResponseEntity.ok(ApiResponse.ok("Lấy danh sách người dùng thành công", result));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.fail(e.getMessage()));
+        }
+    }
+
     @GetMapping("/search")
         public ResponseEntity<ApiResponse<Page<AdminUserResponse>>> searchUsers(
             @RequestParam String keyword,
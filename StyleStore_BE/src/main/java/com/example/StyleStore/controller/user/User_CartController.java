@@ -1,7 +1,8 @@
 package com.example.StyleStore.controller.user;
 
+import com.example.StyleStore.dto.request.CartBatchRequest;
 import com.example.StyleStore.dto.response.ApiResponse;
-import com.example.StyleStore.model.Cart;
+import com.example.StyleStore.dto.response.CartResponse;
 import com.example.StyleStore.model.CartItem;
 import com.example.StyleStore.service.CartService;
 import lombok.RequiredArgsConstructor;
@@ -47,10 +48,10 @@ public class User_CartController {
 
     // Lấy giỏ hàng của user
     @GetMapping
-    public ResponseEntity<ApiResponse<Cart>> getCart() {
+    public ResponseEntity<ApiResponse<CartResponse>> getCart() {
         try {
             Long userId = getCurrentUserId();
-            Cart cart = cartService.getCartByUserId(userId);
+            CartResponse cart = cartService.getCartView(userId);
             return ResponseEntity.ok(ApiResponse.ok("Lấy giỏ hàng thành công", cart));
         } catch (Exception e) {
             return ResponseEntity.status(400).body(ApiResponse.fail("Lỗi: " + e.getMessage()));
@@ -62,8 +63,7 @@ public class User_CartController {
     public ResponseEntity<ApiResponse<Integer>> getCartDetailCount() {
         try {
             Long userId = getCurrentUserId();
-            Cart cart = cartService.getCartByUserId(userId);
-            int count = cart.getCartItems() == null ? 0 : cart.getCartItems().size();
+            int count = (int) cartService.countItems(userId);
             return ResponseEntity.ok(ApiResponse.ok("Lấy số lượng sản phẩm trong giỏ thành công", count));
         } catch (Exception e) {
             return ResponseEntity.status(400).body(ApiResponse.fail("Lỗi: " + e.getMessage()));
@@ -85,6 +85,18 @@ public class User_CartController {
         }
     }
 
+    // Thêm / sửa / xóa nhiều sản phẩm trong 1 request, trả về giỏ sau khi cập nhật
+    @PostMapping("/batch")
+    public ResponseEntity<ApiResponse<CartResponse>> applyBatch(@RequestBody CartBatchRequest request) {
+        try {
+            Long userId = getCurrentUserId();
+            CartResponse cart = cartService.applyBatch(userId, request);
+            return ResponseEntity.ok(ApiResponse.ok("Cập nhật giỏ hàng thành công", cart));
+        } catch (Exception e) {
+            return ResponseEntity.status(400).body(ApiResponse.fail("Lỗi: " + e.getMessage()));
+        }
+    }
+
     // Xóa sản phẩm khỏi giỏ hàng
     @DeleteMapping("/{cartItemId}")
     public ResponseEntity<ApiResponse<Void>> removeFromCart(@PathVariable Long cartItemId) {
@@ -2,6 +2,7 @@ package com.example.StyleStore.controller.user;
 
 import com.example.StyleStore.dto.request.UserOrderRequest;
 import com.example.StyleStore.dto.response.ApiResponse;
+import com.example.StyleStore.dto.response.OrderQuoteResponse;
 import com.example.StyleStore.dto.response.OrderResponse;
 import com.example.StyleStore.model.User;
 import com.example.StyleStore.repository.UserRepository;
@@ -79,6 +80,17 @@ public class User_OrderController {
         }
     }
 
+    // API báo giá giỏ hàng trước khi đặt (tổng tiền, giảm giá, mã giảm nhiều nhất), không trừ kho
+    @PostMapping("/quote")
+    public ResponseEntity<ApiResponse<OrderQuoteResponse>> quoteOrder(@RequestBody UserOrderRequest request) {
+        try {
+            OrderQuoteResponse quote = orderService.quoteOrder(request);
+            return ResponseEntity.ok(ApiResponse.ok("Báo giá đơn hàng thành công", quote));
+        } catch (Exception e) {
+            return ResponseEntity.status(400).body(ApiResponse.fail("Lỗi: " + e.getMessage()));
+        }
+    }
+
     // API tạo đơn hàng
     @PostMapping
     public ResponseEntity<ApiResponse<OrderResponse>> createOrder(@RequestBody UserOrderRequest request) {
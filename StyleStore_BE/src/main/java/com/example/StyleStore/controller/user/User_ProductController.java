@@ -1,11 +1,17 @@
 package com.example.StyleStore.controller.user;
 
+import com.example.StyleStore.dto.request.ProductFacetRequest;
 import com.example.StyleStore.dto.response.ApiResponse;
+import com.example.StyleStore.dto.response.CursorPage;
+import com.example.StyleStore.dto.response.ProductCardResponse;
+import com.example.StyleStore.dto.response.ProductFacetResponse;
+import com.example.StyleStore.dto.response.SuggestionResponse;
 import com.example.StyleStore.model.Category;
 import com.example.StyleStore.model.Product;
 import com.example.StyleStore.model.ProductImage;
 import com.example.StyleStore.service.CategoryService;
 import com.example.StyleStore.service.ProductService;
+import com.example.StyleStore.service.ProductSuggestService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.data.domain.Page;
@@ -14,6 +20,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
 
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -35,6 +42,9 @@ public class User_ProductController {
     @Autowired
     private CategoryService categoryService;
 
+    @Autowired
+    private ProductSuggestService productSuggestService;
+
     @Autowired
     private OrderService orderService;
 
@@ -61,7 +71,7 @@ public class User_ProductController {
 
     @GetMapping("/{id}")
     public ResponseEntity<ApiResponse<Product>> getProductById(@PathVariable Long id) {
-        Optional<Product> product = productService.getProductById(id);
+        Optional<Product> product = productService.getProductDetail(id);
         return product
                 .map(p -> ResponseEntity.ok(ApiResponse.ok("Lấy sản phẩm thành công", p)))
                 .orElseGet(() -> ResponseEntity.status(404).body(ApiResponse.fail("Không tìm thấy sản phẩm")));
@@ -109,6 +119,94 @@ public class User_ProductController {
         return ResponseEntity.ok(ApiResponse.ok("Tìm kiếm sản phẩm thành công", result));
     }
 
+    // Tìm kiếm full-text theo độ liên quan: tên, thương hiệu, chất liệu, màu, mô tả, danh mục (không phân biệt dấu)
+    @GetMapping("/search")
+    public ResponseEntity<ApiResponse<Page<ProductCardResponse>>> searchProducts(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "12") int size) {
+        Page<ProductCardResponse> result = productService.searchProductCards(q, PageRequest.of(page, size));
+        return ResponseEntity.ok(ApiResponse.ok("Tìm kiếm sản phẩm thành công", result));
+    }
+
+    // Gợi ý khi gõ: sản phẩm, thương hiệu, danh mục khớp tiền tố (không phân biệt dấu), phổ biến nhất trước
+    @GetMapping("/suggest")
+    public ResponseEntity<ApiResponse<List<SuggestionResponse>>> suggest(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "8") int limit) {
+        return ResponseEntity.ok(ApiResponse.ok("Lấy gợi ý thành công", productSuggestService.suggest(q, limit)));
+    }
+
+    // Lọc faceted, ví dụ ?brands=Nike&brands=Adidas&sizes=M&prices=200000-500000 (OR trong 1 facet, AND giữa các facet)
+    @GetMapping("/facets")
+    public ResponseEntity<ApiResponse<ProductFacetResponse>> filterProducts(
+            @ModelAttribute ProductFacetRequest request,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "12") int size) {
+        ProductFacetResponse result = productService.filterProductCards(request, PageRequest.of(page, size));
+        return ResponseEntity.ok(ApiResponse.ok("Lọc sản phẩm thành công", result));
+    }
+
+    // ============ Product Card Endpoints (trang danh sách) ============
+
+    // Danh sách thẻ sản phẩm (có phân trang và lọc theo giới tính)
+    @GetMapping("/cards")
+    public ResponseEntity<ApiResponse<Page<ProductCardResponse>>> getProductCards(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "12") int size,
+            @RequestParam(defaultValue = "createdAt") String sortBy,
+            @RequestParam(defaultValue = "desc") String sortDir,
+            @RequestParam(required = false) String gender) {
+        Pageable pageable = PageRequest.of(page, size, buildSort(sortBy, sortDir));
+        Page<ProductCardResponse> result = productService.getProductCards(null, gender, null, pageable);
+        return ResponseEntity.ok(ApiResponse.ok("Lấy danh sách sản phẩm thành công", result));
+    }
+
+    // Thẻ sản phẩm phân trang bằng cursor (cuộn vô hạn): truyền nextCursor của trang trước vào after
+    @GetMapping("/cards/cursor")
+    public ResponseEntity<ApiResponse<CursorPage<ProductCardResponse>>> getProductCardsByCursor(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "12") int size,
+            @RequestParam(defaultValue = "createdAt") String sortBy,
+            @RequestParam(defaultValue = "desc") String sortDir) {
+        try {
+            CursorPage<ProductCardResponse> result = productService.getProductCardsAfter(after, size, sortBy, sortDir);
+            return ResponseEntity.ok(ApiResponse.ok("Lấy danh sách sản phẩm thành công", result));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.fail(e.getMessage()));
+        }
+    }
+
+    // Thẻ sản phẩm theo danh mục (có phân trang)
+    @GetMapping("/cards/category/{categoryId}")
+    public ResponseEntity<ApiResponse<Page<ProductCardResponse>>> getProductCardsByCategory(
+            @PathVariable Long categoryId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "12") int size,
+            @RequestParam(defaultValue = "createdAt") String sortBy,
+            @RequestParam(defaultValue = "desc") String sortDir,
+            @RequestParam(required = false) String gender) {
+        if (categoryService.getCategoryById(categoryId).isEmpty()) {
+            return ResponseEntity.status(404).body(ApiResponse.fail("Không tìm thấy danh mục"));
+        }
+        Pageable pageable = PageRequest.of(page, size, buildSort(sortBy, sortDir));
+        Page<ProductCardResponse> result = productService.getProductCards(categoryId, gender, null, pageable);
+        return ResponseEntity.ok(ApiResponse.ok("Lấy danh sách sản phẩm theo danh mục thành công", result));
+    }
+
+    // Tìm thẻ sản phẩm theo tên (có phân trang)
+    @GetMapping("/cards/search/{name}")
+    public ResponseEntity<ApiResponse<Page<ProductCardResponse>>> searchProductCards(
+            @PathVariable String name,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "12") int size,
+            @RequestParam(defaultValue = "createdAt") String sortBy,
+            @RequestParam(defaultValue = "desc") String sortDir) {
+        Pageable pageable = PageRequest.of(page, size, buildSort(sortBy, sortDir));
+        Page<ProductCardResponse> result = productService.getProductCards(null, null, name, pageable);
+        return ResponseEntity.ok(ApiResponse.ok("Tìm kiếm sản phẩm thành công", result));
+    }
+
     // Lấy các hình ảnh phụ của sản phẩm
     @GetMapping("/{productId}/images")
     public ResponseEntity<ApiResponse<List<ProductImage>>> getProductImages(@PathVariable Long productId) {
@@ -135,4 +233,9 @@ public class User_ProductController {
         }
     }
 
+    private Sort buildSort(String sortBy, String sortDir) {
+        return sortDir.equalsIgnoreCase("asc")
+                ? Sort.by(sortBy).ascending()
+                : Sort.by(sortBy).descending();
+    }
 }
@@ -0,0 +1,14 @@
+package com.example.StyleStore.dto.request;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkOrderRequest {
+    private List<Long> orderIds;
+}
@@ -0,0 +1,34 @@
+package com.example.StyleStore.dto.request;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CartBatchRequest {
+    // Áp dụng theo đúng thứ tự gửi lên
+    private List<Operation> operations;
+
+    public enum Action {
+        ADD, UPDATE, REMOVE
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Operation {
+        private Action action;
+        // ADD: theo productId + sizeId
+        private Long productId;
+        private Long sizeId;
+        // UPDATE / REMOVE: theo id dòng giỏ hàng
+        private Long cartItemId;
+        private Integer quantity;
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.StyleStore.dto.request;
+
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * Bộ lọc faceted: OR giữa các giá trị trong cùng 1 facet, AND giữa các facet.
+ * Facet để trống (null) thì không lọc.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductFacetRequest {
+    private List<Long> categoryIds;
+    private List<String> genders;
+    private List<String> brands;
+    private List<String> colors;
+    private List<String> materials;
+    // Size còn hàng, ví dụ "M"
+    private List<String> sizes;
+    // Khoảng giá theo nhãn bucket, ví dụ "200000-500000" hoặc "2000000+"
+    private List<String> prices;
+}
@@ -0,0 +1,33 @@
+package com.example.StyleStore.dto.request;
+
+import lombok.*;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Truy vấn cube doanh số: nhóm theo các chiều trong groupBy
+ * (day, month, product, category, size, gender, promotion), lọc theo ngày tạo đơn [from, to]
+ * và theo giá trị của từng chiều (OR trong 1 chiều, AND giữa các chiều). Để trống thì không lọc.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SalesCubeRequest {
+    private List<String> groupBy;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate from;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate to;
+    private List<Long> productIds;
+    private List<Long> categoryIds;
+    private List<Long> sizeIds;
+    private List<String> genders;
+    // 0 = đơn không dùng khuyến mãi
+    private List<Long> promotionIds;
+    // Số nhóm tối đa trả về, sắp theo doanh số giảm dần
+    private Integer limit;
+}
@@ -0,0 +1,44 @@
+package com.example.StyleStore.dto.response;
+
+import com.example.StyleStore.model.enums.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 1 frame trên /topic/admin/orders: các đơn hàng mới hoặc đổi trạng thái trong 1 chu kỳ gửi.
+ * Mỗi đơn xuất hiện tối đa 1 lần với trạng thái mới nhất.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AdminOrderFeedFrame {
+    private List<OrderChange> orders;
+    // Số thay đổi bị bỏ bớt khi vượt giới hạn của 1 frame, client nên tải lại danh sách
+    private int dropped;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class OrderChange {
+        private Long orderId;
+        private Long userId;
+        private String userName;
+        private Double finalAmount;
+        // true nếu đơn được tạo trong chu kỳ này
+        private boolean created;
+        // Trạng thái đầu chu kỳ (null nếu đơn mới tạo)
+        private OrderStatus previousStatus;
+        private OrderStatus status;
+        private LocalDateTime changedAt;
+    }
+}
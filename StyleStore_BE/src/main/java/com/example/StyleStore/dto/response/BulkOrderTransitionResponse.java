@@ -0,0 +1,25 @@
+package com.example.StyleStore.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * Kết quả chuyển trạng thái hàng loạt: đơn không tồn tại hoặc không ở trạng thái hợp lệ
+ * được bỏ qua (skipped) thay vì làm hỏng cả lô.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkOrderTransitionResponse {
+    private String action;
+    private int requested;
+    private List<Long> updatedOrderIds;
+    private List<Long> skippedOrderIds;
+}
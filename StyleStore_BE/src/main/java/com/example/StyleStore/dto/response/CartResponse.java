@@ -0,0 +1,67 @@
+package com.example.StyleStore.dto.response;
+
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * Giỏ hàng cho trang giỏ: tổng tiền, cảnh báo tồn kho và đổi giá đã được tính sẵn ở server.
+ * Giữ nguyên cấu trúc id / cartItems[].product / cartItems[].size / totalPrice như entity Cart cũ.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CartResponse {
+    private Long id;
+    private List<CartItemResponse> cartItems;
+    private int totalQuantity;
+    // Tính theo giá hiện tại của sản phẩm
+    private Double totalPrice;
+    private boolean hasStockWarning;
+    private boolean hasPriceChange;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class CartItemResponse {
+        private Long id;
+        private CartProductResponse product;
+        private CartSizeResponse size;
+        private Integer quantity;
+        // Giá lúc thêm vào giỏ
+        private Double price;
+        private Double subtotal;
+        private Integer availableStock;
+        // Tồn kho hiện tại không đủ cho số lượng trong giỏ (hoặc size đã ngừng bán)
+        private boolean stockWarning;
+        private boolean priceChanged;
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class CartProductResponse {
+        private Long id;
+        private String name;
+        private Double price;
+        private String thumbnail;
+        private String material;
+        private String color;
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class CartSizeResponse {
+        private Long id;
+        private String name;
+    }
+}
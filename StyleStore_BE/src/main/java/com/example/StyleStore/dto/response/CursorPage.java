@@ -0,0 +1,30 @@
+package com.example.StyleStore.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 1 trang theo keyset (cursor): không có totalElements/totalPages, chỉ có cursor cho trang kế tiếp.
+ * Truyền nextCursor vào tham số "after" để lấy trang sau.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CursorPage<T> {
+    private List<T> content;
+    private int size;
+    private String nextCursor;
+    private boolean hasNext;
+
+    public <R> CursorPage<R> map(Function<? super T, ? extends R> converter) {
+        return new CursorPage<>(content.stream().<R>map(converter).toList(), size, nextCursor, hasNext);
+    }
+}
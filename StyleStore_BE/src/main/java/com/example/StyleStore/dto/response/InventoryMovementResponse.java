@@ -0,0 +1,25 @@
+package com.example.StyleStore.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class InventoryMovementResponse {
+    private Long id;
+    private Long productId;
+    private Long sizeId;
+    // Dương: nhập vào, âm: xuất ra
+    private Integer quantity;
+    private String type;
+    private Long referenceId;
+    private LocalDateTime createdAt;
+}
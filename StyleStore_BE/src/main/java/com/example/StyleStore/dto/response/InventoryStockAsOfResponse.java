@@ -0,0 +1,26 @@
+package com.example.StyleStore.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class InventoryStockAsOfResponse {
+    private Long productId;
+    private Long sizeId;
+    private LocalDateTime at;
+    private long stock;
+    // Snapshot làm gốc, null nếu SKU chưa có snapshot nào trước thời điểm at
+    private LocalDateTime snapshotAt;
+    private long snapshotStock;
+    // Tổng các dòng sổ kho trong [snapshotAt, at)
+    private long movementsSinceSnapshot;
+}
@@ -0,0 +1,55 @@
+package com.example.StyleStore.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * Báo giá giỏ hàng trước khi đặt: không giữ hàng, không ghi gì xuống DB.
+ * Mã khuyến mãi không hợp lệ được báo qua promotionMessage thay vì lỗi.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderQuoteResponse {
+    private List<QuoteItem> items;
+    private Double totalAmount;
+    private Double discountAmount;
+    private Double finalAmount;
+
+    // Mã khách nhập và kết quả áp dụng
+    private String promotionCode;
+    private boolean promotionApplied;
+    private String promotionMessage;
+
+    // Khuyến mãi đang hiệu lực giảm nhiều nhất cho giỏ này (null nếu không có mã nào áp dụng được)
+    private String bestPromotionCode;
+    private String bestPromotionName;
+    private Double bestDiscountAmount;
+
+    // true nếu có dòng vượt tồn kho hiện tại
+    private boolean hasStockWarning;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class QuoteItem {
+        private Long productId;
+        private String productName;
+        private Long sizeId;
+        private String sizeName;
+        private Double unitPrice;
+        private Integer quantity;
+        private Double subtotal;
+        private Integer availableStock;
+        private boolean stockWarning;
+    }
+}
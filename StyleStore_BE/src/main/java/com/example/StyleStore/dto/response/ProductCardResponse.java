@@ -0,0 +1,41 @@
+package com.example.StyleStore.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Dữ liệu 1 thẻ sản phẩm ở trang danh sách (không kèm sizes/images đầy đủ như entity Product).
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductCardResponse {
+    private Long id;
+    private String name;
+    private Double price;
+    private String thumbnail;
+    private String categoryName;
+    private String gender;
+    private boolean inStock;
+    // Các size còn hàng
+    private List<String> availableSizes;
+
+    // Constructor cho JPQL projection, sizes được gắn sau bằng 1 query IN
+    public ProductCardResponse(Long id, String name, Double price, String thumbnail, String categoryName, String gender) {
+        this.id = id;
+        this.name = name;
+        this.price = price;
+        this.thumbnail = thumbnail;
+        this.categoryName = categoryName;
+        this.gender = gender;
+        this.availableSizes = new ArrayList<>();
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.StyleStore.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.domain.Page;
+
+import java.util.List;
+import java.util.Map;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductFacetResponse {
+    private Page<ProductCardResponse> products;
+    // facet (category, gender, brand, color, material, size, price) → số sản phẩm của từng giá trị
+    private Map<String, List<FacetCount>> facets;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class FacetCount {
+        // Giá trị dùng để lọc (đã chuẩn hóa)
+        private String value;
+        // Giá trị hiển thị
+        private String label;
+        private int count;
+    }
+}
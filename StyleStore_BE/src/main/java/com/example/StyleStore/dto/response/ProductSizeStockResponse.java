@@ -0,0 +1,24 @@
+package com.example.StyleStore.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductSizeStockResponse {
+    private Long productId;
+    private Long sizeId;
+    private String sizeName;
+    private Integer totalStock;
+    private Integer bucketCount;
+    // Tồn kho từng bucket, phần tử đầu là bucket 0 (row product_sizes)
+    private List<Integer> bucketStocks;
+}
@@ -0,0 +1,20 @@
+package com.example.StyleStore.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SuggestionResponse {
+    // PRODUCT, BRAND hoặc CATEGORY
+    private String type;
+    private String text;
+    // productId hoặc categoryId, null với BRAND
+    private Long id;
+}
@@ -0,0 +1,30 @@
+package com.example.StyleStore.dto.response.stats;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * Toàn bộ số liệu của trang dashboard admin trong 1 response.
+ * Phần nào lỗi hoặc quá thời gian thì để null và được liệt kê trong unavailableSections.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AdminDashboardResponse {
+    private List<MonthlyRevenueDto> monthlyRevenue;
+    private RevenueGrowthDto revenueGrowth;
+    private List<MonthlyUserDto> monthlyUserRegistrations;
+    private Long activeUserCount;
+    private Long productCount;
+    private Long totalStock;
+    private List<CategoryStockDto> stockByCategory;
+    private List<BestSellingProductsInCategoriesDTO> bestSellingProductsInCategories;
+    private List<String> unavailableSections;
+}
@@ -0,0 +1,29 @@
+package com.example.StyleStore.dto.response.stats;
+
+import com.example.StyleStore.dto.response.InventoryAlertResponse;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * 1 frame trên /topic/admin/stats: phần tăng thêm kể từ frame trước, client cộng dồn vào
+ * số liệu dashboard đã tải thay vì gọi lại các API thống kê.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AdminStatsFeedFrame {
+    private long newOrders;
+    private long deliveredOrders;
+    private long cancelledOrders;
+    // Doanh thu (total_amount) của các đơn vừa giao, cùng cách tính với API doanh thu
+    private BigDecimal revenueIncrement;
+    private List<InventoryAlertResponse> stockAlerts;
+}
@@ -0,0 +1,15 @@
+package com.example.StyleStore.dto.response.stats;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class BestSellingProductInCategoryDto implements BestSellingProductsInCategoriesDTO {
+    private final long categoryId;
+    private final String categoryName;
+    private final long productId;
+    private final String productName;
+    private final String productThumbnail;
+    private final long totalSold;
+}
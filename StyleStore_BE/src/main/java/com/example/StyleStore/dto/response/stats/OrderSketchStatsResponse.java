@@ -0,0 +1,45 @@
+package com.example.StyleStore.dto.response.stats;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Thống kê xấp xỉ từ sketch: số khách phân biệt (HyperLogLog, sai số ~1.6%)
+ * và phân vị giá trị đơn đã giao (t-digest). Số đơn là số chính xác.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderSketchStatsResponse {
+    private LocalDate from;
+    private LocalDate to;
+    private Bucket summary;
+    // Theo granularity (day: yyyy-MM-dd, month: yyyy-MM), rỗng nếu không yêu cầu
+    private List<Bucket> buckets;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Bucket {
+        private String period;
+        private long orderCount;
+        private long deliveredCount;
+        private long distinctBuyers;
+        private long distinctDeliveredBuyers;
+        // null khi không có đơn đã giao
+        private BigDecimal orderValueP50;
+        private BigDecimal orderValueP90;
+        private BigDecimal orderValueP99;
+    }
+}
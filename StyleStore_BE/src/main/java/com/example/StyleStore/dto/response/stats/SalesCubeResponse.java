@@ -0,0 +1,39 @@
+package com.example.StyleStore.dto.response.stats;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SalesCubeResponse {
+    private List<String> groupBy;
+    private List<Row> rows;
+    // Tổng số nhóm trước khi cắt theo limit
+    private int totalGroups;
+    // Số dòng đơn hàng khớp bộ lọc
+    private long matchedLines;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Row {
+        // chiều → giá trị (day: yyyy-MM-dd, month: yyyy-MM, các chiều id: số id, gender: chuỗi)
+        private Map<String, Object> dimensions;
+        private long quantity;
+        // Tổng price * quantity của các dòng (trước giảm giá cấp đơn)
+        private BigDecimal amount;
+        private long lines;
+    }
+}
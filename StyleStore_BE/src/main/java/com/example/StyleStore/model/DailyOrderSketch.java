@@ -0,0 +1,39 @@
+package com.example.StyleStore.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+
+/**
+ * Sketch xấp xỉ theo ngày tạo đơn: HyperLogLog số khách đặt hàng / khách có đơn đã giao
+ * và t-digest giá trị final_amount của đơn đã giao. Các ngày gộp được với nhau nên
+ * thống kê khoảng ngày bất kỳ không cần quét bảng orders.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "daily_order_sketches")
+public class DailyOrderSketch {
+    @Id
+    @Column(name = "sale_date")
+    private LocalDate saleDate;
+
+    @Column(name = "order_count", nullable = false)
+    private Long orderCount;
+
+    @Column(name = "delivered_count", nullable = false)
+    private Long deliveredCount;
+
+    @Column(name = "buyers_hll", columnDefinition = "MEDIUMBLOB")
+    private byte[] buyers;
+
+    @Column(name = "delivered_buyers_hll", columnDefinition = "MEDIUMBLOB")
+    private byte[] deliveredBuyers;
+
+    @Column(name = "order_value_digest", columnDefinition = "MEDIUMBLOB")
+    private byte[] orderValues;
+}
@@ -0,0 +1,30 @@
+package com.example.StyleStore.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Doanh thu và số đơn đã giao (DELIVERED) theo ngày tạo đơn. Số lượng bán theo sản phẩm
+ * mỗi ngày nằm ở {@link ProductSalesDaily#getUnitsDelivered()}.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "daily_sales_summary")
+public class DailySalesSummary {
+    @Id
+    @Column(name = "sale_date")
+    private LocalDate saleDate;
+
+    @Column(name = "revenue", nullable = false, precision = 15, scale = 2)
+    private BigDecimal revenue;
+
+    @Column(name = "order_count", nullable = false)
+    private Long orderCount;
+}
@@ -0,0 +1,47 @@
+package com.example.StyleStore.model;
+
+import com.example.StyleStore.model.enums.InventoryMovementType;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * 1 dòng sổ kho (chỉ thêm, không sửa/xóa): quantity dương là nhập vào, âm là xuất ra.
+ * Ghi cùng transaction với thay đổi product_sizes.stock, nên tổng các dòng của 1 SKU
+ * (cộng snapshot) bằng tồn kho tại bất kỳ thời điểm nào.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "inventory_movements", indexes = {
+        @Index(name = "idx_inventory_movements_sku_created", columnList = "product_id, size_id, created_at"),
+        @Index(name = "idx_inventory_movements_created", columnList = "created_at") })
+public class InventoryMovement {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "size_id", nullable = false)
+    private Long sizeId;
+
+    @Column(name = "quantity", nullable = false)
+    private Integer quantity;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "type", nullable = false, length = 20)
+    private InventoryMovementType type;
+
+    // orders.id với ORDER/CANCEL, import_receipts.id với IMPORT, null với ADJUST
+    @Column(name = "reference_id")
+    private Long referenceId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
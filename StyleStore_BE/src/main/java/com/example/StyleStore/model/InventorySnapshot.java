@@ -0,0 +1,37 @@
+package com.example.StyleStore.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Tồn kho của 1 SKU đã gộp mọi dòng sổ kho có created_at < asOf.
+ * Tồn kho tại thời điểm T = snapshot gần nhất có asOf <= T + các dòng trong [asOf, T).
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "inventory_snapshots", uniqueConstraints = @UniqueConstraint(
+        name = "uk_inventory_snapshots_sku_as_of", columnNames = { "product_id", "size_id", "as_of" }),
+        indexes = @Index(name = "idx_inventory_snapshots_as_of", columnList = "as_of"))
+public class InventorySnapshot {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "size_id", nullable = false)
+    private Long sizeId;
+
+    @Column(name = "stock", nullable = false)
+    private Long stock;
+
+    @Column(name = "as_of", nullable = false)
+    private LocalDateTime asOf;
+}
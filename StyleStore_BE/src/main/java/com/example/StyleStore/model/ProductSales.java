@@ -0,0 +1,27 @@
+package com.example.StyleStore.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Bộ đếm số lượng bán cộng dồn của 1 sản phẩm, được cập nhật cùng transaction với đơn hàng.
+ * unitsSold: đơn chưa bị hủy, unitsDelivered: đơn đã giao.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "product_sales")
+public class ProductSales {
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Column(name = "units_sold", nullable = false)
+    private Long unitsSold;
+
+    @Column(name = "units_delivered", nullable = false)
+    private Long unitsDelivered;
+}
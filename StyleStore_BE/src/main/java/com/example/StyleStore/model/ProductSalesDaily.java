@@ -0,0 +1,36 @@
+package com.example.StyleStore.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+
+/**
+ * Bộ đếm số lượng bán của 1 sản phẩm theo ngày tạo đơn, cùng ý nghĩa với {@link ProductSales}.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "product_sales_daily", uniqueConstraints = @UniqueConstraint(
+        name = "uk_product_sales_daily_product_date", columnNames = { "product_id", "sale_date" }),
+        indexes = @Index(name = "idx_product_sales_daily_date", columnList = "sale_date"))
+public class ProductSalesDaily {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "sale_date", nullable = false)
+    private LocalDate saleDate;
+
+    @Column(name = "units_sold", nullable = false)
+    private Long unitsSold;
+
+    @Column(name = "units_delivered", nullable = false)
+    private Long unitsDelivered;
+}
@@ -3,7 +3,9 @@ package com.example.StyleStore.model;
 import jakarta.persistence.*;
 import lombok.*;
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonGetter;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import org.hibernate.annotations.Formula;
 
 @Getter
 @Setter
@@ -27,6 +29,22 @@ public class ProductSize {
     @JoinColumn(name = "size_id", nullable = false)
     private Size size;
 
+    // Bucket 0. Với SKU đã chia bucket, phần còn lại nằm ở product_size_stock_buckets
     @Column(name = "stock", nullable = false)
     private Integer stock;
+
+    // Tồn kho thực = stock + tổng các bucket phụ (chỉ đọc)
+    @Formula("(stock + COALESCE((SELECT SUM(b.stock) FROM product_size_stock_buckets b WHERE b.product_size_id = id), 0))")
+    private Integer totalStock;
+
+    // null khi entity chưa được load lại từ DB (vừa persist) → chưa có bucket phụ
+    public Integer getTotalStock() {
+        return totalStock != null ? totalStock : stock;
+    }
+
+    // JSON trả cho client: "stock" là tồn kho thực; JSON gửi lên vẫn ghi vào bucket 0 qua setStock
+    @JsonGetter("stock")
+    public Integer getAvailableStock() {
+        return getTotalStock();
+    }
 }
@@ -0,0 +1,35 @@
+package com.example.StyleStore.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Bucket tồn kho phụ của một SKU "nóng" (striped stock).
+ * Row product_sizes là bucket 0, các bucket 1..N-1 nằm ở bảng này;
+ * tồn kho thực của SKU = product_sizes.stock + tổng stock các bucket.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "product_size_stock_buckets", uniqueConstraints = @UniqueConstraint(
+        name = "uk_stock_bucket_product_size_index", columnNames = { "product_size_id", "bucket_index" }))
+public class ProductSizeStockBucket {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "product_size_id", nullable = false)
+    @JsonIgnore
+    private ProductSize productSize;
+
+    @Column(name = "bucket_index", nullable = false)
+    private Integer bucketIndex;
+
+    @Column(name = "stock", nullable = false)
+    private Integer stock;
+}
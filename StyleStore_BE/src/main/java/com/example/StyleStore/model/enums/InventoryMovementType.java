@@ -0,0 +1,12 @@
+package com.example.StyleStore.model.enums;
+
+public enum InventoryMovementType {
+    // Trừ kho khi tạo đơn
+    ORDER,
+    // Cộng lại khi hủy đơn
+    CANCEL,
+    // Nhập kho từ phiếu nhập
+    IMPORT,
+    // Admin đặt tồn kho trực tiếp (tạo/sửa sản phẩm)
+    ADJUST
+}
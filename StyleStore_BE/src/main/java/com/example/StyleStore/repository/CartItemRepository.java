@@ -2,16 +2,67 @@ package com.example.StyleStore.repository;
 
 import com.example.StyleStore.model.CartItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface CartItemRepository extends JpaRepository<CartItem, Long> {
+public interface CartItemRepository extends JpaRepository<CartItem, Long>, CartItemRepositoryCustom {
     Optional<CartItem> findByCart_IdAndProduct_IdAndSize_Id(Long cartId, Long productId, Long sizeId);
 
     List<CartItem> findByCart_Id(Long cartId);
 
     void deleteByCart_Id(Long cartId);
+
+    // 1 dòng giỏ hàng cho trang giỏ (cartItemId null khi giỏ rỗng)
+    interface CartViewProjection {
+        Long getCartId();
+
+        Long getCartItemId();
+
+        Long getProductId();
+
+        String getProductName();
+
+        String getThumbnail();
+
+        String getMaterial();
+
+        String getColor();
+
+        Double getCurrentPrice();
+
+        Double getCartPrice();
+
+        Long getSizeId();
+
+        String getSizeName();
+
+        Integer getQuantity();
+
+        Integer getAvailableStock();
+    }
+
+    // Toàn bộ giỏ trong 1 query: giỏ LEFT JOIN dòng hàng, sản phẩm, size và tồn kho hiện tại
+    @Query("""
+            SELECT c.id AS cartId, ci.id AS cartItemId, p.id AS productId, p.name AS productName,
+                   p.thumbnail AS thumbnail, p.material AS material, p.color AS color,
+                   p.price AS currentPrice, ci.price AS cartPrice, s.id AS sizeId, s.name AS sizeName,
+                   ci.quantity AS quantity, ps.totalStock AS availableStock
+            FROM Cart c
+            LEFT JOIN c.cartItems ci
+            LEFT JOIN ci.product p
+            LEFT JOIN ci.size s
+            LEFT JOIN ProductSize ps ON ps.product.id = p.id AND ps.size.id = s.id
+            WHERE c.user.id = :userId
+            ORDER BY ci.id
+            """)
+    List<CartViewProjection> findCartView(@Param("userId") Long userId);
+
+    // Chỉ đụng index carts.user_id và cart_items(cart_id, ...), không nạp entity
+    @Query("SELECT COUNT(ci) FROM CartItem ci WHERE ci.cart.user.id = :userId")
+    long countByUserId(@Param("userId") Long userId);
 }
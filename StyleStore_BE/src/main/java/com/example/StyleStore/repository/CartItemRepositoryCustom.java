@@ -0,0 +1,22 @@
+package com.example.StyleStore.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+public interface CartItemRepositoryCustom {
+
+    /**
+     * Một dòng giỏ hàng cho cặp (productId, sizeId).
+     */
+    record CartLine(Long productId, Long sizeId, int quantity, double price,
+            LocalDateTime createdAt, LocalDateTime updatedAt) {
+    }
+
+    /**
+     * Thay toàn bộ dòng hàng của nhiều giỏ bằng nội dung mới: 1 DELETE ... WHERE cart_id IN (...)
+     * rồi 1 JDBC batch INSERT. Dùng khi ghi xuống (write-behind) giỏ hàng đang giữ trên Redis.
+     * Phải được gọi trong transaction của caller.
+     */
+    void replaceCartItems(Map<Long, List<CartLine>> linesByCartId);
+}
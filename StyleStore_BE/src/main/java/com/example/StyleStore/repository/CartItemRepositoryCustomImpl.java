@@ -0,0 +1,61 @@
+package com.example.StyleStore.repository;
+
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+public class CartItemRepositoryCustomImpl implements CartItemRepositoryCustom {
+
+    private static final String INSERT_SQL = "INSERT INTO cart_items "
+            + "(cart_id, product_id, size_id, quantity, price, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private record Row(Long cartId, CartLine line) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CartItemRepositoryCustomImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void replaceCartItems(Map<Long, List<CartLine>> linesByCartId) {
+        if (linesByCartId.isEmpty()) {
+            return;
+        }
+        List<Long> cartIds = List.copyOf(linesByCartId.keySet());
+        jdbcTemplate.update("DELETE FROM cart_items WHERE cart_id IN ("
+                + String.join(",", Collections.nCopies(cartIds.size(), "?")) + ")", cartIds.toArray());
+
+        List<Row> rows = new ArrayList<>();
+        linesByCartId.forEach((cartId, lines) -> lines.forEach(line -> rows.add(new Row(cartId, line))));
+        if (rows.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Row row = rows.get(i);
+                ps.setLong(1, row.cartId());
+                ps.setLong(2, row.line().productId());
+                ps.setLong(3, row.line().sizeId());
+                ps.setInt(4, row.line().quantity());
+                ps.setDouble(5, row.line().price());
+                ps.setTimestamp(6, Timestamp.valueOf(row.line().createdAt()));
+                ps.setTimestamp(7, Timestamp.valueOf(row.line().updatedAt()));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        });
+    }
+}
@@ -23,7 +23,8 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
     @Query(value = """
             SELECT c.id AS categoryId,
                    c.name AS categoryName,
-                   COALESCE(SUM(ps.stock), 0) AS totalStock
+                   COALESCE(SUM(ps.stock + COALESCE((SELECT SUM(b.stock) FROM product_size_stock_buckets b
+                                                     WHERE b.product_size_id = ps.id), 0)), 0) AS totalStock
             FROM categories c
             LEFT JOIN products p ON p.category_id = c.id
             LEFT JOIN product_sizes ps ON ps.product_id = p.id
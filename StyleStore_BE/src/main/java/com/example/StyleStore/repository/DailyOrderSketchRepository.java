@@ -0,0 +1,30 @@
+package com.example.StyleStore.repository;
+
+import com.example.StyleStore.model.DailyOrderSketch;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface DailyOrderSketchRepository extends JpaRepository<DailyOrderSketch, LocalDate> {
+
+    // Khóa row của ngày trong lúc gộp delta (nhiều node cùng ghi 1 ngày)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM DailyOrderSketch s WHERE s.saleDate = :saleDate")
+    Optional<DailyOrderSketch> findForUpdate(@Param("saleDate") LocalDate saleDate);
+
+    List<DailyOrderSketch> findBySaleDateGreaterThanEqualAndSaleDateLessThanOrderBySaleDate(
+            LocalDate from, LocalDate to);
+
+    @Modifying
+    @Query("DELETE FROM DailyOrderSketch s WHERE s.saleDate >= :from AND s.saleDate < :to")
+    int deleteRange(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
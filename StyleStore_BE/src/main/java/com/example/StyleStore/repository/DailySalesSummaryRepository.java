@@ -0,0 +1,46 @@
+package com.example.StyleStore.repository;
+
+import com.example.StyleStore.model.DailySalesSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface DailySalesSummaryRepository
+        extends JpaRepository<DailySalesSummary, LocalDate>, DailySalesSummaryRepositoryCustom {
+
+    interface ProductSalesProjection {
+        Long getProductId();
+
+        String getProductName();
+
+        Long getQuantitySold();
+    }
+
+    // Tối đa 1 dòng mỗi ngày, range scan theo khóa chính
+    List<DailySalesSummary> findBySaleDateGreaterThanEqualAndSaleDateLessThanOrderBySaleDate(
+            LocalDate from, LocalDate to);
+
+    @Query("""
+            SELECT COALESCE(SUM(d.revenue), 0)
+            FROM DailySalesSummary d
+            WHERE d.saleDate >= :from AND d.saleDate < :to
+            """)
+    BigDecimal sumRevenue(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("""
+            SELECT p.id AS productId, p.name AS productName, SUM(d.unitsDelivered) AS quantitySold
+            FROM ProductSalesDaily d, Product p
+            WHERE p.id = d.productId
+              AND d.saleDate >= :from AND d.saleDate < :to
+              AND d.unitsDelivered > 0
+            GROUP BY p.id, p.name
+            ORDER BY SUM(d.unitsDelivered) DESC, p.id ASC
+            """)
+    List<ProductSalesProjection> sumProductSales(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
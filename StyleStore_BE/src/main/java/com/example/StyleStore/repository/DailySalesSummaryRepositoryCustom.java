@@ -0,0 +1,21 @@
+package com.example.StyleStore.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public interface DailySalesSummaryRepositoryCustom {
+
+    /**
+     * Cộng doanh thu và số đơn vào dòng của 1 ngày bằng upsert.
+     * Phải được gọi trong transaction của đơn hàng.
+     */
+    void applyDelta(LocalDate saleDate, BigDecimal revenue, long orderCount);
+
+    /**
+     * Tính lại daily_sales_summary và product_sales_daily của các ngày trong [from, to)
+     * từ orders/order_items. Dùng cho backfill và đối soát định kỳ.
+     *
+     * @return số dòng daily_sales_summary được ghi
+     */
+    int rebuildRange(LocalDate from, LocalDate to);
+}
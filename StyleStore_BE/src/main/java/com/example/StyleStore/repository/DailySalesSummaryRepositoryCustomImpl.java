@@ -0,0 +1,57 @@
+package com.example.StyleStore.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+
+public class DailySalesSummaryRepositoryCustomImpl implements DailySalesSummaryRepositoryCustom {
+
+    private static final String UPSERT_SQL = "INSERT INTO daily_sales_summary (sale_date, revenue, order_count) "
+            + "VALUES (?, ?, ?) ON DUPLICATE KEY UPDATE revenue = revenue + VALUES(revenue), "
+            + "order_count = order_count + VALUES(order_count)";
+
+    private static final String DELETE_SUMMARY_SQL = "DELETE FROM daily_sales_summary WHERE sale_date >= ? AND sale_date < ?";
+
+    private static final String INSERT_SUMMARY_SQL = "INSERT INTO daily_sales_summary (sale_date, revenue, order_count) "
+            + "SELECT CAST(o.created_at AS DATE), SUM(o.total_amount), COUNT(*) FROM orders o "
+            + "WHERE o.status = 'DELIVERED' AND o.created_at >= ? AND o.created_at < ? "
+            + "GROUP BY CAST(o.created_at AS DATE)";
+
+    private static final String DELETE_PRODUCT_DAILY_SQL = "DELETE FROM product_sales_daily WHERE sale_date >= ? AND sale_date < ?";
+
+    private static final String INSERT_PRODUCT_DAILY_SQL = "INSERT INTO product_sales_daily "
+            + "(product_id, sale_date, units_sold, units_delivered) "
+            + "SELECT oi.product_id, CAST(o.created_at AS DATE), "
+            + "SUM(CASE WHEN o.status <> 'CANCELLED' THEN oi.quantity ELSE 0 END), "
+            + "SUM(CASE WHEN o.status = 'DELIVERED' THEN oi.quantity ELSE 0 END) "
+            + "FROM order_items oi JOIN orders o ON o.id = oi.order_id "
+            + "WHERE o.created_at >= ? AND o.created_at < ? "
+            + "GROUP BY oi.product_id, CAST(o.created_at AS DATE)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public DailySalesSummaryRepositoryCustomImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void applyDelta(LocalDate saleDate, BigDecimal revenue, long orderCount) {
+        jdbcTemplate.update(UPSERT_SQL, Date.valueOf(saleDate), revenue, orderCount);
+    }
+
+    @Override
+    public int rebuildRange(LocalDate from, LocalDate to) {
+        Date fromDate = Date.valueOf(from);
+        Date toDate = Date.valueOf(to);
+        Timestamp fromTime = Timestamp.valueOf(from.atStartOfDay());
+        Timestamp toTime = Timestamp.valueOf(to.atStartOfDay());
+
+        jdbcTemplate.update(DELETE_PRODUCT_DAILY_SQL, fromDate, toDate);
+        jdbcTemplate.update(INSERT_PRODUCT_DAILY_SQL, fromTime, toTime);
+        jdbcTemplate.update(DELETE_SUMMARY_SQL, fromDate, toDate);
+        return jdbcTemplate.update(INSERT_SUMMARY_SQL, fromTime, toTime);
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.StyleStore.repository;
+
+import com.example.StyleStore.model.InventoryMovement;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface InventoryMovementRepository
+        extends JpaRepository<InventoryMovement, Long>, InventoryMovementRepositoryCustom {
+
+    Page<InventoryMovement> findByProductIdAndSizeId(Long productId, Long sizeId, Pageable pageable);
+
+    // Range scan trên idx_inventory_movements_sku_created
+    @Query("""
+            SELECT COALESCE(SUM(m.quantity), 0)
+            FROM InventoryMovement m
+            WHERE m.productId = :productId AND m.sizeId = :sizeId
+              AND m.createdAt >= :from AND m.createdAt < :to
+            """)
+    long sumQuantity(@Param("productId") Long productId, @Param("sizeId") Long sizeId,
+            @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+}
@@ -0,0 +1,34 @@
+package com.example.StyleStore.repository;
+
+import com.example.StyleStore.model.enums.InventoryMovementType;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+public interface InventoryMovementRepositoryCustom {
+
+    /**
+     * Thay đổi tồn kho của cặp (productId, sizeId): dương là nhập vào, âm là xuất ra.
+     */
+    record Movement(Long productId, Long sizeId, int quantity) {
+    }
+
+    /**
+     * Thêm các dòng sổ kho trong 1 JDBC batch. Chỉ INSERT, không khóa row nào,
+     * nên các đơn hàng ghi sổ song song không tranh chấp nhau.
+     * Phải được gọi trong transaction thay đổi tồn kho để sổ và product_sizes luôn khớp.
+     */
+    void appendMovements(InventoryMovementType type, Long referenceId, List<Movement> movements);
+
+    /**
+     * Như trên cho nhiều chứng từ (ví dụ nhiều đơn hủy cùng lúc) trong 1 JDBC batch.
+     */
+    void appendMovements(InventoryMovementType type, Map<Long, List<Movement>> movementsByReference);
+
+    /**
+     * Gộp các dòng sổ kho có created_at trong [lần gộp trước, cutoff) vào snapshot mới tại cutoff,
+     * chỉ cho các SKU có thay đổi. Trả về số snapshot được tạo.
+     */
+    int compactSnapshots(LocalDateTime cutoff);
+}
@@ -0,0 +1,142 @@
+package com.example.StyleStore.repository;
+
+import com.example.StyleStore.model.enums.InventoryMovementType;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+public class InventoryMovementRepositoryCustomImpl implements InventoryMovementRepositoryCustom {
+
+    private static final String INSERT_MOVEMENT_SQL = "INSERT INTO inventory_movements "
+            + "(product_id, size_id, quantity, type, reference_id, created_at) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String LAST_CUTOFF_SQL = "SELECT MAX(as_of) FROM inventory_snapshots";
+
+    private static final String SUM_SINCE_SQL = "SELECT product_id, size_id, SUM(quantity) AS quantity "
+            + "FROM inventory_movements WHERE created_at >= ? AND created_at < ? GROUP BY product_id, size_id";
+
+    private static final String LATEST_SNAPSHOTS_SQL = "SELECT s.product_id, s.size_id, s.stock "
+            + "FROM inventory_snapshots s WHERE s.product_id IN (:productIds) AND s.as_of = ("
+            + "SELECT MAX(s2.as_of) FROM inventory_snapshots s2 "
+            + "WHERE s2.product_id = s.product_id AND s2.size_id = s.size_id)";
+
+    private static final String INSERT_SNAPSHOT_SQL = "INSERT INTO inventory_snapshots "
+            + "(product_id, size_id, stock, as_of) VALUES (?, ?, ?, ?)";
+
+    // Trước mọi dòng sổ kho, dùng khi chưa có snapshot nào
+    private static final Timestamp EPOCH = Timestamp.valueOf("1970-01-01 00:00:00");
+
+    private record SnapshotRow(Long productId, Long sizeId, long stock) {
+    }
+
+    private record MovementRow(Long referenceId, Movement movement) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    public InventoryMovementRepositoryCustomImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+    }
+
+    @Override
+    public void appendMovements(InventoryMovementType type, Long referenceId, List<Movement> movements) {
+        Map<Long, List<Movement>> movementsByReference = new HashMap<>();
+        movementsByReference.put(referenceId, movements == null ? List.of() : movements);
+        appendMovements(type, movementsByReference);
+    }
+
+    @Override
+    public void appendMovements(InventoryMovementType type, Map<Long, List<Movement>> movementsByReference) {
+        List<MovementRow> rows = new ArrayList<>();
+        movementsByReference.forEach((referenceId, movements) -> movements.stream()
+                .filter(movement -> movement.quantity() != 0)
+                .forEach(movement -> rows.add(new MovementRow(referenceId, movement))));
+        if (rows.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_MOVEMENT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                MovementRow row = rows.get(i);
+                ps.setLong(1, row.movement().productId());
+                ps.setLong(2, row.movement().sizeId());
+                ps.setInt(3, row.movement().quantity());
+                ps.setString(4, type.name());
+                if (row.referenceId() != null) {
+                    ps.setLong(5, row.referenceId());
+                } else {
+                    ps.setNull(5, Types.BIGINT);
+                }
+                ps.setTimestamp(6, now);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        });
+    }
+
+    @Override
+    public int compactSnapshots(LocalDateTime cutoff) {
+        Timestamp lastCutoff = jdbcTemplate.queryForObject(LAST_CUTOFF_SQL, Timestamp.class);
+        Timestamp from = lastCutoff != null ? lastCutoff : EPOCH;
+        Timestamp to = Timestamp.valueOf(cutoff);
+        if (!from.before(to)) {
+            return 0;
+        }
+
+        List<SnapshotRow> deltas = jdbcTemplate.query(SUM_SINCE_SQL, (rs, rowNum) -> new SnapshotRow(
+                rs.getLong("product_id"), rs.getLong("size_id"), rs.getLong("quantity")), from, to);
+        if (deltas.isEmpty()) {
+            return 0;
+        }
+
+        Set<Long> productIds = deltas.stream().map(SnapshotRow::productId).collect(Collectors.toSet());
+        Map<String, Long> previous = new HashMap<>();
+        RowCallbackHandler collectPrevious = rs -> previous.put(
+                rs.getLong("product_id") + ":" + rs.getLong("size_id"), rs.getLong("stock"));
+        namedParameterJdbcTemplate.query(LATEST_SNAPSHOTS_SQL, new MapSqlParameterSource("productIds", productIds),
+                collectPrevious);
+
+        List<SnapshotRow> snapshots = new ArrayList<>();
+        for (SnapshotRow delta : deltas) {
+            long base = previous.getOrDefault(delta.productId() + ":" + delta.sizeId(), 0L);
+            snapshots.add(new SnapshotRow(delta.productId(), delta.sizeId(), base + delta.stock()));
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_SNAPSHOT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                SnapshotRow snapshot = snapshots.get(i);
+                ps.setLong(1, snapshot.productId());
+                ps.setLong(2, snapshot.sizeId());
+                ps.setLong(3, snapshot.stock());
+                ps.setTimestamp(4, to);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return snapshots.size();
+            }
+        });
+        return snapshots.size();
+    }
+}
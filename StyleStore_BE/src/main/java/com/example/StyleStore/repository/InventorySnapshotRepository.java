@@ -0,0 +1,15 @@
+package com.example.StyleStore.repository;
+
+import com.example.StyleStore.model.InventorySnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface InventorySnapshotRepository extends JpaRepository<InventorySnapshot, Long> {
+
+    Optional<InventorySnapshot> findFirstByProductIdAndSizeIdAndAsOfLessThanEqualOrderByAsOfDesc(
+            Long productId, Long sizeId, LocalDateTime asOf);
+}
@@ -1,12 +1,90 @@
 package com.example.StyleStore.repository;
 
 import com.example.StyleStore.model.OrderItem;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
     List<OrderItem> findByOrderId(Long orderId);
+
+    // Dòng hàng của nhiều đơn trong 1 query (kèm product) cho thao tác hàng loạt
+    @Query("SELECT oi FROM OrderItem oi JOIN FETCH oi.product WHERE oi.order.id IN :orderIds")
+    List<OrderItem> findByOrderIdIn(@Param("orderIds") Collection<Long> orderIds);
+
+    // 1 dòng hàng cho trang chi tiết đơn: product và size đã được join sẵn
+    interface OrderItemLineProjection {
+        Long getId();
+
+        Long getProductId();
+
+        String getProductName();
+
+        String getProductImage();
+
+        String getProductColor();
+
+        Long getSizeId();
+
+        String getSizeName();
+
+        Integer getQuantity();
+
+        Double getPrice();
+    }
+
+    @Query("""
+            SELECT oi.id AS id, p.id AS productId, p.name AS productName, p.thumbnail AS productImage,
+                   p.color AS productColor, s.id AS sizeId, s.name AS sizeName,
+                   oi.quantity AS quantity, oi.price AS price
+            FROM OrderItem oi
+            JOIN oi.product p
+            JOIN oi.size s
+            WHERE oi.order.id = :orderId
+            ORDER BY oi.id
+            """)
+    List<OrderItemLineProjection> findLinesByOrderId(@Param("orderId") Long orderId);
+
+    interface DeliveredLineProjection {
+        Long getId();
+
+        LocalDateTime getOrderCreatedAt();
+
+        Long getProductId();
+
+        Long getCategoryId();
+
+        Long getSizeId();
+
+        String getGender();
+
+        Long getPromotionId();
+
+        Integer getQuantity();
+
+        Double getPrice();
+    }
+
+    // Các dòng của đơn đã giao, đọc theo lô bằng keyset trên oi.id
+    @Query("""
+            SELECT oi.id AS id, o.createdAt AS orderCreatedAt, p.id AS productId, c.id AS categoryId,
+                   oi.size.id AS sizeId, p.gender AS gender, pr.id AS promotionId,
+                   oi.quantity AS quantity, oi.price AS price
+            FROM OrderItem oi
+            JOIN oi.order o
+            JOIN oi.product p
+            LEFT JOIN p.category c
+            LEFT JOIN o.promotion pr
+            WHERE o.status = com.example.StyleStore.model.enums.OrderStatus.DELIVERED
+              AND oi.id > :afterId
+            ORDER BY oi.id
+            """)
+    List<DeliveredLineProjection> findDeliveredLinesAfter(@Param("afterId") Long afterId, Limit limit);
 }
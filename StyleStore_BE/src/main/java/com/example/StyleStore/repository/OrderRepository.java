@@ -1,110 +1,112 @@
 package com.example.StyleStore.repository;
 
-import com.example.StyleStore.dto.response.stats.BestSellingProductsInCategoriesDTO;
 import com.example.StyleStore.model.Order;
 import com.example.StyleStore.model.enums.OrderStatus;
+import com.example.StyleStore.model.enums.PaymentMethod;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
 
-    interface MonthlyRevenueProjection {
-        Integer getYear();
+    interface OrderSketchSourceProjection {
+        LocalDateTime getCreatedAt();
 
-        Integer getMonth();
+        Long getUserId();
 
-        BigDecimal getRevenue();
+        OrderStatus getStatus();
+
+        Double getFinalAmount();
     }
 
-    interface ProductSalesProjection {
-        Long getProductId();
+    // 1 dòng danh sách đơn hàng: user và promotion đã được join sẵn, không lazy load theo từng đơn
+    interface OrderSummaryProjection {
+        Long getId();
+
+        Long getUserId();
+
+        String getUserName();
+
+        String getReceiverPhoneNumber();
+
+        Double getTotalAmount();
+
+        Double getDiscountAmount();
+
+        Double getFinalAmount();
 
-        String getProductName();
+        Long getPromotionId();
 
-        Long getQuantitySold();
+        String getPromotionCode();
+
+        String getShippingAddress();
+
+        PaymentMethod getPaymentMethod();
+
+        OrderStatus getStatus();
+
+        LocalDateTime getCreatedAt();
+
+        LocalDateTime getUpdatedAt();
     }
 
-    // get sum Revenue By Month
-    @Query(value = """
-            SELECT YEAR(o.created_at)   AS year,
-            			 MONTH(o.created_at)  AS month,
-            			 COALESCE(SUM(o.total_amount), 0) AS revenue
-            FROM orders o
-            WHERE o.created_at >= :from AND o.created_at < :to
-            	AND o.status = :completedStatus
-            GROUP BY YEAR(o.created_at), MONTH(o.created_at)
-            ORDER BY year, month
-            """, nativeQuery = true)
-    List<MonthlyRevenueProjection> sumRevenueByMonth(
-            @Param("from") LocalDateTime from,
-            @Param("to") LocalDateTime to,
-            @Param("completedStatus") String completedStatus);
-
-    // get revenue by month
-    @Query(value = """
-            SELECT COALESCE(SUM(o.total_amount), 0) AS revenue
-            FROM orders o
-            WHERE YEAR(o.created_at) = :year AND MONTH(o.created_at) = :month
-              AND o.status = :completedStatus
-            """, nativeQuery = true)
-    Optional<BigDecimal> getRevenueByYearMonth(
-            @Param("year") int year,
-            @Param("month") int month,
-            @Param("completedStatus") String completedStatus);
-
-    // get revenue by date range
-    @Query(value = """
-            SELECT COALESCE(SUM(o.total_amount), 0) AS revenue
-            FROM orders o
-            WHERE o.created_at >= :from AND o.created_at < :to
-              AND o.status = :completedStatus
-            """, nativeQuery = true)
-    Optional<BigDecimal> getRevenueByDateRange(
-            @Param("from") LocalDateTime from,
-            @Param("to") LocalDateTime to,
-            @Param("completedStatus") String completedStatus);
-
-    // get revenue by year
-    @Query(value = """
-            SELECT COALESCE(SUM(o.total_amount), 0) AS revenue
-            FROM orders o
-            WHERE YEAR(o.created_at) = :year
-              AND o.status = :completedStatus
-            """, nativeQuery = true)
-    Optional<BigDecimal> getRevenueByYear(
-            @Param("year") int year,
-            @Param("completedStatus") String completedStatus);
+    // Keyset pagination: WHERE (sortKey, id) > cursor thay vì OFFSET, không COUNT(*)
+    @EntityGraph(attributePaths = { "user", "promotion" })
+    Window<Order> findAllBy(ScrollPosition position, Sort sort, Limit limit);
 
     @Query(value = """
-            SELECT
-                p.id AS productId,
-                p.name AS productName,
-                COALESCE(SUM(oi.quantity), 0) AS quantitySold
-            FROM order_items oi
-            JOIN orders o ON o.id = oi.order_id
-            JOIN products p ON p.id = oi.product_id
-            WHERE o.created_at >= :from AND o.created_at < :to
-                AND o.status = :completedStatus
-            GROUP BY p.id, p.name
-            ORDER BY quantitySold DESC, p.id ASC
-            """, nativeQuery = true)
-    List<ProductSalesProjection> getProductSalesByDateRange(
-            @Param("from") LocalDateTime from,
-            @Param("to") LocalDateTime to,
-            @Param("completedStatus") String completedStatus);
+            SELECT o.id AS id, u.id AS userId, u.fullName AS userName, o.receiverPhoneNumber AS receiverPhoneNumber,
+                   o.totalAmount AS totalAmount, o.discountAmount AS discountAmount, o.finalAmount AS finalAmount,
+                   p.id AS promotionId, p.code AS promotionCode, o.shippingAddress AS shippingAddress, o.paymentMethod AS paymentMethod,
+                   o.status AS status, o.createdAt AS createdAt, o.updatedAt AS updatedAt
+            FROM Order o
+            LEFT JOIN o.user u
+            LEFT JOIN o.promotion p
+            WHERE (:status IS NULL OR o.status = :status)
+              AND (:userId IS NULL OR u.id = :userId)
+            """, countQuery = """
+            SELECT COUNT(o)
+            FROM Order o
+            WHERE (:status IS NULL OR o.status = :status)
+              AND (:userId IS NULL OR o.user.id = :userId)
+            """)
+    Page<OrderSummaryProjection> findSummaries(
+            @Param("status") OrderStatus status,
+            @Param("userId") Long userId,
+            Pageable pageable);
 
-    @Query("""
-            SELECT o
+    @Query(value = """
+            SELECT o.id AS id, u.id AS userId, u.fullName AS userName, o.receiverPhoneNumber AS receiverPhoneNumber,
+                   o.totalAmount AS totalAmount, o.discountAmount AS discountAmount, o.finalAmount AS finalAmount,
+                   p.id AS promotionId, p.code AS promotionCode, o.shippingAddress AS shippingAddress, o.paymentMethod AS paymentMethod,
+                   o.status AS status, o.createdAt AS createdAt, o.updatedAt AS updatedAt
+            FROM Order o
+            JOIN o.user u
+            LEFT JOIN o.promotion p
+            WHERE (
+                    LOWER(u.fullName) LIKE LOWER(CONCAT('%', :keyword, '%'))
+                    OR (:orderId IS NOT NULL AND o.id = :orderId)
+                  )
+              AND (:status IS NULL OR o.status = :status)
+            """, countQuery = """
+            SELECT COUNT(o)
             FROM Order o
             JOIN o.user u
             WHERE (
@@ -113,99 +115,62 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
                   )
               AND (:status IS NULL OR o.status = :status)
             """)
-    Page<Order> searchByUserNameOrOrderIdAndStatus(
+    Page<OrderSummaryProjection> searchByUserNameOrOrderIdAndStatus(
             @Param("keyword") String keyword,
             @Param("orderId") Long orderId,
             @Param("status") OrderStatus status,
             Pageable pageable);
 
-    Page<Order> findByStatus(OrderStatus status, Pageable pageable);
-
-        Page<Order> findByUser_Id(Long userId, Pageable pageable);
+    @Query("""
+            SELECT o.id AS id, u.id AS userId, u.fullName AS userName, o.receiverPhoneNumber AS receiverPhoneNumber,
+                   o.totalAmount AS totalAmount, o.discountAmount AS discountAmount, o.finalAmount AS finalAmount,
+                   p.id AS promotionId, p.code AS promotionCode, o.shippingAddress AS shippingAddress, o.paymentMethod AS paymentMethod,
+                   o.status AS status, o.createdAt AS createdAt, o.updatedAt AS updatedAt
+            FROM Order o
+            LEFT JOIN o.user u
+            LEFT JOIN o.promotion p
+            WHERE o.id = :id
+            """)
+    Optional<OrderSummaryProjection> findSummaryById(@Param("id") Long id);
 
-    // get best-selling in categories
+    // Đếm số đơn hàng theo userId và status
+    long countByUser_IdAndStatusIn(Long userId, List<OrderStatus> statuses);
 
-    @Query(value = """
-                    SELECT category_id, category_name, product_id, product_name, product_thumbnail, total_sold
-            FROM (
-                SELECT
-                    c.id AS category_id,
-                    c.name AS category_name,
-                    p.name AS product_name,
-                    p.id AS product_id,
-                    p.thumbnail AS product_thumbnail,
-                    SUM(oi.quantity) AS total_sold,
-                    ROW_NUMBER() OVER (
-                        PARTITION BY c.id
-                        ORDER BY SUM(oi.quantity) DESC
-                    ) AS rn
-                FROM categories c
-                JOIN products p ON c.id = p.category_id
-                JOIN order_items oi ON oi.product_id = p.id
-                GROUP BY c.id, c.name, p.id, p.name, p.thumbnail
-            ) t
-                        WHERE rn = 1;
-                    """, nativeQuery = true)
-    List<BestSellingProductsInCategoriesDTO> getBestSellingProductsInCategories();
-
-        @Query(value = """
-                                        SELECT category_id, category_name, product_id, product_name, product_thumbnail, total_sold
-                        FROM (
-                                SELECT
-                                        c.id AS category_id,
-                                        c.name AS category_name,
-                                        p.name AS product_name,
-                                        p.id AS product_id,
-                                        p.thumbnail AS product_thumbnail,
-                                        SUM(oi.quantity) AS total_sold,
-                                        ROW_NUMBER() OVER (
-                                                PARTITION BY c.id
-                                                ORDER BY SUM(oi.quantity) DESC
-                                        ) AS rn
-                                FROM categories c
-                                JOIN products p ON c.id = p.category_id
-                                JOIN order_items oi ON oi.product_id = p.id
-                                GROUP BY c.id, c.name, p.id, p.name, p.thumbnail
-                        ) t
-                        WHERE rn <= 5;
-                                        """, nativeQuery = true)
-        List<BestSellingProductsInCategoriesDTO> getTop5BestSellingProductsInCategories();
-
-    interface TopProductProjection {
-        Long getProductId();
-        String getProductName();
-        String getProductThumbnail();
-        Long getTotalSold();
-    }
+    // Nguồn để tính lại sketch theo ngày (range scan trên idx_orders_created_id)
+    @Query("""
+            SELECT o.createdAt AS createdAt, o.user.id AS userId, o.status AS status, o.finalAmount AS finalAmount
+            FROM Order o
+            WHERE o.createdAt >= :from AND o.createdAt < :to
+            """)
+    List<OrderSketchSourceProjection> findSketchSources(@Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to);
 
-    @Query(value = """
-            SELECT p.id AS product_id,
-                   p.name AS product_name,
-                   p.thumbnail AS product_thumbnail,
-                   COALESCE(SUM(oi.quantity),0) AS total_sold
-            FROM order_items oi
-            JOIN products p ON p.id = oi.product_id
-            GROUP BY p.id, p.name, p.thumbnail
-            ORDER BY total_sold DESC
-            LIMIT 5
-            """, nativeQuery = true)
-    List<TopProductProjection> getTop5ProductsOverall();
+    // Chuyển trạng thái 1 đơn nguyên tử: 0 dòng nghĩa là đơn không tồn tại hoặc đã rời trạng thái nguồn
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            UPDATE Order o SET o.status = :status, o.updatedAt = :updatedAt
+            WHERE o.id = :id AND o.status = :fromStatus
+            """)
+    int updateStatusIfCurrent(@Param("id") Long id,
+            @Param("fromStatus") OrderStatus fromStatus,
+            @Param("status") OrderStatus status,
+            @Param("updatedAt") LocalDateTime updatedAt);
 
-    @Query(value = """
-            SELECT p.id AS product_id,
-                   p.name AS product_name,
-                   p.thumbnail AS product_thumbnail,
-                   COALESCE(SUM(oi.quantity),0) AS total_sold
-            FROM order_items oi
-            JOIN products p ON p.id = oi.product_id
-            WHERE p.category_id = :categoryId
-            GROUP BY p.id, p.name, p.thumbnail
-            ORDER BY total_sold DESC
-            LIMIT 5
-            """, nativeQuery = true)
-    List<TopProductProjection> getTop5ProductsByCategory(@Param("categoryId") Long categoryId);
+    // Khóa các đơn sẽ chuyển trạng thái hàng loạt, theo thứ tự id để 2 lô chồng nhau không deadlock
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM Order o WHERE o.id IN :ids AND o.status IN :statuses ORDER BY o.id")
+    List<Order> findAllForTransition(@Param("ids") Collection<Long> ids,
+            @Param("statuses") Collection<OrderStatus> statuses);
 
-    // Đếm số đơn hàng theo userId và status
-    long countByUser_IdAndStatusIn(Long userId, List<OrderStatus> statuses);
+    // 1 câu UPDATE cho cả lô, chỉ chạm vào đơn còn ở trạng thái nguồn
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            UPDATE Order o SET o.status = :status, o.updatedAt = :updatedAt
+            WHERE o.id IN :ids AND o.status IN :fromStatuses
+            """)
+    int updateStatusWhereStatusIn(@Param("ids") Collection<Long> ids,
+            @Param("fromStatuses") Collection<OrderStatus> fromStatuses,
+            @Param("status") OrderStatus status,
+            @Param("updatedAt") LocalDateTime updatedAt);
 }
 
@@ -1,23 +1,50 @@
 package com.example.StyleStore.repository;
 
+import com.example.StyleStore.dto.response.ProductCardResponse;
 import com.example.StyleStore.model.Category;
 import com.example.StyleStore.model.Product;
 import com.example.StyleStore.model.enums.ProductStatus;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
     long count();
 
+    // Chi tiết sản phẩm: category + sizes trong 1 query (productImages khởi tạo riêng để tránh MultipleBagFetchException)
+    @EntityGraph(attributePaths = { "category", "productSizes", "productSizes.size" })
+    @Query("SELECT p FROM Product p WHERE p.id = :id")
+    Optional<Product> findDetailById(@Param("id") Long id);
+
     Page<Product> findByStatus(ProductStatus status, Pageable pageable);
 
+    // Nạp index tìm kiếm: chỉ cần thêm tên danh mục
+    @EntityGraph(attributePaths = { "category" })
+    List<Product> findAllByStatus(ProductStatus status);
+
+    @EntityGraph(attributePaths = { "category" })
+    Optional<Product> findWithCategoryById(Long id);
+
+    @EntityGraph(attributePaths = { "category" })
+    List<Product> findAllWithCategoryByIdIn(Collection<Long> ids);
+
+    // Keyset pagination: WHERE (sortKey, id) > cursor thay vì OFFSET, không COUNT(*)
+    @EntityGraph(attributePaths = { "category" })
+    Window<Product> findByStatus(ProductStatus status, ScrollPosition position, Sort sort, Limit limit);
+
     Page<Product> findByCategoryAndStatus(Category category, ProductStatus status, Pageable pageable);
 
     Page<Product> findByGenderAndStatus(String gender, ProductStatus status, Pageable pageable);
@@ -67,4 +94,45 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
             @Param("status") ProductStatus status,
             Pageable pageable);
 
+    // Thẻ sản phẩm cho trang danh sách: chỉ lấy cột cần hiển thị, không load sizes/images
+    // filterGender = false thì bỏ qua điều kiện genders (genders không được rỗng vì dùng trong IN)
+    // countQuery phải cùng JOIN với query chính, nếu không sản phẩm không có category bị đếm mà không hiển thị
+    @Query(value = """
+            SELECT new com.example.StyleStore.dto.response.ProductCardResponse(
+                p.id, p.name, p.price, p.thumbnail, c.name, p.gender)
+            FROM Product p
+            JOIN p.category c
+            WHERE p.status = :status
+              AND (:categoryId IS NULL OR c.id = :categoryId)
+              AND (:filterGender = false OR LOWER(p.gender) IN :genders)
+              AND (:name IS NULL OR LOWER(p.name) LIKE LOWER(CONCAT('%', :name, '%')))
+            """, countQuery = """
+            SELECT COUNT(p)
+            FROM Product p
+            JOIN p.category c
+            WHERE p.status = :status
+              AND (:categoryId IS NULL OR c.id = :categoryId)
+              AND (:filterGender = false OR LOWER(p.gender) IN :genders)
+              AND (:name IS NULL OR LOWER(p.name) LIKE LOWER(CONCAT('%', :name, '%')))
+            """)
+    Page<ProductCardResponse> findProductCards(
+            @Param("status") ProductStatus status,
+            @Param("categoryId") Long categoryId,
+            @Param("filterGender") boolean filterGender,
+            @Param("genders") Collection<String> genders,
+            @Param("name") String name,
+            Pageable pageable);
+
+    // Thẻ sản phẩm theo danh sách id (kết quả tìm kiếm), thứ tự do caller sắp lại
+    @Query("""
+            SELECT new com.example.StyleStore.dto.response.ProductCardResponse(
+                p.id, p.name, p.price, p.thumbnail, c.name, p.gender)
+            FROM Product p
+            JOIN p.category c
+            WHERE p.id IN :ids AND p.status = :status
+            """)
+    List<ProductCardResponse> findProductCardsByIds(
+            @Param("ids") Collection<Long> ids,
+            @Param("status") ProductStatus status);
+
 }
@@ -0,0 +1,37 @@
+package com.example.StyleStore.repository;
+
+import com.example.StyleStore.model.ProductSales;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ProductSalesRepository extends JpaRepository<ProductSales, Long>, ProductSalesRepositoryCustom {
+
+    interface SalesTotalProjection {
+        Long getProductId();
+
+        Long getCategoryId();
+
+        Long getUnitsSold();
+    }
+
+    // Danh mục lấy theo sản phẩm hiện tại, sản phẩm đã xóa tự bị loại
+    @Query("""
+            SELECT s.productId AS productId, p.category.id AS categoryId, s.unitsSold AS unitsSold
+            FROM ProductSales s, Product p
+            WHERE p.id = s.productId
+            """)
+    List<SalesTotalProjection> findAllTotals();
+
+    @Query("""
+            SELECT s.productId AS productId, p.category.id AS categoryId, s.unitsSold AS unitsSold
+            FROM ProductSales s, Product p
+            WHERE p.id = s.productId AND s.productId IN :productIds
+            """)
+    List<SalesTotalProjection> findTotalsByProductIds(@Param("productIds") Collection<Long> productIds);
+}
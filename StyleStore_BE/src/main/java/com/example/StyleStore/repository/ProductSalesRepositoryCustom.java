@@ -0,0 +1,20 @@
+package com.example.StyleStore.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface ProductSalesRepositoryCustom {
+
+    /**
+     * Thay đổi bộ đếm bán hàng của 1 sản phẩm trong 1 ngày (giá trị âm khi hủy đơn).
+     */
+    record SalesDelta(Long productId, LocalDate saleDate, long unitsSold, long unitsDelivered) {
+    }
+
+    /**
+     * Cộng các delta vào product_sales và product_sales_daily bằng upsert trong 2 JDBC batch.
+     * Các dòng được sắp theo productId để 2 đơn hàng luôn khóa row theo cùng thứ tự.
+     * Phải được gọi trong transaction của đơn hàng.
+     */
+    void applySalesDeltas(List<SalesDelta> deltas);
+}
@@ -0,0 +1,80 @@
+package com.example.StyleStore.repository;
+
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ProductSalesRepositoryCustomImpl implements ProductSalesRepositoryCustom {
+
+    private static final String UPSERT_TOTAL_SQL = "INSERT INTO product_sales (product_id, units_sold, units_delivered) "
+            + "VALUES (?, ?, ?) ON DUPLICATE KEY UPDATE units_sold = units_sold + VALUES(units_sold), "
+            + "units_delivered = units_delivered + VALUES(units_delivered)";
+
+    private static final String UPSERT_DAILY_SQL = "INSERT INTO product_sales_daily "
+            + "(product_id, sale_date, units_sold, units_delivered) VALUES (?, ?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE units_sold = units_sold + VALUES(units_sold), "
+            + "units_delivered = units_delivered + VALUES(units_delivered)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ProductSalesRepositoryCustomImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void applySalesDeltas(List<SalesDelta> deltas) {
+        if (deltas == null || deltas.isEmpty()) {
+            return;
+        }
+
+        List<SalesDelta> daily = deltas.stream()
+                .sorted(Comparator.comparing(SalesDelta::productId).thenComparing(SalesDelta::saleDate))
+                .toList();
+        // Gộp theo sản phẩm cho bảng tổng
+        Map<Long, long[]> totals = new LinkedHashMap<>();
+        for (SalesDelta delta : daily) {
+            long[] total = totals.computeIfAbsent(delta.productId(), key -> new long[2]);
+            total[0] += delta.unitsSold();
+            total[1] += delta.unitsDelivered();
+        }
+        List<Map.Entry<Long, long[]>> totalRows = List.copyOf(totals.entrySet());
+
+        jdbcTemplate.batchUpdate(UPSERT_TOTAL_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Map.Entry<Long, long[]> row = totalRows.get(i);
+                ps.setLong(1, row.getKey());
+                ps.setLong(2, row.getValue()[0]);
+                ps.setLong(3, row.getValue()[1]);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return totalRows.size();
+            }
+        });
+
+        jdbcTemplate.batchUpdate(UPSERT_DAILY_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                SalesDelta delta = daily.get(i);
+                ps.setLong(1, delta.productId());
+                ps.setDate(2, Date.valueOf(delta.saleDate()));
+                ps.setLong(3, delta.unitsSold());
+                ps.setLong(4, delta.unitsDelivered());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return daily.size();
+            }
+        });
+    }
+}
@@ -1,19 +1,72 @@
 package com.example.StyleStore.repository;
 
 import com.example.StyleStore.model.ProductSize;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface ProductSizeRepository extends JpaRepository<ProductSize, Long> {
+public interface ProductSizeRepository extends JpaRepository<ProductSize, Long>, ProductSizeRepositoryCustom {
     Optional<ProductSize> findByProduct_IdAndSize_Id(Long productId, Long sizeId);
 
-    @Query(value = "SELECT COALESCE(SUM(ps.stock), 0) FROM product_sizes ps", nativeQuery = true)
+    // Lấy toàn bộ size (kèm Size) của nhiều sản phẩm trong 1 query IN
+    @Query("SELECT ps FROM ProductSize ps JOIN FETCH ps.size WHERE ps.product.id IN :productIds")
+    List<ProductSize> findAllByProductIdInFetchSize(@Param("productIds") Collection<Long> productIds);
+
+    // Như trên nhưng kèm Product: kiểm tra tồn kho cho thao tác giỏ hàng theo lô
+    @Query("SELECT ps FROM ProductSize ps JOIN FETCH ps.product JOIN FETCH ps.size WHERE ps.product.id IN :productIds")
+    List<ProductSize> findAllByProductIdInFetchProductAndSize(@Param("productIds") Collection<Long> productIds);
+
+    // Tồn kho thực của SKU, gồm cả các bucket phụ
+    @Query(value = "SELECT ps.stock + COALESCE((SELECT SUM(b.stock) FROM product_size_stock_buckets b " +
+           "WHERE b.product_size_id = ps.id), 0) FROM product_sizes ps " +
+           "WHERE ps.product_id = :productId AND ps.size_id = :sizeId", nativeQuery = true)
+    Optional<Integer> findStockByProductIdAndSizeId(@Param("productId") Long productId, @Param("sizeId") Long sizeId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT ps FROM ProductSize ps WHERE ps.product.id = :productId AND ps.size.id = :sizeId")
+    Optional<ProductSize> findByProductIdAndSizeIdForUpdate(@Param("productId") Long productId, @Param("sizeId") Long sizeId);
+
+    interface AvailableSizeProjection {
+        Long getProductId();
+
+        String getSizeName();
+    }
+
+    // Các size còn hàng (tính cả bucket phụ) của nhiều sản phẩm trong 1 query
+    @Query(value = """
+            SELECT ps.product_id AS productId, s.name AS sizeName
+            FROM product_sizes ps
+            JOIN sizes s ON s.id = ps.size_id
+            WHERE ps.product_id IN (:productIds)
+              AND ps.stock + COALESCE((SELECT SUM(b.stock) FROM product_size_stock_buckets b
+                                       WHERE b.product_size_id = ps.id), 0) > 0
+            ORDER BY ps.product_id, s.id
+            """, nativeQuery = true)
+    List<AvailableSizeProjection> findAvailableSizesByProductIds(@Param("productIds") Collection<Long> productIds);
+
+    // Như trên nhưng cho toàn bộ sản phẩm (dựng lại bitmap facet)
+    @Query(value = """
+            SELECT ps.product_id AS productId, s.name AS sizeName
+            FROM product_sizes ps
+            JOIN sizes s ON s.id = ps.size_id
+            WHERE ps.stock + COALESCE((SELECT SUM(b.stock) FROM product_size_stock_buckets b
+                                       WHERE b.product_size_id = ps.id), 0) > 0
+            ORDER BY ps.product_id, s.id
+            """, nativeQuery = true)
+    List<AvailableSizeProjection> findAllAvailableSizes();
+
+    @Query(value = "SELECT COALESCE((SELECT SUM(ps.stock) FROM product_sizes ps), 0) " +
+           "+ COALESCE((SELECT SUM(b.stock) FROM product_size_stock_buckets b), 0)", nativeQuery = true)
     Long sumTotalStock();
 
     /**
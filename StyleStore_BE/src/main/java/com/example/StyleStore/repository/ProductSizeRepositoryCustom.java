@@ -0,0 +1,42 @@
+package com.example.StyleStore.repository;
+
+import java.util.List;
+
+public interface ProductSizeRepositoryCustom {
+
+    /**
+     * Một dòng thay đổi tồn kho cho cặp (productId, sizeId).
+     */
+    record StockChange(Long productId, Long sizeId, int quantity) {
+    }
+
+    /**
+     * Giảm tồn kho cho nhiều dòng trong một JDBC batch (1 round trip với MySQL
+     * khi datasource bật rewriteBatchedStatements=true, xem application.properties).
+     *
+     * Mỗi dòng vẫn là UPDATE ... WHERE stock >= quantity như
+     * {@link ProductSizeRepository#decreaseStockIfAvailable}, nên không bao giờ oversell.
+     * Các dòng được sắp xếp theo (productId, sizeId) trước khi gửi để 2 đơn hàng
+     * nhiều sản phẩm luôn khóa row theo cùng thứ tự, tránh deadlock.
+     *
+     * SKU đã chia bucket (product_size_stock_buckets) được trừ trên 1 bucket ngẫu nhiên
+     * còn đủ hàng, cùng điều kiện stock >= quantity trên từng bucket, và được xử lý
+     * xen kẽ với SKU thường theo cùng thứ tự (productId, sizeId).
+     *
+     * Phải được gọi trong transaction của caller: nếu có dòng nào trả về 0,
+     * caller throw exception để rollback toàn bộ batch (all-or-nothing).
+     *
+     * @return số row bị ảnh hưởng của từng dòng, cùng thứ tự với {@code changes}
+     */
+    int[] decreaseStockBatch(List<StockChange> changes);
+
+    /**
+     * Trừ tồn kho không điều kiện cho nhiều dòng trong một JDBC batch
+     * (quantity âm nghĩa là cộng lại). Dùng khi số lượng đã được kiểm tra ở nơi khác,
+     * ví dụ ghi xuống (write-behind) các delta từ bộ đếm giữ hàng.
+     * Với SKU đã chia bucket, delta dương được trừ dần trên các bucket còn hàng,
+     * delta âm được chia đều cho các bucket.
+     * Cùng thứ tự khóa (productId, sizeId) với {@link #decreaseStockBatch}.
+     */
+    int[] applyStockDeltas(List<StockChange> changes);
+}
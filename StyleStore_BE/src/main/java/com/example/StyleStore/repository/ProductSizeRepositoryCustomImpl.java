@@ -0,0 +1,290 @@
+package com.example.StyleStore.repository;
+
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class ProductSizeRepositoryCustomImpl implements ProductSizeRepositoryCustom {
+
+    private static final String DECREASE_STOCK_SQL = "UPDATE product_sizes SET stock = stock - ? "
+            + "WHERE product_id = ? AND size_id = ? AND stock >= ?";
+
+    private static final String APPLY_DELTA_SQL = "UPDATE product_sizes SET stock = stock - ? "
+            + "WHERE product_id = ? AND size_id = ?";
+
+    private static final String FIND_STRIPED_SQL = "SELECT ps.product_id, ps.size_id, ps.id AS product_size_id, "
+            + "ps.stock AS row_stock, b.id AS bucket_id, b.stock AS bucket_stock FROM product_size_stock_buckets b JOIN product_sizes ps ON ps.id = b.product_size_id "
+            + "WHERE ps.product_id IN (:productIds) ORDER BY b.id";
+
+    private static final String DECREASE_ROW_SQL = "UPDATE product_sizes SET stock = stock - ? WHERE id = ? AND stock >= ?";
+
+    private static final String DECREASE_BUCKET_SQL = "UPDATE product_size_stock_buckets SET stock = stock - ? "
+            + "WHERE id = ? AND stock >= ?";
+
+    private static final String APPLY_ROW_DELTA_SQL = "UPDATE product_sizes SET stock = stock - ? WHERE id = ?";
+
+    private static final String APPLY_BUCKET_DELTA_SQL = "UPDATE product_size_stock_buckets SET stock = stock - ? "
+            + "WHERE id = ?";
+
+    private static final String LOCK_ROW_SQL = "SELECT stock FROM product_sizes WHERE id = ? FOR UPDATE";
+
+    private static final String LOCK_BUCKETS_SQL = "SELECT id, stock FROM product_size_stock_buckets "
+            + "WHERE product_size_id = ? ORDER BY id FOR UPDATE";
+
+    private static final String LOCK_BUCKETS_FROM_SQL = "SELECT id, stock FROM product_size_stock_buckets "
+            + "WHERE product_size_id = ? AND id >= ? ORDER BY id FOR UPDATE";
+
+    // SKU đã chia bucket: bucket 0 là row product_sizes, các bucket phụ theo thứ tự id.
+    // stocks là snapshot đọc không khóa, chỉ dùng để bỏ qua các bucket đã cạn
+    private record StripedStock(Long productSizeId, List<Long> bucketIds, List<Integer> stocks) {
+    }
+
+    @FunctionalInterface
+    private interface PlainSetter {
+        void setValues(PreparedStatement ps, StockChange change) throws SQLException;
+    }
+
+    @FunctionalInterface
+    private interface StripedUpdate {
+        int apply(StripedStock stripedStock, int quantity);
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    public ProductSizeRepositoryCustomImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+    }
+
+    @Override
+    public int[] decreaseStockBatch(List<StockChange> changes) {
+        if (changes == null || changes.isEmpty()) {
+            return new int[0];
+        }
+        return updateInLockOrder(changes, DECREASE_STOCK_SQL, (ps, change) -> {
+            ps.setInt(1, change.quantity());
+            ps.setLong(2, change.productId());
+            ps.setLong(3, change.sizeId());
+            ps.setInt(4, change.quantity());
+        }, this::decreaseStriped);
+    }
+
+    /**
+     * Chạy thay đổi theo đúng 1 thứ tự (productId, sizeId) cho mọi SKU để 2 đơn hàng nhiều sản phẩm
+     * luôn khóa row theo cùng thứ tự, tránh deadlock. Các SKU thường liên tiếp nhau được gom thành
+     * 1 JDBC batch; gặp SKU đã chia bucket thì gửi batch đang gom trước rồi mới xử lý SKU đó.
+     *
+     * @return kết quả của từng dòng, cùng thứ tự với {@code changes}
+     */
+    private int[] updateInLockOrder(List<StockChange> changes, String plainSql, PlainSetter plainSetter,
+            StripedUpdate stripedUpdate) {
+        int[] order = IntStream.range(0, changes.size())
+                .boxed()
+                .sorted(Comparator
+                        .comparing((Integer i) -> changes.get(i).productId())
+                        .thenComparing(i -> changes.get(i).sizeId()))
+                .mapToInt(Integer::intValue)
+                .toArray();
+
+        Map<String, StripedStock> striped = findStripedStocks(changes);
+        int[] result = new int[changes.size()];
+        List<Integer> plainRun = new ArrayList<>();
+        for (int index : order) {
+            StripedStock stripedStock = striped.get(stripeKey(changes.get(index)));
+            if (stripedStock == null) {
+                plainRun.add(index);
+                continue;
+            }
+            runPlainBatch(changes, plainRun, plainSql, plainSetter, result);
+            result[index] = stripedUpdate.apply(stripedStock, changes.get(index).quantity());
+        }
+        runPlainBatch(changes, plainRun, plainSql, plainSetter, result);
+        return result;
+    }
+
+    private void runPlainBatch(List<StockChange> changes, List<Integer> plainRun, String sql,
+            PlainSetter plainSetter, int[] result) {
+        if (plainRun.isEmpty()) {
+            return;
+        }
+        int[] batchResult = jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                plainSetter.setValues(ps, changes.get(plainRun.get(i)));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return plainRun.size();
+            }
+        });
+        for (int i = 0; i < plainRun.size(); i++) {
+            result[plainRun.get(i)] = batchResult[i];
+        }
+        plainRun.clear();
+    }
+
+    /**
+     * Trừ tồn kho của SKU đã chia bucket. Thứ tự khóa duy nhất: row product_sizes (bucket 0) rồi các
+     * bucket phụ theo id tăng dần, giống {@link #applyStripedDelta}. Mọi nhánh chỉ khóa tiến theo thứ tự
+     * này, không quay lại (UPDATE có điều kiện không khớp vẫn giữ khóa dưới REPEATABLE READ), nên không
+     * có chu trình chờ giữa các checkout và lần nhập lại hàng.
+     * 1. Còn nhiều hàng: chọn ngẫu nhiên bucket sẽ bị trừ trong số bucket đủ hàng theo snapshot, rồi thử
+     *    UPDATE WHERE stock >= quantity từ bucket đó đi lên → các checkout rơi vào các row khác nhau.
+     * 2. Sắp hết hàng (hoặc các bucket từ điểm bắt đầu đều không đủ một mình): khóa phần còn lại
+     *    theo thứ tự và lấy dần từ từng bucket.
+     *
+     * @return 1 nếu trừ thành công, 0 nếu tồn kho không đủ
+     */
+    private int decreaseStriped(StripedStock stripedStock, int quantity) {
+        List<Integer> stocks = stripedStock.stocks();
+        long snapshotTotal = stocks.stream().mapToLong(stock -> Math.max(stock, 0)).sum();
+        List<Integer> candidates = IntStream.range(0, stocks.size())
+                .filter(bucket -> stocks.get(bucket) >= quantity)
+                .boxed()
+                .toList();
+        // Sắp hết hàng thì tranh chấp ít, khóa hết từ bucket 0 để lấy được cả hàng nằm rải rác
+        if (candidates.isEmpty() || snapshotTotal < (long) quantity * stocks.size()) {
+            return takeFromLocked(stripedStock, 0, quantity);
+        }
+
+        int start = candidates.get(ThreadLocalRandom.current().nextInt(candidates.size()));
+        for (int bucket = start; bucket < stocks.size(); bucket++) {
+            int updated = bucket == 0
+                    ? jdbcTemplate.update(DECREASE_ROW_SQL, quantity, stripedStock.productSizeId(), quantity)
+                    : jdbcTemplate.update(DECREASE_BUCKET_SQL, quantity, stripedStock.bucketIds().get(bucket - 1), quantity);
+            if (updated == 1) {
+                return 1;
+            }
+        }
+        // Snapshot đã cũ: chỉ còn lấy được từ các bucket >= start (đang giữ khóa), không quay lại bucket nhỏ hơn
+        return takeFromLocked(stripedStock, start, quantity);
+    }
+
+    // Khóa các bucket từ start trở đi theo thứ tự rồi lấy dần; start = 0 gồm cả row product_sizes
+    private int takeFromLocked(StripedStock stripedStock, int start, int quantity) {
+        int rowStock = 0;
+        if (start == 0) {
+            Integer locked = jdbcTemplate.queryForObject(LOCK_ROW_SQL, Integer.class, stripedStock.productSizeId());
+            rowStock = Math.max(locked == null ? 0 : locked, 0);
+        }
+        Long fromBucketId = start == 0 ? Long.MIN_VALUE : stripedStock.bucketIds().get(start - 1);
+        List<long[]> buckets = jdbcTemplate.query(LOCK_BUCKETS_FROM_SQL,
+                (rs, rowNum) -> new long[] { rs.getLong("id"), rs.getLong("stock") },
+                stripedStock.productSizeId(), fromBucketId);
+
+        long total = rowStock + buckets.stream().mapToLong(bucket -> Math.max(bucket[1], 0)).sum();
+        if (total < quantity) {
+            return 0;
+        }
+
+        int remaining = quantity;
+        int fromRow = Math.min(rowStock, remaining);
+        if (fromRow > 0) {
+            jdbcTemplate.update(DECREASE_ROW_SQL, fromRow, stripedStock.productSizeId(), fromRow);
+            remaining -= fromRow;
+        }
+        for (long[] bucket : buckets) {
+            if (remaining == 0) {
+                break;
+            }
+            int take = (int) Math.min(Math.max(bucket[1], 0), remaining);
+            if (take > 0) {
+                jdbcTemplate.update(DECREASE_BUCKET_SQL, take, bucket[0], take);
+                remaining -= take;
+            }
+        }
+        return 1;
+    }
+
+    private Map<String, StripedStock> findStripedStocks(List<StockChange> changes) {
+        Set<Long> productIds = changes.stream().map(StockChange::productId).collect(Collectors.toSet());
+        Map<String, StripedStock> striped = new HashMap<>();
+        namedParameterJdbcTemplate.query(FIND_STRIPED_SQL, new MapSqlParameterSource("productIds", productIds), rs -> {
+            String key = rs.getLong("product_id") + ":" + rs.getLong("size_id");
+            long productSizeId = rs.getLong("product_size_id");
+            int rowStock = rs.getInt("row_stock");
+            StripedStock stripedStock = striped.computeIfAbsent(key,
+                    k -> new StripedStock(productSizeId, new ArrayList<>(), new ArrayList<>(List.of(rowStock))));
+            stripedStock.bucketIds().add(rs.getLong("bucket_id"));
+            stripedStock.stocks().add(rs.getInt("bucket_stock"));
+        });
+        return striped;
+    }
+
+    private static String stripeKey(StockChange change) {
+        return change.productId() + ":" + change.sizeId();
+    }
+
+    @Override
+    public int[] applyStockDeltas(List<StockChange> changes) {
+        if (changes == null || changes.isEmpty()) {
+            return new int[0];
+        }
+        return updateInLockOrder(changes, APPLY_DELTA_SQL, (ps, change) -> {
+            ps.setInt(1, change.quantity());
+            ps.setLong(2, change.productId());
+            ps.setLong(3, change.sizeId());
+        }, this::applyStripedDelta);
+    }
+
+    /**
+     * Ghi delta không điều kiện cho SKU đã chia bucket, khóa row rồi các bucket theo thứ tự id
+     * như {@link #decreaseStriped}:
+     * - delta dương (đã bán): lấy dần từ các bucket còn hàng, phần dư (nếu có) ghi vào bucket 0
+     * - delta âm (nhập lại / hoàn hàng): chia đều cho các bucket để các checkout sau vẫn rải đều
+     */
+    private int applyStripedDelta(StripedStock stripedStock, int quantity) {
+        Integer rowStock = jdbcTemplate.queryForObject(LOCK_ROW_SQL, Integer.class, stripedStock.productSizeId());
+        List<long[]> buckets = jdbcTemplate.query(LOCK_BUCKETS_SQL,
+                (rs, rowNum) -> new long[] { rs.getLong("id"), rs.getLong("stock") },
+                stripedStock.productSizeId());
+
+        if (quantity < 0) {
+            int bucketCount = buckets.size() + 1;
+            int restock = -quantity;
+            for (int bucket = 0; bucket < bucketCount; bucket++) {
+                int share = restock / bucketCount + (bucket < restock % bucketCount ? 1 : 0);
+                if (share == 0) {
+                    continue;
+                }
+                if (bucket == 0) {
+                    jdbcTemplate.update(APPLY_ROW_DELTA_SQL, -share, stripedStock.productSizeId());
+                } else {
+                    jdbcTemplate.update(APPLY_BUCKET_DELTA_SQL, -share, buckets.get(bucket - 1)[0]);
+                }
+            }
+            return 1;
+        }
+
+        // Bucket 0 lấy trước (như nhánh lấy dần của decreaseStriped), và nhận luôn phần không bucket nào còn đủ
+        int fromBuckets = 0;
+        int remaining = quantity - (int) Math.min(Math.max(rowStock == null ? 0 : rowStock, 0), quantity);
+        for (long[] bucket : buckets) {
+            int take = (int) Math.min(Math.max(bucket[1], 0), remaining);
+            if (take > 0) {
+                jdbcTemplate.update(APPLY_BUCKET_DELTA_SQL, take, bucket[0]);
+                remaining -= take;
+                fromBuckets += take;
+            }
+        }
+        if (quantity - fromBuckets > 0) {
+            jdbcTemplate.update(APPLY_ROW_DELTA_SQL, quantity - fromBuckets, stripedStock.productSizeId());
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.StyleStore.repository;
+
+import com.example.StyleStore.model.ProductSizeStockBucket;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface ProductSizeStockBucketRepository extends JpaRepository<ProductSizeStockBucket, Long> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM ProductSizeStockBucket b WHERE b.productSize.id = :productSizeId ORDER BY b.id")
+    List<ProductSizeStockBucket> findByProductSizeIdForUpdate(@Param("productSizeId") Long productSizeId);
+
+    // Gộp SKU về 1 row: caller phải cộng stock của các bucket vào product_sizes trước khi xóa
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ProductSizeStockBucket b WHERE b.productSize.id = :productSizeId")
+    int deleteByProductSizeId(@Param("productSizeId") Long productSizeId);
+}
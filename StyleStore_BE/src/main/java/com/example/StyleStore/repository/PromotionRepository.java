@@ -25,6 +25,9 @@ public interface PromotionRepository extends JpaRepository<Promotion, Long> {
             """)
     Page<Promotion> searchByKeyword(@Param("keyword") String keyword, Pageable pageable);
 
+    // Khuyến mãi đang bật và chưa kết thúc (gồm cả mã sắp bắt đầu)
+    List<Promotion> findByIsActiveTrueAndEndAtAfter(LocalDateTime now);
+
     List<Promotion> findByIsActiveTrueAndStartAtLessThanEqualAndEndAtGreaterThanEqual(LocalDateTime startAt,
             LocalDateTime endAt);
 
@@ -1,8 +1,12 @@
 package com.example.StyleStore.repository;
 
 import com.example.StyleStore.model.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -14,6 +18,9 @@ import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
+
+    // Keyset pagination: WHERE (sortKey, id) > cursor thay vì OFFSET, không COUNT(*)
+    Window<User> findAllBy(ScrollPosition position, Sort sort, Limit limit);
     Optional<User> findByEmail(String email);
 
     @Query("""
@@ -35,13 +42,13 @@ public interface UserRepository extends JpaRepository<User, Long> {
     }
 
     @Query(value = """
-                SELECT YEAR(u.created_at) AS year,
-                       MONTH(u.created_at) AS month,
-                       COUNT(u.id) AS count
+                SELECT YEAR(u.created_at) AS `year`,
+                       MONTH(u.created_at) AS `month`,
+                       COUNT(u.id) AS `count`
                 FROM users u
                 WHERE u.created_at >= :from AND u.created_at < :to
                 GROUP BY YEAR(u.created_at), MONTH(u.created_at)
-                ORDER BY year, month
+                ORDER BY `year`, `month`
             """, nativeQuery = true)
     List<MonthlyUserProjection> countMonthlyUsers(
             @Param("from") LocalDateTime from,
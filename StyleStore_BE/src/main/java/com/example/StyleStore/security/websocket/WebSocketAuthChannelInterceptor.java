@@ -7,6 +7,7 @@ import org.springframework.messaging.simp.stomp.StompCommand;
 import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
 import org.springframework.messaging.support.ChannelInterceptor;
 import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -17,6 +18,9 @@ import java.util.Map;
 @Component
 public class WebSocketAuthChannelInterceptor implements ChannelInterceptor {
 
+    // Feed dashboard admin (AdminFeedService) chỉ dành cho ADMIN
+    private static final String ADMIN_TOPIC_PREFIX = "/topic/admin/";
+
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
 
@@ -86,6 +90,18 @@ public class WebSocketAuthChannelInterceptor implements ChannelInterceptor {
             }
         }
 
+        if (StompCommand.SUBSCRIBE.equals(accessor.getCommand())
+                && accessor.getDestination() != null
+                && accessor.getDestination().startsWith(ADMIN_TOPIC_PREFIX)
+                && !isAdmin(accessor)) {
+            throw new AccessDeniedException("Chỉ admin được đăng ký " + accessor.getDestination());
+        }
+
         return MessageBuilder.createMessage(message.getPayload(), accessor.getMessageHeaders());
     }
+
+    private static boolean isAdmin(StompHeaderAccessor accessor) {
+        return accessor.getUser() instanceof UsernamePasswordAuthenticationToken auth
+                && auth.getAuthorities().stream().anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority()));
+    }
 }
@@ -0,0 +1,12 @@
+package com.example.StyleStore.service;
+
+import com.example.StyleStore.dto.response.stats.AdminDashboardResponse;
+
+/**
+ * Gom các API /api/admin/stats/* thành 1 lần gọi: các phần được tính song song,
+ * thời gian phản hồi bằng phần chậm nhất (có giới hạn) thay vì tổng các phần.
+ */
+public interface AdminDashboardService {
+
+    AdminDashboardResponse getDashboard();
+}
@@ -0,0 +1,24 @@
+package com.example.StyleStore.service;
+
+import com.example.StyleStore.dto.response.InventoryAlertResponse;
+import com.example.StyleStore.model.Order;
+import com.example.StyleStore.model.enums.OrderStatus;
+
+/**
+ * Đẩy thay đổi mới cho dashboard admin qua STOMP (/topic/admin/orders, /topic/admin/stats).
+ * Thay đổi được ghi nhận sau commit và gộp lại, mỗi topic nhận tối đa 1 frame mỗi chu kỳ.
+ */
+public interface AdminFeedService {
+
+    String ORDERS_TOPIC = "/topic/admin/orders";
+    String STATS_TOPIC = "/topic/admin/stats";
+
+    void orderCreated(Order order);
+
+    void orderStatusChanged(Order order, OrderStatus previousStatus);
+
+    void stockAlertCreated(InventoryAlertResponse alert);
+
+    // Gửi các thay đổi đang chờ (được gọi định kỳ)
+    void flush();
+}
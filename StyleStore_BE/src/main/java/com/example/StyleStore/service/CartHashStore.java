@@ -0,0 +1,71 @@
+package com.example.StyleStore.service;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Nơi giữ giỏ hàng dạng hash cho giỏ ghi xuống MySQL theo lô (cart.store=redis).
+ * Mỗi user 1 hash: field "productId:sizeId" → "quantity|price|createdAtMs|updatedAtMs",
+ * field {@link #CART_ID_FIELD} là id giỏ trong MySQL (đánh dấu hash đã được nạp).
+ *
+ * Giỏ có thay đổi chưa ghi xuống MySQL nằm trong tập dirty và không hết hạn;
+ * TTL chỉ được đặt lại sau khi đã ghi xong (expireIfClean), nên thay đổi không mất vì hết hạn.
+ * Các thao tác ghi trả về {@link #NOT_LOADED} nếu hash chưa được nạp.
+ */
+public interface CartHashStore {
+
+    String CART_ID_FIELD = "_cart";
+    long NOT_LOADED = -2;
+    long OVER_STOCK = -1;
+    long CONFLICT = -3;
+
+    // Toàn bộ field của hash (rỗng nếu chưa nạp)
+    Map<String, String> entries(Long userId);
+
+    // Số field (gồm CART_ID_FIELD), 0 nếu chưa nạp
+    long size(Long userId);
+
+    // Nạp hash nếu chưa có, hết hạn sau ttl. fields phải có CART_ID_FIELD
+    void hydrate(Long userId, Map<String, String> fields, Duration ttl);
+
+    // Cộng quantity vào dòng (tạo mới với price nếu chưa có). Trả về số lượng mới, OVER_STOCK nếu vượt maxStock
+    long add(Long userId, String field, int quantity, int maxStock, double price, long nowMillis);
+
+    // Đặt số lượng của dòng đã có. 1 nếu đã cập nhật, 0 nếu dòng không có trong giỏ
+    long set(Long userId, String field, int quantity, long nowMillis);
+
+    // Xóa các dòng (rỗng = xóa cả giỏ), trả về số dòng đã xóa
+    long remove(Long userId, List<String> fields);
+
+    // Ghi nhiều dòng cùng lúc (value null = xóa dòng) nếu số lượng hiện tại của từng dòng vẫn đúng
+    // như expectedQuantities (null = dòng chưa có). 1 nếu đã ghi, CONFLICT nếu giỏ vừa bị sửa
+    long apply(Long userId, Map<String, Integer> expectedQuantities, Map<String, String> values);
+
+    // Lấy ra tối đa count user có giỏ chờ ghi xuống MySQL
+    List<String> popDirty(long count);
+
+    void markDirty(Collection<String> userIds);
+
+    boolean isDirty(String userId);
+
+    // Đặt lại TTL sau khi ghi xong, trừ khi giỏ lại bị sửa trong lúc ghi
+    void expireIfClean(String userId, Duration ttl);
+
+    // Ghi thất bại: trả về số lần lỗi liên tiếp của giỏ
+    long recordFailure(String userId);
+
+    // Ghi thành công: xóa bộ đếm lỗi và bỏ khỏi danh sách park
+    void clearFailures(String userId);
+
+    // Bỏ giỏ khỏi vòng flush sau quá nhiều lần lỗi; hash vẫn giữ nguyên (không hết hạn) để xử lý tay.
+    // User sửa giỏ lần nữa thì giỏ được đưa lại vào tập dirty
+    void park(String userId);
+
+    boolean isParked(String userId);
+
+    boolean tryLock(Duration leaseTime);
+
+    void unlock();
+}
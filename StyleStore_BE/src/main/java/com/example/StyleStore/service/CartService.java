@@ -1,12 +1,20 @@
 package com.example.StyleStore.service;
 
+import com.example.StyleStore.dto.request.CartBatchRequest;
+import com.example.StyleStore.dto.response.CartResponse;
 import com.example.StyleStore.model.Cart;
 import com.example.StyleStore.model.CartItem;
 
 public interface CartService {
     Cart getCartByUserId(Long userId);
+    // Giỏ cho trang giỏ hàng, tổng tiền / cảnh báo đã tính sẵn
+    CartResponse getCartView(Long userId);
+    // Số dòng sản phẩm trong giỏ
+    long countItems(Long userId);
     CartItem addToCart(Long userId, Long productId, Long sizeId, Integer quantity);
     void removeFromCart(Long userId, Long cartItemId);
     CartItem updateCartItemQuantity(Long userId, Long cartItemId, Integer quantity);
     void clearCart(Long userId);
+    // Thêm / sửa / xóa nhiều dòng cùng lúc (tất cả hoặc không), trả về giỏ sau khi áp dụng
+    CartResponse applyBatch(Long userId, CartBatchRequest request);
 }
@@ -0,0 +1,22 @@
+package com.example.StyleStore.service;
+
+import com.example.StyleStore.model.Order;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Bảng tổng hợp doanh thu theo ngày (daily_sales_summary) cho các API thống kê doanh thu.
+ * Cập nhật tăng dần khi đơn chuyển sang DELIVERED và được đối soát lại định kỳ từ orders.
+ */
+public interface DailySalesService {
+
+    // Cộng doanh thu của đơn vào ngày tạo đơn, gọi trong transaction chuyển trạng thái
+    void recordOrderDelivered(Order order);
+
+    // Bản nhiều đơn: 1 upsert cho mỗi ngày tạo đơn
+    void recordOrdersDelivered(List<Order> orders);
+
+    // Tính lại các ngày trong [from, to] từ orders/order_items, trả về số ngày có doanh thu
+    int rebuild(LocalDate from, LocalDate to);
+}
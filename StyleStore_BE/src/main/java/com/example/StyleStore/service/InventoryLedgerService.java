@@ -0,0 +1,32 @@
+package com.example.StyleStore.service;
+
+import com.example.StyleStore.dto.response.InventoryMovementResponse;
+import com.example.StyleStore.dto.response.InventoryStockAsOfResponse;
+import com.example.StyleStore.model.enums.InventoryMovementType;
+import com.example.StyleStore.repository.InventoryMovementRepositoryCustom.Movement;
+import org.springframework.data.domain.Page;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sổ kho chỉ thêm (inventory_movements) và snapshot gộp định kỳ (inventory_snapshots).
+ * product_sizes.stock vẫn là tồn kho hiện tại (được trừ có điều kiện), sổ kho ghi lại
+ * mọi thay đổi trong cùng transaction để tra lịch sử và tồn kho tại thời điểm bất kỳ.
+ */
+public interface InventoryLedgerService {
+
+    // Ghi sổ trong transaction thay đổi tồn kho (quantity dương = nhập vào, âm = xuất ra)
+    void record(InventoryMovementType type, Long referenceId, List<Movement> movements);
+
+    // Nhiều chứng từ cùng loại trong 1 lần ghi (referenceId → các dòng)
+    void recordAll(InventoryMovementType type, Map<Long, List<Movement>> movementsByReference);
+
+    InventoryStockAsOfResponse getStockAsOf(Long productId, Long sizeId, LocalDateTime at);
+
+    Page<InventoryMovementResponse> getMovements(Long productId, Long sizeId, int page, int size);
+
+    // Gộp sổ kho vào snapshot mới, trả về số snapshot được tạo
+    int compactSnapshots();
+}
@@ -0,0 +1,40 @@
+package com.example.StyleStore.service;
+
+import com.example.StyleStore.repository.ProductSizeRepositoryCustom.StockChange;
+
+import java.util.List;
+
+/**
+ * Giữ hàng (reservation) trên bộ đếm tồn kho thay vì khóa row product_sizes khi đặt hàng.
+ * Số lượng đã bán được ghi xuống MySQL theo lô (write-behind).
+ */
+public interface InventoryReservationService {
+
+    /**
+     * @param failedIndex vị trí dòng không đủ hàng, -1 nếu giữ hàng thành công
+     * @param available   tồn kho còn lại của dòng không đủ hàng
+     */
+    record ReservationResult(String reservationId, int failedIndex, long available) {
+        public boolean isReserved() {
+            return failedIndex < 0;
+        }
+    }
+
+    /**
+     * Giữ hàng cho tất cả các dòng (all-or-nothing). Nếu đang trong transaction, reservation
+     * được xác nhận ngay trước commit và được trả lại khi rollback.
+     */
+    ReservationResult reserve(List<StockChange> changes);
+
+    // Cộng lại tồn kho sau khi transaction hủy đơn commit
+    void restock(List<StockChange> changes);
+
+    // Bỏ bộ đếm của (productId, sizeId) khi tồn kho trong MySQL bị sửa trực tiếp
+    void evict(Long productId, Long sizeId);
+
+    // Ghi các delta đã bán xuống product_sizes
+    void flushPendingToDatabase();
+
+    // Trả lại hàng của các reservation quá hạn
+    void releaseExpiredReservations();
+}
@@ -10,6 +10,7 @@ import com.example.StyleStore.repository.CartRepository;
 import com.example.StyleStore.repository.RoleRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -25,6 +26,7 @@ public class OAuth2UserService {
     private final JwtService jwtService;
     private final CartRepository cartRepository;
     private final RoleRepository roleRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     public AuthResponse processOAuth2User(String email, String fullName, String picture) {
@@ -61,6 +63,10 @@ public class OAuth2UserService {
 
             user = userRepository.save(user);
 
+            if (existingUser.isEmpty()) {
+                eventPublisher.publishEvent(new UserChangedEvent(user.getId()));
+            }
+
             // Nếu user mới tạo từ OAuth2, tạo luôn giỏ hàng trống đi kèm
             if (user.getCart() == null) {
                 Cart cart = Cart.builder()
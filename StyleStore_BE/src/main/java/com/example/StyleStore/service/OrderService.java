@@ -1,6 +1,9 @@
 package com.example.StyleStore.service;
 
 import com.example.StyleStore.dto.request.UserOrderRequest;
+import com.example.StyleStore.dto.response.BulkOrderTransitionResponse;
+import com.example.StyleStore.dto.response.CursorPage;
+import com.example.StyleStore.dto.response.OrderQuoteResponse;
 import com.example.StyleStore.dto.response.OrderResponse;
 import com.example.StyleStore.dto.response.stats.BestSellingProductsInCategoriesDTO;
 import com.example.StyleStore.dto.response.stats.MonthlyRevenueDto;
@@ -19,6 +22,7 @@ public interface OrderService {
     RevenueWithProductsDto getRevenueByMonth(int year, int month);
     RevenueWithProductsDto getRevenueByYear(int year);
     Page<OrderResponse> getAllOrders(int page, int size, String sortBy, String sortDir);
+    CursorPage<OrderResponse> getAllOrdersAfter(String after, int size, String sortBy, String sortDir);
     Page<OrderResponse> searchOrders(String keyword, String status, int page, int size, String sortBy, String sortDir);
     Page<OrderResponse> filterOrdersByStatus(String status, int page, int size, String sortBy, String sortDir);
     OrderResponse getOrderById(Long id);
@@ -27,7 +31,14 @@ public interface OrderService {
     OrderResponse confirmOrder(long id);
     OrderResponse cancelOrder(long id);
     OrderResponse deliveredOrder(long id);
+
+    // Chuyển trạng thái nhiều đơn trong 1 transaction, bỏ qua đơn không hợp lệ
+    BulkOrderTransitionResponse bulkConfirmOrders(List<Long> orderIds);
+    BulkOrderTransitionResponse bulkDeliverOrders(List<Long> orderIds);
+    BulkOrderTransitionResponse bulkCancelOrders(List<Long> orderIds);
     OrderResponse createOrder(User user, UserOrderRequest request);
+    // Tính tiền giỏ hàng + khuyến mãi như createOrder nhưng không trừ kho, không lưu đơn
+    OrderQuoteResponse quoteOrder(UserOrderRequest request);
     List<BestSellingProductsInCategoriesDTO> getBestSellingProductsInCategories();
     List<BestSellingProductsInCategoriesDTO> getTop5BestSellingProductsInCategories();
 
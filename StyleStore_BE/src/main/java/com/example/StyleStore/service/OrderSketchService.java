@@ -0,0 +1,29 @@
+package com.example.StyleStore.service;
+
+import com.example.StyleStore.dto.response.stats.OrderSketchStatsResponse;
+import com.example.StyleStore.model.Order;
+
+import java.time.LocalDate;
+
+/**
+ * Sketch xấp xỉ theo ngày (daily_order_sketches): số khách phân biệt và phân vị giá trị đơn.
+ * Thay đổi được gom trong bộ nhớ sau commit và gộp xuống MySQL định kỳ, nên số liệu
+ * trễ tối đa 1 chu kỳ stats.sketch.flush-interval-ms.
+ */
+public interface OrderSketchService {
+
+    // Gọi trong transaction tạo đơn: khách được tính vào ngày tạo đơn
+    void recordOrderCreated(Order order);
+
+    // Gọi trong transaction chuyển sang DELIVERED: khách + final_amount vào ngày tạo đơn
+    void recordOrderDelivered(Order order);
+
+    // Gộp các delta đang chờ xuống MySQL
+    void flush();
+
+    // granularity: null (chỉ tổng), "day" hoặc "month"
+    OrderSketchStatsResponse getStats(LocalDate from, LocalDate to, String granularity);
+
+    // Tính lại sketch các ngày trong [from, to] từ orders, trả về số ngày có đơn
+    int rebuild(LocalDate from, LocalDate to);
+}
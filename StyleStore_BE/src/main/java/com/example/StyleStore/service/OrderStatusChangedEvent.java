@@ -0,0 +1,13 @@
+package com.example.StyleStore.service;
+
+import com.example.StyleStore.model.enums.OrderStatus;
+
+import java.time.LocalDate;
+
+/**
+ * Phát ra khi 1 đơn hàng chuyển trạng thái (xác nhận / giao / hủy).
+ * orderDate là ngày tạo đơn, cũng là ngày doanh thu của đơn được tính vào.
+ */
+public record OrderStatusChangedEvent(Long orderId, OrderStatus previousStatus, OrderStatus status,
+        LocalDate orderDate) {
+}
@@ -0,0 +1,18 @@
+package com.example.StyleStore.service;
+
+import com.example.StyleStore.model.Product;
+
+import java.util.Optional;
+
+/**
+ * Cache chi tiết sản phẩm 2 tầng: L1 trong JVM (Caffeine) → L2 Redis → MySQL.
+ * Khi sản phẩm thay đổi, mọi node nhận thông báo qua Redis pub/sub để xóa L1.
+ */
+public interface ProductCacheService {
+
+    Optional<Product> getProductDetail(Long productId);
+
+    // Xóa cache của sản phẩm (sau commit nếu đang trong transaction) và báo các node khác xóa L1.
+    // Nơi sửa sản phẩm không gọi trực tiếp mà phát ProductChangedEvent
+    void evict(Long productId);
+}
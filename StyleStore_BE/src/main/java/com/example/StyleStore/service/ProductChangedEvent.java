@@ -0,0 +1,13 @@
+package com.example.StyleStore.service;
+
+/**
+ * Phát ra bởi nơi sửa sản phẩm mỗi khi dữ liệu hoặc tồn kho của 1 sản phẩm thay đổi. Listener nhận
+ * sau commit: cache chi tiết xóa bản cũ, các index trong JVM (facet, suggest, bảng xếp hạng) nạp lại.
+ * {@code remote = true} khi thay đổi đến từ node khác qua kênh invalidation, lúc đó không báo tiếp đi.
+ */
+public record ProductChangedEvent(Long productId, boolean remote) {
+
+    public ProductChangedEvent(Long productId) {
+        this(productId, false);
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.StyleStore.service;
+
+/**
+ * Phát ra khi sản phẩm được tạo hoặc xóa. Khác {@link ProductChangedEvent}, không phát ra
+ * khi chỉ có dữ liệu hoặc tồn kho của sản phẩm thay đổi.
+ */
+public record ProductCountChangedEvent(Long productId) {
+}
@@ -0,0 +1,33 @@
+package com.example.StyleStore.service;
+
+import com.example.StyleStore.dto.request.ProductFacetRequest;
+import com.example.StyleStore.dto.response.ProductFacetResponse.FacetCount;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lọc sản phẩm ACTIVE theo nhiều facet bằng bitmap trong JVM (1 bitmap cho mỗi giá trị thuộc tính,
+ * bit = id sản phẩm) và đếm số sản phẩm cho từng giá trị facet.
+ */
+public interface ProductFacetService {
+
+    /**
+     * @param productIds id sản phẩm của trang hiện tại (mới nhất trước)
+     * @param total      tổng số sản phẩm khớp bộ lọc
+     * @param facets     số lượng theo từng giá trị; mỗi facet được đếm với bộ lọc của các facet còn lại
+     */
+    record FacetHits(List<Long> productIds, long total, Map<String, List<FacetCount>> facets) {
+    }
+
+    FacetHits filter(ProductFacetRequest request, int offset, int limit);
+
+    // Đánh dấu sản phẩm cần nạp lại, được xử lý theo lô bởi refreshDirtyProducts
+    void markDirty(Long productId);
+
+    // Nạp lại các sản phẩm đã đánh dấu từ MySQL
+    void refreshDirtyProducts();
+
+    // Dựng lại toàn bộ bitmap từ MySQL
+    void rebuild();
+}
@@ -0,0 +1,41 @@
+package com.example.StyleStore.service;
+
+import com.example.StyleStore.dto.response.stats.BestSellingProductsInCategoriesDTO;
+import com.example.StyleStore.dto.response.stats.TopProductDto;
+import com.example.StyleStore.model.Order;
+import com.example.StyleStore.model.OrderItem;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bộ đếm bán hàng theo sản phẩm (tổng + theo ngày) trong bảng product_sales, cập nhật cùng
+ * transaction với đơn hàng, và bảng xếp hạng bán chạy trong JVM (tổng + theo danh mục)
+ * để trả lời các API top bán chạy mà không phải GROUP BY trên order_items.
+ */
+public interface ProductSalesService {
+
+    // Đơn mới: cộng unitsSold
+    void recordOrderCreated(Order order, List<OrderItem> items);
+
+    // Đơn đã giao: cộng unitsDelivered
+    void recordOrderDelivered(Order order, List<OrderItem> items);
+
+    // Bản nhiều đơn của hàm trên: các dòng cùng (sản phẩm, ngày) được gộp thành 1 upsert
+    void recordOrdersDelivered(Map<Order, List<OrderItem>> itemsByOrder);
+
+    // Đơn bị hủy (chỉ từ CREATED/SHIPPING): trừ lại unitsSold, gộp như recordOrdersDelivered
+    void recordOrdersCancelled(Map<Order, List<OrderItem>> itemsByOrder);
+
+    // categoryId null → xếp hạng toàn bộ sản phẩm
+    List<TopProductDto> getTopProducts(Long categoryId, int limit);
+
+    // perCategory sản phẩm bán chạy nhất của mỗi danh mục
+    List<BestSellingProductsInCategoriesDTO> getTopProductsInCategories(int perCategory);
+
+    // Nạp lại bộ đếm của các sản phẩm vừa thay đổi từ MySQL
+    void refreshDirtyProducts();
+
+    // Nạp lại toàn bộ bảng xếp hạng từ MySQL
+    void reload();
+}
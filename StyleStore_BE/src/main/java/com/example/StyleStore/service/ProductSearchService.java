@@ -0,0 +1,29 @@
+package com.example.StyleStore.service;
+
+import java.util.List;
+
+/**
+ * Tìm kiếm sản phẩm full-text trong JVM: inverted index trên tên, thương hiệu, chất liệu,
+ * màu, mô tả và tên danh mục (đã bỏ dấu), xếp hạng bằng BM25.
+ * Chỉ sản phẩm ACTIVE được đưa vào index.
+ */
+public interface ProductSearchService {
+
+    /**
+     * @param productIds id sản phẩm của trang hiện tại, theo thứ tự điểm giảm dần
+     * @param total      tổng số sản phẩm khớp
+     */
+    record SearchHits(List<Long> productIds, long total) {
+    }
+
+    SearchHits search(String query, int offset, int limit);
+
+    // Nạp lại 1 sản phẩm vào index (sau commit nếu đang trong transaction)
+    void index(Long productId);
+
+    // Bỏ sản phẩm khỏi index (sau commit nếu đang trong transaction)
+    void remove(Long productId);
+
+    // Dựng lại toàn bộ index từ MySQL
+    void rebuild();
+}
@@ -1,5 +1,9 @@
 package com.example.StyleStore.service;
 
+import com.example.StyleStore.dto.request.ProductFacetRequest;
+import com.example.StyleStore.dto.response.CursorPage;
+import com.example.StyleStore.dto.response.ProductFacetResponse;
+import com.example.StyleStore.dto.response.ProductCardResponse;
 import com.example.StyleStore.dto.response.stats.CategoryStockDto;
 import com.example.StyleStore.model.Category;
 import com.example.StyleStore.model.Product;
@@ -16,6 +20,8 @@ public interface ProductService {
     Page<Product> getProductsByGender(String gender, Pageable pageable);
     Page<Product> getProductsByCategoryAndGender(Category category, String gender, Pageable pageable);
     Optional<Product> getProductById(Long id);
+    // Chi tiết sản phẩm cho trang user, đọc qua cache 2 tầng
+    Optional<Product> getProductDetail(Long id);
     Product createProduct(Product product);
     boolean deleteProduct(Long id);
     Product updateProduct(Long id, Product newProduct);
@@ -24,6 +30,17 @@ public interface ProductService {
     List<CategoryStockDto> getStockByCategory();
     Page<Product> searchProductsByName(String name, Pageable pageable);
     Page<Product> searchProductsByNameOrCategory(String keyword, Pageable pageable);
+    // Danh sách thẻ sản phẩm (ACTIVE), các điều kiện null thì bỏ qua
+    Page<ProductCardResponse> getProductCards(Long categoryId, String gender, String name, Pageable pageable);
+
+    // Keyset pagination: after = cursor của trang trước (null cho trang đầu), không đếm tổng
+    CursorPage<ProductCardResponse> getProductCardsAfter(String after, int size, String sortBy, String sortDir);
+
+    // Tìm kiếm full-text (không dấu vẫn khớp), kết quả theo độ liên quan
+    Page<ProductCardResponse> searchProductCards(String query, Pageable pageable);
+
+    // Lọc nhiều facet (danh mục, giới tính, thương hiệu, màu, chất liệu, size còn hàng, khoảng giá) kèm số lượng từng facet
+    ProductFacetResponse filterProductCards(ProductFacetRequest request, Pageable pageable);
     
     // ProductImage methods
     List<ProductImage> getProductImages(Long productId);
@@ -0,0 +1,23 @@
+package com.example.StyleStore.service;
+
+import com.example.StyleStore.dto.response.SuggestionResponse;
+
+import java.util.List;
+
+/**
+ * Gợi ý khi gõ (typeahead): trie tiền tố trong JVM trên tên sản phẩm, thương hiệu và danh mục,
+ * không phân biệt dấu, mỗi node giữ sẵn top-K theo độ phổ biến (số lượng đã bán).
+ */
+public interface ProductSuggestService {
+
+    List<SuggestionResponse> suggest(String prefix, int limit);
+
+    // Đánh dấu sản phẩm cần nạp lại, được xử lý theo lô bởi refreshDirtyProducts
+    void markDirty(Long productId);
+
+    // Nạp lại tên/thương hiệu/danh mục của các sản phẩm đã đánh dấu
+    void refreshDirtyProducts();
+
+    // Dựng lại toàn bộ trie, kể cả độ phổ biến
+    void rebuild();
+}
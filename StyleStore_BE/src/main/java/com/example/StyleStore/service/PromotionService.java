@@ -1,10 +1,15 @@
 package com.example.StyleStore.service;
 
 import com.example.StyleStore.dto.response.PromotionResponse;
+import com.example.StyleStore.model.Promotion;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 public interface PromotionService {
     List<PromotionResponse> getAvailablePromotions();
@@ -13,4 +18,43 @@ public interface PromotionService {
     Page<PromotionResponse> searchPromotions(String keyword, Pageable pageable);
     PromotionResponse createPromotion(PromotionResponse request);
     PromotionResponse updatePromotion(Long id, PromotionResponse request);
+
+    // Khuyến mãi đang hiệu lực tại thời điểm now, đọc từ registry trong JVM (không query MySQL)
+    List<ActivePromotion> getActivePromotions(LocalDateTime now);
+
+    // Tra mã (không phân biệt hoa thường) trong registry, chỉ trả về nếu đang hiệu lực tại now
+    Optional<ActivePromotion> findActivePromotion(String code, LocalDateTime now);
+
+    // Nạp lại registry của node hiện tại từ MySQL, được gọi khi nhận thông báo pub/sub
+    void reloadLocal();
+
+    /**
+     * Bản sao bất biến của 1 khuyến mãi, dùng để tính tiền giảm trong bộ nhớ.
+     */
+    record ActivePromotion(Long id, String code, String name, String description, BigDecimal discountPercent,
+            BigDecimal maxDiscountAmount, BigDecimal minOrderAmount, LocalDateTime startAt, LocalDateTime endAt) {
+
+        public static ActivePromotion of(Promotion promotion) {
+            return new ActivePromotion(promotion.getId(), promotion.getCode(), promotion.getName(),
+                    promotion.getDescription(), promotion.getDiscountPercent(), promotion.getMaxDiscountAmount(),
+                    promotion.getMinOrderAmount(), promotion.getStartAt(), promotion.getEndAt());
+        }
+
+        public boolean isActiveAt(LocalDateTime now) {
+            return !now.isBefore(startAt) && now.isBefore(endAt);
+        }
+
+        public boolean isEligible(double totalAmount) {
+            return BigDecimal.valueOf(totalAmount).compareTo(minOrderAmount) >= 0;
+        }
+
+        // Giảm theo % (làm tròn 2 chữ số), không vượt quá mức giảm tối đa
+        public double discountFor(double totalAmount) {
+            return BigDecimal.valueOf(totalAmount)
+                    .multiply(discountPercent)
+                    .divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP)
+                    .min(maxDiscountAmount)
+                    .doubleValue();
+        }
+    }
 }
\ No newline at end of file
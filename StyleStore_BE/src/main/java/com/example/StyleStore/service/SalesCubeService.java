@@ -0,0 +1,23 @@
+package com.example.StyleStore.service;
+
+import com.example.StyleStore.dto.request.SalesCubeRequest;
+import com.example.StyleStore.dto.response.stats.SalesCubeResponse;
+import com.example.StyleStore.model.Order;
+import com.example.StyleStore.model.OrderItem;
+
+import java.util.List;
+
+/**
+ * Cube doanh số trong JVM: các dòng của đơn đã giao được lưu theo cột (mảng primitive),
+ * group-by / lọc / cộng tổng trên bộ nhớ mà không query MySQL.
+ */
+public interface SalesCubeService {
+
+    // Thêm các dòng của đơn vừa giao (sau commit), gọi trong transaction chuyển trạng thái
+    void appendDelivered(Order order, List<OrderItem> items);
+
+    SalesCubeResponse query(SalesCubeRequest request);
+
+    // Nạp lại toàn bộ từ MySQL
+    void reload();
+}
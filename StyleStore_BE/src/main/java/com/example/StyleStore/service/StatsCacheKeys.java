@@ -0,0 +1,30 @@
+package com.example.StyleStore.service;
+
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Tên cache và key của các API thống kê. Thống kê theo tháng dùng tháng hiện tại làm key,
+ * nên sang tháng mới sẽ tự tính lại thay vì trả về số liệu của tháng trước.
+ */
+public final class StatsCacheKeys {
+
+    public static final String REVENUE_MONTHLY = "stats:revenue:monthly";
+    public static final String REVENUE_GROWTH = "stats:revenue:growth";
+    public static final String USERS_MONTHLY = "stats:users:monthly";
+    public static final String USERS_ACTIVE_COUNT = "stats:users:activeCount";
+    public static final String PRODUCTS_COUNT = "stats:products:count";
+
+    public static final List<String> ALL_CACHES = List.of(REVENUE_MONTHLY, REVENUE_GROWTH, USERS_MONTHLY,
+            USERS_ACTIVE_COUNT, PRODUCTS_COUNT);
+
+    // Key của các thống kê không phụ thuộc thời điểm
+    public static final String TOTAL = "total";
+
+    private StatsCacheKeys() {
+    }
+
+    public static String currentMonth() {
+        return YearMonth.now().toString();
+    }
+}
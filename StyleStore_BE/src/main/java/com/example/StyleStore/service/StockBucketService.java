@@ -0,0 +1,12 @@
+package com.example.StyleStore.service;
+
+import com.example.StyleStore.dto.response.ProductSizeStockResponse;
+
+public interface StockBucketService {
+
+    /**
+     * Chia (hoặc gộp) tồn kho của 1 SKU thành bucketCount bucket chia đều nhau.
+     * bucketCount = 1 gộp toàn bộ về row product_sizes. Tổng tồn kho không đổi.
+     */
+    ProductSizeStockResponse stripeStock(Long productId, Long sizeId, int bucketCount);
+}
@@ -0,0 +1,67 @@
+package com.example.StyleStore.service;
+
+import com.example.StyleStore.repository.ProductSizeRepositoryCustom.StockChange;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Nơi giữ bộ đếm tồn kho theo (productId, sizeId) cho chế độ giữ hàng (reservation).
+ *
+ * Bất biến khi counter đã được nạp:
+ * counter = stock trong MySQL - pending - flushing - held
+ * (pending/flushing: số lượng đã bán nhưng chưa ghi xuống MySQL, held: đang được giữ chưa xác nhận).
+ */
+public interface StockCounterStore {
+
+    enum ReserveStatus {
+        RESERVED,
+        INSUFFICIENT,
+        NOT_LOADED
+    }
+
+    /**
+     * @param failedIndex vị trí dòng bị lỗi trong danh sách (INSUFFICIENT / NOT_LOADED)
+     * @param available   tồn kho hiện tại của dòng bị lỗi (INSUFFICIENT)
+     */
+    record ReserveResult(ReserveStatus status, int failedIndex, long available) {
+    }
+
+    // Kiểm tra và trừ tất cả các dòng một cách nguyên tử, hết hạn sau ttl nếu không được xác nhận
+    ReserveResult reserve(String reservationId, List<StockChange> changes, Duration ttl);
+
+    // Chuyển số lượng đang giữ sang pending (chờ ghi xuống MySQL). false nếu reservation đã hết hạn
+    boolean confirm(String reservationId);
+
+    // Trả lại số lượng đang giữ vào counter. false nếu reservation không còn tồn tại
+    boolean release(String reservationId);
+
+    // Cộng lại tồn kho (hủy đơn đã xác nhận): counter += quantity, pending -= quantity
+    void restock(List<StockChange> changes);
+
+    // Nạp counter từ tồn kho MySQL nếu chưa có. Caller phải giữ lock flush
+    boolean hydrate(Long productId, Long sizeId, long databaseStock);
+
+    // Xóa counter để lần sau nạp lại từ MySQL (admin sửa tồn kho trực tiếp)
+    void evict(Long productId, Long sizeId);
+
+    List<String> findExpiredReservations(long nowEpochMillis, int limit);
+
+    boolean tryLock(Duration leaseTime);
+
+    void unlock();
+
+    /**
+     * Chuyển pending sang flushing (nếu lần flush trước chưa hoàn tất thì giữ nguyên flushing)
+     * và trả về các delta cần trừ trong MySQL, key là "productId:sizeId".
+     */
+    Map<String, Long> beginFlush();
+
+    // Gọi sau khi các delta đã được commit xuống MySQL
+    void completeFlush();
+
+    static String field(Long productId, Long sizeId) {
+        return productId + ":" + sizeId;
+    }
+}
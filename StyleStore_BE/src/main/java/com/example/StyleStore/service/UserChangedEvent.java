@@ -0,0 +1,7 @@
+package com.example.StyleStore.service;
+
+/**
+ * Phát ra khi tài khoản được tạo (đăng ký, OAuth2, admin tạo), cập nhật hoặc xóa.
+ */
+public record UserChangedEvent(Long userId) {
+}
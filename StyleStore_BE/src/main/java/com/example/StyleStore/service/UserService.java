@@ -1,6 +1,7 @@
 package com.example.StyleStore.service;
 
 import com.example.StyleStore.dto.request.UserChangePasswordRequest;
+import com.example.StyleStore.dto.response.CursorPage;
 import com.example.StyleStore.dto.response.stats.MonthlyUserDto;
 import com.example.StyleStore.model.User;
 import org.springframework.data.domain.Page;
@@ -14,6 +15,7 @@ public interface UserService {
     User saveUser(User user);
     List<User> getAllUsers();
     Page<User> getUsers(Pageable pageable);
+    CursorPage<User> getUsersAfter(String after, int size, String sortBy, String sortDir);
     Page<User> searchUsersByFullNameOrEmail(String keyword, Pageable pageable);
     Optional<User> getUserById(Long id);
     User createUser(User user);
@@ -0,0 +1,123 @@
+package com.example.StyleStore.service.impl;
+
+import com.example.StyleStore.dto.response.stats.AdminDashboardResponse;
+import com.example.StyleStore.service.AdminDashboardService;
+import com.example.StyleStore.service.OrderService;
+import com.example.StyleStore.service.ProductService;
+import com.example.StyleStore.service.UserService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+@Slf4j
+@Service
+public class AdminDashboardServiceImpl implements AdminDashboardService {
+
+    private final OrderService orderService;
+    private final UserService userService;
+    private final ProductService productService;
+    private final Executor dashboardTaskExecutor;
+    private final PlatformTransactionManager transactionManager;
+
+    // Tính từ lúc bắt đầu request, áp dụng cho từng phần (các phần chạy song song)
+    @Value("${stats.dashboard.section-timeout-ms:3000}")
+    private long sectionTimeoutMs;
+
+    public AdminDashboardServiceImpl(OrderService orderService, UserService userService, ProductService productService,
+            @Qualifier("dashboardTaskExecutor") Executor dashboardTaskExecutor,
+            PlatformTransactionManager transactionManager) {
+        this.orderService = orderService;
+        this.userService = userService;
+        this.productService = productService;
+        this.dashboardTaskExecutor = dashboardTaskExecutor;
+        this.transactionManager = transactionManager;
+    }
+
+    private record Section<T>(CompletableFuture<T> future, Consumer<T> setter) {
+    }
+
+    @Override
+    public AdminDashboardResponse getDashboard() {
+        AdminDashboardResponse response = new AdminDashboardResponse();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(sectionTimeoutMs);
+        Map<String, Section<?>> sections = new LinkedHashMap<>();
+        submit(sections, deadline, "monthlyRevenue", orderService::getRecent12MonthsRevenue,
+                response::setMonthlyRevenue);
+        submit(sections, deadline, "revenueGrowth", orderService::getRevenueGrowth, response::setRevenueGrowth);
+        submit(sections, deadline, "monthlyUserRegistrations", userService::getRecent12MonthsUserRegistrations,
+                response::setMonthlyUserRegistrations);
+        submit(sections, deadline, "activeUserCount", userService::getTotalActiveUserCount,
+                response::setActiveUserCount);
+        submit(sections, deadline, "productCount", productService::getTotalProductCount, response::setProductCount);
+        submit(sections, deadline, "totalStock", productService::getTotalStock, response::setTotalStock);
+        submit(sections, deadline, "stockByCategory", productService::getStockByCategory, response::setStockByCategory);
+        submit(sections, deadline, "bestSellingProductsInCategories", orderService::getBestSellingProductsInCategories,
+                response::setBestSellingProductsInCategories);
+
+        List<String> unavailable = new ArrayList<>();
+        sections.forEach((name, section) -> {
+            if (!collect(name, section, deadline)) {
+                unavailable.add(name);
+            }
+        });
+        response.setUnavailableSections(unavailable);
+        return response;
+    }
+
+    private <T> void submit(Map<String, Section<?>> sections, long deadline, String name, Supplier<T> supplier,
+            Consumer<T> setter) {
+        CompletableFuture<T> future;
+        try {
+            future = CompletableFuture.supplyAsync(() -> withDeadline(supplier, deadline), dashboardTaskExecutor);
+        } catch (RuntimeException ex) {
+            // Executor đầy: bỏ qua phần này thay vì chặn request
+            future = CompletableFuture.failedFuture(ex);
+        }
+        sections.put(name, new Section<>(future, setter));
+    }
+
+    // cancel(true) không dừng được câu SQL đang chạy, nên mỗi phần chạy trong transaction chỉ đọc
+    // có timeout bằng thời gian còn lại: Spring đặt query timeout (JPA lẫn JdbcTemplate) theo đó,
+    // DB tự hủy câu quá hạn. Timeout transaction tính theo giây nên làm tròn lên
+    private <T> T withDeadline(Supplier<T> supplier, long deadline) {
+        long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+        if (remainingMs <= 0) {
+            throw new RuntimeException("Hết thời gian trước khi bắt đầu");
+        }
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        transaction.setTimeout((int) Math.max(1, (remainingMs + 999) / 1000));
+        return transaction.execute(status -> supplier.get());
+    }
+
+    private static <T> boolean collect(String name, Section<T> section, long deadline) {
+        try {
+            long remaining = Math.max(0, deadline - System.nanoTime());
+            section.setter().accept(section.future().get(remaining, TimeUnit.NANOSECONDS));
+            return true;
+        } catch (TimeoutException ex) {
+            log.warn("Dashboard: phần {} quá thời gian, trả về kết quả thiếu", name);
+        } catch (ExecutionException ex) {
+            log.warn("Dashboard: phần {} lỗi: {}", name, ex.getCause() != null ? ex.getCause().getMessage() : ex.getMessage());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        section.future().cancel(true);
+        return false;
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.StyleStore.service.impl;
+
+import com.example.StyleStore.dto.response.AdminOrderFeedFrame;
+import com.example.StyleStore.dto.response.AdminOrderFeedFrame.OrderChange;
+import com.example.StyleStore.dto.response.InventoryAlertResponse;
+import com.example.StyleStore.dto.response.stats.AdminStatsFeedFrame;
+import com.example.StyleStore.model.Order;
+import com.example.StyleStore.model.enums.OrderStatus;
+import com.example.StyleStore.service.AdminFeedService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Slf4j
+@Service
+public class AdminFeedServiceImpl implements AdminFeedService {
+
+    // Thay đổi gom được trong 1 chu kỳ, chưa gửi
+    private static final class Pending {
+        private final Map<Long, OrderChange> orders = new LinkedHashMap<>();
+        private int droppedOrders;
+        private long newOrders;
+        private long deliveredOrders;
+        private long cancelledOrders;
+        private BigDecimal revenueIncrement = BigDecimal.ZERO;
+        private final List<InventoryAlertResponse> stockAlerts = new ArrayList<>();
+
+        boolean hasOrders() {
+            return !orders.isEmpty() || droppedOrders > 0;
+        }
+
+        boolean hasStats() {
+            return newOrders > 0 || deliveredOrders > 0 || cancelledOrders > 0 || !stockAlerts.isEmpty();
+        }
+    }
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final Object lock = new Object();
+    private Pending pending = new Pending();
+
+    // Giới hạn số đơn / cảnh báo trong 1 frame để frame không phình khi có đợt cao điểm
+    @Value("${admin.feed.max-items-per-frame:200}")
+    private int maxItemsPerFrame;
+
+    public AdminFeedServiceImpl(SimpMessagingTemplate messagingTemplate) {
+        this.messagingTemplate = messagingTemplate;
+    }
+
+    @Override
+    public void orderCreated(Order order) {
+        OrderChange change = OrderChange.builder()
+                .orderId(order.getId())
+                .userId(order.getUser() != null ? order.getUser().getId() : null)
+                .userName(order.getUser() != null ? order.getUser().getFullName() : null)
+                .finalAmount(order.getFinalAmount())
+                .created(true)
+                .status(order.getStatus())
+                .changedAt(LocalDateTime.now())
+                .build();
+        AfterCommit.run(() -> {
+            synchronized (lock) {
+                pending.newOrders++;
+                mergeOrder(change);
+            }
+        });
+    }
+
+    @Override
+    public void orderStatusChanged(Order order, OrderStatus previousStatus) {
+        // Chỉ đọc id của user: đơn có thể được nạp ngoài transaction (proxy lazy)
+        OrderChange change = OrderChange.builder()
+                .orderId(order.getId())
+                .userId(order.getUser() != null ? order.getUser().getId() : null)
+                .finalAmount(order.getFinalAmount())
+                .previousStatus(previousStatus)
+                .status(order.getStatus())
+                .changedAt(LocalDateTime.now())
+                .build();
+        BigDecimal revenue = order.getStatus() == OrderStatus.DELIVERED && order.getTotalAmount() != null
+                ? BigDecimal.valueOf(order.getTotalAmount())
+                : BigDecimal.ZERO;
+        AfterCommit.run(() -> {
+            synchronized (lock) {
+                if (change.getStatus() == OrderStatus.DELIVERED) {
+                    pending.deliveredOrders++;
+                    pending.revenueIncrement = pending.revenueIncrement.add(revenue);
+                } else if (change.getStatus() == OrderStatus.CANCELLED) {
+                    pending.cancelledOrders++;
+                }
+                mergeOrder(change);
+            }
+        });
+    }
+
+    @Override
+    public void stockAlertCreated(InventoryAlertResponse alert) {
+        AfterCommit.run(() -> {
+            synchronized (lock) {
+                if (pending.stockAlerts.size() < maxItemsPerFrame) {
+                    pending.stockAlerts.add(alert);
+                }
+            }
+        });
+    }
+
+    // Đơn đã có trong chu kỳ: giữ trạng thái đầu chu kỳ, cập nhật trạng thái mới nhất
+    private void mergeOrder(OrderChange change) {
+        OrderChange existing = pending.orders.get(change.getOrderId());
+        if (existing != null) {
+            existing.setStatus(change.getStatus());
+            existing.setChangedAt(change.getChangedAt());
+            if (existing.getUserId() == null) {
+                existing.setUserId(change.getUserId());
+            }
+            return;
+        }
+        if (pending.orders.size() >= maxItemsPerFrame) {
+            pending.droppedOrders++;
+            return;
+        }
+        pending.orders.put(change.getOrderId(), change);
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${admin.feed.flush-interval-ms:1000}")
+    public void flush() {
+        Pending batch;
+        synchronized (lock) {
+            if (!pending.hasOrders() && !pending.hasStats()) {
+                return;
+            }
+            batch = pending;
+            pending = new Pending();
+        }
+
+        try {
+            if (batch.hasOrders()) {
+                messagingTemplate.convertAndSend(ORDERS_TOPIC, AdminOrderFeedFrame.builder()
+                        .orders(new ArrayList<>(batch.orders.values()))
+                        .dropped(batch.droppedOrders)
+                        .build());
+            }
+            if (batch.hasStats()) {
+                messagingTemplate.convertAndSend(STATS_TOPIC, AdminStatsFeedFrame.builder()
+                        .newOrders(batch.newOrders)
+                        .deliveredOrders(batch.deliveredOrders)
+                        .cancelledOrders(batch.cancelledOrders)
+                        .revenueIncrement(batch.revenueIncrement)
+                        .stockAlerts(batch.stockAlerts)
+                        .build());
+            }
+        } catch (RuntimeException ex) {
+            // Feed chỉ là phần bổ sung, dashboard vẫn có thể tải lại qua REST
+            log.warn("Không thể gửi feed admin: {}", ex.getMessage());
+        }
+    }
+
+    // Tắt ứng dụng: gửi frame cuối khi broker STOMP còn chạy (ContextClosedEvent đến trước khi broker dừng)
+    @EventListener(ContextClosedEvent.class)
+    public void flushOnShutdown() {
+        flush();
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.StyleStore.service.impl;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Chạy 1 việc sau khi transaction hiện tại commit (rollback thì bỏ qua), hoặc chạy ngay nếu
+ * không có transaction. Dùng cho các cập nhật cache / index trong JVM không được thấy dữ liệu chưa commit.
+ */
+final class AfterCommit {
+
+    private AfterCommit() {
+    }
+
+    static void run(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -16,7 +16,9 @@ import com.example.StyleStore.repository.RoleRepository;
 import com.example.StyleStore.service.AuthService;
 import com.example.StyleStore.service.JwtService;
 import com.example.StyleStore.service.OtpService;
+import com.example.StyleStore.service.UserChangedEvent;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -51,6 +53,7 @@ public class AuthServiceImpl implements AuthService {
         private final AuthenticationManager authenticationManager;
         private final OtpService otpService;
         private final RedisTemplate<String, String> redisTemplate;
+        private final ApplicationEventPublisher eventPublisher;
         private static final Logger logger = Logger.getLogger(AuthServiceImpl.class.getName());
         private static final Set<String> ALLOWED_GENDERS = Set.of("MALE", "FEMALE", "OTHER");
 
@@ -79,6 +82,7 @@ public class AuthServiceImpl implements AuthService {
                                 .build();
 
                 userRepository.save(user);
+                eventPublisher.publishEvent(new UserChangedEvent(user.getId()));
 
                 try {
                         Cart cart = Cart.builder()
@@ -0,0 +1,87 @@
+package com.example.StyleStore.service.impl;
+
+import com.example.StyleStore.dto.request.CartBatchRequest;
+import com.example.StyleStore.dto.request.CartBatchRequest.Operation;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Gộp danh sách thao tác giỏ hàng (ADD / UPDATE / REMOVE) thành số lượng cuối cùng của từng SKU,
+ * dùng chung cho cả giỏ trên MySQL và trên Redis. Kiểm tra tồn kho do nơi gọi làm, 1 lần cho cả lô.
+ */
+final class CartBatch {
+
+    static final int MAX_OPERATIONS = 100;
+
+    record Sku(Long productId, Long sizeId) {
+    }
+
+    private CartBatch() {
+    }
+
+    /**
+     * @param current     số lượng hiện có trong giỏ theo SKU
+     * @param skuOfItemId tra SKU từ cartItemId (null nếu không thuộc giỏ)
+     * @return số lượng cuối của các SKU bị thay đổi, theo thứ tự thao tác; 0 = xóa khỏi giỏ
+     */
+    static Map<Sku, Integer> apply(CartBatchRequest request, Map<Sku, Integer> current,
+            Function<Long, Sku> skuOfItemId) {
+        List<Operation> operations = request != null ? request.getOperations() : null;
+        if (operations == null || operations.isEmpty()) {
+            throw new RuntimeException("Danh sách thao tác không được để trống");
+        }
+        if (operations.size() > MAX_OPERATIONS) {
+            throw new RuntimeException("Chỉ được gửi tối đa " + MAX_OPERATIONS + " thao tác mỗi lần");
+        }
+
+        Map<Sku, Integer> quantities = new HashMap<>(current);
+        Map<Sku, Integer> changes = new LinkedHashMap<>();
+        for (Operation operation : operations) {
+            if (operation == null || operation.getAction() == null) {
+                throw new RuntimeException("Thao tác không hợp lệ");
+            }
+            switch (operation.getAction()) {
+                case ADD -> {
+                    if (operation.getProductId() == null || operation.getSizeId() == null) {
+                        throw new RuntimeException("Thiếu sản phẩm hoặc size");
+                    }
+                    Sku sku = new Sku(operation.getProductId(), operation.getSizeId());
+                    int quantity = quantities.getOrDefault(sku, 0) + positive(operation.getQuantity());
+                    quantities.put(sku, quantity);
+                    changes.put(sku, quantity);
+                }
+                case UPDATE -> {
+                    Sku sku = existing(operation, quantities, skuOfItemId);
+                    int quantity = positive(operation.getQuantity());
+                    quantities.put(sku, quantity);
+                    changes.put(sku, quantity);
+                }
+                case REMOVE -> {
+                    Sku sku = existing(operation, quantities, skuOfItemId);
+                    quantities.remove(sku);
+                    changes.put(sku, 0);
+                }
+            }
+        }
+        return changes;
+    }
+
+    private static Sku existing(Operation operation, Map<Sku, Integer> quantities, Function<Long, Sku> skuOfItemId) {
+        Sku sku = operation.getCartItemId() != null ? skuOfItemId.apply(operation.getCartItemId()) : null;
+        if (sku == null || !quantities.containsKey(sku)) {
+            throw new RuntimeException("Sản phẩm không tồn tại trong giỏ");
+        }
+        return sku;
+    }
+
+    private static int positive(Integer quantity) {
+        if (quantity == null || quantity <= 0) {
+            throw new RuntimeException("Số lượng phải lớn hơn 0");
+        }
+        return quantity;
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.StyleStore.service.impl;
 
+import com.example.StyleStore.dto.request.CartBatchRequest;
 import com.example.StyleStore.dto.response.ApiResponse;
+import com.example.StyleStore.dto.response.CartResponse;
 import com.example.StyleStore.model.Cart;
 import com.example.StyleStore.model.CartItem;
 import com.example.StyleStore.model.Product;
@@ -8,20 +10,30 @@ import com.example.StyleStore.model.Size;
 import com.example.StyleStore.model.User;
 import com.example.StyleStore.repository.CartRepository;
 import com.example.StyleStore.repository.CartItemRepository;
+import com.example.StyleStore.repository.CartItemRepository.CartViewProjection;
 import com.example.StyleStore.repository.ProductRepository;
 import com.example.StyleStore.repository.ProductSizeRepository;
 import com.example.StyleStore.repository.SizeRepository;
 import com.example.StyleStore.repository.UserRepository;
 import com.example.StyleStore.service.CartService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 import com.example.StyleStore.model.ProductSize;
 
+// Giỏ hàng đọc/ghi trực tiếp MySQL (mặc định). cart.store=redis để dùng RedisCartServiceImpl
 @Service
+@ConditionalOnProperty(name = "cart.store", havingValue = "jpa", matchIfMissing = true)
 @RequiredArgsConstructor
 public class CartServiceImpl implements CartService {
 
@@ -41,6 +53,26 @@ public class CartServiceImpl implements CartService {
                 .orElseThrow(() -> new RuntimeException("Giỏ hàng không tồn tại"));
     }
 
+    @Override
+    public CartResponse getCartView(Long userId) {
+        List<CartViewProjection> rows = cartItemRepository.findCartView(userId);
+        if (rows.isEmpty()) {
+            throw new RuntimeException("Giỏ hàng không tồn tại");
+        }
+        return CartViews.build(rows.get(0).getCartId(), rows.stream()
+                .filter(row -> row.getCartItemId() != null)
+                .map(row -> new CartViews.Line(row.getCartItemId(), row.getProductId(), row.getProductName(),
+                        row.getThumbnail(), row.getMaterial(), row.getColor(), row.getCurrentPrice(),
+                        row.getCartPrice(), row.getSizeId(), row.getSizeName(), row.getQuantity(),
+                        row.getAvailableStock()))
+                .toList());
+    }
+
+    @Override
+    public long countItems(Long userId) {
+        return cartItemRepository.countByUserId(userId);
+    }
+
     @Override
     public CartItem addToCart(Long userId, Long productId, Long sizeId, Integer quantity) {
         if (quantity <= 0) {
@@ -51,10 +83,10 @@ public class CartServiceImpl implements CartService {
         ProductSize productSize = productSizeRepository.findByProduct_IdAndSize_Id(productId, sizeId)
                 .orElseThrow(() -> new RuntimeException("Size không có sẵn cho sản phẩm này"));
 
-        if (productSize.getStock() < quantity) {
+        if (productSize.getTotalStock() < quantity) {
             throw new RuntimeException("Sản phẩm " + productSize.getProduct().getName() + 
                     ", size " + productSize.getSize().getName() + 
-                    " chỉ còn " + productSize.getStock() + " cái trong kho");
+                    " chỉ còn " + productSize.getTotalStock() + " cái trong kho");
         }
 
         Cart cart = getCartByUserId(userId);
@@ -73,10 +105,10 @@ public class CartServiceImpl implements CartService {
             cartItem = existingItem.get();
             int newQuantity = cartItem.getQuantity() + quantity;
             // Check if total quantity exceeds stock
-            if (newQuantity > productSize.getStock()) {
+            if (newQuantity > productSize.getTotalStock()) {
                 throw new RuntimeException("Sản phẩm " + product.getName() + 
                         ", size " + size.getName() + 
-                        " chỉ còn " + productSize.getStock() + " cái trong kho, không thể thêm " + quantity + " cái nữa");
+                        " chỉ còn " + productSize.getTotalStock() + " cái trong kho, không thể thêm " + quantity + " cái nữa");
             }
             cartItem.setQuantity(newQuantity);
             cartItem.setUpdatedAt(LocalDateTime.now());
@@ -130,10 +162,10 @@ public class CartServiceImpl implements CartService {
                 cartItem.getProduct().getId(), cartItem.getSize().getId())
                 .orElseThrow(() -> new RuntimeException("Size không có sẵn cho sản phẩm này"));
 
-        if (quantity > productSize.getStock()) {
+        if (quantity > productSize.getTotalStock()) {
             throw new RuntimeException("Sản phẩm " + cartItem.getProduct().getName() + 
                     ", size " + cartItem.getSize().getName() + 
-                    " chỉ còn " + productSize.getStock() + " cái trong kho");
+                    " chỉ còn " + productSize.getTotalStock() + " cái trong kho");
         }
 
         cartItem.setQuantity(quantity);
@@ -148,6 +180,69 @@ public class CartServiceImpl implements CartService {
         cartRepository.save(cart);
     }
 
+    @Override
+    @Transactional
+    public CartResponse applyBatch(Long userId, CartBatchRequest request) {
+        Cart cart = cartRepository.findByUser_Id(userId)
+                .orElseThrow(() -> new RuntimeException("Giỏ hàng không tồn tại"));
+
+        Map<CartBatch.Sku, CartItem> items = new HashMap<>();
+        Map<Long, CartBatch.Sku> skuByItemId = new HashMap<>();
+        Map<CartBatch.Sku, Integer> quantities = new HashMap<>();
+        for (CartItem item : cartItemRepository.findByCart_Id(cart.getId())) {
+            CartBatch.Sku sku = new CartBatch.Sku(item.getProduct().getId(), item.getSize().getId());
+            items.put(sku, item);
+            skuByItemId.put(item.getId(), sku);
+            quantities.put(sku, item.getQuantity());
+        }
+        Map<CartBatch.Sku, Integer> changes = CartBatch.apply(request, quantities, skuByItemId::get);
+
+        // ✅ Tồn kho của mọi SKU trong lô: 1 query product_sizes (kèm product, size)
+        Set<Long> productIds = changes.entrySet().stream()
+                .filter(change -> change.getValue() > 0)
+                .map(change -> change.getKey().productId())
+                .collect(Collectors.toSet());
+        Map<CartBatch.Sku, ProductSize> productSizes = productIds.isEmpty() ? Map.of()
+                : productSizeRepository.findAllByProductIdInFetchProductAndSize(productIds).stream()
+                        .collect(Collectors.toMap(
+                                ps -> new CartBatch.Sku(ps.getProduct().getId(), ps.getSize().getId()), ps -> ps));
+
+        List<CartItem> toSave = new ArrayList<>();
+        List<CartItem> toDelete = new ArrayList<>();
+        changes.forEach((sku, quantity) -> {
+            CartItem item = items.get(sku);
+            if (quantity == 0) {
+                if (item != null) {
+                    toDelete.add(item);
+                }
+                return;
+            }
+            ProductSize productSize = productSizes.get(sku);
+            if (productSize == null) {
+                throw new RuntimeException("Size không có sẵn cho sản phẩm này");
+            }
+            if (quantity > productSize.getTotalStock()) {
+                throw new RuntimeException("Sản phẩm " + productSize.getProduct().getName() +
+                        ", size " + productSize.getSize().getName() +
+                        " chỉ còn " + productSize.getTotalStock() + " cái trong kho");
+            }
+            if (item == null) {
+                item = CartItem.builder()
+                        .cart(cart)
+                        .product(productSize.getProduct())
+                        .size(productSize.getSize())
+                        .price(productSize.getProduct().getPrice())
+                        .build();
+            }
+            item.setQuantity(quantity);
+            toSave.add(item);
+        });
+
+        cartItemRepository.deleteAllInBatch(toDelete);
+        cartItemRepository.saveAll(toSave);
+        return getCartView(userId);
+    }
+
     private void updateCartTotalPrice(Cart cart) {
         // totalPrice được tính tự động từ getTotalPrice()
     }
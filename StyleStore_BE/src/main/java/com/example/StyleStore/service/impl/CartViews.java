@@ -0,0 +1,69 @@
+package com.example.StyleStore.service.impl;
+
+import com.example.StyleStore.dto.response.CartResponse;
+import com.example.StyleStore.dto.response.CartResponse.CartItemResponse;
+import com.example.StyleStore.dto.response.CartResponse.CartProductResponse;
+import com.example.StyleStore.dto.response.CartResponse.CartSizeResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Dựng CartResponse từ các dòng đã đọc sẵn (MySQL hoặc Redis), dùng chung cho 2 cart store.
+ */
+final class CartViews {
+
+    record Line(Long cartItemId, Long productId, String productName, String thumbnail, String material,
+            String color, Double currentPrice, Double cartPrice, Long sizeId, String sizeName, int quantity,
+            Integer availableStock) {
+    }
+
+    private CartViews() {
+    }
+
+    // 1 lượt qua các dòng: tổng số lượng, tổng tiền theo giá hiện tại, cờ tồn kho và đổi giá
+    static CartResponse build(Long cartId, List<Line> lines) {
+        List<CartItemResponse> items = new ArrayList<>(lines.size());
+        int totalQuantity = 0;
+        double totalPrice = 0.0;
+        boolean hasStockWarning = false;
+        boolean hasPriceChange = false;
+        for (Line line : lines) {
+            double unitPrice = line.currentPrice() != null ? line.currentPrice() : 0.0;
+            int available = line.availableStock() != null ? line.availableStock() : 0;
+            boolean stockWarning = available < line.quantity();
+            boolean priceChanged = line.cartPrice() != null && !Objects.equals(line.cartPrice(), line.currentPrice());
+            items.add(CartItemResponse.builder()
+                    .id(line.cartItemId())
+                    .product(CartProductResponse.builder()
+                            .id(line.productId())
+                            .name(line.productName())
+                            .price(line.currentPrice())
+                            .thumbnail(line.thumbnail())
+                            .material(line.material())
+                            .color(line.color())
+                            .build())
+                    .size(CartSizeResponse.builder().id(line.sizeId()).name(line.sizeName()).build())
+                    .quantity(line.quantity())
+                    .price(line.cartPrice())
+                    .subtotal(unitPrice * line.quantity())
+                    .availableStock(available)
+                    .stockWarning(stockWarning)
+                    .priceChanged(priceChanged)
+                    .build());
+            totalQuantity += line.quantity();
+            totalPrice += unitPrice * line.quantity();
+            hasStockWarning |= stockWarning;
+            hasPriceChange |= priceChanged;
+        }
+        return CartResponse.builder()
+                .id(cartId)
+                .cartItems(items)
+                .totalQuantity(totalQuantity)
+                .totalPrice(totalPrice)
+                .hasStockWarning(hasStockWarning)
+                .hasPriceChange(hasPriceChange)
+                .build();
+    }
+}
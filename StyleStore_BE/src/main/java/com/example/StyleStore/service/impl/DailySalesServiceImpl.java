@@ -0,0 +1,81 @@
+package com.example.StyleStore.service.impl;
+
+import com.example.StyleStore.model.Order;
+import com.example.StyleStore.repository.DailySalesSummaryRepository;
+import com.example.StyleStore.service.DailySalesService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+@Slf4j
+@Service
+public class DailySalesServiceImpl implements DailySalesService {
+
+    private final DailySalesSummaryRepository dailySalesSummaryRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final StatsCacheInvalidator statsCacheInvalidator;
+
+    // Số ngày gần nhất được đối soát lại mỗi lần chạy job
+    @Value("${stats.daily-sales.reconcile-days:7}")
+    private int reconcileDays;
+
+    public DailySalesServiceImpl(DailySalesSummaryRepository dailySalesSummaryRepository,
+            PlatformTransactionManager transactionManager, StatsCacheInvalidator statsCacheInvalidator) {
+        this.dailySalesSummaryRepository = dailySalesSummaryRepository;
+        this.statsCacheInvalidator = statsCacheInvalidator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public void recordOrderDelivered(Order order) {
+        recordOrdersDelivered(List.of(order));
+    }
+
+    @Override
+    public void recordOrdersDelivered(List<Order> orders) {
+        // Giống các báo cáo cũ: doanh thu = total_amount, tính theo ngày tạo đơn
+        Map<LocalDate, BigDecimal> revenueByDate = new TreeMap<>();
+        Map<LocalDate, Long> countByDate = new HashMap<>();
+        for (Order order : orders) {
+            LocalDate saleDate = order.getCreatedAt() != null ? order.getCreatedAt().toLocalDate() : LocalDate.now();
+            BigDecimal revenue = order.getTotalAmount() != null ? BigDecimal.valueOf(order.getTotalAmount()) : BigDecimal.ZERO;
+            revenueByDate.merge(saleDate, revenue, BigDecimal::add);
+            countByDate.merge(saleDate, 1L, Long::sum);
+        }
+        revenueByDate.forEach((saleDate, revenue) ->
+                dailySalesSummaryRepository.applyDelta(saleDate, revenue, countByDate.get(saleDate)));
+    }
+
+    @Override
+    public int rebuild(LocalDate from, LocalDate to) {
+        if (from == null || to == null || from.isAfter(to)) {
+            throw new RuntimeException("Khoảng ngày không hợp lệ");
+        }
+        Integer days = transactionTemplate.execute(status ->
+                dailySalesSummaryRepository.rebuildRange(from, to.plusDays(1)));
+        statsCacheInvalidator.evictRevenue(null);
+        log.info("Đã tính lại doanh thu theo ngày từ {} đến {} ({} ngày có doanh thu)", from, to, days);
+        return days != null ? days : 0;
+    }
+
+    // Đơn tạo từ nhiều ngày trước vẫn có thể được giao hôm nay, nên đối soát lại cả cửa sổ gần đây
+    @Scheduled(cron = "${stats.daily-sales.reconcile-cron:0 30 3 * * *}")
+    public void reconcileRecentDays() {
+        LocalDate today = LocalDate.now();
+        try {
+            rebuild(today.minusDays(reconcileDays), today);
+        } catch (RuntimeException ex) {
+            log.warn("Không thể đối soát doanh thu theo ngày: {}", ex.getMessage());
+        }
+    }
+}
@@ -8,9 +8,17 @@ import com.example.StyleStore.dto.response.ImportReceiptResponse;
 import com.example.StyleStore.dto.response.SupplierResponse;
 import com.example.StyleStore.model.*;
 import com.example.StyleStore.model.enums.ImportReceiptStatus;
+import com.example.StyleStore.model.enums.InventoryMovementType;
 import com.example.StyleStore.repository.*;
+import com.example.StyleStore.repository.InventoryMovementRepositoryCustom.Movement;
+import com.example.StyleStore.repository.ProductSizeRepositoryCustom.StockChange;
 import com.example.StyleStore.service.ImportReceiptService;
+import com.example.StyleStore.service.InventoryLedgerService;
+import com.example.StyleStore.service.InventoryReservationService;
+import com.example.StyleStore.service.ProductChangedEvent;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
@@ -32,6 +40,9 @@ public class ImportReceiptServiceImpl implements ImportReceiptService {
     private final ProductRepository productRepository;
     private final SizeRepository sizeRepository;
     private final ProductSizeRepository productSizeRepository;
+    private final ObjectProvider<InventoryReservationService> inventoryReservationService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final InventoryLedgerService inventoryLedgerService;
 
     @Override
     @Transactional
@@ -61,6 +72,7 @@ public class ImportReceiptServiceImpl implements ImportReceiptService {
         ImportReceipt savedReceipt = importReceiptRepository.save(receipt);
 
         List<ImportReceiptItem> receiptItems = new ArrayList<>();
+        List<StockChange> stockChanges = new ArrayList<>();
         for (ImportReceiptCreateRequest.ImportReceiptItemRequest itemRequest : request.getItems()) {
             if (itemRequest.getProductId() == null || itemRequest.getSizeId() == null) {
                 throw new RuntimeException("Thông tin sản phẩm/size không hợp lệ");
@@ -79,17 +91,18 @@ public class ImportReceiptServiceImpl implements ImportReceiptService {
                 throw new RuntimeException("Giá nhập cho sản phẩm " + product.getName() + " không hợp lệ");
             }
 
-            ProductSize productSize = productSizeRepository
-                    .findByProduct_IdAndSize_Id(product.getId(), size.getId())
-                    .orElseGet(() -> ProductSize.builder()
-                            .product(product)
-                            .size(size)
-                            .stock(0)
-                            .build());
-
-            int currentStock = productSize.getStock() == null ? 0 : productSize.getStock();
-            productSize.setStock(currentStock + itemRequest.getQuantity());
-            productSizeRepository.save(productSize);
+            // SKU chưa có thì tạo với tồn kho 0, số lượng nhập được cộng cùng các dòng khác bên dưới
+            if (productSizeRepository.findByProduct_IdAndSize_Id(product.getId(), size.getId()).isEmpty()) {
+                productSizeRepository.save(ProductSize.builder()
+                        .product(product)
+                        .size(size)
+                        .stock(0)
+                        .build());
+            }
+            // applyStockDeltas trừ theo quantity, nên nhập kho là quantity âm
+            stockChanges.add(new StockChange(product.getId(), size.getId(), -itemRequest.getQuantity()));
+            inventoryReservationService.ifAvailable(service -> service.evict(product.getId(), size.getId()));
+            eventPublisher.publishEvent(new ProductChangedEvent(product.getId()));
 
             ImportReceiptItem receiptItem = ImportReceiptItem.builder()
                     .receipt(savedReceipt)
@@ -102,6 +115,12 @@ public class ImportReceiptServiceImpl implements ImportReceiptService {
             receiptItems.add(receiptItem);
         }
 
+        // ✅ UPDATE stock = stock + ? nguyên tử trong 1 JDBC batch thay vì đọc-sửa-ghi từng dòng
+        productSizeRepository.applyStockDeltas(stockChanges);
+        inventoryLedgerService.record(InventoryMovementType.IMPORT, savedReceipt.getId(), stockChanges.stream()
+                .map(change -> new Movement(change.productId(), change.sizeId(), -change.quantity()))
+                .toList());
+
         importReceiptItemRepository.saveAll(receiptItems);
         return toImportReceiptResponse(savedReceipt, receiptItems, true);
     }
@@ -0,0 +1,236 @@
+package com.example.StyleStore.service.impl;
+
+import com.example.StyleStore.service.CartHashStore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Giỏ hàng dạng hash trong JVM, cùng ngữ nghĩa với {@link RedisCartHashStore}.
+ * Chỉ dùng cho môi trường 1 node (dev/test) vì không chia sẻ giữa các instance.
+ */
+@Component
+@ConditionalOnExpression("'${cart.store:jpa}' == 'redis' and '${cart.redis.store:redis}' == 'local'")
+public class InMemoryCartHashStore implements CartHashStore {
+
+    // expireAt null = không hết hạn (giỏ đang chờ ghi)
+    private static final class Entry {
+        private final Map<String, String> fields = new LinkedHashMap<>();
+        private Long expireAt;
+    }
+
+    private final Map<Long, Entry> carts = new HashMap<>();
+    private final Set<String> dirty = new LinkedHashSet<>();
+    private final Map<String, Long> failures = new HashMap<>();
+    private final Set<String> parked = new LinkedHashSet<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    @Override
+    public synchronized Map<String, String> entries(Long userId) {
+        Entry entry = live(userId);
+        return entry != null ? new LinkedHashMap<>(entry.fields) : Map.of();
+    }
+
+    @Override
+    public synchronized long size(Long userId) {
+        Entry entry = live(userId);
+        return entry != null ? entry.fields.size() : 0;
+    }
+
+    @Override
+    public synchronized void hydrate(Long userId, Map<String, String> fields, Duration ttl) {
+        if (live(userId) != null) {
+            return;
+        }
+        Entry entry = new Entry();
+        entry.fields.putAll(fields);
+        entry.expireAt = System.currentTimeMillis() + ttl.toMillis();
+        carts.put(userId, entry);
+    }
+
+    @Override
+    public synchronized long add(Long userId, String field, int quantity, int maxStock, double price, long nowMillis) {
+        Entry entry = loaded(userId);
+        if (entry == null) {
+            return NOT_LOADED;
+        }
+        long newQuantity = quantity;
+        String priceValue = String.valueOf(price);
+        String createdAt = String.valueOf(nowMillis);
+        String current = entry.fields.get(field);
+        if (current != null) {
+            String[] parts = current.split("\\|");
+            newQuantity += Long.parseLong(parts[0]);
+            priceValue = parts[1];
+            createdAt = parts[2];
+        }
+        if (newQuantity > maxStock) {
+            return OVER_STOCK;
+        }
+        entry.fields.put(field, newQuantity + "|" + priceValue + "|" + createdAt + "|" + nowMillis);
+        touch(userId, entry);
+        return newQuantity;
+    }
+
+    @Override
+    public synchronized long set(Long userId, String field, int quantity, long nowMillis) {
+        Entry entry = loaded(userId);
+        if (entry == null) {
+            return NOT_LOADED;
+        }
+        String current = entry.fields.get(field);
+        if (current == null) {
+            return 0;
+        }
+        String[] parts = current.split("\\|");
+        entry.fields.put(field, quantity + "|" + parts[1] + "|" + parts[2] + "|" + nowMillis);
+        touch(userId, entry);
+        return 1;
+    }
+
+    @Override
+    public synchronized long remove(Long userId, List<String> fields) {
+        Entry entry = loaded(userId);
+        if (entry == null) {
+            return NOT_LOADED;
+        }
+        long removed = 0;
+        if (fields.isEmpty()) {
+            Iterator<String> iterator = entry.fields.keySet().iterator();
+            while (iterator.hasNext()) {
+                if (!CART_ID_FIELD.equals(iterator.next())) {
+                    iterator.remove();
+                    removed++;
+                }
+            }
+        } else {
+            for (String field : fields) {
+                if (entry.fields.remove(field) != null) {
+                    removed++;
+                }
+            }
+        }
+        touch(userId, entry);
+        return removed;
+    }
+
+    @Override
+    public synchronized long apply(Long userId, Map<String, Integer> expectedQuantities, Map<String, String> values) {
+        Entry entry = loaded(userId);
+        if (entry == null) {
+            return NOT_LOADED;
+        }
+        for (String field : values.keySet()) {
+            String current = entry.fields.get(field);
+            Integer quantity = current != null ? Integer.valueOf(current.split("\\|")[0]) : null;
+            if (!Objects.equals(quantity, expectedQuantities.get(field))) {
+                return CONFLICT;
+            }
+        }
+        values.forEach((field, value) -> {
+            if (value == null) {
+                entry.fields.remove(field);
+            } else {
+                entry.fields.put(field, value);
+            }
+        });
+        touch(userId, entry);
+        return 1;
+    }
+
+    @Override
+    public synchronized List<String> popDirty(long count) {
+        List<String> popped = new ArrayList<>();
+        Iterator<String> iterator = dirty.iterator();
+        while (iterator.hasNext() && popped.size() < count) {
+            popped.add(iterator.next());
+            iterator.remove();
+        }
+        return popped;
+    }
+
+    @Override
+    public synchronized void markDirty(Collection<String> userIds) {
+        dirty.addAll(userIds);
+    }
+
+    @Override
+    public synchronized boolean isDirty(String userId) {
+        return dirty.contains(userId);
+    }
+
+    @Override
+    public synchronized void expireIfClean(String userId, Duration ttl) {
+        Entry entry = live(Long.valueOf(userId));
+        if (entry != null && !dirty.contains(userId)) {
+            entry.expireAt = System.currentTimeMillis() + ttl.toMillis();
+        }
+    }
+
+    @Override
+    public synchronized long recordFailure(String userId) {
+        return failures.merge(userId, 1L, Long::sum);
+    }
+
+    @Override
+    public synchronized void clearFailures(String userId) {
+        failures.remove(userId);
+        parked.remove(userId);
+    }
+
+    @Override
+    public synchronized void park(String userId) {
+        parked.add(userId);
+        failures.remove(userId);
+    }
+
+    @Override
+    public synchronized boolean isParked(String userId) {
+        return parked.contains(userId);
+    }
+
+    @Override
+    public boolean tryLock(Duration leaseTime) {
+        return flushLock.tryLock();
+    }
+
+    @Override
+    public void unlock() {
+        if (flushLock.isHeldByCurrentThread()) {
+            flushLock.unlock();
+        }
+    }
+
+    private Entry loaded(Long userId) {
+        Entry entry = live(userId);
+        return entry != null && entry.fields.containsKey(CART_ID_FIELD) ? entry : null;
+    }
+
+    // Hết hạn lười: hash quá hạn coi như không còn
+    private Entry live(Long userId) {
+        Entry entry = carts.get(userId);
+        if (entry != null && entry.expireAt != null && entry.expireAt <= System.currentTimeMillis()) {
+            carts.remove(userId);
+            return null;
+        }
+        return entry;
+    }
+
+    // Sửa giỏ: đánh dấu dirty và bỏ TTL cho tới khi ghi xong
+    private void touch(Long userId, Entry entry) {
+        dirty.add(String.valueOf(userId));
+        entry.expireAt = null;
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.StyleStore.service.impl;
+
+import com.example.StyleStore.repository.ProductSizeRepositoryCustom.StockChange;
+import com.example.StyleStore.service.StockCounterStore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bộ đếm tồn kho trong JVM, cùng ngữ nghĩa với {@link RedisStockCounterStore}.
+ * Chỉ dùng cho môi trường 1 node (dev/test) vì không chia sẻ giữa các instance.
+ */
+@Component
+@ConditionalOnExpression("${inventory.reservation.enabled:false} and '${inventory.reservation.store:redis}' == 'local'")
+public class InMemoryStockCounterStore implements StockCounterStore {
+
+    private record Reservation(Map<String, Long> items, long expireAt) {
+    }
+
+    private final Map<String, Long> counters = new HashMap<>();
+    private final Map<String, Long> held = new HashMap<>();
+    private final Map<String, Long> pending = new HashMap<>();
+    private final Map<String, Long> flushing = new HashMap<>();
+    private final Map<String, Reservation> reservations = new HashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    @Override
+    public synchronized ReserveResult reserve(String reservationId, List<StockChange> changes, Duration ttl) {
+        for (int i = 0; i < changes.size(); i++) {
+            StockChange change = changes.get(i);
+            Long stock = counters.get(StockCounterStore.field(change.productId(), change.sizeId()));
+            if (stock == null) {
+                return new ReserveResult(ReserveStatus.NOT_LOADED, i, 0);
+            }
+            if (stock < change.quantity()) {
+                return new ReserveResult(ReserveStatus.INSUFFICIENT, i, stock);
+            }
+        }
+
+        Map<String, Long> items = new LinkedHashMap<>();
+        for (StockChange change : changes) {
+            String field = StockCounterStore.field(change.productId(), change.sizeId());
+            counters.merge(field, (long) -change.quantity(), Long::sum);
+            items.merge(field, (long) change.quantity(), Long::sum);
+            add(held, field, change.quantity());
+        }
+        reservations.put(reservationId, new Reservation(items, System.currentTimeMillis() + ttl.toMillis()));
+        return new ReserveResult(ReserveStatus.RESERVED, -1, 0);
+    }
+
+    @Override
+    public synchronized boolean confirm(String reservationId) {
+        Reservation reservation = reservations.remove(reservationId);
+        if (reservation == null) {
+            return false;
+        }
+        reservation.items().forEach((field, qty) -> {
+            add(held, field, -qty);
+            add(pending, field, qty);
+        });
+        return true;
+    }
+
+    @Override
+    public synchronized boolean release(String reservationId) {
+        Reservation reservation = reservations.remove(reservationId);
+        if (reservation == null) {
+            return false;
+        }
+        reservation.items().forEach((field, qty) -> {
+            add(held, field, -qty);
+            counters.computeIfPresent(field, (key, stock) -> stock + qty);
+        });
+        return true;
+    }
+
+    @Override
+    public synchronized void restock(List<StockChange> changes) {
+        for (StockChange change : changes) {
+            String field = StockCounterStore.field(change.productId(), change.sizeId());
+            counters.computeIfPresent(field, (key, stock) -> stock + change.quantity());
+            add(pending, field, -change.quantity());
+        }
+    }
+
+    @Override
+    public synchronized boolean hydrate(Long productId, Long sizeId, long databaseStock) {
+        String field = StockCounterStore.field(productId, sizeId);
+        if (counters.containsKey(field)) {
+            return false;
+        }
+        long outstanding = pending.getOrDefault(field, 0L)
+                + flushing.getOrDefault(field, 0L)
+                + held.getOrDefault(field, 0L);
+        counters.put(field, databaseStock - outstanding);
+        return true;
+    }
+
+    @Override
+    public synchronized void evict(Long productId, Long sizeId) {
+        counters.remove(StockCounterStore.field(productId, sizeId));
+    }
+
+    @Override
+    public synchronized List<String> findExpiredReservations(long nowEpochMillis, int limit) {
+        List<String> expired = new ArrayList<>();
+        for (Map.Entry<String, Reservation> entry : reservations.entrySet()) {
+            if (expired.size() >= limit) {
+                break;
+            }
+            if (entry.getValue().expireAt() <= nowEpochMillis) {
+                expired.add(entry.getKey());
+            }
+        }
+        return expired;
+    }
+
+    @Override
+    public boolean tryLock(Duration leaseTime) {
+        return flushLock.tryLock();
+    }
+
+    @Override
+    public void unlock() {
+        if (flushLock.isHeldByCurrentThread()) {
+            flushLock.unlock();
+        }
+    }
+
+    @Override
+    public synchronized Map<String, Long> beginFlush() {
+        if (flushing.isEmpty()) {
+            flushing.putAll(pending);
+            pending.clear();
+        }
+        return new HashMap<>(flushing);
+    }
+
+    @Override
+    public synchronized void completeFlush() {
+        flushing.clear();
+    }
+
+    private static void add(Map<String, Long> target, String field, long delta) {
+        Long value = target.merge(field, delta, Long::sum);
+        if (value != null && value == 0L) {
+            target.remove(field);
+        }
+    }
+}
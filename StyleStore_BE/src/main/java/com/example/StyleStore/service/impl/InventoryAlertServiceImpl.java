@@ -5,6 +5,7 @@ import com.example.StyleStore.model.InventoryAlert;
 import com.example.StyleStore.model.Product;
 import com.example.StyleStore.model.User;
 import com.example.StyleStore.repository.InventoryAlertRepository;
+import com.example.StyleStore.service.AdminFeedService;
 import com.example.StyleStore.service.InventoryAlertService;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -17,9 +18,12 @@ import org.springframework.transaction.annotation.Transactional;
 public class InventoryAlertServiceImpl implements InventoryAlertService {
 
     private final InventoryAlertRepository inventoryAlertRepository;
+    private final AdminFeedService adminFeedService;
 
-    public InventoryAlertServiceImpl(InventoryAlertRepository inventoryAlertRepository) {
+    public InventoryAlertServiceImpl(InventoryAlertRepository inventoryAlertRepository,
+            AdminFeedService adminFeedService) {
         this.inventoryAlertRepository = inventoryAlertRepository;
+        this.adminFeedService = adminFeedService;
     }
 
     @Override
@@ -36,12 +40,14 @@ public class InventoryAlertServiceImpl implements InventoryAlertService {
     @Override
     @Transactional(propagation = Propagation.REQUIRES_NEW)
     public void createInsufficientStockAlert(User user, Product product, String message) {
-        inventoryAlertRepository.save(InventoryAlert.builder()
+        InventoryAlert saved = inventoryAlertRepository.save(InventoryAlert.builder()
                 .user(user)
                 .product(product)
                 .message(message)
                 .status(0)
                 .build());
+        // Gửi sau khi transaction riêng của cảnh báo commit, kể cả khi đơn hàng bị rollback
+        adminFeedService.stockAlertCreated(toResponse(saved));
     }
 
     @Override
@@ -0,0 +1,112 @@
+package com.example.StyleStore.service.impl;
+
+import com.example.StyleStore.dto.response.InventoryMovementResponse;
+import com.example.StyleStore.dto.response.InventoryStockAsOfResponse;
+import com.example.StyleStore.model.InventorySnapshot;
+import com.example.StyleStore.model.enums.InventoryMovementType;
+import com.example.StyleStore.repository.InventoryMovementRepository;
+import com.example.StyleStore.repository.InventoryMovementRepositoryCustom.Movement;
+import com.example.StyleStore.repository.InventorySnapshotRepository;
+import com.example.StyleStore.service.InventoryLedgerService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@Slf4j
+@Service
+public class InventoryLedgerServiceImpl implements InventoryLedgerService {
+
+    private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final InventoryMovementRepository inventoryMovementRepository;
+    private final InventorySnapshotRepository inventorySnapshotRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    // Chỉ gộp dòng cũ hơn khoảng trễ này: transaction ghi sổ đang chạy dở không bị snapshot bỏ sót
+    @Value("${inventory.ledger.snapshot-lag-minutes:5}")
+    private long snapshotLagMinutes;
+
+    public InventoryLedgerServiceImpl(InventoryMovementRepository inventoryMovementRepository,
+            InventorySnapshotRepository inventorySnapshotRepository, PlatformTransactionManager transactionManager) {
+        this.inventoryMovementRepository = inventoryMovementRepository;
+        this.inventorySnapshotRepository = inventorySnapshotRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public void record(InventoryMovementType type, Long referenceId, List<Movement> movements) {
+        inventoryMovementRepository.appendMovements(type, referenceId, movements);
+    }
+
+    @Override
+    public void recordAll(InventoryMovementType type, Map<Long, List<Movement>> movementsByReference) {
+        inventoryMovementRepository.appendMovements(type, movementsByReference);
+    }
+
+    @Override
+    public InventoryStockAsOfResponse getStockAsOf(Long productId, Long sizeId, LocalDateTime at) {
+        if (productId == null || sizeId == null) {
+            throw new RuntimeException("productId và sizeId không được để trống");
+        }
+        LocalDateTime time = at != null ? at : LocalDateTime.now();
+        Optional<InventorySnapshot> snapshot = inventorySnapshotRepository
+                .findFirstByProductIdAndSizeIdAndAsOfLessThanEqualOrderByAsOfDesc(productId, sizeId, time);
+        LocalDateTime from = snapshot.map(InventorySnapshot::getAsOf).orElse(EPOCH);
+        long base = snapshot.map(InventorySnapshot::getStock).orElse(0L);
+        long delta = inventoryMovementRepository.sumQuantity(productId, sizeId, from, time);
+        return InventoryStockAsOfResponse.builder()
+                .productId(productId)
+                .sizeId(sizeId)
+                .at(time)
+                .stock(base + delta)
+                .snapshotAt(snapshot.map(InventorySnapshot::getAsOf).orElse(null))
+                .snapshotStock(base)
+                .movementsSinceSnapshot(delta)
+                .build();
+    }
+
+    @Override
+    public Page<InventoryMovementResponse> getMovements(Long productId, Long sizeId, int page, int size) {
+        PageRequest pageRequest = PageRequest.of(page, size, Sort.by("id").descending());
+        return inventoryMovementRepository.findByProductIdAndSizeId(productId, sizeId, pageRequest)
+                .map(movement -> InventoryMovementResponse.builder()
+                        .id(movement.getId())
+                        .productId(movement.getProductId())
+                        .sizeId(movement.getSizeId())
+                        .quantity(movement.getQuantity())
+                        .type(movement.getType().name())
+                        .referenceId(movement.getReferenceId())
+                        .createdAt(movement.getCreatedAt())
+                        .build());
+    }
+
+    @Override
+    public int compactSnapshots() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(snapshotLagMinutes);
+        Integer created = transactionTemplate.execute(status -> inventoryMovementRepository.compactSnapshots(cutoff));
+        if (created != null && created > 0) {
+            log.info("Đã tạo {} snapshot tồn kho tại {}", created, cutoff);
+        }
+        return created != null ? created : 0;
+    }
+
+    @Scheduled(cron = "${inventory.ledger.snapshot-cron:0 0 * * * *}")
+    public void scheduledCompaction() {
+        try {
+            compactSnapshots();
+        } catch (RuntimeException ex) {
+            log.warn("Không thể gộp snapshot tồn kho: {}", ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.example.StyleStore.service.impl;
+
+import com.example.StyleStore.model.ProductSize;
+import com.example.StyleStore.repository.ProductSizeRepository;
+import com.example.StyleStore.repository.ProductSizeRepositoryCustom.StockChange;
+import com.example.StyleStore.service.InventoryReservationService;
+import com.example.StyleStore.service.ProductCacheService;
+import com.example.StyleStore.service.StockCounterStore;
+import com.example.StyleStore.service.StockCounterStore.ReserveResult;
+import com.example.StyleStore.service.StockCounterStore.ReserveStatus;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "inventory.reservation.enabled", havingValue = "true")
+public class InventoryReservationServiceImpl implements InventoryReservationService {
+
+    private static final Duration LOCK_LEASE = Duration.ofSeconds(30);
+    private static final int LOCK_ATTEMPTS = 50;
+    private static final long LOCK_RETRY_MILLIS = 20;
+    private static final int EXPIRED_BATCH_SIZE = 200;
+
+    private final StockCounterStore stockCounterStore;
+    private final ProductSizeRepository productSizeRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ProductCacheService productCacheService;
+
+    @Value("${inventory.reservation.ttl-seconds:120}")
+    private long reservationTtlSeconds;
+
+    public InventoryReservationServiceImpl(StockCounterStore stockCounterStore,
+            ProductSizeRepository productSizeRepository, PlatformTransactionManager transactionManager,
+            ProductCacheService productCacheService) {
+        this.stockCounterStore = stockCounterStore;
+        this.productSizeRepository = productSizeRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.productCacheService = productCacheService;
+    }
+
+    @Override
+    public ReservationResult reserve(List<StockChange> changes) {
+        String reservationId = UUID.randomUUID().toString();
+        Duration ttl = Duration.ofSeconds(reservationTtlSeconds);
+
+        // Mỗi lần NOT_LOADED nạp thêm 1 counter, nên tối đa changes.size() + 1 lần thử
+        ReserveResult result = stockCounterStore.reserve(reservationId, changes, ttl);
+        for (int attempt = 0; result.status() == ReserveStatus.NOT_LOADED && attempt < changes.size(); attempt++) {
+            hydrate(changes.get(result.failedIndex()));
+            result = stockCounterStore.reserve(reservationId, changes, ttl);
+        }
+
+        if (result.status() == ReserveStatus.NOT_LOADED) {
+            throw new IllegalStateException("Không thể nạp tồn kho cho reservation " + reservationId);
+        }
+        if (result.status() == ReserveStatus.INSUFFICIENT) {
+            return new ReservationResult(null, result.failedIndex(), result.available());
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                    new ReservationSynchronization(reservationId, changes));
+        } else if (!stockCounterStore.confirm(reservationId)) {
+            throw new RuntimeException("Phiên giữ hàng đã hết hạn, vui lòng đặt hàng lại");
+        }
+        return new ReservationResult(reservationId, -1, 0);
+    }
+
+    @Override
+    public void restock(List<StockChange> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        AfterCommit.run(() -> stockCounterStore.restock(changes));
+    }
+
+    @Override
+    public void evict(Long productId, Long sizeId) {
+        // Evict sau commit để lần nạp lại đọc được tồn kho mới
+        AfterCommit.run(() -> stockCounterStore.evict(productId, sizeId));
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${inventory.reservation.flush-interval-ms:1000}")
+    public void flushPendingToDatabase() {
+        if (!stockCounterStore.tryLock(LOCK_LEASE)) {
+            return;
+        }
+        try {
+            Map<String, Long> deltas = stockCounterStore.beginFlush();
+            if (!deltas.isEmpty()) {
+                List<StockChange> changes = new ArrayList<>();
+                deltas.forEach((field, quantity) -> {
+                    if (quantity != 0) {
+                        String[] ids = field.split(":");
+                        changes.add(new StockChange(Long.valueOf(ids[0]), Long.valueOf(ids[1]), quantity.intValue()));
+                    }
+                });
+                transactionTemplate.executeWithoutResult(status -> productSizeRepository.applyStockDeltas(changes));
+                changes.stream().map(StockChange::productId).distinct().forEach(productCacheService::evict);
+            }
+            // Chỉ xóa flushing sau khi commit; nếu lỗi, lần flush sau ghi lại đúng các delta này
+            stockCounterStore.completeFlush();
+        } catch (RuntimeException ex) {
+            log.error("Ghi tồn kho xuống MySQL thất bại, sẽ thử lại: {}", ex.getMessage());
+        } finally {
+            stockCounterStore.unlock();
+        }
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${inventory.reservation.flush-interval-ms:1000}")
+    public void releaseExpiredReservations() {
+        List<String> expired = stockCounterStore.findExpiredReservations(System.currentTimeMillis(), EXPIRED_BATCH_SIZE);
+        for (String reservationId : expired) {
+            if (stockCounterStore.release(reservationId)) {
+                log.info("Reservation {} hết hạn, đã trả lại tồn kho", reservationId);
+            }
+        }
+    }
+
+    // Tắt ứng dụng (job định kỳ đã dừng): ghi nốt delta đang chờ, store local sẽ mất cùng JVM
+    @PreDestroy
+    public void flushOnShutdown() {
+        flushPendingToDatabase();
+    }
+
+    // Nạp counter dưới lock flush để không đọc MySQL giữa lúc đang ghi delta xuống
+    private void hydrate(StockChange change) {
+        boolean locked = false;
+        try {
+            for (int i = 0; i < LOCK_ATTEMPTS && !locked; i++) {
+                locked = stockCounterStore.tryLock(LOCK_LEASE);
+                if (!locked) {
+                    Thread.sleep(LOCK_RETRY_MILLIS);
+                }
+            }
+            if (!locked) {
+                throw new IllegalStateException("Hệ thống giữ hàng đang bận, vui lòng thử lại");
+            }
+
+            int databaseStock = productSizeRepository.findStockByProductIdAndSizeId(change.productId(), change.sizeId())
+                    .orElse(0);
+            stockCounterStore.hydrate(change.productId(), change.sizeId(), databaseStock);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Bị gián đoạn khi nạp tồn kho", ex);
+        } finally {
+            if (locked) {
+                stockCounterStore.unlock();
+            }
+        }
+    }
+
+    private class ReservationSynchronization implements TransactionSynchronization {
+        private final String reservationId;
+        private final List<StockChange> changes;
+        private boolean confirmed;
+
+        ReservationSynchronization(String reservationId, List<StockChange> changes) {
+            this.reservationId = reservationId;
+            this.changes = changes;
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            confirmed = stockCounterStore.confirm(reservationId);
+            if (!confirmed) {
+                throw new RuntimeException("Phiên giữ hàng đã hết hạn, vui lòng đặt hàng lại");
+            }
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            if (status == STATUS_COMMITTED) {
+                return;
+            }
+            if (confirmed) {
+                // Commit MySQL thất bại sau khi đã xác nhận: hoàn lại như hủy đơn
+                stockCounterStore.restock(changes);
+            } else {
+                stockCounterStore.release(reservationId);
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.StyleStore.service.impl;
+
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+
+/**
+ * Mã hóa / giải mã cursor cho keyset pagination (Spring Data {@link Window}).
+ *
+ * Cursor là base64url của "sortBy,dir|key=type:value|..." với các key là cột sort + id
+ * của bản ghi cuối trang. Cursor chỉ hợp lệ với đúng sortBy/sortDir đã tạo ra nó.
+ */
+final class KeysetCursor {
+
+    // Số bản ghi tối đa mỗi trang cursor, size lớn hơn bị giảm về mức này
+    static final int MAX_PAGE_SIZE = 100;
+
+    private KeysetCursor() {
+    }
+
+    static Limit limit(int size) {
+        if (size < 1) {
+            throw new RuntimeException("size phải lớn hơn 0");
+        }
+        return Limit.of(Math.min(size, MAX_PAGE_SIZE));
+    }
+
+    static Sort resolveSort(String sortBy, String sortDir, Set<String> allowedProperties) {
+        if (!allowedProperties.contains(sortBy)) {
+            throw new RuntimeException("Không hỗ trợ sắp xếp theo '" + sortBy + "' ở chế độ cursor");
+        }
+        Sort.Direction direction = "asc".equalsIgnoreCase(sortDir) ? Sort.Direction.ASC : Sort.Direction.DESC;
+        // id luôn đứng cuối để khóa sort là duy nhất
+        return "id".equals(sortBy)
+                ? Sort.by(direction, "id")
+                : Sort.by(direction, sortBy).and(Sort.by(direction, "id"));
+    }
+
+    static ScrollPosition decode(String after, Sort sort) {
+        if (after == null || after.isBlank()) {
+            return ScrollPosition.keyset();
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(after), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (!parts[0].equals(signature(sort))) {
+                throw new IllegalArgumentException("sort mismatch");
+            }
+            Map<String, Object> keys = new LinkedHashMap<>();
+            for (int i = 1; i < parts.length; i++) {
+                int eq = parts[i].indexOf('=');
+                keys.put(parts[i].substring(0, eq), decodeValue(parts[i].substring(eq + 1)));
+            }
+            return ScrollPosition.forward(keys);
+        } catch (RuntimeException ex) {
+            throw new RuntimeException("Cursor không hợp lệ");
+        }
+    }
+
+    static String encode(Window<?> window, Sort sort) {
+        if (window.isEmpty() || !window.hasNext()) {
+            return null;
+        }
+        KeysetScrollPosition position = (KeysetScrollPosition) window.positionAt(window.size() - 1);
+        StringJoiner joiner = new StringJoiner("|");
+        joiner.add(signature(sort));
+        position.getKeys().forEach((key, value) -> joiner.add(key + "=" + encodeValue(value)));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(joiner.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String signature(Sort sort) {
+        StringJoiner joiner = new StringJoiner(",");
+        sort.forEach(order -> joiner.add(order.getProperty() + ":" + order.getDirection()));
+        return joiner.toString();
+    }
+
+    private static String encodeValue(Object value) {
+        String type;
+        if (value instanceof Long) {
+            type = "L";
+        } else if (value instanceof Integer) {
+            type = "I";
+        } else if (value instanceof Double) {
+            type = "D";
+        } else if (value instanceof BigDecimal) {
+            type = "B";
+        } else if (value instanceof LocalDateTime) {
+            type = "T";
+        } else if (value instanceof String) {
+            type = "S";
+        } else {
+            throw new IllegalStateException("Kiểu khóa cursor không hỗ trợ: " + value);
+        }
+        String encoded = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+        return type + ":" + encoded;
+    }
+
+    private static Object decodeValue(String typedValue) {
+        String value = new String(Base64.getUrlDecoder().decode(typedValue.substring(2)), StandardCharsets.UTF_8);
+        return switch (typedValue.charAt(0)) {
+            case 'L' -> Long.valueOf(value);
+            case 'I' -> Integer.valueOf(value);
+            case 'D' -> Double.valueOf(value);
+            case 'B' -> new BigDecimal(value);
+            case 'T' -> LocalDateTime.parse(value);
+            case 'S' -> value;
+            default -> throw new IllegalArgumentException("Kiểu khóa không hợp lệ");
+        };
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.StyleStore.service.impl;
 
 import com.example.StyleStore.dto.request.UserOrderRequest;
+import com.example.StyleStore.dto.response.BulkOrderTransitionResponse;
+import com.example.StyleStore.dto.response.OrderQuoteResponse;
 import com.example.StyleStore.dto.response.OrderResponse;
 import com.example.StyleStore.dto.response.stats.BestSellingProductsInCategoriesDTO;
 import com.example.StyleStore.dto.response.stats.MonthlyRevenueDto;
@@ -8,22 +10,45 @@ import com.example.StyleStore.dto.response.stats.ProductSalesDto;
 import com.example.StyleStore.dto.response.stats.RevenueGrowthDto;
 import com.example.StyleStore.dto.response.stats.RevenueWithProductsDto;
 import com.example.StyleStore.dto.response.OrderItemDto;
+import com.example.StyleStore.dto.response.CursorPage;
 import com.example.StyleStore.model.*;
+import com.example.StyleStore.model.enums.InventoryMovementType;
 import com.example.StyleStore.model.enums.OrderStatus;
+import com.example.StyleStore.model.DailySalesSummary;
+import com.example.StyleStore.repository.DailySalesSummaryRepository;
+import com.example.StyleStore.repository.InventoryMovementRepositoryCustom.Movement;
 import com.example.StyleStore.repository.OrderItemRepository;
 import com.example.StyleStore.repository.OrderRepository;
+import com.example.StyleStore.repository.OrderRepository.OrderSummaryProjection;
 import com.example.StyleStore.repository.PromotionRepository;
 import com.example.StyleStore.repository.ProductRepository;
 import com.example.StyleStore.repository.ProductSizeRepository;
+import com.example.StyleStore.repository.ProductSizeRepositoryCustom.StockChange;
+import com.example.StyleStore.service.AdminFeedService;
+import com.example.StyleStore.service.DailySalesService;
 import com.example.StyleStore.service.OrderService;
+import com.example.StyleStore.service.OrderSketchService;
 import com.example.StyleStore.service.InventoryAlertService;
+import com.example.StyleStore.service.InventoryLedgerService;
+import com.example.StyleStore.service.InventoryReservationService;
+import com.example.StyleStore.service.ProductCacheService;
+import com.example.StyleStore.service.OrderStatusChangedEvent;
+import com.example.StyleStore.service.ProductSalesService;
+import com.example.StyleStore.service.PromotionService;
+import com.example.StyleStore.service.PromotionService.ActivePromotion;
+import com.example.StyleStore.service.SalesCubeService;
+import com.example.StyleStore.service.StatsCacheKeys;
 
 import io.jsonwebtoken.lang.Collections;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -34,47 +59,93 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 public class OrderServiceImpl implements OrderService {
 
+    // Cột được phép sort ở chế độ cursor
+    private static final Set<String> CURSOR_SORT_PROPERTIES = Set.of("createdAt", "finalAmount", "id");
+    // Giới hạn số đơn mỗi lần chuyển trạng thái hàng loạt (giữ IN list và thời gian khóa trong tầm kiểm soát)
+    private static final int MAX_BULK_ORDERS = 1000;
+
+    // Kết quả 1 lần chuyển trạng thái: trạng thái nguồn đã khớp, projection sau khi đổi và đơn dựng từ nó
+    private record Transition(OrderStatus previousStatus, OrderSummaryProjection summary, Order order) {
+    }
+
     private final OrderRepository orderRepository;
     private final OrderItemRepository orderItemRepository;
     private final ProductRepository productRepository;
     private final ProductSizeRepository productSizeRepository;
     private final PromotionRepository promotionRepository;
     private final InventoryAlertService inventoryAlertService;
-
+    // null khi inventory.reservation.enabled=false → trừ tồn kho trực tiếp trên MySQL
+    private final InventoryReservationService inventoryReservationService;
+    private final ProductCacheService productCacheService;
+    private final ProductSalesService productSalesService;
+    private final DailySalesService dailySalesService;
+    private final DailySalesSummaryRepository dailySalesSummaryRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AdminFeedService adminFeedService;
+    private final SalesCubeService salesCubeService;
+    private final OrderSketchService orderSketchService;
+    private final InventoryLedgerService inventoryLedgerService;
+    private final PromotionService promotionService;
 
     public OrderServiceImpl(OrderRepository orderRepository, OrderItemRepository orderItemRepository,
             ProductRepository productRepository, ProductSizeRepository productSizeRepository,
-            PromotionRepository promotionRepository, InventoryAlertService inventoryAlertService) {
+            PromotionRepository promotionRepository, InventoryAlertService inventoryAlertService,
+            ObjectProvider<InventoryReservationService> inventoryReservationService,
+            ProductCacheService productCacheService, ProductSalesService productSalesService,
+            DailySalesService dailySalesService, DailySalesSummaryRepository dailySalesSummaryRepository,
+            ApplicationEventPublisher eventPublisher, AdminFeedService adminFeedService,
+            SalesCubeService salesCubeService, OrderSketchService orderSketchService,
+            InventoryLedgerService inventoryLedgerService, PromotionService promotionService) {
         this.orderRepository = orderRepository;
         this.orderItemRepository = orderItemRepository;
         this.productRepository = productRepository;
         this.productSizeRepository = productSizeRepository;
         this.promotionRepository = promotionRepository;
         this.inventoryAlertService = inventoryAlertService;
+        this.inventoryReservationService = inventoryReservationService.getIfAvailable();
+        this.productCacheService = productCacheService;
+        this.productSalesService = productSalesService;
+        this.dailySalesService = dailySalesService;
+        this.dailySalesSummaryRepository = dailySalesSummaryRepository;
+        this.eventPublisher = eventPublisher;
+        this.adminFeedService = adminFeedService;
+        this.salesCubeService = salesCubeService;
+        this.orderSketchService = orderSketchService;
+        this.inventoryLedgerService = inventoryLedgerService;
+        this.promotionService = promotionService;
     }
 
     @Override
-    @Cacheable(cacheNames = "stats:revenue:monthly", key = "'fixed'")
+    @Cacheable(cacheNames = StatsCacheKeys.REVENUE_MONTHLY,
+            key = "T(com.example.StyleStore.service.StatsCacheKeys).currentMonth()", sync = true)
     public List<MonthlyRevenueDto> getRecent12MonthsRevenue() {
         YearMonth now = YearMonth.now();
         YearMonth start = now.minusMonths(11);
-        LocalDateTime from = start.atDay(1).atStartOfDay();
-        LocalDateTime to = now.plusMonths(1).atDay(1).atStartOfDay();
 
-        Map<YearMonth, BigDecimal> aggregated = orderRepository
-                .sumRevenueByMonth(from, to, OrderStatus.DELIVERED.name())
+        // Tối đa ~366 dòng tổng hợp theo ngày, gộp theo tháng trong bộ nhớ
+        Map<YearMonth, BigDecimal> aggregated = dailySalesSummaryRepository
+                .findBySaleDateGreaterThanEqualAndSaleDateLessThanOrderBySaleDate(
+                        start.atDay(1), now.plusMonths(1).atDay(1))
                 .stream()
                 .collect(Collectors.toMap(
-                        r -> YearMonth.of(r.getYear(), r.getMonth()),
-                        OrderRepository.MonthlyRevenueProjection::getRevenue));
+                        d -> YearMonth.from(d.getSaleDate()),
+                        DailySalesSummary::getRevenue,
+                        BigDecimal::add));
 
         List<MonthlyRevenueDto> result = new ArrayList<>();
         for (int i = 0; i < 12; i++) {
@@ -86,15 +157,16 @@ public class OrderServiceImpl implements OrderService {
     }
 
     @Override
-    @Cacheable(cacheNames = "stats:revenue:growth", key = "'fixed'")
+    @Cacheable(cacheNames = StatsCacheKeys.REVENUE_GROWTH,
+            key = "T(com.example.StyleStore.service.StatsCacheKeys).currentMonth()", sync = true)
     public RevenueGrowthDto getRevenueGrowth() {
         YearMonth currentMonth = YearMonth.now();
         YearMonth previousMonth = currentMonth.minusMonths(1);
         YearMonth twoMonthsAgo = currentMonth.minusMonths(2);
-        BigDecimal previousMonthRevenue = orderRepository.getRevenueByYearMonth(previousMonth.getYear(),
-                previousMonth.getMonthValue(), OrderStatus.DELIVERED.name()).orElse(BigDecimal.ZERO);
-        BigDecimal twoMonthsAgoRevenue = orderRepository.getRevenueByYearMonth(twoMonthsAgo.getYear(),
-                twoMonthsAgo.getMonthValue(), OrderStatus.DELIVERED.name()).orElse(BigDecimal.ZERO);
+        BigDecimal previousMonthRevenue = dailySalesSummaryRepository.sumRevenue(previousMonth.atDay(1),
+                currentMonth.atDay(1));
+        BigDecimal twoMonthsAgoRevenue = dailySalesSummaryRepository.sumRevenue(twoMonthsAgo.atDay(1),
+                previousMonth.atDay(1));
         BigDecimal growth;
         BigDecimal growthPercentage;
         if (twoMonthsAgoRevenue.compareTo(BigDecimal.ZERO) == 0) {
@@ -123,33 +195,26 @@ public class OrderServiceImpl implements OrderService {
 
     @Override
     public RevenueWithProductsDto getRevenueByDate(LocalDate date) {
-        LocalDateTime from = date.atStartOfDay();
-        LocalDateTime to = date.plusDays(1).atStartOfDay();
-        return buildRevenueWithProducts(from, to);
+        return buildRevenueWithProducts(date, date.plusDays(1));
     }
 
     @Override
     public RevenueWithProductsDto getRevenueByMonth(int year, int month) {
         YearMonth yearMonth = YearMonth.of(year, month);
-        LocalDateTime from = yearMonth.atDay(1).atStartOfDay();
-        LocalDateTime to = yearMonth.plusMonths(1).atDay(1).atStartOfDay();
-        return buildRevenueWithProducts(from, to);
+        return buildRevenueWithProducts(yearMonth.atDay(1), yearMonth.plusMonths(1).atDay(1));
     }
 
     @Override
     public RevenueWithProductsDto getRevenueByYear(int year) {
-        LocalDateTime from = LocalDate.of(year, 1, 1).atStartOfDay();
-        LocalDateTime to = LocalDate.of(year + 1, 1, 1).atStartOfDay();
-        return buildRevenueWithProducts(from, to);
+        return buildRevenueWithProducts(LocalDate.of(year, 1, 1), LocalDate.of(year + 1, 1, 1));
     }
 
-    private RevenueWithProductsDto buildRevenueWithProducts(LocalDateTime from, LocalDateTime to) {
-        BigDecimal revenue = orderRepository
-                .getRevenueByDateRange(from, to, OrderStatus.DELIVERED.name())
-                .orElse(BigDecimal.ZERO);
+    // Đọc từ bảng tổng hợp theo ngày thay vì quét orders/order_items
+    private RevenueWithProductsDto buildRevenueWithProducts(LocalDate from, LocalDate to) {
+        BigDecimal revenue = dailySalesSummaryRepository.sumRevenue(from, to);
 
-        List<ProductSalesDto> soldProducts = orderRepository
-                .getProductSalesByDateRange(from, to, OrderStatus.DELIVERED.name())
+        List<ProductSalesDto> soldProducts = dailySalesSummaryRepository
+                .sumProductSales(from, to)
                 .stream()
                 .map(item -> new ProductSalesDto(
                         item.getProductId(),
@@ -164,8 +229,16 @@ public class OrderServiceImpl implements OrderService {
     public Page<OrderResponse> getAllOrders(int page, int size, String sortBy, String sortDir) {
         Sort.Direction direction = "asc".equalsIgnoreCase(sortDir) ? Sort.Direction.ASC : Sort.Direction.DESC;
         PageRequest pageRequest = PageRequest.of(page, size, Sort.by(direction, sortBy));
-        Page<Order> orders = orderRepository.findAll(pageRequest);
-        return orders.map(this::convertToDto);
+        return orderRepository.findSummaries(null, null, pageRequest).map(OrderServiceImpl::toResponse);
+    }
+
+    @Override
+    public CursorPage<OrderResponse> getAllOrdersAfter(String after, int size, String sortBy, String sortDir) {
+        Sort sort = KeysetCursor.resolveSort(sortBy, sortDir, CURSOR_SORT_PROPERTIES);
+        Limit limit = KeysetCursor.limit(size);
+        Window<Order> window = orderRepository.findAllBy(KeysetCursor.decode(after, sort), sort, limit);
+        List<OrderResponse> content = window.getContent().stream().map(this::convertToDto).toList();
+        return new CursorPage<>(content, limit.max(), KeysetCursor.encode(window, sort), window.hasNext());
     }
 
     @Override
@@ -188,8 +261,8 @@ public class OrderServiceImpl implements OrderService {
         }
 
         OrderStatus parsedStatus = parseOrderStatusOrThrow(status);
-        Page<Order> orders = orderRepository.searchByUserNameOrOrderIdAndStatus(trimmedKeyword, orderId, parsedStatus, pageRequest);
-        return orders.map(this::convertToDto);
+        return orderRepository.searchByUserNameOrOrderIdAndStatus(trimmedKeyword, orderId, parsedStatus, pageRequest)
+                .map(OrderServiceImpl::toResponse);
     }
 
     @Override
@@ -198,10 +271,7 @@ public class OrderServiceImpl implements OrderService {
         PageRequest pageRequest = PageRequest.of(page, size, Sort.by(direction, sortBy));
 
         OrderStatus parsedStatus = parseOrderStatusOrThrow(status);
-        if (parsedStatus == null) {
-            return orderRepository.findAll(pageRequest).map(this::convertToDto);
-        }
-        return orderRepository.findByStatus(parsedStatus, pageRequest).map(this::convertToDto);
+        return orderRepository.findSummaries(parsedStatus, null, pageRequest).map(OrderServiceImpl::toResponse);
     }
 
     private OrderStatus parseOrderStatusOrThrow(String status) {
@@ -218,20 +288,56 @@ public class OrderServiceImpl implements OrderService {
 
     @Override
     public OrderResponse getOrderById(Long id) {
-        return orderRepository.findById(id).map(this::convertToDto).orElse(null);
+        return orderRepository.findSummaryById(id).map(OrderServiceImpl::toResponse).orElse(null);
     }
 
+    // 2 query cố định: 1 dòng đơn (join user/promotion) + các dòng hàng (join product/size)
     @Override
     public OrderResponse getOrderDetailById(Long id) {
-        return orderRepository.findById(id).map(this::convertToDetailDto).orElse(null);
+        return orderRepository.findSummaryById(id).map(summary -> {
+            OrderResponse response = toResponse(summary);
+            response.setOrderItems(orderItemRepository.findLinesByOrderId(id).stream()
+                    .map(line -> OrderItemDto.builder()
+                            .id(line.getId())
+                            .productId(line.getProductId())
+                            .productName(line.getProductName())
+                            .productImage(line.getProductImage())
+                            .productColor(line.getProductColor())
+                            .sizeId(line.getSizeId())
+                            .sizeName(line.getSizeName())
+                            .quantity(line.getQuantity())
+                            .price(line.getPrice())
+                            .subtotal(line.getPrice() * line.getQuantity())
+                            .build())
+                    .collect(Collectors.toList()));
+            return response;
+        }).orElse(null);
     }
 
     @Override
     public Page<OrderResponse> getOrdersByUserId(Long userId, int page, int size, String sortBy, String sortDir) {
         Sort.Direction direction = "asc".equalsIgnoreCase(sortDir) ? Sort.Direction.ASC : Sort.Direction.DESC;
         PageRequest pageRequest = PageRequest.of(page, size, Sort.by(direction, sortBy));
-        Page<Order> orders = orderRepository.findByUser_Id(userId, pageRequest);
-        return orders.map(this::convertToDto);
+        return orderRepository.findSummaries(null, userId, pageRequest).map(OrderServiceImpl::toResponse);
+    }
+
+    private static OrderResponse toResponse(OrderSummaryProjection summary) {
+        return OrderResponse.builder()
+                .id(summary.getId())
+                .userId(summary.getUserId())
+                .userName(summary.getUserName())
+                .phoneNumber(summary.getReceiverPhoneNumber())
+                .receiverPhoneNumber(summary.getReceiverPhoneNumber())
+                .totalAmount(summary.getTotalAmount())
+                .discountAmount(summary.getDiscountAmount())
+                .finalAmount(summary.getFinalAmount())
+                .promotionCode(summary.getPromotionCode())
+                .shippingAddress(summary.getShippingAddress())
+                .paymentMethod(summary.getPaymentMethod())
+                .status(summary.getStatus())
+                .createdAt(summary.getCreatedAt())
+                .updatedAt(summary.getUpdatedAt())
+                .build();
     }
 
     private OrderResponse convertToDto(Order order) {
@@ -253,9 +359,8 @@ public class OrderServiceImpl implements OrderService {
                 .build();
     }
 
-    private OrderResponse convertToDetailDto(Order order) {
-        List<OrderItem> orderItems = orderItemRepository.findByOrderId(order.getId());
-
+    // promotionCode truyền vào để không khởi tạo reference promotion chỉ để lấy mã
+    private OrderResponse convertToDetailDto(Order order, List<OrderItem> orderItems, String promotionCode) {
         List<OrderItemDto> orderItemDtos = orderItems.stream()
                 .map(item -> OrderItemDto.builder()
                         .id(item.getId())
@@ -280,7 +385,7 @@ public class OrderServiceImpl implements OrderService {
                 .totalAmount(order.getTotalAmount())
                 .discountAmount(order.getDiscountAmount())
                 .finalAmount(order.getFinalAmount())
-                .promotionCode(order.getPromotion() != null ? order.getPromotion().getCode() : null)
+                .promotionCode(promotionCode)
                 .shippingAddress(order.getShippingAddress())
                 .paymentMethod(order.getPaymentMethod())
                 .status(order.getStatus())
@@ -291,94 +396,268 @@ public class OrderServiceImpl implements OrderService {
     }
 
     @Override
+    @Transactional
     public OrderResponse confirmOrder(long id) {
-        Order order = orderRepository.findById(id).orElseThrow(() -> new RuntimeException("Order not found"));
-        if (order.getStatus() != OrderStatus.CREATED) {
-            throw new RuntimeException("Only created orders can be confirmed");
-        }
-        order.setStatus(OrderStatus.SHIPPING);
-        orderRepository.save(order);
-        return convertToDto(order);
+        Transition transition = transition(id, List.of(OrderStatus.CREATED), OrderStatus.SHIPPING,
+                "Only created orders can be confirmed");
+        publishStatusChanged(transition.order(), OrderStatus.CREATED);
+        return toResponse(transition.summary());
     }
 
     @Override
     @Transactional
     public OrderResponse cancelOrder(long id) {
-        Order order = orderRepository.findById(id).orElseThrow(() -> new RuntimeException("Order not found"));
-        if (order.getStatus() != OrderStatus.SHIPPING && order.getStatus() != OrderStatus.CREATED) {
-            throw new RuntimeException("Only shipping or created orders can be cancelled");
-        }
+        // Không đọc trạng thái trước: thử UPDATE có điều kiện từ CREATED rồi từ SHIPPING,
+        // câu khớp cho biết trạng thái trước đó; hủy/giao song song không thể cùng thành công
+        List<OrderStatus> cancellable = List.of(OrderStatus.CREATED, OrderStatus.SHIPPING);
+        Transition transition = transition(id, cancellable, OrderStatus.CANCELLED,
+                "Only shipping or created orders can be cancelled");
+        OrderStatus previousStatus = transition.previousStatus();
+        Order order = transition.order();
+
+        restockOrders(Map.of(order, orderItemRepository.findByOrderId(order.getId())));
+        publishStatusChanged(order, previousStatus);
+        return toResponse(transition.summary());
+    }
 
+    @Override
+    @Transactional
+    public OrderResponse deliveredOrder(long id) {
+        Transition transition = transition(id, List.of(OrderStatus.SHIPPING), OrderStatus.DELIVERED,
+                "Only shipping orders can be delivered");
+        Order order = transition.order();
         List<OrderItem> orderItems = orderItemRepository.findByOrderId(order.getId());
-        for (OrderItem orderItem : orderItems) {
-            ProductSize productSize = productSizeRepository
-                    .findByProduct_IdAndSize_Id(orderItem.getProduct().getId(), orderItem.getSize().getId())
-                    .orElseThrow(() -> new RuntimeException("Product size not found while cancelling order"));
-            productSize.setStock(productSize.getStock() + orderItem.getQuantity());
-            productSizeRepository.save(productSize);
-        }
+        productSalesService.recordOrderDelivered(order, orderItems);
+        dailySalesService.recordOrderDelivered(order);
+        salesCubeService.appendDelivered(order, orderItems);
+        orderSketchService.recordOrderDelivered(order);
+        publishStatusChanged(order, OrderStatus.SHIPPING);
+        return toResponse(transition.summary());
+    }
+
+    @Override
+    @Transactional
+    public BulkOrderTransitionResponse bulkConfirmOrders(List<Long> orderIds) {
+        List<Long> requested = normalizeBulkIds(orderIds);
+        List<Order> orders = orderRepository.findAllForTransition(requested, List.of(OrderStatus.CREATED));
+        applyBulkStatus(orders, List.of(OrderStatus.CREATED), OrderStatus.SHIPPING);
+        orders.forEach(order -> publishStatusChanged(order, OrderStatus.CREATED));
+        return bulkResponse("confirm", requested, orders);
+    }
 
-        order.setStatus(OrderStatus.CANCELLED);
-        orderRepository.save(order);
-        return convertToDto(order);
+    @Override
+    @Transactional
+    public BulkOrderTransitionResponse bulkDeliverOrders(List<Long> orderIds) {
+        List<Long> requested = normalizeBulkIds(orderIds);
+        List<Order> orders = orderRepository.findAllForTransition(requested, List.of(OrderStatus.SHIPPING));
+        // Nạp dòng hàng trước UPDATE (UPDATE hàng loạt clear persistence context)
+        Map<Order, List<OrderItem>> itemsByOrder = loadItemsByOrder(orders);
+        applyBulkStatus(orders, List.of(OrderStatus.SHIPPING), OrderStatus.DELIVERED);
+
+        productSalesService.recordOrdersDelivered(itemsByOrder);
+        dailySalesService.recordOrdersDelivered(orders);
+        itemsByOrder.forEach((order, items) -> {
+            salesCubeService.appendDelivered(order, items);
+            orderSketchService.recordOrderDelivered(order);
+            publishStatusChanged(order, OrderStatus.SHIPPING);
+        });
+        return bulkResponse("deliver", requested, orders);
     }
 
     @Override
-    public OrderResponse deliveredOrder(long id) {
-        Order order = orderRepository.findById(id).orElseThrow(() -> new RuntimeException("Order not found"));
-        if (order.getStatus() != OrderStatus.SHIPPING) {
-            throw new RuntimeException("Only shipping orders can be delivered");
+    @Transactional
+    public BulkOrderTransitionResponse bulkCancelOrders(List<Long> orderIds) {
+        List<Long> requested = normalizeBulkIds(orderIds);
+        List<OrderStatus> cancellable = List.of(OrderStatus.SHIPPING, OrderStatus.CREATED);
+        List<Order> orders = orderRepository.findAllForTransition(requested, cancellable);
+        Map<Order, List<OrderItem>> itemsByOrder = loadItemsByOrder(orders);
+        Map<Long, OrderStatus> previousStatuses = orders.stream()
+                .collect(Collectors.toMap(Order::getId, Order::getStatus));
+        applyBulkStatus(orders, cancellable, OrderStatus.CANCELLED);
+        if (orders.isEmpty()) {
+            return bulkResponse("cancel", requested, orders);
+        }
+
+        restockOrders(itemsByOrder);
+        orders.forEach(order -> publishStatusChanged(order, previousStatuses.get(order.getId())));
+        return bulkResponse("cancel", requested, orders);
+    }
+
+    // Trả hàng của các đơn vừa hủy: cộng lại tồn kho, ghi ledger CANCEL, trừ bộ đếm doanh số
+    private void restockOrders(Map<Order, List<OrderItem>> itemsByOrder) {
+        // ✅ Gộp số lượng trả lại theo (product, size) của cả lô: 1 dòng UPDATE mỗi SKU thay vì mỗi dòng hàng
+        Map<String, StockChange> restockByKey = new LinkedHashMap<>();
+        Map<Long, List<Movement>> movementsByOrder = new LinkedHashMap<>();
+        itemsByOrder.forEach((order, items) -> {
+            for (OrderItem item : items) {
+                Long productId = item.getProduct().getId();
+                Long sizeId = item.getSize().getId();
+                restockByKey.merge(stockKey(productId, sizeId), new StockChange(productId, sizeId, item.getQuantity()),
+                        (a, b) -> new StockChange(a.productId(), a.sizeId(), a.quantity() + b.quantity()));
+            }
+            movementsByOrder.put(order.getId(), items.stream()
+                    .map(item -> new Movement(item.getProduct().getId(), item.getSize().getId(), item.getQuantity()))
+                    .toList());
+        });
+        List<StockChange> restock = new ArrayList<>(restockByKey.values());
+        if (inventoryReservationService != null) {
+            // Cộng lại vào bộ đếm sau commit, MySQL được cập nhật ở lần flush kế tiếp
+            inventoryReservationService.restock(restock);
+        } else {
+            // ✅ UPDATE stock = stock + ? nguyên tử thay vì đọc-sửa-ghi (không mất cập nhật khi chạy song song)
+            int[] updated = productSizeRepository.applyStockDeltas(restock.stream()
+                    .map(change -> new StockChange(change.productId(), change.sizeId(), -change.quantity()))
+                    .toList());
+            for (int count : updated) {
+                if (count == 0) {
+                    throw new RuntimeException("Product size not found while cancelling order");
+                }
+            }
         }
-        order.setStatus(OrderStatus.DELIVERED);
-        orderRepository.save(order);
-        return convertToDto(order);
+        inventoryLedgerService.recordAll(InventoryMovementType.CANCEL, movementsByOrder);
+
+        productSalesService.recordOrdersCancelled(itemsByOrder);
+        restock.stream().map(StockChange::productId).distinct().forEach(productCacheService::evict);
+    }
+
+    /**
+     * Chuyển trạng thái bằng UPDATE ... WHERE status = nguồn, thử lần lượt từng trạng thái nguồn:
+     * các request song song chỉ đúng 1 request chuyển được, request còn lại nhận lỗi mà không ghi đè.
+     * Sau đó đọc 1 projection của đơn (user, promotion đã join): thành công thì đó là dữ liệu trả về,
+     * thất bại thì nó phân biệt đơn không tồn tại với sai trạng thái. Không nạp entity.
+     */
+    private Transition transition(long id, List<OrderStatus> fromStatuses, OrderStatus toStatus,
+            String invalidMessage) {
+        LocalDateTime now = LocalDateTime.now();
+        OrderStatus previousStatus = null;
+        for (OrderStatus fromStatus : fromStatuses) {
+            if (orderRepository.updateStatusIfCurrent(id, fromStatus, toStatus, now) > 0) {
+                previousStatus = fromStatus;
+                break;
+            }
+        }
+        OrderSummaryProjection summary = orderRepository.findSummaryById(id)
+                .orElseThrow(() -> new RuntimeException("Order not found"));
+        if (previousStatus == null) {
+            throw new RuntimeException(invalidMessage);
+        }
+        return new Transition(previousStatus, summary, toOrder(summary));
+    }
+
+    // Đơn tách rời dựng từ projection, chỉ đủ các field mà các bộ đếm / feed / event đọc
+    private static Order toOrder(OrderSummaryProjection summary) {
+        return Order.builder()
+                .id(summary.getId())
+                .user(summary.getUserId() != null
+                        ? User.builder().id(summary.getUserId()).fullName(summary.getUserName()).build()
+                        : null)
+                .promotion(summary.getPromotionId() != null
+                        ? Promotion.builder().id(summary.getPromotionId()).code(summary.getPromotionCode()).build()
+                        : null)
+                .totalAmount(summary.getTotalAmount())
+                .discountAmount(summary.getDiscountAmount())
+                .finalAmount(summary.getFinalAmount())
+                .status(summary.getStatus())
+                .createdAt(summary.getCreatedAt())
+                .updatedAt(summary.getUpdatedAt())
+                .build();
+    }
+
+    private static List<Long> normalizeBulkIds(List<Long> orderIds) {
+        if (orderIds == null || orderIds.isEmpty()) {
+            throw new RuntimeException("Danh sách đơn hàng không được để trống");
+        }
+        List<Long> ids = orderIds.stream().filter(Objects::nonNull).distinct().toList();
+        if (ids.isEmpty()) {
+            throw new RuntimeException("Danh sách đơn hàng không được để trống");
+        }
+        if (ids.size() > MAX_BULK_ORDERS) {
+            throw new RuntimeException("Chỉ được cập nhật tối đa " + MAX_BULK_ORDERS + " đơn hàng mỗi lần");
+        }
+        return ids;
+    }
+
+    private Map<Order, List<OrderItem>> loadItemsByOrder(List<Order> orders) {
+        Map<Order, List<OrderItem>> itemsByOrder = new LinkedHashMap<>();
+        if (orders.isEmpty()) {
+            return itemsByOrder;
+        }
+        Map<Long, List<OrderItem>> itemsByOrderId = orderItemRepository
+                .findByOrderIdIn(orders.stream().map(Order::getId).toList())
+                .stream()
+                .collect(Collectors.groupingBy(item -> item.getOrder().getId()));
+        orders.forEach(order -> itemsByOrder.put(order, itemsByOrderId.getOrDefault(order.getId(), List.of())));
+        return itemsByOrder;
+    }
+
+    // Các đơn đã bị khóa FOR UPDATE nên UPDATE có điều kiện phải chạm đúng bấy nhiêu dòng
+    private void applyBulkStatus(List<Order> orders, List<OrderStatus> fromStatuses, OrderStatus status) {
+        if (orders.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        int updated = orderRepository.updateStatusWhereStatusIn(
+                orders.stream().map(Order::getId).toList(), fromStatuses, status, now);
+        if (updated != orders.size()) {
+            throw new RuntimeException("Trạng thái đơn hàng đã thay đổi trong lúc cập nhật hàng loạt");
+        }
+        // Entity đã detached sau UPDATE hàng loạt, chỉ đồng bộ lại trạng thái trong bộ nhớ cho event/feed
+        orders.forEach(order -> {
+            order.setStatus(status);
+            order.setUpdatedAt(now);
+        });
+    }
+
+    private static BulkOrderTransitionResponse bulkResponse(String action, List<Long> requested, List<Order> orders) {
+        List<Long> updatedIds = orders.stream().map(Order::getId).toList();
+        Set<Long> updatedSet = Set.copyOf(updatedIds);
+        return BulkOrderTransitionResponse.builder()
+                .action(action)
+                .requested(requested.size())
+                .updatedOrderIds(updatedIds)
+                .skippedOrderIds(requested.stream().filter(id -> !updatedSet.contains(id)).toList())
+                .build();
     }
 
     @Override
     @Transactional
     public OrderResponse createOrder(User user, UserOrderRequest request) {
-        if (request.getOrderItems() == null || request.getOrderItems().isEmpty()) {
-            throw new RuntimeException("Danh sách sản phẩm không được để trống");
-        }
+        validateOrderItems(request);
+
+        // ✅ Batch load: 1 query IN cho products + 1 query IN cho product_sizes (thay vì 2 query mỗi dòng)
+        Set<Long> productIds = request.getOrderItems().stream()
+                .map(UserOrderRequest.OrderItemRequest::getProductId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        Map<Long, Product> productsById = productRepository.findAllById(productIds).stream()
+                .collect(Collectors.toMap(Product::getId, product -> product));
+        Map<String, ProductSize> productSizesByKey = productSizeRepository.findAllByProductIdInFetchSize(productIds)
+                .stream()
+                .collect(Collectors.toMap(
+                        ps -> stockKey(ps.getProduct().getId(), ps.getSize().getId()),
+                        ps -> ps,
+                        (first, second) -> first));
 
         List<OrderItem> pendingOrderItems = new ArrayList<>();
+        Map<String, StockChange> stockChanges = new LinkedHashMap<>();
         double totalAmount = 0.0;
 
         for (UserOrderRequest.OrderItemRequest itemRequest : request.getOrderItems()) {
-            if (itemRequest.getQuantity() == null || itemRequest.getQuantity() <= 0) {
-                throw new RuntimeException("Số lượng sản phẩm phải lớn hơn 0");
+            Product product = productsById.get(itemRequest.getProductId());
+            if (product == null) {
+                throw new RuntimeException("Sản phẩm với ID " + itemRequest.getProductId() + " không tồn tại");
             }
 
-            Product product = productRepository.findById(itemRequest.getProductId())
-                    .orElseThrow(() -> new RuntimeException(
-                            "Sản phẩm với ID " + itemRequest.getProductId() + " không tồn tại"));
-
-            // ✅ Get product size info first (for error messages)
-            ProductSize productSizeInfo = productSizeRepository
-                    .findByProduct_IdAndSize_Id(itemRequest.getProductId(), itemRequest.getSizeId())
-                    .orElseThrow(() -> new RuntimeException("Size không có sẵn cho sản phẩm này"));
-
-            // ✅ Atomic UPDATE WHERE - Prevents race condition!
-            // Single DB operation: UPDATE SET stock = stock - quantity 
-            // WHERE product_id = ? AND size_id = ? AND stock >= quantity
-            // Returns: 1 if success, 0 if stock insufficient
-            int updated = productSizeRepository.decreaseStockIfAvailable(
-                    itemRequest.getProductId(),
-                    itemRequest.getSizeId(),
-                    itemRequest.getQuantity()
-            );
-
-            if (updated == 0) {
-                // Stock không đủ - UPDATE WHERE không tìm được hàng match
-                ProductSize currentStock = productSizeRepository
-                        .findByProduct_IdAndSize_Id(itemRequest.getProductId(), itemRequest.getSizeId())
-                        .orElse(productSizeInfo);
-                String alertMessage = "Sản phẩm " + product.getName() + ", size " + productSizeInfo.getSize().getName()
-                    + " chỉ còn " + currentStock.getStock() + " cái, không đủ để tạo đơn hàng";
-                inventoryAlertService.createInsufficientStockAlert(user, product, alertMessage);
-                throw new RuntimeException(alertMessage);
+            String key = stockKey(itemRequest.getProductId(), itemRequest.getSizeId());
+            ProductSize productSizeInfo = productSizesByKey.get(key);
+            if (productSizeInfo == null) {
+                throw new RuntimeException("Size không có sẵn cho sản phẩm này");
             }
-            // Stock successfully decreased at database level! ✅
+
+            // Gộp các dòng trùng (product, size) để kiểm tra tồn kho trên tổng số lượng
+            stockChanges.merge(key,
+                    new StockChange(itemRequest.getProductId(), itemRequest.getSizeId(), itemRequest.getQuantity()),
+                    (a, b) -> new StockChange(a.productId(), a.sizeId(), a.quantity() + b.quantity()));
 
             double unitPrice = product.getPrice();
             totalAmount += unitPrice * itemRequest.getQuantity();
@@ -391,33 +670,46 @@ public class OrderServiceImpl implements OrderService {
                     .build());
         }
 
+        List<StockChange> changes = new ArrayList<>(stockChanges.values());
+        if (inventoryReservationService != null) {
+            // ✅ Giữ hàng trên bộ đếm (Lua script), không khóa row product_sizes.
+            // Reservation được xác nhận trước commit và trả lại nếu transaction rollback
+            InventoryReservationService.ReservationResult reservation = inventoryReservationService.reserve(changes);
+            if (!reservation.isReserved()) {
+                StockChange change = changes.get(reservation.failedIndex());
+                throwInsufficientStock(user, productsById.get(change.productId()),
+                        productSizesByKey.get(stockKey(change.productId(), change.sizeId())),
+                        reservation.available());
+            }
+        } else {
+            // ✅ Atomic UPDATE WHERE cho tất cả các dòng trong 1 JDBC batch
+            // Dòng nào trả về 0 (không đủ hàng) → throw → rollback cả batch (all-or-nothing)
+            int[] updated = productSizeRepository.decreaseStockBatch(changes);
+            for (int i = 0; i < changes.size(); i++) {
+                if (updated[i] == 0) {
+                    StockChange change = changes.get(i);
+                    ProductSize productSizeInfo = productSizesByKey.get(stockKey(change.productId(), change.sizeId()));
+                    throwInsufficientStock(user, productsById.get(change.productId()), productSizeInfo,
+                            productSizeInfo.getTotalStock());
+                }
+            }
+        }
+
         Promotion promotion = null;
+        String promotionCode = null;
         double discountAmount = 0.0;
         double finalAmount = totalAmount;
 
         if (request.getPromotionCode() != null && !request.getPromotionCode().trim().isEmpty()) {
-            String promotionCode = request.getPromotionCode().trim();
-            promotion = promotionRepository.findByCode(promotionCode)
-                    .orElseThrow(() -> new RuntimeException("Mã khuyến mãi không tồn tại"));
-
-            LocalDateTime now = LocalDateTime.now();
-            if (!Boolean.TRUE.equals(promotion.getIsActive())) {
-                throw new RuntimeException("Mã khuyến mãi đã bị vô hiệu hóa");
-            }
-            if (now.isBefore(promotion.getStartAt()) || !now.isBefore(promotion.getEndAt())) {
-                throw new RuntimeException("Mã khuyến mãi đã hết hạn hoặc chưa bắt đầu");
-            }
-
-            BigDecimal totalAmountDecimal = BigDecimal.valueOf(totalAmount);
-            if (totalAmountDecimal.compareTo(promotion.getMinOrderAmount()) < 0) {
+            // ✅ Tra mã trong registry trong JVM; chỉ đọc MySQL khi mã không hợp lệ (để báo lỗi chính xác)
+            ActivePromotion pricing = findPromotionForOrder(request.getPromotionCode().trim(), LocalDateTime.now());
+            if (!pricing.isEligible(totalAmount)) {
                 throw new RuntimeException("Đơn hàng chưa đạt giá trị tối thiểu để áp dụng khuyến mãi");
             }
-
-            BigDecimal calculatedDiscount = totalAmountDecimal
-                    .multiply(promotion.getDiscountPercent())
-                    .divide(BigDecimal.valueOf(100), 2, java.math.RoundingMode.HALF_UP);
-            BigDecimal cappedDiscount = calculatedDiscount.min(promotion.getMaxDiscountAmount());
-            discountAmount = cappedDiscount.doubleValue();
+            // Chỉ cần khóa ngoại: reference không SELECT
+            promotion = promotionRepository.getReferenceById(pricing.id());
+            promotionCode = pricing.code();
+            discountAmount = pricing.discountFor(totalAmount);
             finalAmount = totalAmount - discountAmount;
             if (finalAmount < 0) finalAmount = 0.0;
         }
@@ -440,36 +732,158 @@ public class OrderServiceImpl implements OrderService {
         pendingOrderItems.forEach(item -> item.setOrder(savedOrder));
         List<OrderItem> savedOrderItems = orderItemRepository.saveAll(pendingOrderItems);
         savedOrder.setOrderItems(savedOrderItems);
-        return convertToDetailDto(savedOrder);
+        productSalesService.recordOrderCreated(savedOrder, savedOrderItems);
+        inventoryLedgerService.record(InventoryMovementType.ORDER, savedOrder.getId(), changes.stream()
+                .map(change -> new Movement(change.productId(), change.sizeId(), -change.quantity()))
+                .toList());
+        adminFeedService.orderCreated(savedOrder);
+        orderSketchService.recordOrderCreated(savedOrder);
+        // Tồn kho hiển thị trên trang chi tiết đã đổi
+        productIds.forEach(productCacheService::evict);
+        // Dựng response từ dữ liệu đã có trong bộ nhớ, không query lại order_items
+        return convertToDetailDto(savedOrder, savedOrderItems, promotionCode);
+    }
+
+    private ActivePromotion findPromotionForOrder(String code, LocalDateTime now) {
+        Optional<ActivePromotion> active = promotionService.findActivePromotion(code, now);
+        if (active.isPresent()) {
+            return active.get();
+        }
+        Promotion promotion = promotionRepository.findByCode(code)
+                .orElseThrow(() -> new RuntimeException("Mã khuyến mãi không tồn tại"));
+        if (!Boolean.TRUE.equals(promotion.getIsActive())) {
+            throw new RuntimeException("Mã khuyến mãi đã bị vô hiệu hóa");
+        }
+        if (now.isBefore(promotion.getStartAt()) || !now.isBefore(promotion.getEndAt())) {
+            throw new RuntimeException("Mã khuyến mãi đã hết hạn hoặc chưa bắt đầu");
+        }
+        // Registry chưa kịp nhận thay đổi (pub/sub trễ): dùng bản trong DB
+        return ActivePromotion.of(promotion);
+    }
+
+    // ✅ Báo giá không side effect: giá + tồn kho từ cache sản phẩm, khuyến mãi từ snapshot trong JVM.
+    // Cùng công thức với createOrder nhưng không giữ hàng; tồn kho thiếu chỉ cảnh báo
+    @Override
+    public OrderQuoteResponse quoteOrder(UserOrderRequest request) {
+        validateOrderItems(request);
+
+        Map<Long, Optional<Product>> products = new HashMap<>();
+        Map<String, Integer> requestedByKey = new HashMap<>();
+        List<OrderQuoteResponse.QuoteItem> items = new ArrayList<>();
+        double totalAmount = 0.0;
+        for (UserOrderRequest.OrderItemRequest itemRequest : request.getOrderItems()) {
+            Product product = Optional.ofNullable(itemRequest.getProductId())
+                    .flatMap(productId -> products.computeIfAbsent(productId, productCacheService::getProductDetail))
+                    .orElseThrow(() -> new RuntimeException(
+                            "Sản phẩm với ID " + itemRequest.getProductId() + " không tồn tại"));
+            ProductSize productSize = Optional.ofNullable(product.getProductSizes()).orElse(List.of()).stream()
+                    .filter(ps -> ps.getSize() != null && ps.getSize().getId().equals(itemRequest.getSizeId()))
+                    .findFirst()
+                    .orElseThrow(() -> new RuntimeException("Size không có sẵn cho sản phẩm này"));
+
+            // Cảnh báo theo tổng số lượng của các dòng trùng (product, size), như khi trừ kho
+            int requested = requestedByKey.merge(stockKey(product.getId(), itemRequest.getSizeId()),
+                    itemRequest.getQuantity(), Integer::sum);
+            double subtotal = product.getPrice() * itemRequest.getQuantity();
+            totalAmount += subtotal;
+            items.add(OrderQuoteResponse.QuoteItem.builder()
+                    .productId(product.getId())
+                    .productName(product.getName())
+                    .sizeId(productSize.getSize().getId())
+                    .sizeName(productSize.getSize().getName())
+                    .unitPrice(product.getPrice())
+                    .quantity(itemRequest.getQuantity())
+                    .subtotal(subtotal)
+                    .availableStock(productSize.getTotalStock())
+                    .stockWarning(requested > productSize.getTotalStock())
+                    .build());
+        }
+
+        double total = totalAmount;
+        LocalDateTime now = LocalDateTime.now();
+        Optional<ActivePromotion> best = promotionService.getActivePromotions(now).stream()
+                .filter(promotion -> promotion.isEligible(total))
+                .max(Comparator.comparingDouble(promotion -> promotion.discountFor(total)));
+
+        String promotionCode = request.getPromotionCode() != null ? request.getPromotionCode().trim() : "";
+        double discountAmount = 0.0;
+        boolean promotionApplied = false;
+        String promotionMessage = null;
+        if (!promotionCode.isEmpty()) {
+            Optional<ActivePromotion> promotion = promotionService.findActivePromotion(promotionCode, now);
+            if (promotion.isEmpty()) {
+                promotionMessage = "Mã khuyến mãi không tồn tại hoặc không còn hiệu lực";
+            } else if (!promotion.get().isEligible(total)) {
+                promotionMessage = "Đơn hàng chưa đạt giá trị tối thiểu để áp dụng khuyến mãi";
+            } else {
+                discountAmount = promotion.get().discountFor(total);
+                promotionApplied = true;
+            }
+        }
+
+        return OrderQuoteResponse.builder()
+                .items(items)
+                .totalAmount(total)
+                .discountAmount(discountAmount)
+                .finalAmount(Math.max(total - discountAmount, 0.0))
+                .promotionCode(promotionCode.isEmpty() ? null : promotionCode)
+                .promotionApplied(promotionApplied)
+                .promotionMessage(promotionMessage)
+                .bestPromotionCode(best.map(ActivePromotion::code).orElse(null))
+                .bestPromotionName(best.map(ActivePromotion::name).orElse(null))
+                .bestDiscountAmount(best.map(promotion -> promotion.discountFor(total)).orElse(null))
+                .hasStockWarning(items.stream().anyMatch(OrderQuoteResponse.QuoteItem::isStockWarning))
+                .build();
+    }
+
+    private static void validateOrderItems(UserOrderRequest request) {
+        if (request.getOrderItems() == null || request.getOrderItems().isEmpty()) {
+            throw new RuntimeException("Danh sách sản phẩm không được để trống");
+        }
+
+        for (UserOrderRequest.OrderItemRequest itemRequest : request.getOrderItems()) {
+            if (itemRequest.getQuantity() == null || itemRequest.getQuantity() <= 0) {
+                throw new RuntimeException("Số lượng sản phẩm phải lớn hơn 0");
+            }
+        }
+    }
+
+    private void publishStatusChanged(Order order, OrderStatus previousStatus) {
+        eventPublisher.publishEvent(new OrderStatusChangedEvent(order.getId(), previousStatus, order.getStatus(),
+                order.getCreatedAt() != null ? order.getCreatedAt().toLocalDate() : null));
+        adminFeedService.orderStatusChanged(order, previousStatus);
+    }
+
+    private static String stockKey(Long productId, Long sizeId) {
+        return productId + ":" + sizeId;
+    }
+
+    private void throwInsufficientStock(User user, Product product, ProductSize productSize, long available) {
+        String alertMessage = "Sản phẩm " + product.getName() + ", size " + productSize.getSize().getName()
+                + " chỉ còn " + available + " cái, không đủ để tạo đơn hàng";
+        inventoryAlertService.createInsufficientStockAlert(user, product, alertMessage);
+        throw new RuntimeException(alertMessage);
     }
 
     @Override
     public List<BestSellingProductsInCategoriesDTO> getBestSellingProductsInCategories() {
-        return orderRepository.getBestSellingProductsInCategories();
-    }    
+        return productSalesService.getTopProductsInCategories(1);
+    }
 
     @Override
     public List<BestSellingProductsInCategoriesDTO> getTop5BestSellingProductsInCategories() {
-        return orderRepository.getTop5BestSellingProductsInCategories();
+        return productSalesService.getTopProductsInCategories(5);
     }
 
     @Override
     public List<com.example.StyleStore.dto.response.stats.TopProductDto> getTop5ProductsOverall() {
-        return orderRepository.getTop5ProductsOverall().stream()
-                .map(p -> new com.example.StyleStore.dto.response.stats.TopProductDto(
-                        p.getProductId(), p.getProductName(), p.getProductThumbnail(), p.getTotalSold()
-                ))
-                .collect(java.util.stream.Collectors.toList());
+        return productSalesService.getTopProducts(null, 5);
     }
 
     @Override
     public List<com.example.StyleStore.dto.response.stats.TopProductDto> getTop5ProductsByCategory(Long categoryId) {
         if (categoryId == null) return getTop5ProductsOverall();
-        return orderRepository.getTop5ProductsByCategory(categoryId).stream()
-                .map(p -> new com.example.StyleStore.dto.response.stats.TopProductDto(
-                        p.getProductId(), p.getProductName(), p.getProductThumbnail(), p.getTotalSold()
-                ))
-                .collect(java.util.stream.Collectors.toList());
+        return productSalesService.getTopProducts(categoryId, 5);
     }
 
     @Override
@@ -0,0 +1,304 @@
+package com.example.StyleStore.service.impl;
+
+import com.example.StyleStore.dto.response.stats.OrderSketchStatsResponse;
+import com.example.StyleStore.model.DailyOrderSketch;
+import com.example.StyleStore.model.Order;
+import com.example.StyleStore.model.enums.OrderStatus;
+import com.example.StyleStore.repository.DailyOrderSketchRepository;
+import com.example.StyleStore.repository.OrderRepository;
+import com.example.StyleStore.service.OrderSketchService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+@Slf4j
+@Service
+public class OrderSketchServiceImpl implements OrderSketchService {
+
+    // Tối đa ~10 năm mỗi truy vấn, mỗi ngày là 1 row ~8 KB
+    private static final long MAX_RANGE_DAYS = 3660;
+    // Tính lại theo từng khúc ngày, mỗi khúc 1 transaction
+    private static final int REBUILD_CHUNK_DAYS = 31;
+
+    // Sketch của 1 ngày: dùng cho delta trong bộ nhớ, cho row lưu trữ và khi gộp lúc đọc
+    private static final class DaySketch {
+        private long orderCount;
+        private long deliveredCount;
+        private final HyperLogLog buyers;
+        private final HyperLogLog deliveredBuyers;
+        private final TDigest orderValues;
+
+        DaySketch() {
+            this.buyers = new HyperLogLog();
+            this.deliveredBuyers = new HyperLogLog();
+            this.orderValues = new TDigest();
+        }
+
+        DaySketch(DailyOrderSketch row) {
+            this.orderCount = row.getOrderCount() != null ? row.getOrderCount() : 0;
+            this.deliveredCount = row.getDeliveredCount() != null ? row.getDeliveredCount() : 0;
+            this.buyers = HyperLogLog.fromBytes(row.getBuyers());
+            this.deliveredBuyers = HyperLogLog.fromBytes(row.getDeliveredBuyers());
+            this.orderValues = TDigest.fromBytes(row.getOrderValues());
+        }
+
+        void recordCreated(Long userId) {
+            orderCount++;
+            if (userId != null) {
+                buyers.add(userId);
+            }
+        }
+
+        void recordDelivered(Long userId, Double finalAmount) {
+            deliveredCount++;
+            if (userId != null) {
+                deliveredBuyers.add(userId);
+            }
+            if (finalAmount != null) {
+                orderValues.add(finalAmount);
+            }
+        }
+
+        void merge(DaySketch other) {
+            orderCount += other.orderCount;
+            deliveredCount += other.deliveredCount;
+            buyers.merge(other.buyers);
+            deliveredBuyers.merge(other.deliveredBuyers);
+            orderValues.merge(other.orderValues);
+        }
+
+        void writeTo(DailyOrderSketch row) {
+            row.setOrderCount(orderCount);
+            row.setDeliveredCount(deliveredCount);
+            row.setBuyers(buyers.toBytes());
+            row.setDeliveredBuyers(deliveredBuyers.toBytes());
+            row.setOrderValues(orderValues.toBytes());
+        }
+    }
+
+    private enum Granularity {
+        NONE, DAY, MONTH
+    }
+
+    private final DailyOrderSketchRepository dailyOrderSketchRepository;
+    private final OrderRepository orderRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Object pendingLock = new Object();
+    private final Object flushMonitor = new Object();
+
+    // Delta đã commit nhưng chưa gộp xuống MySQL, theo ngày tạo đơn
+    private Map<LocalDate, DaySketch> pending = new HashMap<>();
+
+    public OrderSketchServiceImpl(DailyOrderSketchRepository dailyOrderSketchRepository,
+            OrderRepository orderRepository, PlatformTransactionManager transactionManager) {
+        this.dailyOrderSketchRepository = dailyOrderSketchRepository;
+        this.orderRepository = orderRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @Override
+    public void recordOrderCreated(Order order) {
+        LocalDate saleDate = saleDate(order);
+        Long userId = order.getUser() != null ? order.getUser().getId() : null;
+        AfterCommit.run(() -> addPending(saleDate, sketch -> sketch.recordCreated(userId)));
+    }
+
+    @Override
+    public void recordOrderDelivered(Order order) {
+        LocalDate saleDate = saleDate(order);
+        Long userId = order.getUser() != null ? order.getUser().getId() : null;
+        Double finalAmount = order.getFinalAmount();
+        AfterCommit.run(() -> addPending(saleDate, sketch -> sketch.recordDelivered(userId, finalAmount)));
+    }
+
+    @Override
+    @Scheduled(initialDelayString = "${stats.sketch.flush-interval-ms:5000}",
+            fixedDelayString = "${stats.sketch.flush-interval-ms:5000}")
+    public void flush() {
+        synchronized (flushMonitor) {
+            Map<LocalDate, DaySketch> batch;
+            synchronized (pendingLock) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = pending;
+                pending = new HashMap<>();
+            }
+            batch.forEach((saleDate, delta) -> {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> mergeIntoRow(saleDate, delta));
+                } catch (RuntimeException ex) {
+                    // Giữ delta cho chu kỳ sau, ví dụ khi 2 node cùng tạo row cho ngày mới
+                    addPending(saleDate, sketch -> sketch.merge(delta));
+                    log.warn("Không thể ghi sketch đơn hàng ngày {}: {}", saleDate, ex.getMessage());
+                }
+            });
+        }
+    }
+
+    // Tắt ứng dụng: delta chỉ nằm trong JVM, ghi nốt xuống MySQL trước khi mất
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    @Override
+    public OrderSketchStatsResponse getStats(LocalDate from, LocalDate to, String granularity) {
+        validateRange(from, to);
+        Granularity bucketBy = parseGranularity(granularity);
+
+        List<DailyOrderSketch> rows = readOnlyTransaction.execute(status -> dailyOrderSketchRepository
+                .findBySaleDateGreaterThanEqualAndSaleDateLessThanOrderBySaleDate(from, to.plusDays(1)));
+
+        // Gộp từng ngày: chi phí theo số ngày trong khoảng, không theo số đơn hàng
+        DaySketch total = new DaySketch();
+        Map<String, DaySketch> buckets = new LinkedHashMap<>();
+        for (DailyOrderSketch row : rows == null ? List.<DailyOrderSketch>of() : rows) {
+            DaySketch day = new DaySketch(row);
+            if (bucketBy != Granularity.NONE) {
+                String period = bucketBy == Granularity.DAY ? row.getSaleDate().toString()
+                        : YearMonth.from(row.getSaleDate()).toString();
+                buckets.computeIfAbsent(period, key -> new DaySketch()).merge(day);
+            }
+            total.merge(day);
+        }
+
+        List<OrderSketchStatsResponse.Bucket> bucketList = new ArrayList<>();
+        buckets.forEach((period, sketch) -> bucketList.add(toBucket(period, sketch)));
+        return OrderSketchStatsResponse.builder()
+                .from(from)
+                .to(to)
+                .summary(toBucket(from + "/" + to, total))
+                .buckets(bucketList)
+                .build();
+    }
+
+    @Override
+    public int rebuild(LocalDate from, LocalDate to) {
+        validateRange(from, to);
+        // Giữ flushMonitor: job flush không gộp delta vào các ngày đang tính lại
+        synchronized (flushMonitor) {
+            int days = 0;
+            for (LocalDate start = from; !start.isAfter(to); start = start.plusDays(REBUILD_CHUNK_DAYS)) {
+                LocalDate chunkStart = start;
+                LocalDate chunkEnd = start.plusDays(REBUILD_CHUNK_DAYS - 1).isAfter(to)
+                        ? to : start.plusDays(REBUILD_CHUNK_DAYS - 1);
+                Integer chunkDays = transactionTemplate.execute(status -> rebuildChunk(chunkStart, chunkEnd));
+                days += chunkDays != null ? chunkDays : 0;
+            }
+            log.info("Đã tính lại sketch đơn hàng từ {} đến {} ({} ngày có đơn)", from, to, days);
+            return days;
+        }
+    }
+
+    private int rebuildChunk(LocalDate from, LocalDate to) {
+        LocalDate end = to.plusDays(1);
+        // Chụp dữ liệu nguồn trước: đây là lần đọc nhất quán đầu tiên của transaction
+        Map<LocalDate, DaySketch> days = new TreeMap<>();
+        orderRepository.findSketchSources(from.atStartOfDay(), end.atStartOfDay()).forEach(source -> {
+            DaySketch sketch = days.computeIfAbsent(source.getCreatedAt().toLocalDate(), key -> new DaySketch());
+            sketch.recordCreated(source.getUserId());
+            if (source.getStatus() == OrderStatus.DELIVERED) {
+                sketch.recordDelivered(source.getUserId(), source.getFinalAmount());
+            }
+        });
+        // Delta ghi nhận trước điểm này phần lớn là của đơn đã nằm trong ảnh chụp → bỏ để không đếm hai lần.
+        // Đơn commit trong lúc query đang chạy có thể mất delta tới lần reconcile sau; delta đến sau điểm
+        // này là của đơn ngoài ảnh chụp → giữ cho lần flush sau
+        discardPending(from, end);
+        dailyOrderSketchRepository.deleteRange(from, end);
+        List<DailyOrderSketch> rows = new ArrayList<>();
+        days.forEach((saleDate, sketch) -> {
+            DailyOrderSketch row = DailyOrderSketch.builder().saleDate(saleDate).build();
+            sketch.writeTo(row);
+            rows.add(row);
+        });
+        dailyOrderSketchRepository.saveAll(rows);
+        return rows.size();
+    }
+
+    private void mergeIntoRow(LocalDate saleDate, DaySketch delta) {
+        DailyOrderSketch row = dailyOrderSketchRepository.findForUpdate(saleDate)
+                .orElseGet(() -> DailyOrderSketch.builder().saleDate(saleDate).build());
+        DaySketch merged = new DaySketch(row);
+        merged.merge(delta);
+        merged.writeTo(row);
+        dailyOrderSketchRepository.save(row);
+    }
+
+    private void addPending(LocalDate saleDate, Consumer<DaySketch> update) {
+        synchronized (pendingLock) {
+            update.accept(pending.computeIfAbsent(saleDate, key -> new DaySketch()));
+        }
+    }
+
+    private void discardPending(LocalDate from, LocalDate end) {
+        synchronized (pendingLock) {
+            pending.keySet().removeIf(saleDate -> !saleDate.isBefore(from) && saleDate.isBefore(end));
+        }
+    }
+
+    private static OrderSketchStatsResponse.Bucket toBucket(String period, DaySketch sketch) {
+        return OrderSketchStatsResponse.Bucket.builder()
+                .period(period)
+                .orderCount(sketch.orderCount)
+                .deliveredCount(sketch.deliveredCount)
+                .distinctBuyers(sketch.buyers.estimate())
+                .distinctDeliveredBuyers(sketch.deliveredBuyers.estimate())
+                .orderValueP50(toAmount(sketch.orderValues.quantile(0.5)))
+                .orderValueP90(toAmount(sketch.orderValues.quantile(0.9)))
+                .orderValueP99(toAmount(sketch.orderValues.quantile(0.99)))
+                .build();
+    }
+
+    private static BigDecimal toAmount(double value) {
+        return Double.isNaN(value) ? null : BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private static LocalDate saleDate(Order order) {
+        return order.getCreatedAt() != null ? order.getCreatedAt().toLocalDate() : LocalDate.now();
+    }
+
+    private static void validateRange(LocalDate from, LocalDate to) {
+        if (from == null || to == null || from.isAfter(to)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Khoảng ngày không hợp lệ");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_RANGE_DAYS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Khoảng ngày tối đa là " + MAX_RANGE_DAYS + " ngày");
+        }
+    }
+
+    private static Granularity parseGranularity(String granularity) {
+        if (granularity == null || granularity.isBlank()) {
+            return Granularity.NONE;
+        }
+        return switch (granularity.trim().toLowerCase()) {
+            case "day" -> Granularity.DAY;
+            case "month" -> Granularity.MONTH;
+            default -> throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "granularity chỉ nhận day hoặc month");
+        };
+    }
+}
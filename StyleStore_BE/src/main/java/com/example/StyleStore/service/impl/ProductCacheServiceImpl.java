@@ -0,0 +1,161 @@
+package com.example.StyleStore.service.impl;
+
+import com.example.StyleStore.model.Product;
+import com.example.StyleStore.repository.ProductRepository;
+import com.example.StyleStore.service.ProductChangedEvent;
+import com.example.StyleStore.service.ProductCacheService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Optional;
+
+@Slf4j
+@Service
+public class ProductCacheServiceImpl implements ProductCacheService {
+
+    public static final String INVALIDATION_CHANNEL = "product:detail:invalidate";
+    private static final String KEY_PREFIX = "product:detail:";
+
+    private final ProductRepository productRepository;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Cache<Long, Product> localCache;
+    private final boolean redisEnabled;
+    private final Duration redisTtl;
+
+    public ProductCacheServiceImpl(ProductRepository productRepository, RedisTemplate<String, String> redisTemplate,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            @Value("${product.cache.local.max-size:5000}") long localMaxSize,
+            @Value("${product.cache.local.ttl-seconds:60}") long localTtlSeconds,
+            @Value("${product.cache.redis.enabled:true}") boolean redisEnabled,
+            @Value("${product.cache.redis.ttl-minutes:10}") long redisTtlMinutes) {
+        this.productRepository = productRepository;
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.localCache = Caffeine.newBuilder()
+                .maximumSize(localMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(localTtlSeconds))
+                .build();
+        this.redisEnabled = redisEnabled;
+        this.redisTtl = Duration.ofMinutes(redisTtlMinutes);
+    }
+
+    @Override
+    public Optional<Product> getProductDetail(Long productId) {
+        Product cached = localCache.getIfPresent(productId);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        String json = readRedis(productId);
+        if (json == null) {
+            json = loadFromDatabase(productId);
+            if (json == null) {
+                return Optional.empty();
+            }
+            writeRedis(productId, json);
+        }
+
+        Product product = fromJson(json);
+        localCache.put(productId, product);
+        return Optional.of(product);
+    }
+
+    @Override
+    public void evict(Long productId) {
+        if (productId == null) {
+            return;
+        }
+        AfterCommit.run(() -> evictNow(productId));
+    }
+
+    // Thay đổi từ node khác: Redis đã được node đó xóa, chỉ còn L1 của node này
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.productId() == null) {
+            return;
+        }
+        if (event.remote()) {
+            localCache.invalidate(event.productId());
+        } else {
+            evictNow(event.productId());
+        }
+    }
+
+    private void evictNow(Long productId) {
+        localCache.invalidate(productId);
+        if (!redisEnabled) {
+            return;
+        }
+        try {
+            redisTemplate.delete(KEY_PREFIX + productId);
+            redisTemplate.convertAndSend(INVALIDATION_CHANNEL, String.valueOf(productId));
+        } catch (RuntimeException ex) {
+            log.warn("Không thể xóa cache Redis của sản phẩm {}: {}", productId, ex.getMessage());
+        }
+    }
+
+    // Load entity + toàn bộ quan hệ trong 1 transaction rồi serialize luôn, không giữ entity Hibernate trong cache
+    private String loadFromDatabase(Long productId) {
+        return readOnlyTransaction.execute(status -> productRepository.findDetailById(productId)
+                .map(product -> {
+                    Hibernate.initialize(product.getProductImages());
+                    return toJson(product);
+                })
+                .orElse(null));
+    }
+
+    private String readRedis(Long productId) {
+        if (!redisEnabled) {
+            return null;
+        }
+        try {
+            return redisTemplate.opsForValue().get(KEY_PREFIX + productId);
+        } catch (RuntimeException ex) {
+            log.warn("Không đọc được cache Redis của sản phẩm {}: {}", productId, ex.getMessage());
+            return null;
+        }
+    }
+
+    private void writeRedis(Long productId, String json) {
+        if (!redisEnabled) {
+            return;
+        }
+        try {
+            redisTemplate.opsForValue().set(KEY_PREFIX + productId, json, redisTtl);
+        } catch (RuntimeException ex) {
+            log.warn("Không ghi được cache Redis của sản phẩm {}: {}", productId, ex.getMessage());
+        }
+    }
+
+    private String toJson(Product product) {
+        try {
+            return objectMapper.writeValueAsString(product);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Không thể serialize sản phẩm " + product.getId(), ex);
+        }
+    }
+
+    private Product fromJson(String json) {
+        try {
+            return objectMapper.readValue(json, Product.class);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Không thể đọc cache sản phẩm", ex);
+        }
+    }
+}
@@ -0,0 +1,357 @@
+package com.example.StyleStore.service.impl;
+
+import com.example.StyleStore.dto.request.ProductFacetRequest;
+import com.example.StyleStore.dto.response.ProductFacetResponse.FacetCount;
+import com.example.StyleStore.model.Product;
+import com.example.StyleStore.model.enums.ProductStatus;
+import com.example.StyleStore.repository.ProductRepository;
+import com.example.StyleStore.repository.ProductSizeRepository;
+import com.example.StyleStore.repository.ProductSizeRepository.AvailableSizeProjection;
+import com.example.StyleStore.service.ProductChangedEvent;
+import com.example.StyleStore.service.ProductFacetService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+@Slf4j
+@Service
+public class ProductFacetServiceImpl implements ProductFacetService {
+
+    public static final String CATEGORY = "category";
+    public static final String GENDER = "gender";
+    public static final String BRAND = "brand";
+    public static final String COLOR = "color";
+    public static final String MATERIAL = "material";
+    public static final String SIZE = "size";
+    public static final String PRICE = "price";
+    private static final List<String> FACETS = List.of(CATEGORY, GENDER, BRAND, COLOR, MATERIAL, SIZE, PRICE);
+
+    private static final int REFRESH_BATCH_SIZE = 500;
+
+    // facet → (giá trị đã chuẩn hóa → nhãn hiển thị) của 1 sản phẩm
+    private record FacetEntry(Long productId, Map<String, Map<String, String>> values) {
+    }
+
+    private static final class FacetIndex {
+        private final BitSet all = new BitSet();
+        // facet → giá trị → bitmap các sản phẩm có giá trị đó
+        private final Map<String, Map<String, BitSet>> bitmaps = new HashMap<>();
+        private final Map<String, Map<String, String>> labels = new HashMap<>();
+        private final Map<Long, FacetEntry> entries = new HashMap<>();
+
+        void add(FacetEntry entry) {
+            remove(entry.productId());
+            int bit = bit(entry.productId());
+            all.set(bit);
+            entry.values().forEach((facet, values) -> values.forEach((value, label) -> {
+                bitmaps.computeIfAbsent(facet, key -> new HashMap<>())
+                        .computeIfAbsent(value, key -> new BitSet())
+                        .set(bit);
+                labels.computeIfAbsent(facet, key -> new HashMap<>()).putIfAbsent(value, label);
+            }));
+            entries.put(entry.productId(), entry);
+        }
+
+        void remove(Long productId) {
+            FacetEntry old = entries.remove(productId);
+            if (old == null) {
+                return;
+            }
+            int bit = bit(productId);
+            all.clear(bit);
+            old.values().forEach((facet, values) -> values.keySet().forEach(value -> {
+                Map<String, BitSet> facetBitmaps = bitmaps.get(facet);
+                BitSet bitmap = facetBitmaps.get(value);
+                bitmap.clear(bit);
+                if (bitmap.isEmpty()) {
+                    facetBitmaps.remove(value);
+                    labels.get(facet).remove(value);
+                }
+            }));
+        }
+
+        private static int bit(Long productId) {
+            return Math.toIntExact(productId);
+        }
+    }
+
+    private final ProductRepository productRepository;
+    private final ProductSizeRepository productSizeRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final long[] priceBoundaries;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object loadMonitor = new Object();
+    private final Set<Long> dirtyProductIds = ConcurrentHashMap.newKeySet();
+
+    private FacetIndex index = new FacetIndex();
+
+    public ProductFacetServiceImpl(ProductRepository productRepository, ProductSizeRepository productSizeRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${product.facet.price-buckets:200000,500000,1000000,2000000}") long[] priceBoundaries) {
+        this.productRepository = productRepository;
+        this.productSizeRepository = productSizeRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.priceBoundaries = priceBoundaries;
+    }
+
+    @Override
+    public FacetHits filter(ProductFacetRequest request, int offset, int limit) {
+        Map<String, Set<String>> selected = selectedValues(request);
+
+        lock.readLock().lock();
+        try {
+            // OR trong cùng facet
+            Map<String, BitSet> facetFilters = new HashMap<>();
+            selected.forEach((facet, values) -> {
+                BitSet union = new BitSet();
+                Map<String, BitSet> facetBitmaps = index.bitmaps.getOrDefault(facet, Map.of());
+                values.forEach(value -> {
+                    BitSet bitmap = facetBitmaps.get(value);
+                    if (bitmap != null) {
+                        union.or(bitmap);
+                    }
+                });
+                facetFilters.put(facet, union);
+            });
+
+            // AND giữa các facet
+            BitSet matched = (BitSet) index.all.clone();
+            facetFilters.values().forEach(matched::and);
+
+            Map<String, List<FacetCount>> facets = new LinkedHashMap<>();
+            for (String facet : FACETS) {
+                facets.put(facet, countFacet(facet, facetFilters, selected.getOrDefault(facet, Set.of())));
+            }
+
+            // Sản phẩm mới nhất (id lớn nhất) trước
+            List<Long> productIds = new ArrayList<>();
+            int skipped = 0;
+            for (int bit = matched.length() - 1; bit >= 0 && productIds.size() < limit; bit = matched.previousSetBit(bit - 1)) {
+                if (skipped++ >= offset) {
+                    productIds.add((long) bit);
+                }
+            }
+            return new FacetHits(productIds, matched.cardinality(), facets);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Đếm theo bộ lọc của các facet khác để người dùng thấy được số lượng nếu chọn thêm giá trị
+    private List<FacetCount> countFacet(String facet, Map<String, BitSet> facetFilters, Set<String> selected) {
+        BitSet base = (BitSet) index.all.clone();
+        facetFilters.forEach((otherFacet, filter) -> {
+            if (!otherFacet.equals(facet)) {
+                base.and(filter);
+            }
+        });
+
+        List<FacetCount> counts = new ArrayList<>();
+        Map<String, String> facetLabels = index.labels.getOrDefault(facet, Map.of());
+        index.bitmaps.getOrDefault(facet, Map.of()).forEach((value, bitmap) -> {
+            BitSet intersection = (BitSet) bitmap.clone();
+            intersection.and(base);
+            int count = intersection.cardinality();
+            if (count > 0 || selected.contains(value)) {
+                counts.add(new FacetCount(value, facetLabels.get(value), count));
+            }
+        });
+        counts.sort(Comparator.comparingInt(FacetCount::getCount).reversed()
+                .thenComparing(FacetCount::getLabel, Comparator.nullsLast(Comparator.naturalOrder())));
+        return counts;
+    }
+
+    @Override
+    public void markDirty(Long productId) {
+        if (productId != null) {
+            dirtyProductIds.add(productId);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        markDirty(event.productId());
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${product.facet.refresh-interval-ms:1000}")
+    public void refreshDirtyProducts() {
+        if (dirtyProductIds.isEmpty()) {
+            return;
+        }
+        synchronized (loadMonitor) {
+            List<Long> batch = new ArrayList<>();
+            for (Long productId : dirtyProductIds) {
+                // Xóa trước khi đọc DB: thay đổi commit sau thời điểm này sẽ được đánh dấu lại
+                dirtyProductIds.remove(productId);
+                batch.add(productId);
+                if (batch.size() == REFRESH_BATCH_SIZE) {
+                    refreshBatch(batch);
+                    batch = new ArrayList<>();
+                }
+            }
+            if (!batch.isEmpty()) {
+                refreshBatch(batch);
+            }
+        }
+    }
+
+    private void refreshBatch(List<Long> productIds) {
+        List<FacetEntry> entries;
+        try {
+            entries = readOnlyTransaction.execute(status -> toEntries(
+                    productRepository.findAllWithCategoryByIdIn(productIds),
+                    productSizeRepository.findAvailableSizesByProductIds(productIds)));
+        } catch (RuntimeException ex) {
+            dirtyProductIds.addAll(productIds);
+            throw ex;
+        }
+
+        lock.writeLock().lock();
+        try {
+            // Sản phẩm bị xóa hoặc không còn ACTIVE sẽ không có entry
+            productIds.forEach(index::remove);
+            entries.forEach(index::add);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void rebuild() {
+        synchronized (loadMonitor) {
+            FacetIndex fresh = new FacetIndex();
+            readOnlyTransaction.execute(status -> {
+                toEntries(productRepository.findAllByStatus(ProductStatus.ACTIVE),
+                        productSizeRepository.findAllAvailableSizes()).forEach(fresh::add);
+                return null;
+            });
+
+            lock.writeLock().lock();
+            try {
+                index = fresh;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Đã dựng bitmap facet cho {} sản phẩm", fresh.entries.size());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        try {
+            rebuild();
+        } catch (RuntimeException ex) {
+            log.warn("Không thể dựng bitmap facet sản phẩm: {}", ex.getMessage());
+        }
+    }
+
+    private List<FacetEntry> toEntries(Collection<Product> products, Collection<AvailableSizeProjection> availableSizes) {
+        Map<Long, Map<String, String>> sizesByProduct = new HashMap<>();
+        for (AvailableSizeProjection size : availableSizes) {
+            sizesByProduct.computeIfAbsent(size.getProductId(), key -> new LinkedHashMap<>())
+                    .putIfAbsent(SearchText.fold(size.getSizeName()).trim(), size.getSizeName());
+        }
+
+        List<FacetEntry> entries = new ArrayList<>();
+        for (Product product : products) {
+            if (product.getStatus() != ProductStatus.ACTIVE) {
+                continue;
+            }
+            Map<String, Map<String, String>> values = new HashMap<>();
+            if (product.getCategory() != null) {
+                values.put(CATEGORY, Map.of(String.valueOf(product.getCategory().getId()), product.getCategory().getName()));
+            }
+            putText(values, GENDER, canonicalGender(product.getGender()), product.getGender());
+            putText(values, BRAND, product.getBrand(), product.getBrand());
+            putText(values, COLOR, product.getColor(), product.getColor());
+            putText(values, MATERIAL, product.getMaterial(), product.getMaterial());
+            if (product.getPrice() != null) {
+                String bucket = priceBucket(product.getPrice());
+                values.put(PRICE, Map.of(bucket, bucket));
+            }
+            values.put(SIZE, sizesByProduct.getOrDefault(product.getId(), Map.of()));
+            entries.add(new FacetEntry(product.getId(), values));
+        }
+        return entries;
+    }
+
+    private static void putText(Map<String, Map<String, String>> values, String facet, String value, String label) {
+        String normalized = SearchText.fold(value).trim();
+        if (!normalized.isEmpty()) {
+            values.put(facet, Map.of(normalized, label.trim()));
+        }
+    }
+
+    private Map<String, Set<String>> selectedValues(ProductFacetRequest request) {
+        Map<String, Set<String>> selected = new HashMap<>();
+        if (request.getCategoryIds() != null && !request.getCategoryIds().isEmpty()) {
+            Set<String> values = new HashSet<>();
+            request.getCategoryIds().forEach(id -> values.add(String.valueOf(id)));
+            selected.put(CATEGORY, values);
+        }
+        putSelected(selected, GENDER, request.getGenders() == null ? null
+                : request.getGenders().stream().map(ProductFacetServiceImpl::canonicalGender).toList());
+        putSelected(selected, BRAND, request.getBrands());
+        putSelected(selected, COLOR, request.getColors());
+        putSelected(selected, MATERIAL, request.getMaterials());
+        putSelected(selected, SIZE, request.getSizes());
+        if (request.getPrices() != null && !request.getPrices().isEmpty()) {
+            Set<String> values = new HashSet<>();
+            request.getPrices().forEach(price -> values.add(price.trim()));
+            selected.put(PRICE, values);
+        }
+        return selected;
+    }
+
+    private static void putSelected(Map<String, Set<String>> selected, String facet, List<String> values) {
+        if (values == null || values.isEmpty()) {
+            return;
+        }
+        Set<String> normalized = new HashSet<>();
+        values.forEach(value -> normalized.add(SearchText.fold(value).trim()));
+        selected.put(facet, normalized);
+    }
+
+    // Gộp các cách ghi giới tính về 1 giá trị, giống normalizeGenderCandidates của ProductServiceImpl
+    private static String canonicalGender(String gender) {
+        String folded = SearchText.fold(gender).trim();
+        return switch (folded) {
+            case "male", "nam", "m" -> "male";
+            case "female", "nu", "f" -> "female";
+            case "unisex", "other", "khac" -> "unisex";
+            default -> folded;
+        };
+    }
+
+    private String priceBucket(double price) {
+        long lower = 0;
+        for (long boundary : priceBoundaries) {
+            if (price < boundary) {
+                return lower + "-" + boundary;
+            }
+            lower = boundary;
+        }
+        return lower + "+";
+    }
+}
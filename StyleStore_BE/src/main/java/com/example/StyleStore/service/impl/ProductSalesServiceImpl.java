@@ -0,0 +1,312 @@
+package com.example.StyleStore.service.impl;
+
+import com.example.StyleStore.dto.response.stats.BestSellingProductInCategoryDto;
+import com.example.StyleStore.dto.response.stats.BestSellingProductsInCategoriesDTO;
+import com.example.StyleStore.dto.response.stats.TopProductDto;
+import com.example.StyleStore.model.Order;
+import com.example.StyleStore.model.OrderItem;
+import com.example.StyleStore.model.Product;
+import com.example.StyleStore.repository.ProductRepository;
+import com.example.StyleStore.repository.ProductSalesRepository;
+import com.example.StyleStore.repository.ProductSalesRepository.SalesTotalProjection;
+import com.example.StyleStore.repository.ProductSalesRepositoryCustom.SalesDelta;
+import com.example.StyleStore.service.ProductChangedEvent;
+import com.example.StyleStore.service.ProductSalesService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+public class ProductSalesServiceImpl implements ProductSalesService {
+
+    private static final int REFRESH_BATCH_SIZE = 500;
+
+    private record RankEntry(Long productId, Long categoryId, long unitsSold) {
+    }
+
+    private record SalesKey(Long productId, LocalDate saleDate) {
+    }
+
+    // Bán nhiều hơn đứng trước, bằng nhau thì id nhỏ hơn đứng trước để thứ tự ổn định
+    private static final Comparator<RankEntry> RANK_ORDER = Comparator.comparingLong(RankEntry::unitsSold).reversed()
+            .thenComparing(RankEntry::productId);
+
+    private static final class SalesRanking {
+        private final Map<Long, RankEntry> entries = new HashMap<>();
+        private final NavigableSet<RankEntry> overall = new TreeSet<>(RANK_ORDER);
+        private final Map<Long, NavigableSet<RankEntry>> byCategory = new HashMap<>();
+
+        void put(RankEntry entry) {
+            remove(entry.productId());
+            // Sản phẩm chưa bán được (hoặc đã bị hủy hết) không xuất hiện trong bảng xếp hạng
+            if (entry.unitsSold() <= 0) {
+                return;
+            }
+            entries.put(entry.productId(), entry);
+            overall.add(entry);
+            if (entry.categoryId() != null) {
+                byCategory.computeIfAbsent(entry.categoryId(), key -> new TreeSet<>(RANK_ORDER)).add(entry);
+            }
+        }
+
+        void remove(Long productId) {
+            RankEntry old = entries.remove(productId);
+            if (old == null) {
+                return;
+            }
+            overall.remove(old);
+            if (old.categoryId() != null) {
+                NavigableSet<RankEntry> ranking = byCategory.get(old.categoryId());
+                if (ranking != null) {
+                    ranking.remove(old);
+                    if (ranking.isEmpty()) {
+                        byCategory.remove(old.categoryId());
+                    }
+                }
+            }
+        }
+
+        List<RankEntry> top(NavigableSet<RankEntry> ranking, int limit) {
+            List<RankEntry> result = new ArrayList<>();
+            if (ranking == null) {
+                return result;
+            }
+            for (RankEntry entry : ranking) {
+                if (result.size() >= limit) {
+                    break;
+                }
+                result.add(entry);
+            }
+            return result;
+        }
+    }
+
+    private final ProductSalesRepository productSalesRepository;
+    private final ProductRepository productRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object loadMonitor = new Object();
+    private final Set<Long> dirtyProductIds = ConcurrentHashMap.newKeySet();
+
+    private SalesRanking ranking = new SalesRanking();
+
+    public ProductSalesServiceImpl(ProductSalesRepository productSalesRepository, ProductRepository productRepository,
+            PlatformTransactionManager transactionManager) {
+        this.productSalesRepository = productSalesRepository;
+        this.productRepository = productRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @Override
+    public void recordOrderCreated(Order order, List<OrderItem> items) {
+        record(Map.of(order, items == null ? List.of() : items), 1, 0);
+    }
+
+    @Override
+    public void recordOrderDelivered(Order order, List<OrderItem> items) {
+        record(Map.of(order, items == null ? List.of() : items), 0, 1);
+    }
+
+    @Override
+    public void recordOrdersDelivered(Map<Order, List<OrderItem>> itemsByOrder) {
+        record(itemsByOrder, 0, 1);
+    }
+
+    @Override
+    public void recordOrdersCancelled(Map<Order, List<OrderItem>> itemsByOrder) {
+        record(itemsByOrder, -1, 0);
+    }
+
+    private void record(Map<Order, List<OrderItem>> itemsByOrder, int soldSign, int deliveredSign) {
+        Map<SalesKey, Integer> quantities = new LinkedHashMap<>();
+        itemsByOrder.forEach((order, items) -> {
+            // Bộ đếm theo ngày luôn tính theo ngày tạo đơn
+            LocalDate saleDate = order.getCreatedAt() != null ? order.getCreatedAt().toLocalDate() : LocalDate.now();
+            for (OrderItem item : items) {
+                quantities.merge(new SalesKey(item.getProduct().getId(), saleDate), item.getQuantity(), Integer::sum);
+            }
+        });
+        if (quantities.isEmpty()) {
+            return;
+        }
+        productSalesRepository.applySalesDeltas(quantities.entrySet().stream()
+                .map(entry -> new SalesDelta(entry.getKey().productId(), entry.getKey().saleDate(),
+                        (long) soldSign * entry.getValue(), (long) deliveredSign * entry.getValue()))
+                .collect(Collectors.toList()));
+
+        if (soldSign != 0) {
+            Set<Long> productIds = quantities.keySet().stream().map(SalesKey::productId).collect(Collectors.toSet());
+            AfterCommit.run(() -> dirtyProductIds.addAll(productIds));
+        }
+    }
+
+    @Override
+    public List<TopProductDto> getTopProducts(Long categoryId, int limit) {
+        List<RankEntry> top;
+        lock.readLock().lock();
+        try {
+            top = ranking.top(categoryId == null ? ranking.overall : ranking.byCategory.get(categoryId), limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Map<Long, Product> products = loadProducts(top);
+        return top.stream()
+                .filter(entry -> products.containsKey(entry.productId()))
+                .map(entry -> {
+                    Product product = products.get(entry.productId());
+                    return new TopProductDto(product.getId(), product.getName(), product.getThumbnail(),
+                            entry.unitsSold());
+                })
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<BestSellingProductsInCategoriesDTO> getTopProductsInCategories(int perCategory) {
+        List<RankEntry> top = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            ranking.byCategory.values().forEach(categoryRanking -> top.addAll(ranking.top(categoryRanking, perCategory)));
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Map<Long, Product> products = loadProducts(top);
+        return top.stream()
+                .filter(entry -> products.containsKey(entry.productId()))
+                .sorted(Comparator.comparing(RankEntry::categoryId).thenComparing(RANK_ORDER))
+                .map(entry -> {
+                    Product product = products.get(entry.productId());
+                    return (BestSellingProductsInCategoriesDTO) new BestSellingProductInCategoryDto(
+                            entry.categoryId(), product.getCategory().getName(), product.getId(),
+                            product.getName(), product.getThumbnail(), entry.unitsSold());
+                })
+                .collect(Collectors.toList());
+    }
+
+    private Map<Long, Product> loadProducts(List<RankEntry> entries) {
+        if (entries.isEmpty()) {
+            return Map.of();
+        }
+        return productRepository.findAllWithCategoryByIdIn(entries.stream().map(RankEntry::productId).toList())
+                .stream()
+                .filter(product -> product.getCategory() != null)
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+    }
+
+    // Đổi danh mục hoặc xóa sản phẩm cũng làm thay đổi bảng xếp hạng
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.productId() != null) {
+            dirtyProductIds.add(event.productId());
+        }
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${product.sales.refresh-interval-ms:1000}")
+    public void refreshDirtyProducts() {
+        if (dirtyProductIds.isEmpty()) {
+            return;
+        }
+        synchronized (loadMonitor) {
+            List<Long> batch = new ArrayList<>();
+            for (Long productId : dirtyProductIds) {
+                // Xóa trước khi đọc DB: thay đổi commit sau thời điểm này sẽ được đánh dấu lại
+                dirtyProductIds.remove(productId);
+                batch.add(productId);
+                if (batch.size() == REFRESH_BATCH_SIZE) {
+                    refreshBatch(batch);
+                    batch = new ArrayList<>();
+                }
+            }
+            if (!batch.isEmpty()) {
+                refreshBatch(batch);
+            }
+        }
+    }
+
+    private void refreshBatch(List<Long> productIds) {
+        List<SalesTotalProjection> totals;
+        try {
+            totals = readOnlyTransaction.execute(status -> productSalesRepository.findTotalsByProductIds(productIds));
+        } catch (RuntimeException ex) {
+            dirtyProductIds.addAll(productIds);
+            throw ex;
+        }
+
+        lock.writeLock().lock();
+        try {
+            // Sản phẩm đã bị xóa sẽ không có dòng nào
+            productIds.forEach(ranking::remove);
+            totals.forEach(total -> ranking.put(toEntry(total)));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void reload() {
+        synchronized (loadMonitor) {
+            SalesRanking fresh = new SalesRanking();
+            readOnlyTransaction.execute(status -> {
+                productSalesRepository.findAllTotals().forEach(total -> fresh.put(toEntry(total)));
+                return null;
+            });
+
+            lock.writeLock().lock();
+            try {
+                ranking = fresh;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Đã nạp bảng xếp hạng bán chạy cho {} sản phẩm", fresh.entries.size());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        reloadQuietly();
+    }
+
+    // Nạp lại định kỳ để đồng bộ đơn hàng được xử lý trên node khác
+    @Scheduled(initialDelayString = "${product.sales.reload-interval-ms:600000}",
+            fixedDelayString = "${product.sales.reload-interval-ms:600000}")
+    public void scheduledReload() {
+        reloadQuietly();
+    }
+
+    private void reloadQuietly() {
+        try {
+            reload();
+        } catch (RuntimeException ex) {
+            log.warn("Không thể nạp bảng xếp hạng bán chạy: {}", ex.getMessage());
+        }
+    }
+
+    private static RankEntry toEntry(SalesTotalProjection total) {
+        return new RankEntry(total.getProductId(), total.getCategoryId(),
+                total.getUnitsSold() != null ? total.getUnitsSold() : 0);
+    }
+}
@@ -0,0 +1,282 @@
+package com.example.StyleStore.service.impl;
+
+import com.example.StyleStore.model.Product;
+import com.example.StyleStore.model.enums.ProductStatus;
+import com.example.StyleStore.repository.ProductRepository;
+import com.example.StyleStore.service.ProductSearchService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+@Slf4j
+@Service
+public class ProductSearchServiceImpl implements ProductSearchService {
+
+    // Tham số BM25 chuẩn
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    // Từ cuối của query được khớp theo tiền tố (người dùng đang gõ dở), điểm giảm một nửa
+    private static final int MAX_PREFIX_EXPANSIONS = 50;
+    private static final double PREFIX_BOOST = 0.5;
+
+    // Trọng số từng trường: 1 lần xuất hiện trong tên bằng 3 lần trong mô tả
+    private static final int NAME_WEIGHT = 3;
+    private static final int CATEGORY_WEIGHT = 2;
+    private static final int BRAND_WEIGHT = 2;
+    private static final int ATTRIBUTE_WEIGHT = 1;
+
+    private record Document(Long id, Map<String, Integer> termFrequencies, int length) {
+    }
+
+    private static final class InvertedIndex {
+        // term → (productId → tf có trọng số). TreeMap để mở rộng tiền tố
+        private final NavigableMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+        private final Map<Long, Document> documents = new HashMap<>();
+        private long totalLength;
+
+        void add(Document document) {
+            remove(document.id());
+            document.termFrequencies().forEach((term, tf) ->
+                    postings.computeIfAbsent(term, key -> new HashMap<>()).put(document.id(), tf));
+            documents.put(document.id(), document);
+            totalLength += document.length();
+        }
+
+        void remove(Long productId) {
+            Document old = documents.remove(productId);
+            if (old == null) {
+                return;
+            }
+            for (String term : old.termFrequencies().keySet()) {
+                Map<Long, Integer> posting = postings.get(term);
+                if (posting != null) {
+                    posting.remove(productId);
+                    if (posting.isEmpty()) {
+                        postings.remove(term);
+                    }
+                }
+            }
+            totalLength -= old.length();
+        }
+
+        Map<Long, Double> score(List<String> queryTerms) {
+            Map<Long, Double> scores = new HashMap<>();
+            if (documents.isEmpty()) {
+                return scores;
+            }
+            double averageLength = (double) totalLength / documents.size();
+            for (int i = 0; i < queryTerms.size(); i++) {
+                String term = queryTerms.get(i);
+                // Mỗi từ của query chỉ cộng điểm tốt nhất của nó cho 1 sản phẩm
+                Map<Long, Double> termScores = new HashMap<>();
+                accumulate(termScores, term, postings.get(term), averageLength, 1.0);
+                if (i == queryTerms.size() - 1) {
+                    int expansions = 0;
+                    for (var entry : postings.subMap(term, false, term + Character.MAX_VALUE, false).entrySet()) {
+                        if (++expansions > MAX_PREFIX_EXPANSIONS) {
+                            break;
+                        }
+                        accumulate(termScores, entry.getKey(), entry.getValue(), averageLength, PREFIX_BOOST);
+                    }
+                }
+                termScores.forEach((productId, score) -> scores.merge(productId, score, Double::sum));
+            }
+            return scores;
+        }
+
+        private void accumulate(Map<Long, Double> termScores, String term, Map<Long, Integer> posting,
+                double averageLength, double boost) {
+            if (posting == null) {
+                return;
+            }
+            int n = documents.size();
+            double idf = Math.log(1 + (n - posting.size() + 0.5) / (posting.size() + 0.5));
+            posting.forEach((productId, tf) -> {
+                double norm = K1 * (1 - B + B * documents.get(productId).length() / averageLength);
+                double score = boost * idf * tf * (K1 + 1) / (tf + norm);
+                termScores.merge(productId, score, Math::max);
+            });
+        }
+    }
+
+    private final ProductRepository productRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object rebuildMonitor = new Object();
+
+    private InvertedIndex index = new InvertedIndex();
+    // Sản phẩm thay đổi trong lúc đang rebuild, cần nạp lại sau khi đổi index
+    private Set<Long> changedDuringRebuild;
+
+    public ProductSearchServiceImpl(ProductRepository productRepository, PlatformTransactionManager transactionManager) {
+        this.productRepository = productRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @Override
+    public SearchHits search(String query, int offset, int limit) {
+        List<String> terms = SearchText.tokenize(query);
+        if (terms.isEmpty()) {
+            return new SearchHits(List.of(), 0);
+        }
+
+        Map<Long, Double> scores;
+        lock.readLock().lock();
+        try {
+            scores = index.score(terms);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        // Điểm bằng nhau thì ưu tiên sản phẩm mới hơn (id lớn hơn)
+        List<Long> ranked = scores.entrySet().stream()
+                .sorted(Map.Entry.<Long, Double>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(Map.Entry.comparingByKey(Comparator.reverseOrder())))
+                .map(Map.Entry::getKey)
+                .toList();
+        int from = Math.min(Math.max(offset, 0), ranked.size());
+        int to = Math.min(from + Math.max(limit, 0), ranked.size());
+        return new SearchHits(ranked.subList(from, to), ranked.size());
+    }
+
+    @Override
+    public void index(Long productId) {
+        afterCommit(productId, () -> indexNow(productId));
+    }
+
+    @Override
+    public void remove(Long productId) {
+        afterCommit(productId, () -> {
+            lock.writeLock().lock();
+            try {
+                index.remove(productId);
+                markChanged(productId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    @Override
+    public void rebuild() {
+        synchronized (rebuildMonitor) {
+            setChangedDuringRebuild(new HashSet<>());
+            InvertedIndex fresh = new InvertedIndex();
+            try {
+                readOnlyTransaction.execute(status -> {
+                    productRepository.findAllByStatus(ProductStatus.ACTIVE)
+                            .forEach(product -> fresh.add(toDocument(product)));
+                    return null;
+                });
+            } catch (RuntimeException ex) {
+                setChangedDuringRebuild(null);
+                throw ex;
+            }
+
+            Set<Long> changed;
+            lock.writeLock().lock();
+            try {
+                index = fresh;
+                changed = changedDuringRebuild;
+                changedDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            changed.forEach(this::indexNow);
+            log.info("Đã dựng index tìm kiếm cho {} sản phẩm", fresh.documents.size());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        rebuildQuietly();
+    }
+
+    // Dựng lại định kỳ để đồng bộ thay đổi từ node khác / đổi tên danh mục
+    @Scheduled(initialDelayString = "${product.search.rebuild-interval-ms:600000}",
+            fixedDelayString = "${product.search.rebuild-interval-ms:600000}")
+    public void scheduledRebuild() {
+        rebuildQuietly();
+    }
+
+    private void rebuildQuietly() {
+        try {
+            rebuild();
+        } catch (RuntimeException ex) {
+            log.warn("Không thể dựng index tìm kiếm sản phẩm: {}", ex.getMessage());
+        }
+    }
+
+    private void indexNow(Long productId) {
+        Document document = readOnlyTransaction.execute(status -> productRepository.findWithCategoryById(productId)
+                .filter(product -> product.getStatus() == ProductStatus.ACTIVE)
+                .map(ProductSearchServiceImpl::toDocument)
+                .orElse(null));
+
+        lock.writeLock().lock();
+        try {
+            if (document != null) {
+                index.add(document);
+            } else {
+                index.remove(productId);
+            }
+            markChanged(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void setChangedDuringRebuild(Set<Long> changed) {
+        lock.writeLock().lock();
+        try {
+            changedDuringRebuild = changed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void markChanged(Long productId) {
+        if (changedDuringRebuild != null) {
+            changedDuringRebuild.add(productId);
+        }
+    }
+
+    private static void afterCommit(Long productId, Runnable action) {
+        if (productId != null) {
+            AfterCommit.run(action);
+        }
+    }
+
+    private static Document toDocument(Product product) {
+        Map<String, Integer> termFrequencies = new HashMap<>();
+        int length = addField(termFrequencies, product.getName(), NAME_WEIGHT)
+                + addField(termFrequencies, product.getCategory() != null ? product.getCategory().getName() : null,
+                        CATEGORY_WEIGHT)
+                + addField(termFrequencies, product.getBrand(), BRAND_WEIGHT)
+                + addField(termFrequencies, product.getMaterial(), ATTRIBUTE_WEIGHT)
+                + addField(termFrequencies, product.getColor(), ATTRIBUTE_WEIGHT)
+                + addField(termFrequencies, product.getDescription(), ATTRIBUTE_WEIGHT);
+        return new Document(product.getId(), termFrequencies, length);
+    }
+
+    private static int addField(Map<String, Integer> termFrequencies, String text, int weight) {
+        List<String> tokens = SearchText.tokenize(text);
+        tokens.forEach(token -> termFrequencies.merge(token, weight, Integer::sum));
+        return tokens.size() * weight;
+    }
+}
@@ -1,36 +1,63 @@
 package com.example.StyleStore.service.impl;
 
+import com.example.StyleStore.dto.request.ProductFacetRequest;
+import com.example.StyleStore.dto.response.CursorPage;
+import com.example.StyleStore.dto.response.ProductFacetResponse;
+import com.example.StyleStore.dto.response.ProductCardResponse;
 import com.example.StyleStore.dto.response.stats.CategoryStockDto;
 import com.example.StyleStore.model.Category;
 import com.example.StyleStore.model.Product;
 import com.example.StyleStore.model.ProductImage;
 import com.example.StyleStore.model.ProductSize;
 import com.example.StyleStore.model.Size;
+import com.example.StyleStore.model.enums.InventoryMovementType;
 import com.example.StyleStore.model.enums.ProductStatus;
 import com.example.StyleStore.repository.CategoryRepository;
+import com.example.StyleStore.repository.InventoryMovementRepositoryCustom.Movement;
 import com.example.StyleStore.repository.ProductImageRepository;
 import com.example.StyleStore.repository.ProductRepository;
 import com.example.StyleStore.repository.ProductSizeRepository;
+import com.example.StyleStore.repository.ProductSizeStockBucketRepository;
 import com.example.StyleStore.repository.SizeRepository;
+import com.example.StyleStore.service.InventoryLedgerService;
+import com.example.StyleStore.service.InventoryReservationService;
+import com.example.StyleStore.service.ProductCacheService;
+import com.example.StyleStore.service.ProductChangedEvent;
+import com.example.StyleStore.service.ProductCountChangedEvent;
+import com.example.StyleStore.service.ProductFacetService;
+import com.example.StyleStore.service.ProductSearchService;
 import com.example.StyleStore.service.ProductService;
+import com.example.StyleStore.service.StatsCacheKeys;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.transaction.annotation.Transactional;
 
 
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Locale;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 public class ProductServiceImpl implements ProductService {
 
+    // Cột được phép sort ở chế độ cursor (phải có index cùng với id)
+    private static final Set<String> CURSOR_SORT_PROPERTIES = Set.of("createdAt", "price", "name", "id");
 
     public ProductServiceImpl(ProductRepository productRepository, SizeRepository sizeRepository, ProductSizeRepository productSizeRepository, CategoryRepository categoryRepository, ProductImageRepository productImageRepository) {
         this.productRepository = productRepository;
@@ -55,6 +82,27 @@ public class ProductServiceImpl implements ProductService {
     @Autowired
     private ProductImageRepository productImageRepository;
 
+    @Autowired
+    private ProductSizeStockBucketRepository stockBucketRepository;
+
+    @Autowired
+    private ObjectProvider<InventoryReservationService> inventoryReservationService;
+
+    @Autowired
+    private ProductCacheService productCacheService;
+
+    @Autowired
+    private ProductSearchService productSearchService;
+
+    @Autowired
+    private ProductFacetService productFacetService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private InventoryLedgerService inventoryLedgerService;
+
     @Override
     public Page<Product> getProducts(Pageable pageable) {
         return productRepository.findByStatus(ProductStatus.ACTIVE, pageable);
@@ -95,6 +143,12 @@ public class ProductServiceImpl implements ProductService {
     }
 
     @Override
+    public Optional<Product> getProductDetail(Long id) {
+        return productCacheService.getProductDetail(id);
+    }
+
+    @Override
+    @Transactional
     public Product createProduct(Product product) {
         List<Size> allSizes = sizeRepository.findAll();
         List<ProductSize> productSizes = new ArrayList<>();
@@ -115,7 +169,15 @@ public class ProductServiceImpl implements ProductService {
                     .build());
         }
         product.setProductSizes(productSizes);
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        // Tồn kho ban đầu là dòng ADJUST đầu tiên trong sổ kho của SKU
+        inventoryLedgerService.record(InventoryMovementType.ADJUST, null, saved.getProductSizes().stream()
+                .map(ps -> new Movement(saved.getId(), ps.getSize().getId(), ps.getStock()))
+                .toList());
+        eventPublisher.publishEvent(new ProductChangedEvent(saved.getId()));
+        productSearchService.index(saved.getId());
+        eventPublisher.publishEvent(new ProductCountChangedEvent(saved.getId()));
+        return saved;
     }
 
     @Override
@@ -124,13 +186,19 @@ public class ProductServiceImpl implements ProductService {
             return false;
         }
         productRepository.deleteById(id);
+        eventPublisher.publishEvent(new ProductChangedEvent(id));
+        productSearchService.remove(id);
+        eventPublisher.publishEvent(new ProductCountChangedEvent(id));
         return true;
     }
 
     @Override
+    @Transactional
     public Product updateProduct(Long id, Product newProduct) {
         return productRepository.findById(id)
                 .map(product -> {
+                    // Admin đặt tồn kho tuyệt đối → sổ kho ghi phần chênh lệch so với tồn kho đang có
+                    List<Movement> adjustments = new ArrayList<>();
                     if (newProduct.getName() != null) product.setName(newProduct.getName());
                     if (newProduct.getDescription() != null) product.setDescription(newProduct.getDescription());
                     if (newProduct.getGender() != null) product.setGender(newProduct.getGender());
@@ -151,7 +219,11 @@ public class ProductServiceImpl implements ProductService {
                                 for (var existingSize : product.getProductSizes()) {
                                     if (existingSize.getId().equals(newSize.getId())) {
                                         if (newSize.getStock() != null) {
+                                            adjustments.add(new Movement(product.getId(), existingSize.getSize().getId(),
+                                                    newSize.getStock() - existingSize.getTotalStock()));
                                             existingSize.setStock(newSize.getStock());
+                                            // Admin đặt tồn kho tuyệt đối → gộp SKU về 1 row
+                                            stockBucketRepository.deleteByProductSizeId(existingSize.getId());
                                         }
                                         break;
                                     }
@@ -163,8 +235,11 @@ public class ProductServiceImpl implements ProductService {
                                 if (existing.isPresent()) {
                                     var ex = existing.get();
                                     if (newSize.getStock() != null) {
+                                        adjustments.add(new Movement(product.getId(), sizeId,
+                                                newSize.getStock() - ex.getTotalStock()));
                                         ex.setStock(newSize.getStock());
                                         productSizeRepository.save(ex);
+                                        stockBucketRepository.deleteByProductSizeId(ex.getId());
                                     }
                                 } else {
                                     // create new ProductSize record
@@ -176,6 +251,7 @@ public class ProductServiceImpl implements ProductService {
                                                 .stock(newSize.getStock() != null ? newSize.getStock() : 0)
                                                 .build();
                                         ProductSize saved = productSizeRepository.save(ps);
+                                        adjustments.add(new Movement(product.getId(), sizeId, ps.getStock()));
                                         // attach to product in-memory for response
                                         product.getProductSizes().add(saved);
                                     }
@@ -184,13 +260,23 @@ public class ProductServiceImpl implements ProductService {
                         }
                     }
 
-                    return productRepository.save(product);
+                    Product saved = productRepository.save(product);
+                    inventoryLedgerService.record(InventoryMovementType.ADJUST, null, adjustments);
+                    eventPublisher.publishEvent(new ProductChangedEvent(saved.getId()));
+                    productSearchService.index(saved.getId());
+                    if (newProduct.getProductSizes() != null && !newProduct.getProductSizes().isEmpty()) {
+                        // Tồn kho vừa bị sửa trực tiếp → bộ đếm giữ hàng phải nạp lại từ MySQL
+                        inventoryReservationService.ifAvailable(service -> saved.getProductSizes()
+                                .forEach(ps -> service.evict(saved.getId(), ps.getSize().getId())));
+                    }
+                    return saved;
                 })
                 .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
     }
 
     @Override
-    @Cacheable(cacheNames = "stats:products:count", key = "'fixed'")
+    @Cacheable(cacheNames = StatsCacheKeys.PRODUCTS_COUNT, key = "T(com.example.StyleStore.service.StatsCacheKeys).TOTAL",
+            sync = true)
     public long getTotalProductCount() {
            long count = productRepository.count();
            return count;
@@ -234,7 +320,9 @@ public class ProductServiceImpl implements ProductService {
             throw new RuntimeException("Product not found with id: " + productId);
         }
         productImage.setProduct(product.get());
-        return productImageRepository.save(productImage);
+        ProductImage saved = productImageRepository.save(productImage);
+        eventPublisher.publishEvent(new ProductChangedEvent(productId));
+        return saved;
     }
 
     @Override
@@ -247,20 +335,108 @@ public class ProductServiceImpl implements ProductService {
                     if (productImage.getDisplayOrder() != null) {
                         image.setDisplayOrder(productImage.getDisplayOrder());
                     }
-                    return productImageRepository.save(image);
+                    ProductImage saved = productImageRepository.save(image);
+                    eventPublisher.publishEvent(new ProductChangedEvent(image.getProduct().getId()));
+                    return saved;
                 })
                 .orElseThrow(() -> new RuntimeException("Product image not found with id: " + imageId));
     }
 
     @Override
     public boolean deleteProductImage(Long imageId) {
-        if (!productImageRepository.existsById(imageId)) {
+        Optional<ProductImage> image = productImageRepository.findById(imageId);
+        if (image.isEmpty()) {
             return false;
         }
         productImageRepository.deleteById(imageId);
+        eventPublisher.publishEvent(new ProductChangedEvent(image.get().getProduct().getId()));
         return true;
     }
 
+    @Override
+    public Page<ProductCardResponse> getProductCards(Long categoryId, String gender, String name, Pageable pageable) {
+        List<String> genderCandidates = normalizeGenderCandidates(gender);
+        String keyword = (name == null || name.trim().isEmpty()) ? null : name.trim();
+
+        // Query 1 (+ count): cột hiển thị của trang hiện tại
+        Page<ProductCardResponse> cards = productRepository.findProductCards(
+                ProductStatus.ACTIVE,
+                categoryId,
+                !genderCandidates.isEmpty(),
+                genderCandidates.isEmpty() ? List.of("") : genderCandidates,
+                keyword,
+                pageable);
+        if (cards.isEmpty()) {
+            return cards;
+        }
+
+        // Query 2: size còn hàng của tất cả sản phẩm trong trang
+        attachAvailableSizes(cards.getContent());
+        return cards;
+    }
+
+    @Override
+    public CursorPage<ProductCardResponse> getProductCardsAfter(String after, int size, String sortBy, String sortDir) {
+        Sort sort = KeysetCursor.resolveSort(sortBy, sortDir, CURSOR_SORT_PROPERTIES);
+        Limit limit = KeysetCursor.limit(size);
+        Window<Product> window = productRepository.findByStatus(
+                ProductStatus.ACTIVE, KeysetCursor.decode(after, sort), sort, limit);
+
+        List<ProductCardResponse> cards = window.getContent().stream()
+                .map(p -> new ProductCardResponse(p.getId(), p.getName(), p.getPrice(), p.getThumbnail(),
+                        p.getCategory() != null ? p.getCategory().getName() : null, p.getGender()))
+                .toList();
+        attachAvailableSizes(cards);
+        return new CursorPage<>(cards, limit.max(), KeysetCursor.encode(window, sort), window.hasNext());
+    }
+
+    @Override
+    public Page<ProductCardResponse> searchProductCards(String query, Pageable pageable) {
+        ProductSearchService.SearchHits hits = productSearchService.search(
+                query, (int) pageable.getOffset(), pageable.getPageSize());
+        // Giữ thứ tự theo điểm BM25
+        return new PageImpl<>(loadCardsInOrder(hits.productIds()), pageable, hits.total());
+    }
+
+    @Override
+    public ProductFacetResponse filterProductCards(ProductFacetRequest request, Pageable pageable) {
+        ProductFacetService.FacetHits hits = productFacetService.filter(
+                request, (int) pageable.getOffset(), pageable.getPageSize());
+        Page<ProductCardResponse> products = new PageImpl<>(loadCardsInOrder(hits.productIds()), pageable, hits.total());
+        return new ProductFacetResponse(products, hits.facets());
+    }
+
+    // Thẻ sản phẩm theo đúng thứ tự ids, bỏ qua id vừa bị xóa/ẩn mà index trong JVM chưa kịp cập nhật
+    private List<ProductCardResponse> loadCardsInOrder(List<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, ProductCardResponse> cardsById = productRepository
+                .findProductCardsByIds(productIds, ProductStatus.ACTIVE).stream()
+                .collect(Collectors.toMap(ProductCardResponse::getId, card -> card));
+        List<ProductCardResponse> cards = productIds.stream()
+                .map(cardsById::get)
+                .filter(Objects::nonNull)
+                .toList();
+        attachAvailableSizes(cards);
+        return cards;
+    }
+
+    private void attachAvailableSizes(List<ProductCardResponse> cards) {
+        if (cards.isEmpty()) {
+            return;
+        }
+        Map<Long, ProductCardResponse> cardsById = cards.stream()
+                .collect(Collectors.toMap(ProductCardResponse::getId, card -> card));
+        for (var size : productSizeRepository.findAvailableSizesByProductIds(cardsById.keySet())) {
+            ProductCardResponse card = cardsById.get(size.getProductId());
+            if (card != null) {
+                card.getAvailableSizes().add(size.getSizeName());
+            }
+        }
+        cards.forEach(card -> card.setInStock(!card.getAvailableSizes().isEmpty()));
+    }
+
     private List<String> normalizeGenderCandidates(String gender) {
         if (gender == null || gender.trim().isEmpty()) {
             return List.of();
@@ -0,0 +1,411 @@
+package com.example.StyleStore.service.impl;
+
+import com.example.StyleStore.dto.response.SuggestionResponse;
+import com.example.StyleStore.model.Product;
+import com.example.StyleStore.model.enums.ProductStatus;
+import com.example.StyleStore.repository.ProductSalesRepository;
+import com.example.StyleStore.repository.ProductRepository;
+import com.example.StyleStore.service.ProductChangedEvent;
+import com.example.StyleStore.service.ProductSuggestService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+@Slf4j
+@Service
+public class ProductSuggestServiceImpl implements ProductSuggestService {
+
+    private static final String PRODUCT = "PRODUCT";
+    private static final String BRAND = "BRAND";
+    private static final String CATEGORY = "CATEGORY";
+    private static final int REFRESH_BATCH_SIZE = 500;
+
+    private static final Comparator<Entry> BY_WEIGHT = Comparator.comparingLong(Entry::weight).reversed()
+            .thenComparing(Entry::text);
+
+    /**
+     * 1 gợi ý. keys là các hậu tố bắt đầu từ mỗi từ của text đã bỏ dấu
+     * ("ao thun trang", "thun trang", "trang") để gõ "thun" vẫn ra "Áo thun trắng".
+     */
+    private record Entry(String key, String type, String text, Long id, long weight, List<String> keys) {
+    }
+
+    private record ProductInfo(Long id, String name, String brand, Long categoryId, String categoryName, long weight) {
+    }
+
+    private static final class Aggregate {
+        private String label;
+        private long weight;
+        private int products;
+    }
+
+    private static final class Node {
+        private final Map<Character, Node> children = new HashMap<>();
+        // Gợi ý có key kết thúc tại node này
+        private final List<Entry> terminals = new ArrayList<>(1);
+        // Top-K của cả cây con, tính sẵn để truy vấn chỉ cần đi hết tiền tố
+        private List<Entry> top = List.of();
+    }
+
+    private static final class SuggestTrie {
+        private final int topK;
+        private final Node root = new Node();
+        private final Map<String, Entry> entries = new HashMap<>();
+        private final Map<Long, ProductInfo> products = new HashMap<>();
+        private final Map<String, Aggregate> brands = new HashMap<>();
+        private final Map<Long, Aggregate> categories = new HashMap<>();
+
+        SuggestTrie(int topK) {
+            this.topK = topK;
+        }
+
+        List<Entry> find(String prefix) {
+            Node node = root;
+            for (int i = 0; i < prefix.length() && node != null; i++) {
+                node = node.children.get(prefix.charAt(i));
+            }
+            return node == null ? List.of() : node.top;
+        }
+
+        // Nạp lần đầu: mỗi thương hiệu/danh mục chỉ chèn 1 lần với tổng đã cộng sẵn
+        void load(List<ProductInfo> infos) {
+            for (ProductInfo info : infos) {
+                products.put(info.id(), info);
+                upsert(entry(PRODUCT + ":" + info.id(), PRODUCT, info.name(), info.id(), info.weight()));
+                String brandKey = SearchText.fold(info.brand()).trim();
+                if (!brandKey.isEmpty()) {
+                    applyAggregate(brands.computeIfAbsent(brandKey, key -> new Aggregate()),
+                            info.brand().trim(), info.weight(), 1);
+                }
+                if (info.categoryId() != null) {
+                    applyAggregate(categories.computeIfAbsent(info.categoryId(), key -> new Aggregate()),
+                            info.categoryName(), info.weight(), 1);
+                }
+            }
+            brands.forEach((key, brand) -> upsert(entry(BRAND + ":" + key, BRAND, brand.label, null, brand.weight)));
+            categories.forEach((id, category) ->
+                    upsert(entry(CATEGORY + ":" + id, CATEGORY, category.label, id, category.weight)));
+        }
+
+        void putProduct(ProductInfo info) {
+            ProductInfo old = products.put(info.id(), info);
+            if (info.equals(old)) {
+                return;
+            }
+            if (old != null) {
+                adjustAggregates(old, -1);
+            }
+            upsert(entry(PRODUCT + ":" + info.id(), PRODUCT, info.name(), info.id(), info.weight()));
+            adjustAggregates(info, 1);
+        }
+
+        void removeProduct(Long productId) {
+            ProductInfo old = products.remove(productId);
+            if (old != null) {
+                delete(PRODUCT + ":" + productId);
+                adjustAggregates(old, -1);
+            }
+        }
+
+        // Thương hiệu/danh mục nặng bằng tổng độ phổ biến các sản phẩm của nó
+        private void adjustAggregates(ProductInfo info, int sign) {
+            String brandKey = SearchText.fold(info.brand()).trim();
+            if (!brandKey.isEmpty()) {
+                Aggregate brand = brands.computeIfAbsent(brandKey, key -> new Aggregate());
+                applyAggregate(brand, info.brand().trim(), info.weight(), sign);
+                syncAggregate(BRAND + ":" + brandKey, BRAND, brand, null, () -> brands.remove(brandKey));
+            }
+            if (info.categoryId() != null) {
+                Aggregate category = categories.computeIfAbsent(info.categoryId(), key -> new Aggregate());
+                applyAggregate(category, info.categoryName(), info.weight(), sign);
+                syncAggregate(CATEGORY + ":" + info.categoryId(), CATEGORY, category, info.categoryId(),
+                        () -> categories.remove(info.categoryId()));
+            }
+        }
+
+        private static void applyAggregate(Aggregate aggregate, String label, long weight, int sign) {
+            aggregate.products += sign;
+            aggregate.weight += sign * weight;
+            if (sign > 0 || aggregate.label == null) {
+                aggregate.label = label;
+            }
+        }
+
+        private void syncAggregate(String key, String type, Aggregate aggregate, Long id, Runnable onEmpty) {
+            if (aggregate.products <= 0) {
+                delete(key);
+                onEmpty.run();
+            } else {
+                upsert(entry(key, type, aggregate.label, id, aggregate.weight));
+            }
+        }
+
+        private void upsert(Entry entry) {
+            if (entry.keys().isEmpty()) {
+                delete(entry.key());
+                return;
+            }
+            Entry old = entries.put(entry.key(), entry);
+            if (entry.equals(old)) {
+                return;
+            }
+            if (old != null) {
+                removeFromTrie(old);
+            }
+            for (String key : entry.keys()) {
+                Node node = root;
+                node.top = offer(node.top, entry);
+                for (int i = 0; i < key.length(); i++) {
+                    node = node.children.computeIfAbsent(key.charAt(i), c -> new Node());
+                    node.top = offer(node.top, entry);
+                }
+                node.terminals.add(entry);
+            }
+        }
+
+        private void delete(String key) {
+            Entry old = entries.remove(key);
+            if (old != null) {
+                removeFromTrie(old);
+            }
+        }
+
+        private void removeFromTrie(Entry entry) {
+            for (String key : entry.keys()) {
+                List<Node> path = new ArrayList<>(key.length() + 1);
+                Node node = root;
+                path.add(node);
+                for (int i = 0; i < key.length() && node != null; i++) {
+                    node = node.children.get(key.charAt(i));
+                    if (node != null) {
+                        path.add(node);
+                    }
+                }
+                if (node == null) {
+                    continue;
+                }
+                node.terminals.remove(entry);
+
+                // Từ dưới lên: tính lại top-K ở các node có chứa entry, bỏ node rỗng
+                for (int depth = path.size() - 1; depth >= 0; depth--) {
+                    Node current = path.get(depth);
+                    if (depth > 0 && current.terminals.isEmpty() && current.children.isEmpty()) {
+                        path.get(depth - 1).children.remove(key.charAt(depth - 1));
+                        continue;
+                    }
+                    if (current.top.contains(entry)) {
+                        current.top = recompute(current);
+                    }
+                }
+            }
+        }
+
+        private List<Entry> offer(List<Entry> top, Entry entry) {
+            if (top.contains(entry)) {
+                return top;
+            }
+            if (top.size() >= topK && BY_WEIGHT.compare(entry, top.get(top.size() - 1)) >= 0) {
+                return top;
+            }
+            List<Entry> merged = new ArrayList<>(top);
+            merged.add(entry);
+            merged.sort(BY_WEIGHT);
+            return List.copyOf(merged.size() > topK ? merged.subList(0, topK) : merged);
+        }
+
+        private List<Entry> recompute(Node node) {
+            List<Entry> top = List.of();
+            for (Entry entry : node.terminals) {
+                top = offer(top, entry);
+            }
+            for (Node child : node.children.values()) {
+                for (Entry entry : child.top) {
+                    top = offer(top, entry);
+                }
+            }
+            return top;
+        }
+
+        private static Entry entry(String key, String type, String text, Long id, long weight) {
+            List<String> tokens = SearchText.tokenize(text);
+            List<String> keys = new ArrayList<>(tokens.size());
+            for (int i = 0; i < tokens.size(); i++) {
+                keys.add(String.join(" ", tokens.subList(i, tokens.size())));
+            }
+            return new Entry(key, type, text, id, weight, keys);
+        }
+    }
+
+    private final ProductRepository productRepository;
+    private final ProductSalesRepository productSalesRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int maxResults;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object loadMonitor = new Object();
+    private final Set<Long> dirtyProductIds = ConcurrentHashMap.newKeySet();
+
+    private SuggestTrie trie;
+
+    public ProductSuggestServiceImpl(ProductRepository productRepository, ProductSalesRepository productSalesRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${product.suggest.max-results:10}") int maxResults) {
+        this.productRepository = productRepository;
+        this.productSalesRepository = productSalesRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.maxResults = maxResults;
+        this.trie = new SuggestTrie(maxResults);
+    }
+
+    @Override
+    public List<SuggestionResponse> suggest(String prefix, int limit) {
+        String key = String.join(" ", SearchText.tokenize(prefix));
+        if (key.isEmpty()) {
+            return List.of();
+        }
+        // Giữ khoảng trắng cuối để "ao " không khớp "aokhoac"
+        if (Character.isWhitespace(prefix.charAt(prefix.length() - 1))) {
+            key = key + " ";
+        }
+
+        List<Entry> top;
+        lock.readLock().lock();
+        try {
+            top = trie.find(key);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return top.stream()
+                .limit(Math.max(0, Math.min(limit, maxResults)))
+                .map(entry -> new SuggestionResponse(entry.type(), entry.text(), entry.id()))
+                .toList();
+    }
+
+    @Override
+    public void markDirty(Long productId) {
+        if (productId != null) {
+            dirtyProductIds.add(productId);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        markDirty(event.productId());
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${product.suggest.refresh-interval-ms:1000}")
+    public void refreshDirtyProducts() {
+        if (dirtyProductIds.isEmpty()) {
+            return;
+        }
+        synchronized (loadMonitor) {
+            List<Long> batch = new ArrayList<>();
+            for (Long productId : dirtyProductIds) {
+                dirtyProductIds.remove(productId);
+                batch.add(productId);
+                if (batch.size() == REFRESH_BATCH_SIZE) {
+                    refreshBatch(batch);
+                    batch = new ArrayList<>();
+                }
+            }
+            if (!batch.isEmpty()) {
+                refreshBatch(batch);
+            }
+        }
+    }
+
+    private void refreshBatch(List<Long> productIds) {
+        List<Product> products;
+        try {
+            products = readOnlyTransaction.execute(status -> productRepository.findAllWithCategoryByIdIn(productIds));
+        } catch (RuntimeException ex) {
+            dirtyProductIds.addAll(productIds);
+            throw ex;
+        }
+
+        lock.writeLock().lock();
+        try {
+            Map<Long, Product> byId = new HashMap<>();
+            products.forEach(product -> byId.put(product.getId(), product));
+            for (Long productId : productIds) {
+                Product product = byId.get(productId);
+                if (product == null || product.getStatus() != ProductStatus.ACTIVE) {
+                    trie.removeProduct(productId);
+                } else {
+                    // Độ phổ biến giữ nguyên đến lần rebuild định kỳ tiếp theo
+                    ProductInfo current = trie.products.get(productId);
+                    trie.putProduct(toInfo(product, current != null ? current.weight() : 1L));
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void rebuild() {
+        synchronized (loadMonitor) {
+            SuggestTrie fresh = new SuggestTrie(maxResults);
+            readOnlyTransaction.execute(status -> {
+                // Độ phổ biến đọc từ bộ đếm product_sales (1 row / sản phẩm), không GROUP BY order_items
+                Map<Long, Long> sold = new HashMap<>();
+                productSalesRepository.findAllTotals()
+                        .forEach(row -> sold.put(row.getProductId(), row.getUnitsSold()));
+                fresh.load(productRepository.findAllByStatus(ProductStatus.ACTIVE).stream()
+                        .map(product -> toInfo(product, 1L + sold.getOrDefault(product.getId(), 0L)))
+                        .toList());
+                return null;
+            });
+
+            lock.writeLock().lock();
+            try {
+                trie = fresh;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Đã dựng trie gợi ý cho {} sản phẩm", fresh.products.size());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        rebuildQuietly();
+    }
+
+    // Cập nhật độ phổ biến theo doanh số và đổi tên danh mục
+    @Scheduled(initialDelayString = "${product.suggest.rebuild-interval-ms:600000}",
+            fixedDelayString = "${product.suggest.rebuild-interval-ms:600000}")
+    public void scheduledRebuild() {
+        rebuildQuietly();
+    }
+
+    private void rebuildQuietly() {
+        try {
+            rebuild();
+        } catch (RuntimeException ex) {
+            log.warn("Không thể dựng trie gợi ý sản phẩm: {}", ex.getMessage());
+        }
+    }
+
+    private static ProductInfo toInfo(Product product, long weight) {
+        Long categoryId = product.getCategory() != null ? product.getCategory().getId() : null;
+        String categoryName = product.getCategory() != null ? product.getCategory().getName() : null;
+        return new ProductInfo(product.getId(), product.getName(), product.getBrand(), categoryId, categoryName, weight);
+    }
+}
@@ -4,29 +4,54 @@ import com.example.StyleStore.dto.response.PromotionResponse;
 import com.example.StyleStore.model.Promotion;
 import com.example.StyleStore.repository.PromotionRepository;
 import com.example.StyleStore.service.PromotionService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.List;
-
+import java.util.Optional;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Khuyến mãi đang bật và chưa kết thúc được giữ trong registry trong JVM (PromotionTimeline):
+ * danh sách công khai, báo giá và kiểm tra mã lúc đặt hàng không query MySQL.
+ * Mã bắt đầu / hết hạn được chuyển trạng thái đúng tại mốc thời gian bằng timer, không quét định kỳ.
+ * Admin tạo / sửa → nạp lại ngay và báo các node khác qua Redis pub/sub.
+ */
+@Slf4j
 @Service
 public class PromotionServiceImpl implements PromotionService {
 
-    private final PromotionRepository promotionRepository;
+    public static final String RELOAD_CHANNEL = "promotion:registry:reload";
 
-    public PromotionServiceImpl(PromotionRepository promotionRepository) {
+    private final PromotionRepository promotionRepository;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final TaskScheduler taskScheduler;
+    private final boolean broadcastEnabled;
+    // null = chưa nạp
+    private volatile PromotionTimeline timeline;
+    private ScheduledFuture<?> nextTick;
+
+    public PromotionServiceImpl(PromotionRepository promotionRepository, RedisTemplate<String, String> redisTemplate,
+            TaskScheduler taskScheduler,
+            @Value("${promotion.registry.broadcast-enabled:true}") boolean broadcastEnabled) {
         this.promotionRepository = promotionRepository;
+        this.redisTemplate = redisTemplate;
+        this.taskScheduler = taskScheduler;
+        this.broadcastEnabled = broadcastEnabled;
     }
 
     @Override
     public List<PromotionResponse> getAvailablePromotions() {
-        LocalDateTime now = LocalDateTime.now();
-        return promotionRepository
-                .findByIsActiveTrueAndStartAtLessThanEqualAndEndAtGreaterThanEqual(now, now)
-                .stream()
+        return getActivePromotions(LocalDateTime.now()).stream()
                 .map(this::toDto)
                 .toList();
     }
@@ -69,7 +94,9 @@ public class PromotionServiceImpl implements PromotionService {
                 .isActive(request.getIsActive() != null ? request.getIsActive() : true)
                 .build();
 
-        return toDto(promotionRepository.save(promotion));
+        PromotionResponse saved = toDto(promotionRepository.save(promotion));
+        reloadAndBroadcast();
+        return saved;
     }
 
     @Override
@@ -96,7 +123,77 @@ public class PromotionServiceImpl implements PromotionService {
         promotion.setEndAt(request.getEndAt());
         promotion.setIsActive(request.getIsActive() != null ? request.getIsActive() : true);
 
-        return toDto(promotionRepository.save(promotion));
+        PromotionResponse saved = toDto(promotionRepository.save(promotion));
+        reloadAndBroadcast();
+        return saved;
+    }
+
+    @Override
+    public List<ActivePromotion> getActivePromotions(LocalDateTime now) {
+        return timeline().activeAt(now);
+    }
+
+    @Override
+    public Optional<ActivePromotion> findActivePromotion(String code, LocalDateTime now) {
+        return timeline().findActive(code, now);
+    }
+
+    @Override
+    public synchronized void reloadLocal() {
+        PromotionTimeline loaded = new PromotionTimeline(
+                promotionRepository.findByIsActiveTrueAndEndAtAfter(LocalDateTime.now()).stream()
+                        .map(ActivePromotion::of)
+                        .toList(),
+                LocalDateTime.now());
+        timeline = loaded;
+        scheduleNextTick(loaded);
+    }
+
+    // Chỉ để bắt thay đổi ghi thẳng vào DB (không qua service); mốc thời gian do timer xử lý
+    @Scheduled(fixedDelayString = "${promotion.registry.reload-interval-ms:600000}")
+    public void reloadPeriodically() {
+        reloadLocal();
+    }
+
+    private PromotionTimeline timeline() {
+        PromotionTimeline current = timeline;
+        if (current == null) {
+            synchronized (this) {
+                if (timeline == null) {
+                    reloadLocal();
+                }
+                current = timeline;
+            }
+        }
+        return current;
+    }
+
+    private void reloadAndBroadcast() {
+        reloadLocal();
+        if (!broadcastEnabled) {
+            return;
+        }
+        try {
+            redisTemplate.convertAndSend(RELOAD_CHANNEL, "reload");
+        } catch (RuntimeException ex) {
+            log.warn("Không thể báo các node khác nạp lại khuyến mãi: {}", ex.getMessage());
+        }
+    }
+
+    // Hẹn 1 lần chạy đúng mốc bắt đầu / kết thúc gần nhất; timeline cũ (đã nạp lại) thì bỏ qua
+    private synchronized void scheduleNextTick(PromotionTimeline target) {
+        if (timeline != target) {
+            return;
+        }
+        if (nextTick != null) {
+            nextTick.cancel(false);
+        }
+        nextTick = target.nextBoundary()
+                .map(at -> taskScheduler.schedule(() -> {
+                    target.advanceTo(LocalDateTime.now());
+                    scheduleNextTick(target);
+                }, at.atZone(ZoneId.systemDefault()).toInstant()))
+                .orElse(null);
     }
 
     private void validatePromotionRequest(PromotionResponse request) {
@@ -119,6 +216,21 @@ public class PromotionServiceImpl implements PromotionService {
             throw new IllegalArgumentException("Thời gian kết thúc phải sau thời gian bắt đầu");
     }
 
+    private PromotionResponse toDto(ActivePromotion promotion) {
+        return PromotionResponse.builder()
+                .id(promotion.id())
+                .code(promotion.code())
+                .name(promotion.name())
+                .description(promotion.description())
+                .discountPercent(promotion.discountPercent())
+                .maxDiscountAmount(promotion.maxDiscountAmount())
+                .minOrderAmount(promotion.minOrderAmount())
+                .startAt(promotion.startAt())
+                .endAt(promotion.endAt())
+                .isActive(true)
+                .build();
+    }
+
     private PromotionResponse toDto(Promotion promotion) {
         return PromotionResponse.builder()
                 .id(promotion.getId())
@@ -0,0 +1,116 @@
+package com.example.StyleStore.service.impl;
+
+import com.example.StyleStore.service.PromotionService.ActivePromotion;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Chỉ mục khuyến mãi trong JVM: hash theo mã + dòng thời gian các mốc bắt đầu / kết thúc.
+ *
+ * Tập đang hiệu lực chỉ đổi tại các mốc, nên giữ sẵn tập đó cùng vị trí hiện tại trên dòng thời gian;
+ * advanceTo(t) áp các mốc trong (vị trí, t] theo thứ tự (quét tuyến tính trên đầu mút khoảng),
+ * không phải lọc lại toàn bộ danh sách. Khuyến mãi hiệu lực trong [startAt, endAt).
+ *
+ * Đọc không khóa (activeView volatile); ghi (advanceTo) đồng bộ trên chính đối tượng.
+ * Khi dữ liệu thay đổi, nơi dùng dựng timeline mới rồi thay tham chiếu.
+ */
+final class PromotionTimeline {
+
+    private final Map<String, ActivePromotion> byCode = new HashMap<>();
+    private final NavigableMap<LocalDateTime, List<ActivePromotion>> starts = new TreeMap<>();
+    private final NavigableMap<LocalDateTime, List<ActivePromotion>> ends = new TreeMap<>();
+    private final NavigableMap<Long, ActivePromotion> active = new TreeMap<>();
+    private volatile LocalDateTime position;
+    private volatile List<ActivePromotion> activeView;
+    // Mốc gần nhất còn chờ, null nếu không còn mốc nào
+    private volatile LocalDateTime nextBoundary;
+
+    PromotionTimeline(Collection<ActivePromotion> promotions, LocalDateTime now) {
+        for (ActivePromotion promotion : promotions) {
+            if (!now.isBefore(promotion.endAt())) {
+                continue;
+            }
+            byCode.put(normalize(promotion.code()), promotion);
+            if (promotion.isActiveAt(now)) {
+                active.put(promotion.id(), promotion);
+            } else {
+                starts.computeIfAbsent(promotion.startAt(), time -> new ArrayList<>()).add(promotion);
+            }
+            ends.computeIfAbsent(promotion.endAt(), time -> new ArrayList<>()).add(promotion);
+        }
+        position = now;
+        publish();
+    }
+
+    // Khuyến mãi hiệu lực tại now, sắp theo id
+    List<ActivePromotion> activeAt(LocalDateTime now) {
+        LocalDateTime next = nextBoundary;
+        if (next != null && !now.isBefore(next)) {
+            // Đã qua mốc mà timer chưa kịp chạy: tự chuyển tới now để kết quả vẫn đúng thời điểm
+            advanceTo(now);
+        }
+        if (now.isBefore(position)) {
+            // Hỏi về quá khứ (hiếm): lọc trực tiếp
+            return byCode.values().stream()
+                    .filter(promotion -> promotion.isActiveAt(now))
+                    .sorted(Comparator.comparing(ActivePromotion::id))
+                    .toList();
+        }
+        return activeView;
+    }
+
+    Optional<ActivePromotion> findActive(String code, LocalDateTime now) {
+        if (code == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(byCode.get(normalize(code))).filter(promotion -> promotion.isActiveAt(now));
+    }
+
+    Optional<LocalDateTime> nextBoundary() {
+        return Optional.ofNullable(nextBoundary);
+    }
+
+    synchronized void advanceTo(LocalDateTime now) {
+        if (!now.isAfter(position)) {
+            return;
+        }
+        // Bắt đầu trước rồi mới kết thúc: khuyến mãi mở và đóng trong cùng khoảng sẽ bị bỏ ra đúng
+        drain(starts.headMap(now, true), promotion -> active.put(promotion.id(), promotion));
+        drain(ends.headMap(now, true), promotion -> active.remove(promotion.id()));
+        position = now;
+        publish();
+    }
+
+    private void publish() {
+        activeView = List.copyOf(active.values());
+        LocalDateTime nextStart = starts.isEmpty() ? null : starts.firstKey();
+        LocalDateTime nextEnd = ends.isEmpty() ? null : ends.firstKey();
+        nextBoundary = nextStart == null ? nextEnd
+                : nextEnd == null || nextStart.isBefore(nextEnd) ? nextStart : nextEnd;
+    }
+
+    private static void drain(NavigableMap<LocalDateTime, List<ActivePromotion>> due,
+            Consumer<ActivePromotion> action) {
+        Iterator<List<ActivePromotion>> iterator = due.values().iterator();
+        while (iterator.hasNext()) {
+            iterator.next().forEach(action);
+            iterator.remove();
+        }
+    }
+
+    private static String normalize(String code) {
+        return code.trim().toUpperCase(Locale.ROOT);
+    }
+}
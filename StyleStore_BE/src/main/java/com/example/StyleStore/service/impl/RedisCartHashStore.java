@@ -0,0 +1,250 @@
+package com.example.StyleStore.service.impl;
+
+import com.example.StyleStore.service.CartHashStore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Giỏ hàng trên Redis hash, mỗi thao tác ghi là 1 Lua script nguyên tử (sửa hash + đánh dấu dirty).
+ */
+@Component
+@ConditionalOnExpression("'${cart.store:jpa}' == 'redis' and '${cart.redis.store:redis}' == 'redis'")
+public class RedisCartHashStore implements CartHashStore {
+
+    private static final String KEY_PREFIX = "cart:items:";
+    private static final String DIRTY_KEY = "cart:dirty";
+    private static final String FAILURES_KEY = "cart:flush-failures";
+    private static final String PARKED_KEY = "cart:parked";
+    private static final String LOCK_KEY = "cart:flush-lock";
+
+    // KEYS: cart, dirty | ARGV: field, quantity, maxStock, price, now, userId
+    private static final DefaultRedisScript<Long> ADD_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('HEXISTS', KEYS[1], '_cart') == 0 then return -2 end
+            local current = redis.call('HGET', KEYS[1], ARGV[1])
+            local quantity = tonumber(ARGV[2])
+            local price = ARGV[4]
+            local createdAt = ARGV[5]
+            if current then
+                local q, p, c = string.match(current, '^(%d+)|([^|]*)|([^|]*)')
+                quantity = quantity + tonumber(q)
+                price = p
+                createdAt = c
+            end
+            if quantity > tonumber(ARGV[3]) then return -1 end
+            redis.call('HSET', KEYS[1], ARGV[1], quantity .. '|' .. price .. '|' .. createdAt .. '|' .. ARGV[5])
+            redis.call('SADD', KEYS[2], ARGV[6])
+            redis.call('PERSIST', KEYS[1])
+            return quantity
+            """, Long.class);
+
+    // KEYS: cart, dirty | ARGV: field, quantity, now, userId
+    private static final DefaultRedisScript<Long> SET_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('HEXISTS', KEYS[1], '_cart') == 0 then return -2 end
+            local current = redis.call('HGET', KEYS[1], ARGV[1])
+            if not current then return 0 end
+            local p, c = string.match(current, '^%d+|([^|]*)|([^|]*)')
+            redis.call('HSET', KEYS[1], ARGV[1], ARGV[2] .. '|' .. p .. '|' .. c .. '|' .. ARGV[3])
+            redis.call('SADD', KEYS[2], ARGV[4])
+            redis.call('PERSIST', KEYS[1])
+            return 1
+            """, Long.class);
+
+    // KEYS: cart, dirty | ARGV: userId, field1, field2... (không có field nào = xóa cả giỏ)
+    private static final DefaultRedisScript<Long> REMOVE_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('HEXISTS', KEYS[1], '_cart') == 0 then return -2 end
+            local removed = 0
+            if #ARGV == 1 then
+                local fields = redis.call('HKEYS', KEYS[1])
+                for i = 1, #fields do
+                    if fields[i] ~= '_cart' then removed = removed + redis.call('HDEL', KEYS[1], fields[i]) end
+                end
+            else
+                for i = 2, #ARGV do removed = removed + redis.call('HDEL', KEYS[1], ARGV[i]) end
+            end
+            redis.call('SADD', KEYS[2], ARGV[1])
+            redis.call('PERSIST', KEYS[1])
+            return removed
+            """, Long.class);
+
+    // KEYS: cart, dirty | ARGV: userId, field1, expected1, value1, ... (expected rỗng = dòng chưa có, value rỗng = xóa dòng)
+    // Kiểm tra toàn bộ số lượng trước khi ghi: lệch bất kỳ dòng nào thì không ghi gì, trả về -3
+    private static final DefaultRedisScript<Long> APPLY_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('HEXISTS', KEYS[1], '_cart') == 0 then return -2 end
+            for i = 2, #ARGV, 3 do
+                local current = redis.call('HGET', KEYS[1], ARGV[i])
+                local quantity = current and string.match(current, '^(%d+)|') or ''
+                if quantity ~= ARGV[i + 1] then return -3 end
+            end
+            for i = 2, #ARGV, 3 do
+                if ARGV[i + 2] == '' then redis.call('HDEL', KEYS[1], ARGV[i])
+                else redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 2]) end
+            end
+            redis.call('SADD', KEYS[2], ARGV[1])
+            redis.call('PERSIST', KEYS[1])
+            return 1
+            """, Long.class);
+
+    // KEYS: cart | ARGV: ttlSeconds, field1, value1, field2, value2...
+    private static final DefaultRedisScript<Long> HYDRATE_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[1]) == 1 then return 0 end
+            for i = 2, #ARGV, 2 do redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 1]) end
+            redis.call('EXPIRE', KEYS[1], ARGV[1])
+            return 1
+            """, Long.class);
+
+    // KEYS: cart, dirty | ARGV: userId, ttlSeconds
+    private static final DefaultRedisScript<Long> EXPIRE_IF_CLEAN_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('SISMEMBER', KEYS[2], ARGV[1]) == 1 then return 0 end
+            return redis.call('EXPIRE', KEYS[1], ARGV[2])
+            """, Long.class);
+
+    // KEYS: lock | ARGV: token
+    private static final DefaultRedisScript<Long> UNLOCK_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end
+            return 0
+            """, Long.class);
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final ThreadLocal<String> lockToken = new ThreadLocal<>();
+
+    public RedisCartHashStore(RedisTemplate<String, String> redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    @Override
+    public Map<String, String> entries(Long userId) {
+        return redisTemplate.<String, String>opsForHash().entries(key(userId));
+    }
+
+    @Override
+    public long size(Long userId) {
+        return Optional.ofNullable(redisTemplate.opsForHash().size(key(userId))).orElse(0L);
+    }
+
+    @Override
+    public void hydrate(Long userId, Map<String, String> fields, Duration ttl) {
+        List<String> args = new ArrayList<>();
+        args.add(String.valueOf(ttl.toSeconds()));
+        fields.forEach((field, value) -> {
+            args.add(field);
+            args.add(value);
+        });
+        redisTemplate.execute(HYDRATE_SCRIPT, List.of(key(userId)), args.toArray());
+    }
+
+    @Override
+    public long add(Long userId, String field, int quantity, int maxStock, double price, long nowMillis) {
+        return execute(userId, ADD_SCRIPT, field, String.valueOf(quantity), String.valueOf(maxStock),
+                String.valueOf(price), String.valueOf(nowMillis), String.valueOf(userId));
+    }
+
+    @Override
+    public long set(Long userId, String field, int quantity, long nowMillis) {
+        return execute(userId, SET_SCRIPT, field, String.valueOf(quantity), String.valueOf(nowMillis),
+                String.valueOf(userId));
+    }
+
+    @Override
+    public long remove(Long userId, List<String> fields) {
+        List<String> args = new ArrayList<>();
+        args.add(String.valueOf(userId));
+        args.addAll(fields);
+        return execute(userId, REMOVE_SCRIPT, args.toArray(String[]::new));
+    }
+
+    @Override
+    public long apply(Long userId, Map<String, Integer> expectedQuantities, Map<String, String> values) {
+        List<String> args = new ArrayList<>();
+        args.add(String.valueOf(userId));
+        values.forEach((field, value) -> {
+            Integer expected = expectedQuantities.get(field);
+            args.add(field);
+            args.add(expected != null ? String.valueOf(expected) : "");
+            args.add(value != null ? value : "");
+        });
+        return execute(userId, APPLY_SCRIPT, args.toArray(String[]::new));
+    }
+
+    @Override
+    public List<String> popDirty(long count) {
+        return Optional.ofNullable(redisTemplate.opsForSet().pop(DIRTY_KEY, count)).orElse(List.of());
+    }
+
+    @Override
+    public void markDirty(Collection<String> userIds) {
+        if (!userIds.isEmpty()) {
+            redisTemplate.opsForSet().add(DIRTY_KEY, userIds.toArray(String[]::new));
+        }
+    }
+
+    @Override
+    public boolean isDirty(String userId) {
+        return Boolean.TRUE.equals(redisTemplate.opsForSet().isMember(DIRTY_KEY, userId));
+    }
+
+    @Override
+    public void expireIfClean(String userId, Duration ttl) {
+        redisTemplate.execute(EXPIRE_IF_CLEAN_SCRIPT, List.of(KEY_PREFIX + userId, DIRTY_KEY), userId,
+                String.valueOf(ttl.toSeconds()));
+    }
+
+    @Override
+    public long recordFailure(String userId) {
+        return Optional.ofNullable(redisTemplate.opsForHash().increment(FAILURES_KEY, userId, 1)).orElse(1L);
+    }
+
+    @Override
+    public void clearFailures(String userId) {
+        redisTemplate.opsForHash().delete(FAILURES_KEY, userId);
+        redisTemplate.opsForSet().remove(PARKED_KEY, userId);
+    }
+
+    @Override
+    public void park(String userId) {
+        redisTemplate.opsForSet().add(PARKED_KEY, userId);
+        redisTemplate.opsForHash().delete(FAILURES_KEY, userId);
+    }
+
+    @Override
+    public boolean isParked(String userId) {
+        return Boolean.TRUE.equals(redisTemplate.opsForSet().isMember(PARKED_KEY, userId));
+    }
+
+    @Override
+    public boolean tryLock(Duration leaseTime) {
+        String token = UUID.randomUUID().toString();
+        if (Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(LOCK_KEY, token, leaseTime))) {
+            lockToken.set(token);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void unlock() {
+        String token = lockToken.get();
+        if (token != null) {
+            redisTemplate.execute(UNLOCK_SCRIPT, List.of(LOCK_KEY), token);
+            lockToken.remove();
+        }
+    }
+
+    private long execute(Long userId, DefaultRedisScript<Long> script, String... args) {
+        Long result = redisTemplate.execute(script, List.of(key(userId), DIRTY_KEY), (Object[]) args);
+        return result != null ? result : NOT_LOADED;
+    }
+
+    private static String key(Long userId) {
+        return KEY_PREFIX + userId;
+    }
+}
@@ -0,0 +1,468 @@
+package com.example.StyleStore.service.impl;
+
+import com.example.StyleStore.dto.request.CartBatchRequest;
+import com.example.StyleStore.dto.response.CartResponse;
+import com.example.StyleStore.model.Cart;
+import com.example.StyleStore.model.CartItem;
+import com.example.StyleStore.model.Product;
+import com.example.StyleStore.model.ProductSize;
+import com.example.StyleStore.repository.CartItemRepository;
+import com.example.StyleStore.repository.CartItemRepositoryCustom.CartLine;
+import com.example.StyleStore.repository.CartRepository;
+import com.example.StyleStore.service.CartHashStore;
+import com.example.StyleStore.service.CartService;
+import com.example.StyleStore.service.ProductCacheService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.function.LongSupplier;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Giỏ hàng giữ trên Redis: mỗi user 1 hash, field "productId:sizeId" → "quantity|price|createdAt|updatedAt".
+ * Thêm/sửa/xóa chỉ chạm Redis (Lua script nguyên tử) và đánh dấu user vào tập dirty;
+ * carts/cart_items được ghi xuống MySQL theo lô ở job flush. Lần đầu truy cập giỏ được nạp từ MySQL.
+ *
+ * Dòng hàng chưa có id MySQL nên cartItemId trả cho client được mã hóa từ (productId, sizeId).
+ * Lưu trữ hash nằm sau {@link CartHashStore} (Redis, hoặc trong JVM khi cart.redis.store=local).
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "cart.store", havingValue = "redis")
+public class RedisCartServiceImpl implements CartService {
+
+    private static final int SIZE_ID_BITS = 20;
+    private static final Duration LOCK_LEASE = Duration.ofSeconds(30);
+    private static final int SHUTDOWN_MAX_BATCHES = 50;
+    private static final int BATCH_MAX_ATTEMPTS = 3;
+
+    private record Line(Long productId, Long sizeId, int quantity, double price,
+            LocalDateTime createdAt, LocalDateTime updatedAt) {
+    }
+
+    private final CartHashStore cartStore;
+    private final CartRepository cartRepository;
+    private final CartItemRepository cartItemRepository;
+    private final ProductCacheService productCacheService;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+
+    @Value("${cart.redis.ttl-days:7}")
+    private long ttlDays;
+
+    @Value("${cart.redis.flush-batch-size:200}")
+    private long flushBatchSize;
+
+    // Số lần ghi lỗi liên tiếp trước khi giỏ bị tách khỏi vòng flush (park)
+    @Value("${cart.redis.flush-max-attempts:5}")
+    private long flushMaxAttempts;
+
+    public RedisCartServiceImpl(CartHashStore cartStore, CartRepository cartRepository,
+            CartItemRepository cartItemRepository, ProductCacheService productCacheService,
+            PlatformTransactionManager transactionManager) {
+        this.cartStore = cartStore;
+        this.cartRepository = cartRepository;
+        this.cartItemRepository = cartItemRepository;
+        this.productCacheService = productCacheService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @Override
+    public Cart getCartByUserId(Long userId) {
+        Map<String, String> entries = loadEntries(userId);
+        List<CartItem> items = new ArrayList<>();
+        Map<Long, Optional<Product>> products = new HashMap<>();
+        parseLines(entries).stream()
+                .sorted(Comparator.comparing(Line::createdAt))
+                .forEach(line -> {
+                    // Chi tiết sản phẩm lấy từ cache L1/L2, không query MySQL cho từng dòng
+                    Product product = products.computeIfAbsent(line.productId(), productCacheService::getProductDetail)
+                            .orElse(null);
+                    if (product != null) {
+                        findProductSize(product, line.sizeId())
+                                .ifPresent(productSize -> items.add(toCartItem(line, product, productSize)));
+                    }
+                });
+        return Cart.builder()
+                .id(Long.valueOf(entries.get(CartHashStore.CART_ID_FIELD)))
+                .cartItems(items)
+                .build();
+    }
+
+    @Override
+    public CartResponse getCartView(Long userId) {
+        Map<String, String> entries = loadEntries(userId);
+        List<CartViews.Line> lines = new ArrayList<>();
+        Map<Long, Optional<Product>> products = new HashMap<>();
+        parseLines(entries).stream()
+                .sorted(Comparator.comparing(Line::createdAt))
+                .forEach(line -> {
+                    // Sản phẩm / size không còn: vẫn trả dòng với tồn kho 0 (cảnh báo) như LEFT JOIN bên MySQL,
+                    // để client thấy và xóa được, và khớp với countItems
+                    Product product = products.computeIfAbsent(line.productId(), productCacheService::getProductDetail)
+                            .orElse(null);
+                    ProductSize productSize = product != null
+                            ? findProductSize(product, line.sizeId()).orElse(null)
+                            : null;
+                    lines.add(new CartViews.Line(cartItemId(line.productId(), line.sizeId()), line.productId(),
+                            product != null ? product.getName() : null,
+                            product != null ? product.getThumbnail() : null,
+                            product != null ? product.getMaterial() : null,
+                            product != null ? product.getColor() : null,
+                            product != null ? product.getPrice() : null, line.price(), line.sizeId(),
+                            productSize != null ? productSize.getSize().getName() : null, line.quantity(),
+                            productSize != null ? productSize.getTotalStock() : null));
+                });
+        return CartViews.build(Long.valueOf(entries.get(CartHashStore.CART_ID_FIELD)), lines);
+    }
+
+    @Override
+    public long countItems(Long userId) {
+        long size = cartStore.size(userId);
+        if (size == 0) {
+            hydrate(userId);
+            size = cartStore.size(userId);
+        }
+        // Trừ field _cart
+        return Math.max(size - 1, 0);
+    }
+
+    @Override
+    public CartItem addToCart(Long userId, Long productId, Long sizeId, Integer quantity) {
+        if (quantity <= 0) {
+            throw new RuntimeException("Số lượng phải lớn hơn 0");
+        }
+        Product product = productCacheService.getProductDetail(productId)
+                .orElseThrow(() -> new RuntimeException("Sản phẩm không tồn tại"));
+        ProductSize productSize = findProductSize(product, sizeId)
+                .orElseThrow(() -> new RuntimeException("Size không có sẵn cho sản phẩm này"));
+        int stock = productSize.getTotalStock();
+        if (stock < quantity) {
+            throw new RuntimeException("Sản phẩm " + product.getName() + ", size " + productSize.getSize().getName()
+                    + " chỉ còn " + stock + " cái trong kho");
+        }
+
+        // Tồn kho ở đây có thể trễ theo cache; createOrder mới là nơi kiểm tra chính xác
+        long now = System.currentTimeMillis();
+        long result = executeLoaded(userId,
+                () -> cartStore.add(userId, field(productId, sizeId), quantity, stock, product.getPrice(), now));
+        if (result == CartHashStore.OVER_STOCK) {
+            throw new RuntimeException("Sản phẩm " + product.getName() + ", size " + productSize.getSize().getName()
+                    + " chỉ còn " + stock + " cái trong kho, không thể thêm " + quantity + " cái nữa");
+        }
+        String value = cartStore.entries(userId).get(field(productId, sizeId));
+        return toCartItem(parseLine(field(productId, sizeId), value), product, productSize);
+    }
+
+    @Override
+    public void removeFromCart(Long userId, Long cartItemId) {
+        String field = fieldOf(cartItemId);
+        long removed = executeLoaded(userId, () -> cartStore.remove(userId, List.of(field)));
+        if (removed == 0) {
+            throw new RuntimeException("Sản phẩm không tồn tại trong giỏ");
+        }
+    }
+
+    @Override
+    public CartItem updateCartItemQuantity(Long userId, Long cartItemId, Integer quantity) {
+        if (quantity <= 0) {
+            throw new RuntimeException("Số lượng phải lớn hơn 0");
+        }
+        String field = fieldOf(cartItemId);
+        Line line = Optional.ofNullable(loadEntries(userId).get(field))
+                .map(value -> parseLine(field, value))
+                .orElseThrow(() -> new RuntimeException("Sản phẩm không tồn tại trong giỏ"));
+        Product product = productCacheService.getProductDetail(line.productId())
+                .orElseThrow(() -> new RuntimeException("Sản phẩm không tồn tại"));
+        ProductSize productSize = findProductSize(product, line.sizeId())
+                .orElseThrow(() -> new RuntimeException("Size không có sẵn cho sản phẩm này"));
+        if (quantity > productSize.getTotalStock()) {
+            throw new RuntimeException("Sản phẩm " + product.getName() + ", size " + productSize.getSize().getName()
+                    + " chỉ còn " + productSize.getTotalStock() + " cái trong kho");
+        }
+
+        long now = System.currentTimeMillis();
+        long updated = executeLoaded(userId, () -> cartStore.set(userId, field, quantity, now));
+        if (updated == 0) {
+            throw new RuntimeException("Sản phẩm không tồn tại trong giỏ");
+        }
+        return toCartItem(new Line(line.productId(), line.sizeId(), quantity, line.price(), line.createdAt(),
+                toDateTime(now)), product, productSize);
+    }
+
+    @Override
+    public void clearCart(Long userId) {
+        executeLoaded(userId, () -> cartStore.remove(userId, List.of()));
+    }
+
+    // Cả lô được tính trên 1 lần đọc hash và ghi bằng 1 script; tồn kho lấy từ cache sản phẩm.
+    // Script chỉ ghi nếu giỏ chưa bị sửa từ lúc đọc (vd. addToCart song song), nếu không thì tính lại
+    @Override
+    public CartResponse applyBatch(Long userId, CartBatchRequest request) {
+        for (int attempt = 1; attempt <= BATCH_MAX_ATTEMPTS; attempt++) {
+            if (tryApplyBatch(userId, request)) {
+                return getCartView(userId);
+            }
+        }
+        throw new RuntimeException("Giỏ hàng vừa được cập nhật ở nơi khác, vui lòng thử lại");
+    }
+
+    private boolean tryApplyBatch(Long userId, CartBatchRequest request) {
+        Map<CartBatch.Sku, Line> lines = new HashMap<>();
+        Map<CartBatch.Sku, Integer> quantities = new HashMap<>();
+        for (Line line : parseLines(loadEntries(userId))) {
+            CartBatch.Sku sku = new CartBatch.Sku(line.productId(), line.sizeId());
+            lines.put(sku, line);
+            quantities.put(sku, line.quantity());
+        }
+        Map<CartBatch.Sku, Integer> changes = CartBatch.apply(request, quantities, RedisCartServiceImpl::skuOf);
+
+        long now = System.currentTimeMillis();
+        Map<String, Integer> expected = new HashMap<>();
+        Map<String, String> values = new LinkedHashMap<>();
+        Map<Long, Optional<Product>> products = new HashMap<>();
+        changes.forEach((sku, quantity) -> {
+            String field = field(sku.productId(), sku.sizeId());
+            expected.put(field, quantities.get(sku));
+            if (quantity == 0) {
+                values.put(field, null);
+                return;
+            }
+            Product product = products.computeIfAbsent(sku.productId(), productCacheService::getProductDetail)
+                    .orElseThrow(() -> new RuntimeException("Sản phẩm không tồn tại"));
+            ProductSize productSize = findProductSize(product, sku.sizeId())
+                    .orElseThrow(() -> new RuntimeException("Size không có sẵn cho sản phẩm này"));
+            if (quantity > productSize.getTotalStock()) {
+                throw new RuntimeException("Sản phẩm " + product.getName() + ", size "
+                        + productSize.getSize().getName() + " chỉ còn " + productSize.getTotalStock()
+                        + " cái trong kho");
+            }
+            Line line = lines.get(sku);
+            values.put(field, quantity + "|" + (line != null ? line.price() : product.getPrice()) + "|"
+                    + (line != null ? toMillis(line.createdAt()) : now) + "|" + now);
+        });
+
+        return executeLoaded(userId, () -> cartStore.apply(userId, expected, values)) != CartHashStore.CONFLICT;
+    }
+
+    /**
+     * Ghi các giỏ đã thay đổi xuống MySQL: cả lô trong 1 transaction (1 DELETE + 1 batch INSERT).
+     * Nếu lô lỗi (vd. dòng trỏ tới sản phẩm/size đã bị xóa) thì ghi lại từng giỏ trong transaction riêng,
+     * để 1 giỏ hỏng không kéo cả lô lặp lại mãi. Giỏ lỗi quá flush-max-attempts lần liên tiếp bị park.
+     */
+    @Scheduled(fixedDelayString = "${cart.redis.flush-interval-ms:2000}")
+    public void flushDirtyCarts() {
+        flushBatch();
+    }
+
+    // Trả về số giỏ đã lấy ra khỏi tập dirty (0 nếu không có gì hoặc node khác đang ghi)
+    private int flushBatch() {
+        if (!cartStore.tryLock(LOCK_LEASE)) {
+            return 0;
+        }
+        List<String> userIds = List.of();
+        try {
+            // SPOP trước khi đọc hash: thay đổi xảy ra sau đó sẽ đánh dấu dirty lại và được ghi ở lần sau
+            userIds = cartStore.popDirty(flushBatchSize);
+            if (userIds.isEmpty()) {
+                return 0;
+            }
+            Map<String, Map.Entry<Long, List<CartLine>>> snapshots = new LinkedHashMap<>();
+            for (String userId : userIds) {
+                Map<String, String> entries = cartStore.entries(Long.valueOf(userId));
+                // Giỏ dirty không hết hạn nên chỉ gặp khi hash bị xóa ngoài ứng dụng
+                if (!entries.containsKey(CartHashStore.CART_ID_FIELD)) {
+                    log.warn("Giỏ hàng của user {} đang chờ ghi nhưng không còn trên cart store, bỏ qua", userId);
+                    continue;
+                }
+                snapshots.put(userId, Map.entry(Long.valueOf(entries.get(CartHashStore.CART_ID_FIELD)),
+                        parseLines(entries).stream()
+                                .map(line -> new CartLine(line.productId(), line.sizeId(), line.quantity(),
+                                        line.price(), line.createdAt(), line.updatedAt()))
+                                .toList()));
+            }
+            try {
+                writeCarts(snapshots.values());
+                snapshots.keySet().forEach(this::flushed);
+            } catch (RuntimeException ex) {
+                log.warn("Ghi lô {} giỏ hàng thất bại, ghi lại từng giỏ: {}", snapshots.size(), ex.getMessage());
+                snapshots.forEach((userId, snapshot) -> {
+                    try {
+                        writeCarts(List.of(snapshot));
+                        flushed(userId);
+                    } catch (RuntimeException cartEx) {
+                        flushFailed(userId, cartEx);
+                    }
+                });
+            }
+        } catch (RuntimeException ex) {
+            // Lỗi khi đọc cart store: trả cả lô về tập dirty (ghi lại giỏ đã ghi xong cũng vô hại)
+            cartStore.markDirty(userIds);
+            log.error("Ghi giỏ hàng xuống MySQL thất bại, sẽ thử lại: {}", ex.getMessage());
+        } finally {
+            cartStore.unlock();
+        }
+        return userIds.size();
+    }
+
+    // Tắt ứng dụng: ghi nốt các giỏ đang chờ (store local mất cùng JVM, Redis thì đỡ 1 chu kỳ trễ)
+    // Giỏ lỗi được đánh dấu dirty lại nên giới hạn số lô, không lặp mãi
+    @PreDestroy
+    public void flushOnShutdown() {
+        for (int batch = 0; batch < SHUTDOWN_MAX_BATCHES; batch++) {
+            if (flushBatch() == 0) {
+                return;
+            }
+        }
+    }
+
+    private void writeCarts(Collection<Map.Entry<Long, List<CartLine>>> snapshots) {
+        Map<Long, List<CartLine>> linesByCart = new LinkedHashMap<>();
+        snapshots.forEach(snapshot -> linesByCart.put(snapshot.getKey(), snapshot.getValue()));
+        transactionTemplate.executeWithoutResult(status -> cartItemRepository.replaceCartItems(linesByCart));
+    }
+
+    private void flushed(String userId) {
+        cartStore.clearFailures(userId);
+        cartStore.expireIfClean(userId, Duration.ofDays(ttlDays));
+    }
+
+    private void flushFailed(String userId, RuntimeException ex) {
+        long attempts = cartStore.recordFailure(userId);
+        if (attempts >= flushMaxAttempts) {
+            cartStore.park(userId);
+            log.error("Giỏ hàng của user {} ghi lỗi {} lần liên tiếp, tạm dừng ghi (giữ trên cart store): {}",
+                    userId, attempts, ex.getMessage());
+        } else {
+            cartStore.markDirty(List.of(userId));
+            log.warn("Ghi giỏ hàng của user {} thất bại (lần {}), sẽ thử lại: {}", userId, attempts,
+                    ex.getMessage());
+        }
+    }
+
+    // Chạy thao tác trên giỏ đã nạp; nếu hash chưa có thì nạp từ MySQL rồi chạy lại 1 lần
+    private long executeLoaded(Long userId, LongSupplier operation) {
+        long result = operation.getAsLong();
+        if (result == CartHashStore.NOT_LOADED) {
+            hydrate(userId);
+            result = operation.getAsLong();
+        }
+        if (result == CartHashStore.NOT_LOADED) {
+            throw new IllegalStateException("Không thể nạp giỏ hàng của user " + userId);
+        }
+        return result;
+    }
+
+    private Map<String, String> loadEntries(Long userId) {
+        Map<String, String> entries = cartStore.entries(userId);
+        if (!entries.containsKey(CartHashStore.CART_ID_FIELD)) {
+            hydrate(userId);
+            entries = cartStore.entries(userId);
+        }
+        return entries;
+    }
+
+    private void hydrate(Long userId) {
+        Map<String, String> fields = readOnlyTransaction.execute(status -> {
+            Cart cart = cartRepository.findByUser_Id(userId)
+                    .orElseThrow(() -> new RuntimeException("Giỏ hàng không tồn tại"));
+            Map<String, String> values = new LinkedHashMap<>();
+            values.put(CartHashStore.CART_ID_FIELD, String.valueOf(cart.getId()));
+            for (CartItem item : cartItemRepository.findByCart_Id(cart.getId())) {
+                values.put(field(item.getProduct().getId(), item.getSize().getId()),
+                        item.getQuantity() + "|" + item.getPrice() + "|" + toMillis(item.getCreatedAt())
+                                + "|" + toMillis(item.getUpdatedAt()));
+            }
+            return values;
+        });
+        cartStore.hydrate(userId, fields, Duration.ofDays(ttlDays));
+    }
+
+    private static String field(Long productId, Long sizeId) {
+        return productId + ":" + sizeId;
+    }
+
+    // cartItemId = productId << 20 | sizeId (id size luôn nhỏ hơn 2^20)
+    private static long cartItemId(Long productId, Long sizeId) {
+        return (productId << SIZE_ID_BITS) | sizeId;
+    }
+
+    private static String fieldOf(Long cartItemId) {
+        if (cartItemId == null || cartItemId <= 0) {
+            throw new RuntimeException("Sản phẩm không tồn tại trong giỏ");
+        }
+        return field(cartItemId >>> SIZE_ID_BITS, cartItemId & ((1L << SIZE_ID_BITS) - 1));
+    }
+
+    private static CartBatch.Sku skuOf(Long cartItemId) {
+        String[] ids = fieldOf(cartItemId).split(":");
+        return new CartBatch.Sku(Long.valueOf(ids[0]), Long.valueOf(ids[1]));
+    }
+
+    private static List<Line> parseLines(Map<String, String> entries) {
+        List<Line> lines = new ArrayList<>();
+        entries.forEach((field, value) -> {
+            if (!CartHashStore.CART_ID_FIELD.equals(field)) {
+                lines.add(parseLine(field, value));
+            }
+        });
+        return lines;
+    }
+
+    private static Line parseLine(String field, String value) {
+        String[] ids = field.split(":");
+        String[] parts = value.split("\\|");
+        return new Line(Long.valueOf(ids[0]), Long.valueOf(ids[1]), Integer.parseInt(parts[0]),
+                Double.parseDouble(parts[1]), toDateTime(Long.parseLong(parts[2])),
+                toDateTime(Long.parseLong(parts[3])));
+    }
+
+    private static Optional<ProductSize> findProductSize(Product product, Long sizeId) {
+        if (product.getProductSizes() == null) {
+            return Optional.empty();
+        }
+        return product.getProductSizes().stream()
+                .filter(productSize -> productSize.getSize() != null && sizeId.equals(productSize.getSize().getId()))
+                .findFirst();
+    }
+
+    private static CartItem toCartItem(Line line, Product product, ProductSize productSize) {
+        return CartItem.builder()
+                .id(cartItemId(line.productId(), line.sizeId()))
+                .product(product)
+                .size(productSize.getSize())
+                .quantity(line.quantity())
+                .price(line.price())
+                .createdAt(line.createdAt())
+                .updatedAt(line.updatedAt())
+                .build();
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        LocalDateTime value = time != null ? time : LocalDateTime.now();
+        return value.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static LocalDateTime toDateTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+}
@@ -0,0 +1,252 @@
+package com.example.StyleStore.service.impl;
+
+import com.example.StyleStore.repository.ProductSizeRepositoryCustom.StockChange;
+import com.example.StyleStore.service.StockCounterStore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Bộ đếm tồn kho trên Redis, mọi thao tác nhiều key chạy bằng Lua script để nguyên tử.
+ * Tất cả key dùng chung hash tag {stock} nên nằm cùng một slot khi chạy Redis Cluster,
+ * và mọi key script đụng tới (kể cả counter của từng SKU) đều được truyền qua KEYS, không dựng trong script.
+ */
+@Component
+@ConditionalOnExpression("${inventory.reservation.enabled:false} and '${inventory.reservation.store:redis}' == 'redis'")
+public class RedisStockCounterStore implements StockCounterStore {
+
+    private static final String PREFIX = "inventory:{stock}:";
+    private static final String QTY_PREFIX = PREFIX + "qty:";
+    private static final String RESERVATION_PREFIX = PREFIX + "res:";
+    private static final String HELD_KEY = PREFIX + "held";
+    private static final String PENDING_KEY = PREFIX + "pending";
+    private static final String FLUSHING_KEY = PREFIX + "flushing";
+    private static final String EXPIRY_KEY = PREFIX + "expiry";
+    private static final String LOCK_KEY = PREFIX + "flush-lock";
+
+    // KEYS: reservation, expiry, held, qty1, qty2... | ARGV: reservationId, expireAt, field1, qty1, field2, qty2...
+    private static final DefaultRedisScript<List> RESERVE_SCRIPT = new DefaultRedisScript<>("""
+            local n = #KEYS - 3
+            for i = 1, n do
+                local stock = redis.call('GET', KEYS[3 + i])
+                if not stock then return {2, i - 1, 0} end
+                if tonumber(stock) < tonumber(ARGV[2 + i * 2]) then return {1, i - 1, tonumber(stock)} end
+            end
+            for i = 1, n do
+                local field = ARGV[1 + i * 2]
+                local qty = tonumber(ARGV[2 + i * 2])
+                redis.call('DECRBY', KEYS[3 + i], qty)
+                redis.call('HINCRBY', KEYS[1], field, qty)
+                redis.call('HINCRBY', KEYS[3], field, qty)
+            end
+            redis.call('ZADD', KEYS[2], ARGV[2], ARGV[1])
+            return {0, -1, 0}
+            """, List.class);
+
+    // KEYS: reservation, expiry, held, pending | ARGV: reservationId
+    private static final DefaultRedisScript<Long> CONFIRM_SCRIPT = new DefaultRedisScript<>("""
+            local items = redis.call('HGETALL', KEYS[1])
+            if #items == 0 then return 0 end
+            for i = 1, #items, 2 do
+                local qty = tonumber(items[i + 1])
+                if redis.call('HINCRBY', KEYS[3], items[i], -qty) == 0 then redis.call('HDEL', KEYS[3], items[i]) end
+                if redis.call('HINCRBY', KEYS[4], items[i], qty) == 0 then redis.call('HDEL', KEYS[4], items[i]) end
+            end
+            redis.call('DEL', KEYS[1])
+            redis.call('ZREM', KEYS[2], ARGV[1])
+            return 1
+            """, Long.class);
+
+    // KEYS: reservation, expiry, held, qty1, qty2... | ARGV: reservationId, field1, field2...
+    // -1: reservation có SKU không nằm trong KEYS (không xảy ra vì reservation không đổi sau khi tạo)
+    private static final DefaultRedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>("""
+            local items = redis.call('HGETALL', KEYS[1])
+            local qtyKeys = {}
+            for i = 2, #ARGV do qtyKeys[ARGV[i]] = KEYS[2 + i] end
+            for i = 1, #items, 2 do
+                if not qtyKeys[items[i]] then return -1 end
+            end
+            redis.call('ZREM', KEYS[2], ARGV[1])
+            if #items == 0 then return 0 end
+            for i = 1, #items, 2 do
+                local qty = tonumber(items[i + 1])
+                local qtyKey = qtyKeys[items[i]]
+                if redis.call('HINCRBY', KEYS[3], items[i], -qty) == 0 then redis.call('HDEL', KEYS[3], items[i]) end
+                if redis.call('EXISTS', qtyKey) == 1 then redis.call('INCRBY', qtyKey, qty) end
+            end
+            redis.call('DEL', KEYS[1])
+            return 1
+            """, Long.class);
+
+    // KEYS: pending, qty1, qty2... | ARGV: field1, qty1, field2, qty2...
+    private static final DefaultRedisScript<Long> RESTOCK_SCRIPT = new DefaultRedisScript<>("""
+            for i = 1, #KEYS - 1 do
+                local field = ARGV[i * 2 - 1]
+                local qty = tonumber(ARGV[i * 2])
+                if redis.call('EXISTS', KEYS[1 + i]) == 1 then redis.call('INCRBY', KEYS[1 + i], qty) end
+                if redis.call('HINCRBY', KEYS[1], field, -qty) == 0 then redis.call('HDEL', KEYS[1], field) end
+            end
+            return 1
+            """, Long.class);
+
+    // KEYS: qty, pending, flushing, held | ARGV: field, databaseStock
+    private static final DefaultRedisScript<Long> HYDRATE_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[1]) == 1 then return 0 end
+            local outstanding = tonumber(redis.call('HGET', KEYS[2], ARGV[1]) or '0')
+                + tonumber(redis.call('HGET', KEYS[3], ARGV[1]) or '0')
+                + tonumber(redis.call('HGET', KEYS[4], ARGV[1]) or '0')
+            redis.call('SET', KEYS[1], tonumber(ARGV[2]) - outstanding)
+            return 1
+            """, Long.class);
+
+    // KEYS: lock | ARGV: token
+    private static final DefaultRedisScript<Long> UNLOCK_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end
+            return 0
+            """, Long.class);
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final ThreadLocal<String> lockToken = new ThreadLocal<>();
+
+    public RedisStockCounterStore(RedisTemplate<String, String> redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public ReserveResult reserve(String reservationId, List<StockChange> changes, Duration ttl) {
+        List<String> keys = new ArrayList<>(List.of(RESERVATION_PREFIX + reservationId, EXPIRY_KEY, HELD_KEY));
+        List<String> args = new ArrayList<>();
+        args.add(reservationId);
+        args.add(String.valueOf(System.currentTimeMillis() + ttl.toMillis()));
+        for (StockChange change : changes) {
+            String field = StockCounterStore.field(change.productId(), change.sizeId());
+            keys.add(QTY_PREFIX + field);
+            args.add(field);
+            args.add(String.valueOf(change.quantity()));
+        }
+
+        List<Long> result = redisTemplate.execute(RESERVE_SCRIPT, keys, args.toArray());
+        if (result == null || result.size() < 3) {
+            throw new IllegalStateException("Không nhận được kết quả giữ hàng từ Redis");
+        }
+
+        ReserveStatus status = switch (result.get(0).intValue()) {
+            case 0 -> ReserveStatus.RESERVED;
+            case 1 -> ReserveStatus.INSUFFICIENT;
+            default -> ReserveStatus.NOT_LOADED;
+        };
+        return new ReserveResult(status, result.get(1).intValue(), result.get(2));
+    }
+
+    @Override
+    public boolean confirm(String reservationId) {
+        Long result = redisTemplate.execute(CONFIRM_SCRIPT,
+                List.of(RESERVATION_PREFIX + reservationId, EXPIRY_KEY, HELD_KEY, PENDING_KEY),
+                reservationId);
+        return result != null && result == 1L;
+    }
+
+    @Override
+    public boolean release(String reservationId) {
+        String reservationKey = RESERVATION_PREFIX + reservationId;
+        Long result;
+        do {
+            // Đọc trước các SKU của reservation để truyền counter của chúng qua KEYS
+            List<String> keys = new ArrayList<>(List.of(reservationKey, EXPIRY_KEY, HELD_KEY));
+            List<String> args = new ArrayList<>();
+            args.add(reservationId);
+            for (String field : redisTemplate.<String, String>opsForHash().keys(reservationKey)) {
+                keys.add(QTY_PREFIX + field);
+                args.add(field);
+            }
+            result = redisTemplate.execute(RELEASE_SCRIPT, keys, args.toArray());
+        } while (result != null && result == -1L);
+        return result != null && result == 1L;
+    }
+
+    @Override
+    public void restock(List<StockChange> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        List<String> keys = new ArrayList<>(List.of(PENDING_KEY));
+        List<String> args = new ArrayList<>();
+        for (StockChange change : changes) {
+            String field = StockCounterStore.field(change.productId(), change.sizeId());
+            keys.add(QTY_PREFIX + field);
+            args.add(field);
+            args.add(String.valueOf(change.quantity()));
+        }
+        redisTemplate.execute(RESTOCK_SCRIPT, keys, args.toArray());
+    }
+
+    @Override
+    public boolean hydrate(Long productId, Long sizeId, long databaseStock) {
+        String field = StockCounterStore.field(productId, sizeId);
+        Long result = redisTemplate.execute(HYDRATE_SCRIPT,
+                List.of(QTY_PREFIX + field, PENDING_KEY, FLUSHING_KEY, HELD_KEY),
+                field, String.valueOf(databaseStock));
+        return result != null && result == 1L;
+    }
+
+    @Override
+    public void evict(Long productId, Long sizeId) {
+        redisTemplate.delete(QTY_PREFIX + StockCounterStore.field(productId, sizeId));
+    }
+
+    @Override
+    public List<String> findExpiredReservations(long nowEpochMillis, int limit) {
+        Set<String> ids = redisTemplate.opsForZSet().rangeByScore(EXPIRY_KEY, 0, nowEpochMillis, 0, limit);
+        return ids == null ? List.of() : new ArrayList<>(ids);
+    }
+
+    @Override
+    public boolean tryLock(Duration leaseTime) {
+        String token = UUID.randomUUID().toString();
+        Boolean acquired = redisTemplate.opsForValue().setIfAbsent(LOCK_KEY, token, leaseTime);
+        if (Boolean.TRUE.equals(acquired)) {
+            lockToken.set(token);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void unlock() {
+        String token = lockToken.get();
+        if (token != null) {
+            redisTemplate.execute(UNLOCK_SCRIPT, List.of(LOCK_KEY), token);
+            lockToken.remove();
+        }
+    }
+
+    @Override
+    public Map<String, Long> beginFlush() {
+        if (!Boolean.TRUE.equals(redisTemplate.hasKey(FLUSHING_KEY))) {
+            if (!Boolean.TRUE.equals(redisTemplate.hasKey(PENDING_KEY))) {
+                return Map.of();
+            }
+            redisTemplate.rename(PENDING_KEY, FLUSHING_KEY);
+        }
+
+        Map<String, Long> deltas = new HashMap<>();
+        redisTemplate.<String, String>opsForHash().entries(FLUSHING_KEY)
+                .forEach((field, qty) -> deltas.put(field, Long.parseLong(qty)));
+        return deltas;
+    }
+
+    @Override
+    public void completeFlush() {
+        redisTemplate.delete(FLUSHING_KEY);
+    }
+}
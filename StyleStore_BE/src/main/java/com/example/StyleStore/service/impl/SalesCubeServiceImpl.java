@@ -0,0 +1,405 @@
+package com.example.StyleStore.service.impl;
+
+import com.example.StyleStore.dto.request.SalesCubeRequest;
+import com.example.StyleStore.dto.response.stats.SalesCubeResponse;
+import com.example.StyleStore.model.Order;
+import com.example.StyleStore.model.OrderItem;
+import com.example.StyleStore.repository.OrderItemRepository;
+import com.example.StyleStore.repository.OrderItemRepository.DeliveredLineProjection;
+import com.example.StyleStore.service.SalesCubeService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+@Slf4j
+@Service
+public class SalesCubeServiceImpl implements SalesCubeService {
+
+    private static final int LOAD_BATCH_SIZE = 5000;
+    private static final int DEFAULT_LIMIT = 1000;
+    private static final int MAX_LIMIT = 10000;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    // 1 dòng đơn hàng đã giao
+    private record Line(long lineId, int day, long productId, long categoryId, long sizeId, String gender,
+            long promotionId, int quantity, double amount) {
+    }
+
+    /**
+     * Lưu các dòng theo cột. Chỉ 1 luồng ghi (dưới write lock), đọc dưới read lock.
+     * Các dòng nạp từ MySQL đứng trước và tăng dần theo lineId, các dòng append nằm sau.
+     * Mảng chỉ ghi thêm ở cuối (hoặc chép sang mảng mới khi nới), nên phần [0, size) đã chụp không đổi.
+     */
+    private static final class Columns {
+        private int size;
+        private long[] lineIds = new long[INITIAL_CAPACITY];
+        private int[] days = new int[INITIAL_CAPACITY];
+        private long[] productIds = new long[INITIAL_CAPACITY];
+        private long[] categoryIds = new long[INITIAL_CAPACITY];
+        private long[] sizeIds = new long[INITIAL_CAPACITY];
+        private int[] genders = new int[INITIAL_CAPACITY];
+        private long[] promotionIds = new long[INITIAL_CAPACITY];
+        private int[] quantities = new int[INITIAL_CAPACITY];
+        private double[] amounts = new double[INITIAL_CAPACITY];
+        // Từ điển giới tính: mã → tên
+        private final List<String> genderNames = new ArrayList<>();
+        private final Map<String, Integer> genderCodes = new HashMap<>();
+        // Số dòng nạp từ MySQL (phần đã sắp theo lineId)
+        private int loadedCount;
+
+        void append(Line line) {
+            if (size == lineIds.length) {
+                int capacity = size * 2;
+                lineIds = Arrays.copyOf(lineIds, capacity);
+                days = Arrays.copyOf(days, capacity);
+                productIds = Arrays.copyOf(productIds, capacity);
+                categoryIds = Arrays.copyOf(categoryIds, capacity);
+                sizeIds = Arrays.copyOf(sizeIds, capacity);
+                genders = Arrays.copyOf(genders, capacity);
+                promotionIds = Arrays.copyOf(promotionIds, capacity);
+                quantities = Arrays.copyOf(quantities, capacity);
+                amounts = Arrays.copyOf(amounts, capacity);
+            }
+            lineIds[size] = line.lineId();
+            days[size] = line.day();
+            productIds[size] = line.productId();
+            categoryIds[size] = line.categoryId();
+            sizeIds[size] = line.sizeId();
+            genders[size] = genderCode(line.gender());
+            promotionIds[size] = line.promotionId();
+            quantities[size] = line.quantity();
+            amounts[size] = line.amount();
+            size++;
+        }
+
+        Snapshot snapshot() {
+            return new Snapshot(size, days, productIds, categoryIds, sizeIds, genders, promotionIds,
+                    quantities, amounts, List.copyOf(genderNames));
+        }
+
+        boolean containsLoaded(long lineId) {
+            return Arrays.binarySearch(lineIds, 0, loadedCount, lineId) >= 0;
+        }
+
+        int genderCode(String gender) {
+            return genderCodes.computeIfAbsent(gender, key -> {
+                genderNames.add(key);
+                return genderNames.size() - 1;
+            });
+        }
+    }
+
+    // Ảnh chụp tham chiếu mảng và số dòng, lấy dưới read lock rồi quét ngoài lock
+    private record Snapshot(int size, int[] days, long[] productIds, long[] categoryIds, long[] sizeIds,
+            int[] genders, long[] promotionIds, int[] quantities, double[] amounts, List<String> genderNames) {
+    }
+
+    private enum Dimension {
+        DAY, MONTH, PRODUCT, CATEGORY, SIZE, GENDER, PROMOTION;
+
+        long key(Snapshot columns, int row) {
+            return switch (this) {
+                case DAY -> columns.days()[row];
+                case MONTH -> {
+                    LocalDate date = LocalDate.ofEpochDay(columns.days()[row]);
+                    yield date.getYear() * 12L + date.getMonthValue() - 1;
+                }
+                case PRODUCT -> columns.productIds()[row];
+                case CATEGORY -> columns.categoryIds()[row];
+                case SIZE -> columns.sizeIds()[row];
+                case GENDER -> columns.genders()[row];
+                case PROMOTION -> columns.promotionIds()[row];
+            };
+        }
+
+        Object label(Snapshot columns, long key) {
+            return switch (this) {
+                case DAY -> LocalDate.ofEpochDay(key).toString();
+                case MONTH -> YearMonth.of((int) (key / 12), (int) (key % 12) + 1).toString();
+                case GENDER -> columns.genderNames().get((int) key);
+                default -> key;
+            };
+        }
+
+        static Dimension parse(String name) {
+            try {
+                return valueOf(name.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException ex) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Chiều không hợp lệ: " + name);
+            }
+        }
+    }
+
+    private record GroupKey(long[] values) {
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof GroupKey key && Arrays.equals(values, key.values);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(values);
+        }
+    }
+
+    private static final class Accumulator {
+        private long quantity;
+        private double amount;
+        private long lines;
+    }
+
+    private final OrderItemRepository orderItemRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object reloadMonitor = new Object();
+
+    private Columns columns = new Columns();
+    // Dòng được append trong lúc đang reload, áp dụng lại sau khi đổi sang bản mới
+    private List<Line> appendedDuringReload;
+
+    public SalesCubeServiceImpl(OrderItemRepository orderItemRepository, PlatformTransactionManager transactionManager) {
+        this.orderItemRepository = orderItemRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @Override
+    public void appendDelivered(Order order, List<OrderItem> items) {
+        if (items == null || items.isEmpty()) {
+            return;
+        }
+        // Đọc đủ dữ liệu trong transaction hiện tại (product/category là proxy lazy)
+        int day = toDay(order.getCreatedAt());
+        long promotionId = order.getPromotion() != null ? order.getPromotion().getId() : 0L;
+        List<Line> lines = items.stream()
+                .map(item -> new Line(item.getId(), day, item.getProduct().getId(),
+                        item.getProduct().getCategory() != null ? item.getProduct().getCategory().getId() : 0L,
+                        item.getSize().getId(), normalizeGender(item.getProduct().getGender()), promotionId,
+                        item.getQuantity(), item.getPrice() * item.getQuantity()))
+                .toList();
+        AfterCommit.run(() -> {
+            lock.writeLock().lock();
+            try {
+                lines.forEach(columns::append);
+                if (appendedDuringReload != null) {
+                    appendedDuringReload.addAll(lines);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    @Override
+    public SalesCubeResponse query(SalesCubeRequest request) {
+        List<Dimension> dimensions = request.getGroupBy() == null ? List.of()
+                : request.getGroupBy().stream().filter(name -> !name.isBlank()).map(Dimension::parse).distinct().toList();
+        int limit = request.getLimit() == null ? DEFAULT_LIMIT : Math.max(1, Math.min(request.getLimit(), MAX_LIMIT));
+        int fromDay = request.getFrom() != null ? (int) request.getFrom().toEpochDay() : Integer.MIN_VALUE;
+        int toDay = request.getTo() != null ? (int) request.getTo().toEpochDay() : Integer.MAX_VALUE;
+        long[] productFilter = sortedOrNull(request.getProductIds());
+        long[] categoryFilter = sortedOrNull(request.getCategoryIds());
+        long[] sizeFilter = sortedOrNull(request.getSizeIds());
+        long[] promotionFilter = sortedOrNull(request.getPromotionIds());
+
+        Map<GroupKey, Accumulator> groups = new HashMap<>();
+        long matched = 0;
+        List<SalesCubeResponse.Row> rows = new ArrayList<>();
+
+        Snapshot data;
+        long[] genderFilter;
+        lock.readLock().lock();
+        try {
+            data = columns.snapshot();
+            genderFilter = genderFilter(columns, request.getGenders());
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        for (int row = 0; row < data.size(); row++) {
+            int day = data.days()[row];
+            if (day < fromDay || day > toDay
+                    || !matches(productFilter, data.productIds()[row])
+                    || !matches(categoryFilter, data.categoryIds()[row])
+                    || !matches(sizeFilter, data.sizeIds()[row])
+                    || !matches(genderFilter, data.genders()[row])
+                    || !matches(promotionFilter, data.promotionIds()[row])) {
+                continue;
+            }
+            long[] key = new long[dimensions.size()];
+            for (int i = 0; i < key.length; i++) {
+                key[i] = dimensions.get(i).key(data, row);
+            }
+            Accumulator accumulator = groups.computeIfAbsent(new GroupKey(key), k -> new Accumulator());
+            accumulator.quantity += data.quantities()[row];
+            accumulator.amount += data.amounts()[row];
+            accumulator.lines++;
+            matched++;
+        }
+
+        // Nhãn giới tính lấy từ từ điển chụp cùng dữ liệu, không cần giữ read lock
+        groups.entrySet().stream()
+                .sorted(Map.Entry.<GroupKey, Accumulator>comparingByValue(
+                        Comparator.comparingDouble((Accumulator a) -> a.amount).reversed()))
+                .limit(limit)
+                .forEach(entry -> {
+                    Map<String, Object> labels = new LinkedHashMap<>();
+                    for (int i = 0; i < dimensions.size(); i++) {
+                        Dimension dimension = dimensions.get(i);
+                        labels.put(dimension.name().toLowerCase(Locale.ROOT),
+                                dimension.label(data, entry.getKey().values()[i]));
+                    }
+                    Accumulator accumulator = entry.getValue();
+                    rows.add(SalesCubeResponse.Row.builder()
+                            .dimensions(labels)
+                            .quantity(accumulator.quantity)
+                            .amount(BigDecimal.valueOf(accumulator.amount).setScale(2, RoundingMode.HALF_UP))
+                            .lines(accumulator.lines)
+                            .build());
+                });
+
+        return SalesCubeResponse.builder()
+                .groupBy(dimensions.stream().map(d -> d.name().toLowerCase(Locale.ROOT)).toList())
+                .rows(rows)
+                .totalGroups(groups.size())
+                .matchedLines(matched)
+                .build();
+    }
+
+    @Override
+    public void reload() {
+        synchronized (reloadMonitor) {
+            setAppendedDuringReload(new ArrayList<>());
+            Columns fresh = new Columns();
+            try {
+                long afterId = 0;
+                while (true) {
+                    long cursor = afterId;
+                    List<DeliveredLineProjection> batch = readOnlyTransaction.execute(status ->
+                            orderItemRepository.findDeliveredLinesAfter(cursor, Limit.of(LOAD_BATCH_SIZE)));
+                    if (batch == null || batch.isEmpty()) {
+                        break;
+                    }
+                    batch.forEach(line -> fresh.append(toLine(line)));
+                    afterId = batch.get(batch.size() - 1).getId();
+                    if (batch.size() < LOAD_BATCH_SIZE) {
+                        break;
+                    }
+                }
+                fresh.loadedCount = fresh.size;
+            } catch (RuntimeException ex) {
+                setAppendedDuringReload(null);
+                throw ex;
+            }
+
+            lock.writeLock().lock();
+            try {
+                // Dòng append trong lúc nạp có thể đã nằm trong dữ liệu vừa đọc
+                for (Line line : appendedDuringReload) {
+                    if (!fresh.containsLoaded(line.lineId())) {
+                        fresh.append(line);
+                    }
+                }
+                appendedDuringReload = null;
+                columns = fresh;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Đã nạp cube doanh số với {} dòng đơn hàng", fresh.size);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        reloadQuietly();
+    }
+
+    // Nạp lại định kỳ để lấy đơn giao trên node khác và danh mục sản phẩm mới nhất
+    @Scheduled(initialDelayString = "${stats.cube.reload-interval-ms:3600000}",
+            fixedDelayString = "${stats.cube.reload-interval-ms:3600000}")
+    public void scheduledReload() {
+        reloadQuietly();
+    }
+
+    private void reloadQuietly() {
+        try {
+            reload();
+        } catch (RuntimeException ex) {
+            log.warn("Không thể nạp cube doanh số: {}", ex.getMessage());
+        }
+    }
+
+    private void setAppendedDuringReload(List<Line> lines) {
+        lock.writeLock().lock();
+        try {
+            appendedDuringReload = lines;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static Line toLine(DeliveredLineProjection line) {
+        int quantity = line.getQuantity() != null ? line.getQuantity() : 0;
+        double price = line.getPrice() != null ? line.getPrice() : 0;
+        return new Line(line.getId(), toDay(line.getOrderCreatedAt()), line.getProductId(),
+                line.getCategoryId() != null ? line.getCategoryId() : 0L, line.getSizeId(),
+                normalizeGender(line.getGender()), line.getPromotionId() != null ? line.getPromotionId() : 0L,
+                quantity, price * quantity);
+    }
+
+    private static int toDay(LocalDateTime createdAt) {
+        return (int) (createdAt != null ? createdAt.toLocalDate() : LocalDate.now()).toEpochDay();
+    }
+
+    private static String normalizeGender(String gender) {
+        return gender == null || gender.isBlank() ? "" : gender.trim().toUpperCase(Locale.ROOT);
+    }
+
+    private static long[] sortedOrNull(List<Long> values) {
+        if (values == null || values.isEmpty()) {
+            return null;
+        }
+        return values.stream().filter(Objects::nonNull).mapToLong(Long::longValue).sorted().toArray();
+    }
+
+    private static long[] genderFilter(Columns data, List<String> genders) {
+        if (genders == null || genders.isEmpty()) {
+            return null;
+        }
+        // Giới tính chưa có trong dữ liệu thì không khớp dòng nào (mảng rỗng)
+        return genders.stream()
+                .map(SalesCubeServiceImpl::normalizeGender)
+                .map(data.genderCodes::get)
+                .filter(Objects::nonNull)
+                .mapToLong(Integer::longValue)
+                .sorted()
+                .toArray();
+    }
+
+    private static boolean matches(long[] filter, long value) {
+        return filter == null || Arrays.binarySearch(filter, value) >= 0;
+    }
+}
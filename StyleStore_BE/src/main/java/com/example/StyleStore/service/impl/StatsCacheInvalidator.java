@@ -0,0 +1,86 @@
+package com.example.StyleStore.service.impl;
+
+import com.example.StyleStore.model.enums.OrderStatus;
+import com.example.StyleStore.service.OrderStatusChangedEvent;
+import com.example.StyleStore.service.ProductCountChangedEvent;
+import com.example.StyleStore.service.StatsCacheKeys;
+import com.example.StyleStore.service.UserChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+/**
+ * Xóa cache thống kê sau khi dữ liệu nguồn thay đổi, để cache có TTL dài mà vẫn đúng.
+ * Mọi lần xóa đều chạy sau commit: xóa trước commit thì request khác có thể nạp lại ngay
+ * dữ liệu cũ vào cache.
+ */
+@Slf4j
+@Component
+public class StatsCacheInvalidator {
+
+    private final CacheManager cacheManager;
+
+    public StatsCacheInvalidator(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        // Doanh thu chỉ tính đơn DELIVERED
+        if (event.status() != OrderStatus.DELIVERED && event.previousStatus() != OrderStatus.DELIVERED) {
+            return;
+        }
+        evictRevenueNow(event.orderDate());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        evict(StatsCacheKeys.USERS_MONTHLY, StatsCacheKeys.currentMonth());
+        evict(StatsCacheKeys.USERS_ACTIVE_COUNT, StatsCacheKeys.TOTAL);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductCountChanged(ProductCountChangedEvent event) {
+        evict(StatsCacheKeys.PRODUCTS_COUNT, StatsCacheKeys.TOTAL);
+    }
+
+    /**
+     * Xóa cache doanh thu bị ảnh hưởng bởi doanh thu của ngày {@code saleDate}
+     * (null → xóa tất cả, ví dụ sau khi tính lại bảng doanh thu theo ngày).
+     * Đang trong transaction thì xóa sau commit.
+     */
+    public void evictRevenue(LocalDate saleDate) {
+        AfterCommit.run(() -> evictRevenueNow(saleDate));
+    }
+
+    // Listener đã chạy sau commit nên gọi thẳng, không đăng ký thêm synchronization
+    private void evictRevenueNow(LocalDate saleDate) {
+        YearMonth now = YearMonth.now();
+        YearMonth month = saleDate != null ? YearMonth.from(saleDate) : null;
+        // 12 tháng gần nhất, tính cả tháng hiện tại
+        if (month == null || !month.isBefore(now.minusMonths(11))) {
+            evict(StatsCacheKeys.REVENUE_MONTHLY, StatsCacheKeys.currentMonth());
+        }
+        // Tăng trưởng so sánh tháng trước với tháng trước nữa
+        if (month == null || month.equals(now.minusMonths(1)) || month.equals(now.minusMonths(2))) {
+            evict(StatsCacheKeys.REVENUE_GROWTH, StatsCacheKeys.currentMonth());
+        }
+    }
+
+    private void evict(String cacheName, String key) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null) {
+            return;
+        }
+        try {
+            cache.evict(key);
+        } catch (RuntimeException ex) {
+            log.warn("Không thể xóa cache {}::{}: {}", cache.getName(), key, ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.StyleStore.service.impl;
+
+import com.example.StyleStore.dto.response.ProductSizeStockResponse;
+import com.example.StyleStore.model.ProductSize;
+import com.example.StyleStore.model.ProductSizeStockBucket;
+import com.example.StyleStore.repository.ProductSizeRepository;
+import com.example.StyleStore.repository.ProductSizeStockBucketRepository;
+import com.example.StyleStore.service.ProductChangedEvent;
+import com.example.StyleStore.service.StockBucketService;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+public class StockBucketServiceImpl implements StockBucketService {
+
+    private static final int MAX_BUCKETS = 32;
+
+    private final ProductSizeRepository productSizeRepository;
+    private final ProductSizeStockBucketRepository stockBucketRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public StockBucketServiceImpl(ProductSizeRepository productSizeRepository,
+            ProductSizeStockBucketRepository stockBucketRepository, ApplicationEventPublisher eventPublisher) {
+        this.productSizeRepository = productSizeRepository;
+        this.stockBucketRepository = stockBucketRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    @Transactional
+    public ProductSizeStockResponse stripeStock(Long productId, Long sizeId, int bucketCount) {
+        if (bucketCount < 1 || bucketCount > MAX_BUCKETS) {
+            throw new RuntimeException("Số bucket phải từ 1 đến " + MAX_BUCKETS);
+        }
+
+        // Khóa row product_sizes rồi tới các bucket (cùng thứ tự với lúc trừ tồn kho)
+        ProductSize productSize = productSizeRepository.findByProductIdAndSizeIdForUpdate(productId, sizeId)
+                .orElseThrow(() -> new RuntimeException("Size không có sẵn cho sản phẩm này"));
+        List<ProductSizeStockBucket> buckets = stockBucketRepository.findByProductSizeIdForUpdate(productSize.getId());
+
+        int total = productSize.getStock() + buckets.stream().mapToInt(ProductSizeStockBucket::getStock).sum();
+        int share = total / bucketCount;
+
+        // Bucket 0 nhận thêm phần dư để tổng không đổi
+        productSize.setStock(share + total % bucketCount);
+        List<Integer> bucketStocks = new ArrayList<>();
+        bucketStocks.add(productSize.getStock());
+
+        Map<Integer, ProductSizeStockBucket> existing = buckets.stream()
+                .collect(Collectors.toMap(ProductSizeStockBucket::getBucketIndex, Function.identity()));
+        List<ProductSizeStockBucket> toSave = new ArrayList<>();
+        for (int index = 1; index < bucketCount; index++) {
+            ProductSizeStockBucket bucket = existing.remove(index);
+            if (bucket == null) {
+                bucket = ProductSizeStockBucket.builder()
+                        .productSize(productSize)
+                        .bucketIndex(index)
+                        .build();
+            }
+            bucket.setStock(share);
+            toSave.add(bucket);
+            bucketStocks.add(share);
+        }
+
+        stockBucketRepository.deleteAll(existing.values());
+        stockBucketRepository.saveAll(toSave);
+        productSizeRepository.save(productSize);
+        eventPublisher.publishEvent(new ProductChangedEvent(productId));
+
+        return ProductSizeStockResponse.builder()
+                .productId(productId)
+                .sizeId(sizeId)
+                .sizeName(productSize.getSize().getName())
+                .totalStock(total)
+                .bucketCount(bucketCount)
+                .bucketStocks(bucketStocks)
+                .build();
+    }
+}
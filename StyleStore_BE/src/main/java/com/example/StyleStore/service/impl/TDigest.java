@@ -0,0 +1,179 @@
+package com.example.StyleStore.service.impl;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Merging t-digest ước lượng phân vị (p50/p90/p99) của một phân phối giá trị.
+ * Các centroid ở hai đuôi được giữ nhỏ (hàm scale k1) nên phân vị cao vẫn chính xác.
+ * Hai digest gộp được bằng cách cộng centroid rồi nén lại; kích thước bị chặn theo compression.
+ */
+final class TDigest {
+
+    private static final double COMPRESSION = 100;
+    private static final int BUFFER_SIZE = (int) (COMPRESSION * 5);
+
+    private double[] means = new double[0];
+    private double[] weights = new double[0];
+    private int centroidCount;
+
+    // Giá trị mới được gom vào buffer, nén theo lô
+    private final double[] bufferMeans = new double[BUFFER_SIZE];
+    private final double[] bufferWeights = new double[BUFFER_SIZE];
+    private int bufferCount;
+
+    private double totalWeight;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    static TDigest fromBytes(byte[] bytes) {
+        TDigest digest = new TDigest();
+        if (bytes == null || bytes.length < Double.BYTES * 2 + Integer.BYTES) {
+            return digest;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        digest.min = buffer.getDouble();
+        digest.max = buffer.getDouble();
+        int count = buffer.getInt();
+        digest.means = new double[count];
+        digest.weights = new double[count];
+        for (int i = 0; i < count; i++) {
+            digest.means[i] = buffer.getDouble();
+            digest.weights[i] = buffer.getDouble();
+            digest.totalWeight += digest.weights[i];
+        }
+        digest.centroidCount = count;
+        return digest;
+    }
+
+    byte[] toBytes() {
+        compress();
+        ByteBuffer buffer = ByteBuffer.allocate(Double.BYTES * 2 + Integer.BYTES + centroidCount * Double.BYTES * 2);
+        buffer.putDouble(min);
+        buffer.putDouble(max);
+        buffer.putInt(centroidCount);
+        for (int i = 0; i < centroidCount; i++) {
+            buffer.putDouble(means[i]);
+            buffer.putDouble(weights[i]);
+        }
+        return buffer.array();
+    }
+
+    void add(double value) {
+        add(value, 1);
+    }
+
+    void merge(TDigest other) {
+        other.compress();
+        for (int i = 0; i < other.centroidCount; i++) {
+            add(other.means[i], other.weights[i]);
+        }
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    long count() {
+        return Math.round(totalWeight);
+    }
+
+    // NaN khi chưa có dữ liệu
+    double quantile(double q) {
+        compress();
+        if (centroidCount == 0) {
+            return Double.NaN;
+        }
+        if (centroidCount == 1) {
+            return means[0];
+        }
+        double target = Math.max(0, Math.min(1, q)) * totalWeight;
+        // Nội suy tuyến tính giữa tâm các centroid, hai đầu nối với min/max
+        double firstCenter = weights[0] / 2;
+        if (target <= firstCenter) {
+            return min + (means[0] - min) * (firstCenter > 0 ? target / firstCenter : 0);
+        }
+        double cumulative = 0;
+        for (int i = 0; i < centroidCount - 1; i++) {
+            double center = cumulative + weights[i] / 2;
+            double nextCenter = cumulative + weights[i] + weights[i + 1] / 2;
+            if (target <= nextCenter) {
+                double ratio = (target - center) / (nextCenter - center);
+                return means[i] + (means[i + 1] - means[i]) * ratio;
+            }
+            cumulative += weights[i];
+        }
+        double lastCenter = totalWeight - weights[centroidCount - 1] / 2;
+        double tail = totalWeight - lastCenter;
+        return means[centroidCount - 1]
+                + (max - means[centroidCount - 1]) * (tail > 0 ? (target - lastCenter) / tail : 0);
+    }
+
+    private void add(double value, double weight) {
+        if (Double.isNaN(value) || weight <= 0) {
+            return;
+        }
+        if (bufferCount == BUFFER_SIZE) {
+            compress();
+        }
+        bufferMeans[bufferCount] = value;
+        bufferWeights[bufferCount] = weight;
+        bufferCount++;
+        totalWeight += weight;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    private void compress() {
+        if (bufferCount == 0) {
+            return;
+        }
+        int n = centroidCount + bufferCount;
+        double[] allMeans = Arrays.copyOf(means, n);
+        double[] allWeights = Arrays.copyOf(weights, n);
+        System.arraycopy(bufferMeans, 0, allMeans, centroidCount, bufferCount);
+        System.arraycopy(bufferWeights, 0, allWeights, centroidCount, bufferCount);
+        bufferCount = 0;
+
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(allMeans[a], allMeans[b]));
+
+        double[] mergedMeans = new double[n];
+        double[] mergedWeights = new double[n];
+        int out = 0;
+        double currentMean = allMeans[order[0]];
+        double currentWeight = allWeights[order[0]];
+        double weightSoFar = 0;
+        double kLeft = scale(0);
+        for (int i = 1; i < n; i++) {
+            double mean = allMeans[order[i]];
+            double weight = allWeights[order[i]];
+            double proposed = currentWeight + weight;
+            if (scale((weightSoFar + proposed) / totalWeight) - kLeft <= 1) {
+                currentMean += (mean - currentMean) * weight / proposed;
+                currentWeight = proposed;
+            } else {
+                mergedMeans[out] = currentMean;
+                mergedWeights[out] = currentWeight;
+                out++;
+                weightSoFar += currentWeight;
+                kLeft = scale(weightSoFar / totalWeight);
+                currentMean = mean;
+                currentWeight = weight;
+            }
+        }
+        mergedMeans[out] = currentMean;
+        mergedWeights[out] = currentWeight;
+        out++;
+
+        means = Arrays.copyOf(mergedMeans, out);
+        weights = Arrays.copyOf(mergedWeights, out);
+        centroidCount = out;
+    }
+
+    // k1(q) = δ/2π · asin(2q − 1): mỗi centroid chiếm tối đa 1 đơn vị k
+    private static double scale(double q) {
+        return COMPRESSION / (2 * Math.PI) * Math.asin(2 * Math.max(0, Math.min(1, q)) - 1);
+    }
+}
@@ -1,16 +1,23 @@
 package com.example.StyleStore.service.impl;
 
 import com.example.StyleStore.dto.request.UserChangePasswordRequest;
+import com.example.StyleStore.dto.response.CursorPage;
 import com.example.StyleStore.dto.response.stats.MonthlyUserDto;
 import com.example.StyleStore.model.User;
 import com.example.StyleStore.model.Role;
 import com.example.StyleStore.repository.RoleRepository;
 import com.example.StyleStore.repository.UserRepository;
+import com.example.StyleStore.service.StatsCacheKeys;
+import com.example.StyleStore.service.UserChangedEvent;
 import com.example.StyleStore.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -22,12 +29,15 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 
 @Service
 public class UserServiceImpl implements UserService {
 
+    // Cột được phép sort ở chế độ cursor
+    private static final Set<String> CURSOR_SORT_PROPERTIES = Set.of("createdAt", "fullName", "id");
 
     public UserServiceImpl(UserRepository userRepository, RoleRepository roleRepository, PasswordEncoder passwordEncoder) {
         this.userRepository = userRepository;
@@ -44,6 +54,9 @@ public class UserServiceImpl implements UserService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     @Override
     public Optional<User> findByEmail(String email) {
         return userRepository.findByEmail(email);
@@ -51,7 +64,9 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public User saveUser(User user) {
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        eventPublisher.publishEvent(new UserChangedEvent(saved.getId()));
+        return saved;
     }
 
     @Override
@@ -64,6 +79,14 @@ public class UserServiceImpl implements UserService {
         return userRepository.findAll(pageable);
     }
 
+    @Override
+    public CursorPage<User> getUsersAfter(String after, int size, String sortBy, String sortDir) {
+        Sort sort = KeysetCursor.resolveSort(sortBy, sortDir, CURSOR_SORT_PROPERTIES);
+        Limit limit = KeysetCursor.limit(size);
+        Window<User> window = userRepository.findAllBy(KeysetCursor.decode(after, sort), sort, limit);
+        return new CursorPage<>(window.getContent(), limit.max(), KeysetCursor.encode(window, sort), window.hasNext());
+    }
+
     @Override
     public Page<User> searchUsersByFullNameOrEmail(String keyword, Pageable pageable) {
         return userRepository.searchByFullNameOrEmail(keyword, pageable);
@@ -76,7 +99,9 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public User createUser(User user) {
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        eventPublisher.publishEvent(new UserChangedEvent(saved.getId()));
+        return saved;
     }
 
     @Override
@@ -85,6 +110,7 @@ public class UserServiceImpl implements UserService {
             return false;
         }
         userRepository.deleteById(id);
+        eventPublisher.publishEvent(new UserChangedEvent(id));
         return true;
     }
 
@@ -116,7 +142,10 @@ public class UserServiceImpl implements UserService {
                     }
                     if (newUser.getGender() != null) user.setGender(newUser.getGender());
                     if (newUser.getAddress() != null) user.setAddress(newUser.getAddress());
-                    return userRepository.save(user);
+                    User saved = userRepository.save(user);
+                    // Đổi trạng thái làm thay đổi số user đang hoạt động
+                    eventPublisher.publishEvent(new UserChangedEvent(saved.getId()));
+                    return saved;
                 })
                 .orElseThrow(() -> new RuntimeException("User not found"));
     }
@@ -143,7 +172,8 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
-    @Cacheable(cacheNames = "stats:users:monthly", key = "'fixed'")
+    @Cacheable(cacheNames = StatsCacheKeys.USERS_MONTHLY,
+            key = "T(com.example.StyleStore.service.StatsCacheKeys).currentMonth()", sync = true)
     public List<MonthlyUserDto> getRecent12MonthsUserRegistrations() {
         YearMonth now = YearMonth.now();
         YearMonth start = now.minusMonths(11);
@@ -167,7 +197,8 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
-    @Cacheable(cacheNames = "stats:users:activeCount", key = "'fixed'")
+    @Cacheable(cacheNames = StatsCacheKeys.USERS_ACTIVE_COUNT, key = "T(com.example.StyleStore.service.StatsCacheKeys).TOTAL",
+            sync = true)
     public long getTotalActiveUserCount() {
         return userRepository.countActiveUsers();
     }
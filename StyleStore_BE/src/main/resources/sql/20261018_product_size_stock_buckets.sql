@@ -0,0 +1,11 @@
+-- Striped stock: split a hot SKU's stock into N rows so concurrent checkouts don't queue on one row lock.
+-- product_sizes.stock stays as bucket 0, buckets 1..N-1 live here.
+CREATE TABLE product_size_stock_buckets (
+    id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    product_size_id BIGINT NOT NULL,
+    bucket_index INT NOT NULL,
+    stock INT NOT NULL,
+    CONSTRAINT uk_stock_bucket_product_size_index UNIQUE (product_size_id, bucket_index),
+    CONSTRAINT fk_stock_bucket_product_size
+        FOREIGN KEY (product_size_id) REFERENCES product_sizes(id) ON DELETE CASCADE
+);
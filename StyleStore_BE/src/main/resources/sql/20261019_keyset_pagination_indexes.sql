@@ -0,0 +1,11 @@
+-- Keyset pagination: each cursor sort (sortKey, id) needs a matching composite index
+-- so "WHERE (sortKey, id) < (?, ?) ORDER BY sortKey, id LIMIT n" is a range scan instead of OFFSET + COUNT(*).
+CREATE INDEX idx_products_status_created_id ON products (status, created_at, id);
+CREATE INDEX idx_products_status_price_id ON products (status, price, id);
+CREATE INDEX idx_products_status_name_id ON products (status, name, id);
+
+CREATE INDEX idx_orders_created_id ON orders (created_at, id);
+CREATE INDEX idx_orders_final_amount_id ON orders (final_amount, id);
+
+CREATE INDEX idx_users_created_id ON users (created_at, id);
+CREATE INDEX idx_users_full_name_id ON users (full_name, id);
@@ -0,0 +1,37 @@
+-- Best-seller counters maintained in the order transaction (create / deliver / cancel),
+-- so storefront top-N lists no longer GROUP BY over the whole order_items table.
+-- units_sold counts every non-cancelled order, units_delivered only DELIVERED ones.
+CREATE TABLE product_sales (
+    product_id BIGINT NOT NULL PRIMARY KEY,
+    units_sold BIGINT NOT NULL DEFAULT 0,
+    units_delivered BIGINT NOT NULL DEFAULT 0
+);
+
+-- Same counters per product and order creation date
+CREATE TABLE product_sales_daily (
+    id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    product_id BIGINT NOT NULL,
+    sale_date DATE NOT NULL,
+    units_sold BIGINT NOT NULL DEFAULT 0,
+    units_delivered BIGINT NOT NULL DEFAULT 0,
+    CONSTRAINT uk_product_sales_daily_product_date UNIQUE (product_id, sale_date),
+    INDEX idx_product_sales_daily_date (sale_date)
+);
+
+-- Backfill from existing order history
+INSERT INTO product_sales (product_id, units_sold, units_delivered)
+SELECT oi.product_id,
+       SUM(CASE WHEN o.status <> 'CANCELLED' THEN oi.quantity ELSE 0 END),
+       SUM(CASE WHEN o.status = 'DELIVERED' THEN oi.quantity ELSE 0 END)
+FROM order_items oi
+JOIN orders o ON o.id = oi.order_id
+GROUP BY oi.product_id;
+
+INSERT INTO product_sales_daily (product_id, sale_date, units_sold, units_delivered)
+SELECT oi.product_id,
+       DATE(o.created_at),
+       SUM(CASE WHEN o.status <> 'CANCELLED' THEN oi.quantity ELSE 0 END),
+       SUM(CASE WHEN o.status = 'DELIVERED' THEN oi.quantity ELSE 0 END)
+FROM order_items oi
+JOIN orders o ON o.id = oi.order_id
+GROUP BY oi.product_id, DATE(o.created_at);
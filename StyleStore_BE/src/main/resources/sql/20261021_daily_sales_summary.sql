@@ -0,0 +1,18 @@
+-- Daily revenue rollup for the admin revenue stats: one row per order creation date,
+-- covering DELIVERED orders only (revenue = SUM(total_amount), same as the old reports).
+-- Units per product per day come from product_sales_daily.units_delivered.
+CREATE TABLE daily_sales_summary (
+    sale_date DATE NOT NULL PRIMARY KEY,
+    revenue DECIMAL(15, 2) NOT NULL DEFAULT 0,
+    order_count BIGINT NOT NULL DEFAULT 0
+);
+
+-- Used by the nightly reconciliation / manual rebuild (WHERE status = ? AND created_at in range)
+CREATE INDEX idx_orders_status_created ON orders (status, created_at);
+
+-- Backfill from existing order history
+INSERT INTO daily_sales_summary (sale_date, revenue, order_count)
+SELECT DATE(o.created_at), SUM(o.total_amount), COUNT(*)
+FROM orders o
+WHERE o.status = 'DELIVERED'
+GROUP BY DATE(o.created_at);
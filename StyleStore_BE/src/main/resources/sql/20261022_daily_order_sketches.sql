@@ -0,0 +1,12 @@
+-- Approximate per-day order analytics: HyperLogLog of distinct buyers (all created orders /
+-- delivered orders) and a t-digest of final_amount for delivered orders, keyed by order
+-- creation date. Sketches are binary and built by the application, so there is no SQL backfill:
+-- call POST /api/admin/stats/order-sketches/rebuild?from=...&to=... after deploying.
+CREATE TABLE daily_order_sketches (
+    sale_date DATE NOT NULL PRIMARY KEY,
+    order_count BIGINT NOT NULL DEFAULT 0,
+    delivered_count BIGINT NOT NULL DEFAULT 0,
+    buyers_hll MEDIUMBLOB NULL,
+    delivered_buyers_hll MEDIUMBLOB NULL,
+    order_value_digest MEDIUMBLOB NULL
+);
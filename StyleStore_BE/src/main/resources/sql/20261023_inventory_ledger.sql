@@ -0,0 +1,31 @@
+-- Append-only inventory ledger. Every stock change (order, cancel, import, admin adjust) inserts
+-- signed rows here in the same transaction that updates product_sizes.stock.
+CREATE TABLE inventory_movements (
+    id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    product_id BIGINT NOT NULL,
+    size_id BIGINT NOT NULL,
+    quantity INT NOT NULL,
+    type VARCHAR(20) NOT NULL,
+    reference_id BIGINT NULL,
+    created_at DATETIME(6) NOT NULL,
+    INDEX idx_inventory_movements_sku_created (product_id, size_id, created_at),
+    INDEX idx_inventory_movements_created (created_at)
+);
+
+-- Periodic compaction: stock per SKU including every movement with created_at < as_of
+CREATE TABLE inventory_snapshots (
+    id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    product_id BIGINT NOT NULL,
+    size_id BIGINT NOT NULL,
+    stock BIGINT NOT NULL,
+    as_of DATETIME(6) NOT NULL,
+    CONSTRAINT uk_inventory_snapshots_sku_as_of UNIQUE (product_id, size_id, as_of),
+    INDEX idx_inventory_snapshots_as_of (as_of)
+);
+
+-- Opening balance: current stock (row + stripes) becomes the first snapshot
+INSERT INTO inventory_snapshots (product_id, size_id, stock, as_of)
+SELECT ps.product_id, ps.size_id,
+       ps.stock + COALESCE((SELECT SUM(b.stock) FROM product_size_stock_buckets b WHERE b.product_size_id = ps.id), 0),
+       NOW(6)
+FROM product_sizes ps;
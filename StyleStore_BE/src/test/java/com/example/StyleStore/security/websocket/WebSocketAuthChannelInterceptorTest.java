@@ -0,0 +1,88 @@
+package com.example.StyleStore.security.websocket;
+
+import com.example.StyleStore.service.JwtService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * ✅ Test: Chỉ ADMIN được SUBSCRIBE các topic /topic/admin/... (không cần Spring / DB)
+ */
+public class WebSocketAuthChannelInterceptorTest {
+
+    private WebSocketAuthChannelInterceptor interceptor;
+    private MessageChannel channel;
+
+    @BeforeEach
+    public void setUp() {
+        interceptor = new WebSocketAuthChannelInterceptor(mock(JwtService.class), mock(UserDetailsService.class));
+        channel = mock(MessageChannel.class);
+    }
+
+    private static UsernamePasswordAuthenticationToken user(String role) {
+        return new UsernamePasswordAuthenticationToken("user@example.com", null,
+                List.of(new SimpleGrantedAuthority(role)));
+    }
+
+    private static Message<byte[]> subscribe(String destination, UsernamePasswordAuthenticationToken user,
+            Map<String, Object> sessionAttributes) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+        accessor.setDestination(destination);
+        accessor.setSubscriptionId("sub-0");
+        accessor.setSessionId("session-1");
+        accessor.setSessionAttributes(sessionAttributes);
+        if (user != null) {
+            accessor.setUser(user);
+        }
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    /**
+     * ✅ TEST: User thường / chưa đăng nhập SUBSCRIBE topic admin
+     *
+     * Kỳ vọng:
+     * - Cả 2 trường hợp đều bị từ chối bằng AccessDeniedException
+     */
+    @Test
+    public void testSubscribeAdminTopic_NonAdminRejected() {
+        assertThrows(AccessDeniedException.class, () -> interceptor.preSend(
+                subscribe("/topic/admin/orders", user("ROLE_USER"), new HashMap<>()), channel));
+        assertThrows(AccessDeniedException.class, () -> interceptor.preSend(
+                subscribe("/topic/admin/stats", null, new HashMap<>()), channel));
+    }
+
+    /**
+     * ✅ TEST: ADMIN SUBSCRIBE topic admin, user thường SUBSCRIBE topic khác
+     *
+     * Kỳ vọng:
+     * - ADMIN được đăng ký, kể cả khi user chỉ được khôi phục từ session (frame sau CONNECT)
+     * - Topic ngoài /topic/admin/ không bị chặn
+     */
+    @Test
+    public void testSubscribe_AdminAndPublicTopicsAllowed() {
+        assertNotNull(interceptor.preSend(
+                subscribe("/topic/admin/orders", user("ROLE_ADMIN"), new HashMap<>()), channel));
+
+        Map<String, Object> session = new HashMap<>();
+        session.put("simpUser", user("ROLE_ADMIN"));
+        assertNotNull(interceptor.preSend(subscribe("/topic/admin/stats", null, session), channel));
+
+        assertNotNull(interceptor.preSend(
+                subscribe("/topic/messages/1", user("ROLE_USER"), new HashMap<>()), channel));
+    }
+}
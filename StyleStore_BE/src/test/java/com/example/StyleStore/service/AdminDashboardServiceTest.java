@@ -0,0 +1,187 @@
+package com.example.StyleStore.service;
+
+import com.example.StyleStore.dto.response.stats.AdminDashboardResponse;
+import com.example.StyleStore.service.impl.AdminDashboardServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * ✅ Test: Dashboard admin gom các phần thống kê chạy song song
+ */
+public class AdminDashboardServiceTest extends OrderTestBase {
+
+    @Autowired private AdminDashboardService adminDashboardService;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    private OrderService stubOrderService;
+    private UserService stubUserService;
+    private ProductService stubProductService;
+    private ExecutorService sectionExecutor;
+
+    @BeforeEach
+    public void setUpStubs() {
+        stubOrderService = mock(OrderService.class);
+        stubUserService = mock(UserService.class);
+        stubProductService = mock(ProductService.class);
+        when(stubUserService.getTotalActiveUserCount()).thenReturn(3L);
+        when(stubProductService.getTotalProductCount()).thenReturn(1L);
+        when(stubProductService.getTotalStock()).thenReturn(5L);
+        sectionExecutor = Executors.newFixedThreadPool(8);
+    }
+
+    @AfterEach
+    public void shutdownExecutor() {
+        sectionExecutor.shutdownNow();
+    }
+
+    // Dashboard trên các service giả, cùng executor / transaction manager truyền vào
+    private AdminDashboardService dashboard(long sectionTimeoutMs, Executor executor,
+            PlatformTransactionManager manager) {
+        AdminDashboardServiceImpl service = new AdminDashboardServiceImpl(stubOrderService, stubUserService,
+                stubProductService, executor, manager);
+        ReflectionTestUtils.setField(service, "sectionTimeoutMs", sectionTimeoutMs);
+        return service;
+    }
+
+    /**
+     * ✅ TEST: Dashboard admin gom đủ các phần trong 1 lần gọi
+     *
+     * Kỳ vọng:
+     * - Mọi phần đều có dữ liệu, không phần nào bị đánh dấu thiếu
+     * - Số liệu khớp với API riêng lẻ (1 sản phẩm, tồn kho 5)
+     */
+    @Test
+    public void testAdminDashboard_AllSections() {
+        var dashboard = adminDashboardService.getDashboard();
+
+        assertTrue(dashboard.getUnavailableSections().isEmpty(), "Không phần nào được thiếu");
+        assertEquals(12, dashboard.getMonthlyRevenue().size());
+        assertNotNull(dashboard.getRevenueGrowth());
+        assertEquals(12, dashboard.getMonthlyUserRegistrations().size());
+        assertNotNull(dashboard.getActiveUserCount());
+        assertNotNull(dashboard.getProductCount());
+        assertEquals(5L, dashboard.getTotalStock());
+        assertEquals(1, dashboard.getStockByCategory().size());
+        assertNotNull(dashboard.getBestSellingProductsInCategories());
+    }
+
+    /**
+     * ✅ TEST: 1 phần bị treo, 1 phần lỗi
+     *
+     * Kịch bản:
+     * - section-timeout-ms = 300
+     * - stockByCategory treo tới khi test thả ra, revenueGrowth throw exception
+     *
+     * Kỳ vọng:
+     * - Trả về ngay sau hạn chót, không chờ phần bị treo
+     * - unavailableSections = đúng 2 phần đó, các phần còn lại vẫn có dữ liệu
+     * - Mỗi phần chạy trong transaction chỉ đọc
+     */
+    @Test
+    public void testAdminDashboard_StalledAndFailingSectionsMarkedUnavailable() {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger readOnlySections = new AtomicInteger();
+        when(stubProductService.getStockByCategory()).thenAnswer(invocation -> {
+            release.await(10, TimeUnit.SECONDS);
+            return List.of();
+        });
+        when(stubOrderService.getRevenueGrowth()).thenThrow(new RuntimeException("DB lỗi"));
+        when(stubProductService.getTotalStock()).thenAnswer(invocation -> {
+            if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+                readOnlySections.incrementAndGet();
+            }
+            return 5L;
+        });
+
+        long start = System.nanoTime();
+        AdminDashboardResponse response = dashboard(300, sectionExecutor, transactionManager).getDashboard();
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        release.countDown();
+
+        assertTrue(elapsedMs < 2000, "Không chờ phần bị treo, mất " + elapsedMs + "ms");
+        assertEquals(List.of("revenueGrowth", "stockByCategory"), response.getUnavailableSections());
+        assertNull(response.getRevenueGrowth());
+        assertNull(response.getStockByCategory());
+        assertEquals(5L, response.getTotalStock());
+        assertEquals(1L, response.getProductCount());
+        assertEquals(3L, response.getActiveUserCount());
+        assertNotNull(response.getMonthlyRevenue());
+        assertEquals(1, readOnlySections.get(), "Phần chạy trong transaction chỉ đọc");
+    }
+
+    /**
+     * ✅ TEST: Transaction của mỗi phần bị giới hạn theo thời gian còn lại
+     *
+     * Kịch bản:
+     * - section-timeout-ms = 2500, transaction manager giả ghi lại định nghĩa transaction
+     *
+     * Kỳ vọng:
+     * - 8 phần, mỗi phần 1 transaction chỉ đọc, timeout làm tròn lên theo giây (tối đa 3s, tối thiểu 1s)
+     */
+    @Test
+    public void testAdminDashboard_SectionTransactionsBoundedByDeadline() {
+        PlatformTransactionManager recordingManager = mock(PlatformTransactionManager.class);
+        when(recordingManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+        AdminDashboardResponse response = dashboard(2500, sectionExecutor, recordingManager).getDashboard();
+
+        assertTrue(response.getUnavailableSections().isEmpty());
+        ArgumentCaptor<TransactionDefinition> definitions = ArgumentCaptor.forClass(TransactionDefinition.class);
+        verify(recordingManager, times(8)).getTransaction(definitions.capture());
+        for (TransactionDefinition definition : definitions.getAllValues()) {
+            assertTrue(definition.isReadOnly());
+            assertTrue(definition.getTimeout() >= 1 && definition.getTimeout() <= 3,
+                    "Timeout = thời gian còn lại làm tròn lên: " + definition.getTimeout());
+        }
+    }
+
+    /**
+     * ✅ TEST: Executor đầy từ chối nhận thêm phần
+     *
+     * Kịch bản:
+     * - Executor nhận 6 phần đầu, từ chối 2 phần cuối (RejectedExecutionException)
+     *
+     * Kỳ vọng:
+     * - Không throw ra ngoài, 2 phần bị từ chối nằm trong unavailableSections
+     * - 6 phần còn lại vẫn có dữ liệu
+     */
+    @Test
+    public void testAdminDashboard_RejectedSectionsMarkedUnavailable() {
+        AtomicInteger submitted = new AtomicInteger();
+        Executor saturated = task -> {
+            if (submitted.incrementAndGet() > 6) {
+                throw new RejectedExecutionException("Hàng đợi dashboard đầy");
+            }
+            sectionExecutor.execute(task);
+        };
+
+        AdminDashboardResponse response = dashboard(1000, saturated, transactionManager).getDashboard();
+
+        assertEquals(List.of("stockByCategory", "bestSellingProductsInCategories"),
+                response.getUnavailableSections());
+        assertEquals(5L, response.getTotalStock());
+        assertEquals(1L, response.getProductCount());
+        assertEquals(3L, response.getActiveUserCount());
+    }
+}
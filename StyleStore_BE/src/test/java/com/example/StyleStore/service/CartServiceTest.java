@@ -0,0 +1,192 @@
+package com.example.StyleStore.service;
+
+import com.example.StyleStore.dto.request.CartBatchRequest;
+import com.example.StyleStore.dto.request.CartBatchRequest.Action;
+import com.example.StyleStore.dto.request.CartBatchRequest.Operation;
+import com.example.StyleStore.dto.response.CartResponse;
+import com.example.StyleStore.model.*;
+import com.example.StyleStore.model.enums.ProductStatus;
+import com.example.StyleStore.repository.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ✅ Test: Giỏ hàng (cart store mặc định trên MySQL)
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+public class CartServiceTest {
+
+    @Autowired private CartService cartService;
+    @Autowired private CartRepository cartRepository;
+    @Autowired private ProductRepository productRepository;
+    @Autowired private ProductSizeRepository productSizeRepository;
+    @Autowired private SizeRepository sizeRepository;
+    @Autowired private CategoryRepository categoryRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private RoleRepository roleRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    private Role role;
+    private Category category;
+    private Size size;
+
+    @BeforeEach
+    public void setUp() {
+        jdbcTemplate.execute("SET REFERENTIAL_INTEGRITY FALSE");
+        try {
+            jdbcTemplate.execute("TRUNCATE TABLE cart_items");
+            jdbcTemplate.execute("TRUNCATE TABLE carts");
+            jdbcTemplate.execute("TRUNCATE TABLE product_size_stock_buckets");
+            jdbcTemplate.execute("TRUNCATE TABLE product_sizes");
+            jdbcTemplate.execute("TRUNCATE TABLE products");
+            jdbcTemplate.execute("TRUNCATE TABLE categories");
+            jdbcTemplate.execute("TRUNCATE TABLE sizes");
+            jdbcTemplate.execute("TRUNCATE TABLE users");
+            jdbcTemplate.execute("TRUNCATE TABLE roles");
+        } finally {
+            jdbcTemplate.execute("SET REFERENTIAL_INTEGRITY TRUE");
+        }
+
+        role = roleRepository.save(Role.builder().name("CUSTOMER").build());
+        category = categoryRepository.save(Category.builder().name("Giỏ").status("ACTIVE").build());
+        size = sizeRepository.save(Size.builder().name("M").build());
+    }
+
+    private User createUserWithCart(String email) {
+        User user = userRepository.save(User.builder()
+                .fullName("User Cart")
+                .email(email)
+                .password("password")
+                .phoneNumber("0123456789")
+                .role(role)
+                .build());
+        cartRepository.save(Cart.builder().user(user).build());
+        return user;
+    }
+
+    private Product createProduct(String name, double price, int stock) {
+        Product product = productRepository.save(Product.builder()
+                .name(name)
+                .price(price)
+                .gender("UNISEX")
+                .color("Black")
+                .thumbnail(name + ".jpg")
+                .status(ProductStatus.ACTIVE)
+                .category(category)
+                .build());
+        productSizeRepository.save(ProductSize.builder().product(product).size(size).stock(stock).build());
+        return product;
+    }
+
+    /**
+     * ✅ TEST: Trang giỏ hàng đọc trong 1 query, tổng tiền và cảnh báo tính ở server
+     *
+     * Kịch bản:
+     * - Giỏ có A (100đ) x2 và B (200đ) x1
+     * - Sau đó B tăng giá lên 250đ và hết hàng
+     *
+     * Kỳ vọng:
+     * - Tổng = 2*100 + 1*250 = 450 (theo giá hiện tại), 3 sản phẩm
+     * - B có cờ đổi giá + cảnh báo tồn kho, A thì không
+     * - Đọc giỏ = 1 câu SQL; đếm số dòng = 2
+     * - Giỏ rỗng vẫn trả về id giỏ và danh sách trống
+     */
+    @Test
+    public void testCartView_SingleQueryWithTotalsAndWarnings() {
+        User user = createUserWithCart("cartView@test.com");
+        Product a = createProduct("Cart A", 100.0, 5);
+        Product b = createProduct("Cart B", 200.0, 1);
+        cartService.addToCart(user.getId(), a.getId(), size.getId(), 2);
+        cartService.addToCart(user.getId(), b.getId(), size.getId(), 1);
+        jdbcTemplate.update("UPDATE products SET price = 250 WHERE id = ?", b.getId());
+        jdbcTemplate.update("UPDATE product_sizes SET stock = 0 WHERE product_id = ?", b.getId());
+
+        SqlStatementCounter.reset();
+        CartResponse cart = cartService.getCartView(user.getId());
+        assertEquals(1, SqlStatementCounter.count());
+
+        assertEquals(2, cart.getCartItems().size());
+        assertEquals(3, cart.getTotalQuantity());
+        assertEquals(450.0, cart.getTotalPrice());
+        assertTrue(cart.isHasStockWarning());
+        assertTrue(cart.isHasPriceChange());
+
+        CartResponse.CartItemResponse itemA = cart.getCartItems().get(0);
+        assertEquals("Cart A", itemA.getProduct().getName());
+        assertEquals("M", itemA.getSize().getName());
+        assertEquals(5, itemA.getAvailableStock());
+        assertFalse(itemA.isStockWarning());
+        assertFalse(itemA.isPriceChanged());
+
+        CartResponse.CartItemResponse itemB = cart.getCartItems().get(1);
+        assertEquals(200.0, itemB.getPrice());
+        assertEquals(250.0, itemB.getProduct().getPrice());
+        assertEquals(250.0, itemB.getSubtotal());
+        assertTrue(itemB.isStockWarning());
+        assertTrue(itemB.isPriceChanged());
+
+        assertEquals(2, cartService.countItems(user.getId()));
+
+        User empty = createUserWithCart("cartEmpty@test.com");
+        CartResponse emptyCart = cartService.getCartView(empty.getId());
+        assertNotNull(emptyCart.getId());
+        assertTrue(emptyCart.getCartItems().isEmpty());
+        assertEquals(0.0, emptyCart.getTotalPrice());
+        assertEquals(0, cartService.countItems(empty.getId()));
+    }
+
+    /**
+     * ✅ TEST: Thêm / sửa / xóa nhiều dòng trong 1 request, tất cả hoặc không
+     *
+     * Kịch bản:
+     * - Giỏ có A x1, B x1
+     * - Lô 1: thêm C x2, sửa A thành 3, xóa B
+     * - Lô 2: xóa C rồi thêm A thêm 10 cái (vượt tồn kho 5)
+     *
+     * Kỳ vọng:
+     * - Sau lô 1 giỏ còn A x3, C x2; tồn kho cả lô kiểm tra bằng 1 query product_sizes
+     * - Lô 2 bị từ chối và không có thay đổi nào được ghi (C vẫn còn)
+     */
+    @Test
+    public void testApplyBatch_AllOrNothing() {
+        User user = createUserWithCart("cartBatch@test.com");
+        Product a = createProduct("Batch A", 100.0, 5);
+        Product b = createProduct("Batch B", 200.0, 5);
+        Product c = createProduct("Batch C", 300.0, 5);
+        Long aItemId = cartService.addToCart(user.getId(), a.getId(), size.getId(), 1).getId();
+        Long bItemId = cartService.addToCart(user.getId(), b.getId(), size.getId(), 1).getId();
+
+        SqlStatementCounter.reset();
+        CartResponse cart = cartService.applyBatch(user.getId(), new CartBatchRequest(List.of(
+                Operation.builder().action(Action.ADD).productId(c.getId()).sizeId(size.getId()).quantity(2).build(),
+                Operation.builder().action(Action.UPDATE).cartItemId(aItemId).quantity(3).build(),
+                Operation.builder().action(Action.REMOVE).cartItemId(bItemId).build())));
+        // giỏ, dòng hàng, product_sizes, DELETE, INSERT, UPDATE, đọc lại giỏ
+        assertEquals(7, SqlStatementCounter.count());
+
+        assertEquals(2, cart.getCartItems().size());
+        assertEquals(5, cart.getTotalQuantity());
+        assertEquals(3 * 100.0 + 2 * 300.0, cart.getTotalPrice());
+        assertEquals(3, cart.getCartItems().get(0).getQuantity());
+        assertEquals("Batch C", cart.getCartItems().get(1).getProduct().getName());
+        Long cItemId = cart.getCartItems().get(1).getId();
+
+        RuntimeException ex = assertThrows(RuntimeException.class, () -> cartService.applyBatch(user.getId(),
+                new CartBatchRequest(List.of(
+                        Operation.builder().action(Action.REMOVE).cartItemId(cItemId).build(),
+                        Operation.builder().action(Action.ADD).productId(a.getId()).sizeId(size.getId())
+                                .quantity(10).build()))));
+        assertTrue(ex.getMessage().contains("chỉ còn 5"));
+        assertEquals(2, cartService.countItems(user.getId()));
+        assertEquals(5, cartService.getCartView(user.getId()).getTotalQuantity());
+    }
+}
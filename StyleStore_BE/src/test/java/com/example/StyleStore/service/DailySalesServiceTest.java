@@ -0,0 +1,100 @@
+package com.example.StyleStore.service;
+
+import com.example.StyleStore.dto.response.OrderResponse;
+import com.example.StyleStore.model.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ✅ Test: Doanh thu đọc từ bảng tổng hợp theo ngày (daily_sales_summary) và cache thống kê doanh thu
+ */
+public class DailySalesServiceTest extends OrderTestBase {
+
+    @Autowired private DailySalesService dailySalesService;
+    @Autowired private CacheManager cacheManager;
+
+    /**
+     * ✅ TEST: Doanh thu đọc từ bảng tổng hợp theo ngày
+     *
+     * Kịch bản:
+     * - 1 đơn mua 3 cái (100/cái) được giao, 1 đơn khác chỉ mới tạo
+     * - Xóa bảng tổng hợp rồi tính lại từ lịch sử đơn hàng
+     *
+     * Kỳ vọng:
+     * - Doanh thu ngày/tháng/năm = 300, chỉ tính đơn đã giao
+     * - Tính lại cho kết quả giống hệt bản cập nhật tăng dần
+     */
+    @Test
+    public void testDailySales_RevenueFromRollup() {
+        User user = userRepository.save(User.builder()
+                .fullName("User Revenue")
+                .email("userRevenue@test.com")
+                .password("password")
+                .phoneNumber("0123456789")
+                .role(role)
+                .build());
+
+        OrderResponse delivered = placeOrder(user, 3);
+        placeOrder(user, 1);
+        orderService.confirmOrder(delivered.getId());
+        orderService.deliveredOrder(delivered.getId());
+
+        LocalDate today = LocalDate.now();
+        assertRevenue(today, 300);
+
+        jdbcTemplate.execute("TRUNCATE TABLE daily_sales_summary");
+        assertEquals(0, orderService.getRevenueByDate(today).getRevenue().compareTo(BigDecimal.ZERO));
+
+        assertEquals(1, dailySalesService.rebuild(today, today));
+        assertRevenue(today, 300);
+    }
+
+    private void assertRevenue(LocalDate day, long expected) {
+        var byDate = orderService.getRevenueByDate(day);
+        assertEquals(0, byDate.getRevenue().compareTo(BigDecimal.valueOf(expected)), "Doanh thu theo ngày");
+        assertEquals(1, byDate.getSoldProducts().size());
+        assertEquals(3L, byDate.getSoldProducts().get(0).getQuantitySold());
+        assertEquals(0, orderService.getRevenueByMonth(day.getYear(), day.getMonthValue()).getRevenue()
+                .compareTo(BigDecimal.valueOf(expected)), "Doanh thu theo tháng");
+        assertEquals(0, orderService.getRevenueByYear(day.getYear()).getRevenue()
+                .compareTo(BigDecimal.valueOf(expected)), "Doanh thu theo năm");
+    }
+
+    /**
+     * ✅ TEST: Cache doanh thu 12 tháng được xóa khi đơn được giao
+     *
+     * Kịch bản:
+     * - Đọc doanh thu 12 tháng (được cache), sau đó giao 1 đơn 200
+     *
+     * Kỳ vọng:
+     * - Lần đọc sau thấy ngay doanh thu mới của tháng hiện tại, không phải chờ hết TTL
+     */
+    @Test
+    public void testStatsCache_EvictedOnDelivery() {
+        cacheManager.getCache(StatsCacheKeys.REVENUE_MONTHLY).clear();
+        User user = userRepository.save(User.builder()
+                .fullName("User Stats")
+                .email("userStats@test.com")
+                .password("password")
+                .phoneNumber("0123456789")
+                .role(role)
+                .build());
+        OrderResponse order = placeOrder(user, 2);
+
+        var before = orderService.getRecent12MonthsRevenue();
+        assertEquals(0, before.get(11).getRevenue().compareTo(BigDecimal.ZERO));
+
+        orderService.confirmOrder(order.getId());
+        orderService.deliveredOrder(order.getId());
+
+        var after = orderService.getRecent12MonthsRevenue();
+        assertEquals(0, after.get(11).getRevenue().compareTo(BigDecimal.valueOf(200)),
+                "Doanh thu tháng hiện tại phải được tính lại sau khi giao đơn");
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.StyleStore.service;
+
+import com.example.StyleStore.dto.request.UserOrderRequest;
+import com.example.StyleStore.dto.response.OrderResponse;
+import com.example.StyleStore.model.User;
+import com.example.StyleStore.model.enums.InventoryMovementType;
+import com.example.StyleStore.model.enums.PaymentMethod;
+import com.example.StyleStore.repository.InventoryMovementRepositoryCustom.Movement;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ✅ Test: Sổ kho append-only và tra tồn kho theo thời điểm
+ */
+public class InventoryLedgerServiceTest extends OrderTestBase {
+
+    @Autowired private InventoryLedgerService inventoryLedgerService;
+
+    /**
+     * ✅ TEST: Sổ kho ghi mỗi lần tạo/hủy đơn, tra được tồn kho tại thời điểm bất kỳ
+     *
+     * Kỳ vọng:
+     * - Tồn đầu 5, đặt 2 → tại thời điểm giữa hai thao tác tồn kho là 3
+     * - Hủy đơn → sổ có ORDER -2 và CANCEL +2, tồn kho hiện tại trở lại 5
+     * - Gộp snapshot không làm đổi kết quả tra cứu
+     */
+    @Test
+    public void testInventoryLedger_StockAsOf() throws InterruptedException {
+        // Tồn đầu kỳ giống snapshot mở sổ khi migrate
+        inventoryLedgerService.record(InventoryMovementType.ADJUST, null,
+                List.of(new Movement(product.getId(), size.getId(), 5)));
+        User user = userRepository.save(User.builder()
+                .fullName("User Ledger")
+                .email("userLedger@test.com")
+                .password("password")
+                .phoneNumber("0123456789")
+                .role(role)
+                .build());
+
+        OrderResponse order = orderService.createOrder(user, UserOrderRequest.builder()
+                .orderItems(List.of(new UserOrderRequest.OrderItemRequest(product.getId(), size.getId(), 2)))
+                .shippingAddress("Address Ledger")
+                .receiverPhoneNumber("0111222341")
+                .paymentMethod(PaymentMethod.COD)
+                .build());
+        Thread.sleep(5);
+        LocalDateTime afterOrder = LocalDateTime.now();
+        Thread.sleep(5);
+        orderService.cancelOrder(order.getId());
+
+        var movements = inventoryLedgerService.getMovements(product.getId(), size.getId(), 0, 10).getContent();
+        assertEquals(3, movements.size());
+        assertEquals("CANCEL", movements.get(0).getType());
+        assertEquals(2, movements.get(0).getQuantity());
+        assertEquals("ORDER", movements.get(1).getType());
+        assertEquals(-2, movements.get(1).getQuantity());
+        assertEquals(order.getId(), movements.get(1).getReferenceId());
+
+        assertEquals(3L, inventoryLedgerService.getStockAsOf(product.getId(), size.getId(), afterOrder).getStock());
+        assertEquals(5L, inventoryLedgerService.getStockAsOf(product.getId(), size.getId(), null).getStock());
+
+        assertEquals(1, inventoryLedgerService.compactSnapshots());
+        var current = inventoryLedgerService.getStockAsOf(product.getId(), size.getId(), null);
+        assertNotNull(current.getSnapshotAt());
+        assertEquals(5L, current.getSnapshotStock());
+        assertEquals(5L, current.getStock());
+        assertEquals(3L, inventoryLedgerService.getStockAsOf(product.getId(), size.getId(), afterOrder).getStock());
+    }
+}
@@ -3,16 +3,9 @@ package com.example.StyleStore.service;
 import com.example.StyleStore.dto.request.UserOrderRequest;
 import com.example.StyleStore.dto.response.OrderResponse;
 import com.example.StyleStore.model.*;
-import com.example.StyleStore.model.enums.OrderStatus;
 import com.example.StyleStore.model.enums.PaymentMethod;
-import com.example.StyleStore.model.enums.ProductStatus;
-import com.example.StyleStore.repository.*;
-import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.test.context.SpringBootTest;
-import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.test.context.ActiveProfiles;
 
 import java.util.*;
 import java.util.concurrent.*;
@@ -25,75 +18,9 @@ import static org.junit.jupiter.api.Assertions.*;
  * Kiểm chứng rằng cơ chế UPDATE WHERE ngăn chặn hiện tượng overselling
  * khi nhiều user mua cùng sản phẩm đồng thời
  */
-@SpringBootTest
-@ActiveProfiles("test")
-public class OrderConcurrencyTest {
-
-    @Autowired private OrderService orderService;
-    @Autowired private OrderRepository orderRepository;
-    @Autowired private ProductRepository productRepository;
-    @Autowired private ProductSizeRepository productSizeRepository;
-    @Autowired private SizeRepository sizeRepository;
-    @Autowired private CategoryRepository categoryRepository;
-    @Autowired private UserRepository userRepository;
-    @Autowired private RoleRepository roleRepository;
-    @Autowired private JdbcTemplate jdbcTemplate;
-
-    private Category category;
-    private Size size;
-    private Product product;
-    private ProductSize productSize;
-    private Role role;
-
-    @BeforeEach
-    public void setUp() {
-        // ✅ Xóa dữ liệu cũ bằng cú pháp tương thích H2
-        jdbcTemplate.execute("SET REFERENTIAL_INTEGRITY FALSE");
-        try {
-            jdbcTemplate.execute("TRUNCATE TABLE comments");
-            jdbcTemplate.execute("TRUNCATE TABLE order_items");
-            jdbcTemplate.execute("TRUNCATE TABLE orders");
-            jdbcTemplate.execute("TRUNCATE TABLE product_sizes");
-            jdbcTemplate.execute("TRUNCATE TABLE products");
-            jdbcTemplate.execute("TRUNCATE TABLE categories");
-            jdbcTemplate.execute("TRUNCATE TABLE sizes");
-            jdbcTemplate.execute("TRUNCATE TABLE users");
-            jdbcTemplate.execute("TRUNCATE TABLE roles");
-        } finally {
-            jdbcTemplate.execute("SET REFERENTIAL_INTEGRITY TRUE");
-        }
-
-        // ✅ Tạo role
-        role = roleRepository.save(Role.builder()
-                .name("CUSTOMER")
-                .build());
-
-        // ✅ Tạo dữ liệu test
-        category = categoryRepository.save(Category.builder()
-                .name("Test Category")
-                .status("ACTIVE")
-                .build());
-
-        size = sizeRepository.save(Size.builder()
-                .name("M")
-                .build());
+public class OrderConcurrencyTest extends OrderTestBase {
 
-        product = productRepository.save(Product.builder()
-                .name("Test Product")
-                .price(100.0)
-                .gender("UNISEX")
-                .color("Black")
-                .thumbnail("test.jpg")
-                .status(ProductStatus.ACTIVE)
-                .category(category)
-                .build());
-
-        productSize = productSizeRepository.save(ProductSize.builder()
-                .product(product)
-                .size(size)
-                .stock(5)  // ✅ Tồn kho = 5
-                .build());
-    }
+    @Autowired protected StockBucketService stockBucketService;
 
     /**
      * ✅ TEST: 2 user mua cùng lúc, stock đúng đủ cho 1 người
@@ -204,7 +131,7 @@ public class OrderConcurrencyTest {
         System.out.println("Mua thành công: " + success.size());
         System.out.println("Mua thất bại: " + failed.size());
 
-        ProductSize finalStock = productSizeRepository.findById(productSize.getId()).orElse(productSize);
+        ProductSize finalStock = readStock(productSize);
         System.out.println("Stock cuối: " + finalStock.getStock());
 
         // ✅ ASSERT
@@ -237,8 +164,7 @@ public class OrderConcurrencyTest {
         System.out.println("===============================================");
 
         // ✅ Reset stock = 10
-        productSize.setStock(10);
-        productSizeRepository.save(productSize);
+        resetStock(10);
         System.out.println("Stock ban đầu: 10");
 
         int NUM_USERS = 10;
@@ -307,7 +233,7 @@ public class OrderConcurrencyTest {
         int totalSold = success.size() * QTY_PER_USER;
         System.out.println("Tổng sold: " + totalSold);
 
-        ProductSize finalStock = productSizeRepository.findById(productSize.getId()).orElse(productSize);
+        ProductSize finalStock = readStock(productSize);
         System.out.println("Stock cuối: " + finalStock.getStock());
 
         // ✅ ASSERT
@@ -340,8 +266,7 @@ public class OrderConcurrencyTest {
         System.out.println("===============================================");
 
         // ✅ Reset stock = 3
-        productSize.setStock(3);
-        productSizeRepository.save(productSize);
+        resetStock(3);
         System.out.println("Stock ban đầu: 3");
 
         int NUM_USERS = 5;
@@ -407,7 +332,7 @@ public class OrderConcurrencyTest {
         System.out.println("Mua thành công: " + success.size());
         System.out.println("Mua thất bại: " + failed.size());
 
-        ProductSize finalStock = productSizeRepository.findById(productSize.getId()).orElse(productSize);
+        ProductSize finalStock = readStock(productSize);
         System.out.println("Stock cuối: " + finalStock.getStock());
 
         // ✅ ASSERT
@@ -420,4 +345,244 @@ public class OrderConcurrencyTest {
         System.out.println("\n✅ TEST PASSED: Stock không bao giờ âm!");
         System.out.println("===============================================\n");
     }
+
+    /**
+     * ✅ TEST: Đơn nhiều dòng - batch giảm tồn kho all-or-nothing
+     *
+     * Kịch bản:
+     * - Size M: stock = 5, Size L: stock = 1
+     * - 1 đơn: 3 cái size M + 2 cái size L
+     *
+     * Kỳ vọng:
+     * - Đơn thất bại vì size L không đủ
+     * - Stock size M vẫn = 5 (dòng đã giảm trong batch bị rollback)
+     */
+    @Test
+    public void testMultiItemOrder_AllOrNothing() {
+        Size sizeL = sizeRepository.save(Size.builder()
+                .name("L")
+                .build());
+        ProductSize productSizeL = productSizeRepository.save(ProductSize.builder()
+                .product(product)
+                .size(sizeL)
+                .stock(1)
+                .build());
+
+        User user = userRepository.save(User.builder()
+                .fullName("User Batch")
+                .email("userBatch@test.com")
+                .password("password")
+                .phoneNumber("0123456789")
+                .role(role)
+                .build());
+
+        UserOrderRequest request = UserOrderRequest.builder()
+                .orderItems(List.of(
+                        new UserOrderRequest.OrderItemRequest(product.getId(), size.getId(), 3),
+                        new UserOrderRequest.OrderItemRequest(product.getId(), sizeL.getId(), 2)
+                ))
+                .shippingAddress("Address Batch")
+                .receiverPhoneNumber("0111222335")
+                .paymentMethod(PaymentMethod.COD)
+                .build();
+
+        RuntimeException ex = assertThrows(RuntimeException.class, () -> orderService.createOrder(user, request));
+        assertTrue(ex.getMessage().contains("chỉ còn"), "Lỗi phải chứa thông tin stock");
+
+        assertEquals(5, readStock(productSize).getStock(),
+                "Stock size M phải được rollback về 5");
+        assertEquals(1, readStock(productSizeL).getStock(),
+                "Stock size L không đổi");
+        assertEquals(0, orderRepository.count(), "Không được tạo đơn hàng");
+    }
+
+    /**
+     * ✅ TEST: SKU đã chia bucket - vẫn không oversell
+     *
+     * Kịch bản:
+     * - Stock = 10, chia thành 4 bucket (4/2/2/2)
+     * - 20 users, mỗi người mua 1
+     *
+     * Kỳ vọng:
+     * - Tối đa 10 người mua thành công
+     * - Tổng tồn kho các bucket = 10 - số đơn thành công (không bucket nào âm)
+     */
+    @Test
+    public void testStripedStock_NoOversell() throws InterruptedException {
+        resetStock(10);
+        stockBucketService.stripeStock(product.getId(), size.getId(), 4);
+
+        int NUM_USERS = 20;
+        CountDownLatch startLatch = new CountDownLatch(1);
+        CountDownLatch endLatch = new CountDownLatch(NUM_USERS);
+        List<OrderResponse> success = Collections.synchronizedList(new ArrayList<>());
+        List<String> failed = Collections.synchronizedList(new ArrayList<>());
+
+        for (int i = 0; i < NUM_USERS; i++) {
+            final int userId = i;
+            new Thread(() -> {
+                try {
+                    startLatch.await();
+                    UserOrderRequest request = UserOrderRequest.builder()
+                            .orderItems(List.of(
+                                    new UserOrderRequest.OrderItemRequest(product.getId(), size.getId(), 1)
+                            ))
+                            .shippingAddress("Address " + userId)
+                            .receiverPhoneNumber("080000000" + (userId % 10))
+                            .paymentMethod(PaymentMethod.COD)
+                            .build();
+                    success.add(orderService.createOrder(null, request));
+                } catch (Exception e) {
+                    failed.add(e.getMessage());
+                } finally {
+                    endLatch.countDown();
+                }
+            }).start();
+        }
+
+        Thread.sleep(100);
+        startLatch.countDown();
+        endLatch.await();
+
+        ProductSize finalStock = readStock(productSize);
+        System.out.println("Striped stock - thành công: " + success.size() + ", tồn kho cuối: " + finalStock.getTotalStock());
+
+        assertEquals(NUM_USERS, success.size() + failed.size(), "Tổng request phải = 20");
+        assertTrue(success.size() <= 10, "Tối đa 10 đơn có thể thành công với stock=10, qty=1");
+        assertEquals(10 - success.size(), finalStock.getTotalStock(), "Tổng tồn kho các bucket = 10 - successful_orders");
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM product_size_stock_buckets WHERE stock < 0", Integer.class),
+                "Không bucket phụ nào được âm");
+    }
+
+    /**
+     * ✅ TEST: Đơn trộn SKU chia bucket và SKU thường, hủy đơn trả hàng về đều các bucket
+     *
+     * Kịch bản:
+     * - Size M: stock = 12, chia 4 bucket (3/3/3/3); size L: stock = 5, không chia
+     * - 1 đơn mua M x5 + L x1, sau đó hủy đơn
+     *
+     * Kỳ vọng:
+     * - Đơn thành công: M còn 7, L còn 4
+     * - Sau khi hủy: M về 12, L về 5, "stock" trả cho client là tổng các bucket
+     * - 5 cái hoàn lại được chia 2/1/1/1: các bucket phụ nhận 3, không dồn hết vào bucket 0
+     */
+    @Test
+    public void testStripedStock_MixedOrderAndRestockSpread() {
+        resetStock(12);
+        stockBucketService.stripeStock(product.getId(), size.getId(), 4);
+        Size sizeL = sizeRepository.save(Size.builder().name("L").build());
+        ProductSize productSizeL = productSizeRepository.save(ProductSize.builder()
+                .product(product)
+                .size(sizeL)
+                .stock(5)
+                .build());
+
+        OrderResponse order = orderService.createOrder(null, UserOrderRequest.builder()
+                .orderItems(List.of(
+                        new UserOrderRequest.OrderItemRequest(product.getId(), sizeL.getId(), 1),
+                        new UserOrderRequest.OrderItemRequest(product.getId(), size.getId(), 5)
+                ))
+                .shippingAddress("Address Mixed")
+                .receiverPhoneNumber("0111222399")
+                .paymentMethod(PaymentMethod.COD)
+                .build());
+        assertEquals(7, readStock(productSize).getTotalStock());
+        assertEquals(4, readStock(productSizeL).getTotalStock());
+        String auxSumSql = "SELECT COALESCE(SUM(stock), 0) FROM product_size_stock_buckets WHERE product_size_id = ?";
+        int auxBefore = jdbcTemplate.queryForObject(auxSumSql, Integer.class, productSize.getId());
+
+        orderService.cancelOrder(order.getId());
+
+        ProductSize restocked = readStock(productSize);
+        assertEquals(12, restocked.getTotalStock());
+        assertEquals(12, restocked.getAvailableStock(), "JSON \"stock\" = tổng các bucket");
+        assertEquals(5, readStock(productSizeL).getTotalStock());
+        assertEquals(auxBefore + 3, jdbcTemplate.queryForObject(auxSumSql, Integer.class, productSize.getId()),
+                "Hàng hoàn lại được chia đều cho các bucket");
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM product_size_stock_buckets WHERE stock < 0", Integer.class));
+    }
+
+    /**
+     * ✅ TEST: Nhiều người mua cùng lúc với một lần hoàn hàng vét sạch SKU chia bucket
+     *
+     * Kịch bản:
+     * - Stock = 20, chia 4 bucket; 1 đơn mua trước 4 cái (còn 16)
+     * - 30 users mỗi người mua 1, cùng lúc đơn kia bị hủy (hoàn 4 cái về các bucket)
+     *
+     * Kỳ vọng:
+     * - Không request nào treo hay chết vì deadlock: chỉ được lỗi "không đủ"
+     * - Tối đa 20 người mua thành công, tổng tồn kho = 20 - số đơn thành công, không bucket nào âm
+     */
+    @Test
+    public void testStripedStock_ConcurrentDrainWithRestock() throws InterruptedException {
+        resetStock(20);
+        stockBucketService.stripeStock(product.getId(), size.getId(), 4);
+        OrderResponse toCancel = orderService.createOrder(null, UserOrderRequest.builder()
+                .orderItems(List.of(new UserOrderRequest.OrderItemRequest(product.getId(), size.getId(), 4)))
+                .shippingAddress("Address Restock")
+                .receiverPhoneNumber("0111222398")
+                .paymentMethod(PaymentMethod.COD)
+                .build());
+
+        int NUM_USERS = 30;
+        // Pool vừa phải để không chiếm hết connection pool (alert chạy REQUIRES_NEW)
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch startLatch = new CountDownLatch(1);
+        CountDownLatch endLatch = new CountDownLatch(NUM_USERS + 1);
+        List<OrderResponse> success = Collections.synchronizedList(new ArrayList<>());
+        List<String> failed = Collections.synchronizedList(new ArrayList<>());
+
+        for (int i = 0; i < NUM_USERS; i++) {
+            final int userId = i;
+            executor.submit(() -> {
+                try {
+                    startLatch.await();
+                    UserOrderRequest request = UserOrderRequest.builder()
+                            .orderItems(List.of(
+                                    new UserOrderRequest.OrderItemRequest(product.getId(), size.getId(), 1)
+                            ))
+                            .shippingAddress("Address " + userId)
+                            .receiverPhoneNumber("080000000" + (userId % 10))
+                            .paymentMethod(PaymentMethod.COD)
+                            .build();
+                    success.add(orderService.createOrder(null, request));
+                } catch (Exception e) {
+                    failed.add(String.valueOf(e.getMessage()));
+                } finally {
+                    endLatch.countDown();
+                }
+            });
+        }
+        List<String> restockErrors = Collections.synchronizedList(new ArrayList<>());
+        new Thread(() -> {
+            try {
+                startLatch.await();
+                orderService.cancelOrder(toCancel.getId());
+            } catch (Exception e) {
+                restockErrors.add(String.valueOf(e.getMessage()));
+            } finally {
+                endLatch.countDown();
+            }
+        }).start();
+
+        Thread.sleep(100);
+        startLatch.countDown();
+        assertTrue(endLatch.await(60, TimeUnit.SECONDS), "Không request nào được treo");
+        executor.shutdown();
+
+        ProductSize finalStock = readStock(productSize);
+        System.out.println("Striped drain + restock - thành công: " + success.size() + ", tồn kho cuối: " + finalStock.getTotalStock());
+
+        assertTrue(restockErrors.isEmpty(), "Hủy đơn phải thành công: " + restockErrors);
+        assertEquals(NUM_USERS, success.size() + failed.size(), "Tổng request phải = 30");
+        assertTrue(failed.stream().allMatch(message -> message.contains("không đủ")),
+                "Chỉ được lỗi hết hàng, không có deadlock: " + failed);
+        assertTrue(success.size() <= 20, "Tối đa 20 đơn thành công (16 còn lại + 4 hoàn về)");
+        assertEquals(20 - success.size(), finalStock.getTotalStock(), "Tổng tồn kho các bucket = 20 - successful_orders");
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM product_size_stock_buckets WHERE stock < 0", Integer.class),
+                "Không bucket phụ nào được âm");
+    }
 }
@@ -0,0 +1,89 @@
+package com.example.StyleStore.service;
+
+import com.example.StyleStore.dto.request.UserOrderRequest;
+import com.example.StyleStore.dto.response.OrderResponse;
+import com.example.StyleStore.model.User;
+import com.example.StyleStore.model.enums.PaymentMethod;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ✅ Test: Danh sách / chi tiết đơn hàng đọc qua projection, không N+1
+ */
+public class OrderListingTest extends OrderTestBase {
+
+    /**
+     * ✅ TEST: Danh sách / chi tiết đơn hàng không bị N+1
+     *
+     * Kịch bản:
+     * - 2 user, mỗi user 2 đơn (1 đơn có 2 dòng hàng)
+     * - Gọi các API danh sách và chi tiết, đếm số câu SQL Hibernate gửi đi
+     *
+     * Kỳ vọng:
+     * - Mỗi trang danh sách tối đa 2 câu (dữ liệu + COUNT), không phụ thuộc số đơn
+     * - Chi tiết đơn = 2 câu, đủ tên user, tên sản phẩm và size
+     */
+    @Test
+    public void testOrderListing_ConstantQueryCount() {
+        List<User> users = new ArrayList<>();
+        for (String name : List.of("Listing A", "Listing B")) {
+            users.add(userRepository.save(User.builder()
+                    .fullName("User " + name)
+                    .email(name.replace(" ", "") + "@test.com")
+                    .password("password")
+                    .phoneNumber("0123456789")
+                    .role(role)
+                    .build()));
+        }
+        resetStock(20);
+        Long detailId = null;
+        for (User user : users) {
+            for (int quantity = 1; quantity <= 2; quantity++) {
+                List<UserOrderRequest.OrderItemRequest> items = new ArrayList<>();
+                for (int line = 0; line < quantity; line++) {
+                    items.add(new UserOrderRequest.OrderItemRequest(product.getId(), size.getId(), 1));
+                }
+                detailId = orderService.createOrder(user, UserOrderRequest.builder()
+                        .orderItems(items)
+                        .shippingAddress("Address Listing")
+                        .receiverPhoneNumber("0111222344")
+                        .paymentMethod(PaymentMethod.COD)
+                        .build()).getId();
+            }
+        }
+
+        SqlStatementCounter.reset();
+        var all = orderService.getAllOrders(0, 50, "createdAt", "desc");
+        assertEquals(4, all.getTotalElements());
+        assertTrue(all.getContent().stream().allMatch(order -> order.getUserName().startsWith("User Listing")));
+        assertTrue(SqlStatementCounter.count() <= 2);
+
+        SqlStatementCounter.reset();
+        assertEquals(4, orderService.filterOrdersByStatus("CREATED", 0, 50, "createdAt", "desc").getTotalElements());
+        assertTrue(SqlStatementCounter.count() <= 2);
+
+        SqlStatementCounter.reset();
+        var byUser = orderService.getOrdersByUserId(users.get(0).getId(), 0, 50, "createdAt", "desc");
+        assertEquals(2, byUser.getTotalElements());
+        assertTrue(SqlStatementCounter.count() <= 2);
+
+        SqlStatementCounter.reset();
+        var searched = orderService.searchOrders("listing b", null, 0, 50, "finalAmount", "asc");
+        assertEquals(2, searched.getTotalElements());
+        assertEquals("User Listing B", searched.getContent().get(0).getUserName());
+        assertTrue(SqlStatementCounter.count() <= 2);
+
+        SqlStatementCounter.reset();
+        OrderResponse detail = orderService.getOrderDetailById(detailId);
+        assertEquals(2, SqlStatementCounter.count());
+        assertEquals("User Listing B", detail.getUserName());
+        assertEquals(2, detail.getOrderItems().size());
+        assertEquals("Test Product", detail.getOrderItems().get(0).getProductName());
+        assertEquals("M", detail.getOrderItems().get(0).getSizeName());
+        assertEquals(100.0, detail.getOrderItems().get(0).getSubtotal());
+    }
+}
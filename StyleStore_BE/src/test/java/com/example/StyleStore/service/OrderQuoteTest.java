@@ -0,0 +1,72 @@
+package com.example.StyleStore.service;
+
+import com.example.StyleStore.dto.response.OrderQuoteResponse;
+import com.example.StyleStore.dto.response.OrderResponse;
+import com.example.StyleStore.model.User;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ✅ Test: Báo giá đơn hàng (quote) không side effect
+ */
+public class OrderQuoteTest extends OrderTestBase {
+
+    /**
+     * ✅ TEST: Báo giá không side effect, cùng công thức giảm giá với createOrder
+     *
+     * Kịch bản:
+     * - Giỏ 3 x 100đ = 300đ
+     * - SALE10: 10%, SALE50: 50% tối đa 100đ (đơn từ 200đ), BIG30: 30% (đơn từ 1000đ), SOON90 chưa bắt đầu
+     *
+     * Kỳ vọng:
+     * - Nhập "sale10" → giảm 30đ; mã tốt nhất là SALE50 (giảm 100đ)
+     * - BIG30 / SOON90 / mã lạ → không áp dụng, có thông báo, không lỗi
+     * - Đặt 6 cái (tồn kho 5) chỉ cảnh báo; không có đơn nào được tạo, tồn kho giữ nguyên
+     * - createOrder với SALE50 giảm đúng số tiền đã báo giá
+     */
+    @Test
+    public void testQuoteOrder_NoSideEffectsAndBestPromotion() {
+        LocalDateTime now = LocalDateTime.now();
+        createPromotion("SALE10", "10", "100000", "0", now.minusDays(1), now.plusDays(1));
+        createPromotion("SALE50", "50", "100", "200", now.minusDays(1), now.plusDays(1));
+        createPromotion("BIG30", "30", "100000", "1000", now.minusDays(1), now.plusDays(1));
+        createPromotion("SOON90", "90", "100000", "0", now.plusDays(1), now.plusDays(2));
+
+        OrderQuoteResponse quote = orderService.quoteOrder(quoteRequest(3, "sale10"));
+        assertEquals(300.0, quote.getTotalAmount());
+        assertTrue(quote.isPromotionApplied());
+        assertEquals(30.0, quote.getDiscountAmount());
+        assertEquals(270.0, quote.getFinalAmount());
+        assertEquals("SALE50", quote.getBestPromotionCode());
+        assertEquals(100.0, quote.getBestDiscountAmount());
+        assertFalse(quote.isHasStockWarning());
+
+        for (String code : List.of("BIG30", "SOON90", "KHONGCO")) {
+            OrderQuoteResponse rejected = orderService.quoteOrder(quoteRequest(3, code));
+            assertFalse(rejected.isPromotionApplied());
+            assertNotNull(rejected.getPromotionMessage());
+            assertEquals(300.0, rejected.getFinalAmount());
+        }
+
+        OrderQuoteResponse tooMany = orderService.quoteOrder(quoteRequest(6, null));
+        assertTrue(tooMany.isHasStockWarning());
+        assertEquals(5, tooMany.getItems().get(0).getAvailableStock());
+        assertEquals(0, orderRepository.count());
+        assertEquals(5, readStock(productSize).getTotalStock());
+
+        User user = userRepository.save(User.builder()
+                .fullName("User Quote")
+                .email("userQuote@test.com")
+                .password("password")
+                .phoneNumber("0123456789")
+                .role(role)
+                .build());
+        OrderResponse order = orderService.createOrder(user, quoteRequest(3, "SALE50"));
+        assertEquals(quote.getBestDiscountAmount(), order.getDiscountAmount());
+        assertEquals(200.0, order.getFinalAmount());
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.StyleStore.service;
+
+import com.example.StyleStore.dto.request.UserOrderRequest;
+import com.example.StyleStore.model.ProductSize;
+import com.example.StyleStore.model.enums.PaymentMethod;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ✅ Test: Giữ hàng (reservation) trên bộ đếm - Prevents Overselling
+ *
+ * Chạy lại toàn bộ kịch bản của {@link OrderConcurrencyTest} với
+ * inventory.reservation.enabled=true. CI không có Redis nên dùng store "local"
+ * (cùng ngữ nghĩa với Lua script), tồn kho MySQL được đọc sau khi flush.
+ * Job flush định kỳ được giãn ra: flush gọi tay sẽ bỏ qua nếu job đang giữ lock, khi đó đọc phải tồn kho cũ.
+ */
+@TestPropertySource(properties = {
+        "inventory.reservation.enabled=true",
+        "inventory.reservation.store=local",
+        "inventory.reservation.flush-interval-ms=3600000"
+})
+public class OrderReservationConcurrencyTest extends OrderConcurrencyTest {
+
+    @Autowired private InventoryReservationService inventoryReservationService;
+
+    @BeforeEach
+    public void evictCounter() {
+        inventoryReservationService.evict(product.getId(), size.getId());
+    }
+
+    @AfterEach
+    public void flushPending() {
+        inventoryReservationService.flushPendingToDatabase();
+    }
+
+    @Override
+    protected void resetStock(int stock) {
+        super.resetStock(stock);
+        inventoryReservationService.evict(product.getId(), size.getId());
+    }
+
+    @Override
+    protected ProductSize readStock(ProductSize target) {
+        inventoryReservationService.flushPendingToDatabase();
+        return super.readStock(target);
+    }
+
+    /**
+     * ✅ TEST: Flash sale - 2000 khách vãng lai mua cùng lúc
+     *
+     * Kịch bản:
+     * - Stock = 500
+     * - 2000 request, mỗi request mua 1
+     *
+     * Kỳ vọng:
+     * - Đúng 500 đơn thành công, 1500 đơn thất bại
+     * - Stock trong MySQL sau khi flush = 0
+     */
+    @Test
+    public void testFlashSale_ThousandsOfBuyers() throws InterruptedException {
+        int stock = 500;
+        int numBuyers = 2000;
+        resetStock(stock);
+
+        // Pool vừa phải để không chiếm hết connection pool (alert chạy REQUIRES_NEW)
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch startLatch = new CountDownLatch(1);
+        CountDownLatch endLatch = new CountDownLatch(numBuyers);
+        AtomicInteger success = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+
+        for (int i = 0; i < numBuyers; i++) {
+            final int buyerId = i;
+            executor.submit(() -> {
+                try {
+                    startLatch.await();
+                    UserOrderRequest request = UserOrderRequest.builder()
+                            .orderItems(List.of(
+                                    new UserOrderRequest.OrderItemRequest(product.getId(), size.getId(), 1)
+                            ))
+                            .shippingAddress("Address " + buyerId)
+                            .receiverPhoneNumber("09" + String.format("%08d", buyerId))
+                            .paymentMethod(PaymentMethod.COD)
+                            .build();
+                    orderService.createOrder(null, request);
+                    success.incrementAndGet();
+                } catch (Exception e) {
+                    failed.incrementAndGet();
+                } finally {
+                    endLatch.countDown();
+                }
+            });
+        }
+
+        startLatch.countDown();
+        assertTrue(endLatch.await(2, TimeUnit.MINUTES), "Tất cả request phải kết thúc");
+        executor.shutdown();
+
+        System.out.println("Flash sale - thành công: " + success.get() + ", thất bại: " + failed.get());
+
+        assertEquals(stock, success.get(), "Phải bán đúng bằng tồn kho");
+        assertEquals(numBuyers - stock, failed.get(), "Phần còn lại phải thất bại");
+        assertEquals(stock, orderRepository.count(), "Số đơn hàng = tồn kho ban đầu");
+        assertEquals(0, readStock(productSize).getStock(), "Stock phải = 0 sau khi flush");
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.StyleStore.service;
+
+import com.example.StyleStore.dto.response.OrderResponse;
+import com.example.StyleStore.dto.response.stats.OrderSketchStatsResponse;
+import com.example.StyleStore.model.User;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ✅ Test: Sketch theo ngày (HyperLogLog khách phân biệt, t-digest giá trị đơn)
+ */
+public class OrderSketchServiceTest extends OrderTestBase {
+
+    /**
+     * ✅ TEST: Sketch theo ngày đếm khách phân biệt và phân vị giá trị đơn đã giao
+     *
+     * Kỳ vọng:
+     * - 2 khách, 3 đơn (1 đã giao giá 200): distinctBuyers = 2, p50 = 200
+     * - Tính lại từ orders cho cùng kết quả với bản cập nhật tăng dần
+     * - Delta của đơn đã commit nhưng chưa flush không bị cộng thêm lần nữa sau khi tính lại
+     */
+    @Test
+    public void testOrderSketches_DistinctBuyersAndPercentiles() {
+        User first = userRepository.save(User.builder()
+                .fullName("User Sketch 1")
+                .email("userSketch1@test.com")
+                .password("password")
+                .phoneNumber("0123456789")
+                .role(role)
+                .build());
+        User second = userRepository.save(User.builder()
+                .fullName("User Sketch 2")
+                .email("userSketch2@test.com")
+                .password("password")
+                .phoneNumber("0123456789")
+                .role(role)
+                .build());
+
+        // Đơn được giao mua 2 cái (200), 2 đơn còn lại mỗi đơn 1 cái
+        OrderResponse delivered = placeOrder(first, 2);
+        placeOrder(first, 1);
+        placeOrder(second, 1);
+        orderService.confirmOrder(delivered.getId());
+        orderService.deliveredOrder(delivered.getId());
+        orderSketchService.flush();
+
+        LocalDate today = LocalDate.now();
+        assertSketchStats(orderSketchService.getStats(today.minusDays(1), today, "day"));
+
+        assertEquals(1, orderSketchService.rebuild(today, today));
+        assertSketchStats(orderSketchService.getStats(today.minusDays(1), today, "day"));
+
+        placeOrder(second, 1);
+        assertEquals(1, orderSketchService.rebuild(today, today));
+        orderSketchService.flush();
+        assertEquals(4L, orderSketchService.getStats(today, today, null).getSummary().getOrderCount());
+    }
+
+    private void assertSketchStats(OrderSketchStatsResponse stats) {
+        var summary = stats.getSummary();
+        assertEquals(3L, summary.getOrderCount());
+        assertEquals(1L, summary.getDeliveredCount());
+        assertEquals(2L, summary.getDistinctBuyers());
+        assertEquals(1L, summary.getDistinctDeliveredBuyers());
+        assertEquals(0, summary.getOrderValueP50().compareTo(BigDecimal.valueOf(200)));
+        assertEquals(1, stats.getBuckets().size(), "Chỉ ngày hôm nay có đơn");
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.StyleStore.service;
+
+import com.example.StyleStore.dto.request.UserOrderRequest;
+import com.example.StyleStore.dto.response.OrderResponse;
+import com.example.StyleStore.dto.response.PromotionResponse;
+import com.example.StyleStore.model.*;
+import com.example.StyleStore.model.enums.PaymentMethod;
+import com.example.StyleStore.model.enums.ProductStatus;
+import com.example.StyleStore.repository.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Dữ liệu chung cho các test quanh đơn hàng: xóa sạch bảng rồi tạo
+ * 1 role, 1 danh mục, 1 size và 1 sản phẩm 100đ có tồn kho 5.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+public abstract class OrderTestBase {
+
+    @Autowired protected OrderService orderService;
+    @Autowired protected OrderRepository orderRepository;
+    @Autowired protected ProductRepository productRepository;
+    @Autowired protected ProductSizeRepository productSizeRepository;
+    @Autowired protected SizeRepository sizeRepository;
+    @Autowired protected CategoryRepository categoryRepository;
+    @Autowired protected UserRepository userRepository;
+    @Autowired protected RoleRepository roleRepository;
+    @Autowired protected JdbcTemplate jdbcTemplate;
+    @Autowired protected OrderSketchService orderSketchService;
+    @Autowired protected PromotionService promotionService;
+
+    protected Category category;
+    protected Size size;
+    protected Product product;
+    protected ProductSize productSize;
+    protected Role role;
+
+    @BeforeEach
+    public void setUp() {
+        // ✅ Ghi nốt sketch còn chờ của test trước để không lẫn vào bảng sau khi xóa
+        orderSketchService.flush();
+
+        // ✅ Xóa dữ liệu cũ bằng cú pháp tương thích H2
+        jdbcTemplate.execute("SET REFERENTIAL_INTEGRITY FALSE");
+        try {
+            jdbcTemplate.execute("TRUNCATE TABLE comments");
+            jdbcTemplate.execute("TRUNCATE TABLE order_items");
+            jdbcTemplate.execute("TRUNCATE TABLE orders");
+            jdbcTemplate.execute("TRUNCATE TABLE promotions");
+            jdbcTemplate.execute("TRUNCATE TABLE product_sales");
+            jdbcTemplate.execute("TRUNCATE TABLE product_sales_daily");
+            jdbcTemplate.execute("TRUNCATE TABLE daily_sales_summary");
+            jdbcTemplate.execute("TRUNCATE TABLE daily_order_sketches");
+            jdbcTemplate.execute("TRUNCATE TABLE inventory_movements");
+            jdbcTemplate.execute("TRUNCATE TABLE inventory_snapshots");
+            jdbcTemplate.execute("TRUNCATE TABLE product_size_stock_buckets");
+            jdbcTemplate.execute("TRUNCATE TABLE product_sizes");
+            jdbcTemplate.execute("TRUNCATE TABLE products");
+            jdbcTemplate.execute("TRUNCATE TABLE categories");
+            jdbcTemplate.execute("TRUNCATE TABLE sizes");
+            jdbcTemplate.execute("TRUNCATE TABLE users");
+            jdbcTemplate.execute("TRUNCATE TABLE roles");
+        } finally {
+            jdbcTemplate.execute("SET REFERENTIAL_INTEGRITY TRUE");
+        }
+
+        // ✅ Tạo role
+        role = roleRepository.save(Role.builder()
+                .name("CUSTOMER")
+                .build());
+
+        // ✅ Tạo dữ liệu test
+        category = categoryRepository.save(Category.builder()
+                .name("Test Category")
+                .status("ACTIVE")
+                .build());
+
+        size = sizeRepository.save(Size.builder()
+                .name("M")
+                .build());
+
+        product = productRepository.save(Product.builder()
+                .name("Test Product")
+                .price(100.0)
+                .gender("UNISEX")
+                .color("Black")
+                .thumbnail("test.jpg")
+                .status(ProductStatus.ACTIVE)
+                .category(category)
+                .build());
+
+        productSize = productSizeRepository.save(ProductSize.builder()
+                .product(product)
+                .size(size)
+                .stock(5)  // ✅ Tồn kho = 5
+                .build());
+    }
+
+    // Đặt lại tồn kho trong MySQL (subclass có thể đồng bộ thêm bộ đếm giữ hàng)
+    protected void resetStock(int stock) {
+        productSize.setStock(stock);
+        productSizeRepository.save(productSize);
+    }
+
+    // Đọc tồn kho hiện tại trong MySQL
+    protected ProductSize readStock(ProductSize target) {
+        return productSizeRepository.findById(target.getId()).orElse(target);
+    }
+
+    protected void createPromotion(String code, String percent, String maxDiscount, String minOrder,
+            LocalDateTime startAt, LocalDateTime endAt) {
+        promotionService.createPromotion(PromotionResponse.builder()
+                .code(code)
+                .name("Khuyến mãi " + code)
+                .discountPercent(new BigDecimal(percent))
+                .maxDiscountAmount(new BigDecimal(maxDiscount))
+                .minOrderAmount(new BigDecimal(minOrder))
+                .startAt(startAt)
+                .endAt(endAt)
+                .isActive(true)
+                .build());
+    }
+
+    // Đơn 1 dòng (sản phẩm test, size M), dùng cho cả báo giá lẫn đặt đơn
+    protected UserOrderRequest quoteRequest(int quantity, String promotionCode) {
+        return UserOrderRequest.builder()
+                .orderItems(List.of(new UserOrderRequest.OrderItemRequest(product.getId(), size.getId(), quantity)))
+                .shippingAddress("Address Quote")
+                .receiverPhoneNumber("0111222333")
+                .paymentMethod(PaymentMethod.COD)
+                .promotionCode(promotionCode)
+                .build();
+    }
+
+    // Đặt đơn COD qua OrderService; chuyển trạng thái tiếp bằng confirmOrder / deliveredOrder / cancelOrder
+    protected OrderResponse placeOrder(User user, int quantity) {
+        return orderService.createOrder(user, quoteRequest(quantity, null));
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.StyleStore.service;
+
+import com.example.StyleStore.dto.request.UserOrderRequest;
+import com.example.StyleStore.model.User;
+import com.example.StyleStore.model.enums.OrderStatus;
+import com.example.StyleStore.model.enums.PaymentMethod;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ✅ Test: Chuyển trạng thái đơn hàng (đơn lẻ và hàng loạt)
+ */
+public class OrderTransitionTest extends OrderTestBase {
+
+    /**
+     * ✅ TEST: Chuyển trạng thái hàng loạt trong 1 transaction
+     *
+     * Kịch bản:
+     * - Stock = 5, tạo 3 đơn cùng SKU: A mua 2, B mua 1, C mua 1
+     * - Xác nhận + giao hàng loạt C (giao kèm A đang CREATED → bị bỏ qua)
+     * - Hủy hàng loạt A, B, C, trùng A và 1 id không tồn tại
+     *
+     * Kỳ vọng:
+     * - Chỉ A, B bị hủy; C (đã giao) và id lạ nằm trong skippedOrderIds
+     * - Tồn kho trả lại 3 trong 1 dòng cập nhật cho SKU → còn 4
+     * - Sổ kho có 1 dòng CANCEL cho mỗi đơn bị hủy, unitsSold chỉ còn của C
+     */
+    @Test
+    public void testBulkTransitions_SkipInvalidAndRestockOnce() {
+        User user = userRepository.save(User.builder()
+                .fullName("User Bulk")
+                .email("userBulk@test.com")
+                .password("password")
+                .phoneNumber("0123456789")
+                .role(role)
+                .build());
+        List<Long> ids = new ArrayList<>();
+        for (int quantity : new int[] { 2, 1, 1 }) {
+            ids.add(orderService.createOrder(user, UserOrderRequest.builder()
+                    .orderItems(List.of(new UserOrderRequest.OrderItemRequest(product.getId(), size.getId(), quantity)))
+                    .shippingAddress("Address Bulk")
+                    .receiverPhoneNumber("0111222342")
+                    .paymentMethod(PaymentMethod.COD)
+                    .build()).getId());
+        }
+        Long a = ids.get(0), b = ids.get(1), c = ids.get(2);
+
+        assertEquals(List.of(c), orderService.bulkConfirmOrders(List.of(c)).getUpdatedOrderIds());
+        var delivered = orderService.bulkDeliverOrders(List.of(c, a));
+        assertEquals(List.of(c), delivered.getUpdatedOrderIds());
+        assertEquals(List.of(a), delivered.getSkippedOrderIds());
+
+        var cancelled = orderService.bulkCancelOrders(List.of(a, b, c, a, -1L));
+        assertEquals(4, cancelled.getRequested());
+        assertEquals(List.of(a, b), cancelled.getUpdatedOrderIds());
+        assertEquals(List.of(c, -1L), cancelled.getSkippedOrderIds());
+
+        assertEquals(OrderStatus.CANCELLED, orderRepository.findById(a).orElseThrow().getStatus());
+        assertEquals(OrderStatus.CANCELLED, orderRepository.findById(b).orElseThrow().getStatus());
+        assertEquals(OrderStatus.DELIVERED, orderRepository.findById(c).orElseThrow().getStatus());
+        assertEquals(4, readStock(productSize).getStock());
+
+        List<Long> cancelRefs = jdbcTemplate.queryForList(
+                "SELECT reference_id FROM inventory_movements WHERE type = 'CANCEL' ORDER BY reference_id",
+                Long.class);
+        assertEquals(List.of(a, b), cancelRefs);
+        Map<String, Object> totals = jdbcTemplate.queryForMap(
+                "SELECT units_sold, units_delivered FROM product_sales WHERE product_id = ?", product.getId());
+        assertEquals(1L, ((Number) totals.get("units_sold")).longValue());
+        assertEquals(1L, ((Number) totals.get("units_delivered")).longValue());
+    }
+
+    /**
+     * ✅ TEST: Giao và hủy cùng 1 đơn đồng thời
+     *
+     * Kịch bản:
+     * - Stock = 5, 1 đơn mua 2 đang SHIPPING
+     * - 2 thread giao hàng + 2 thread hủy đơn cùng lúc
+     *
+     * Kỳ vọng:
+     * - Đúng 1 request thành công (UPDATE ... WHERE status = ? chỉ khớp 1 lần)
+     * - Nếu hủy thắng: tồn kho về 5, đúng 1 dòng CANCEL; nếu giao thắng: tồn kho 3, doanh thu tính 1 lần
+     * - Xác nhận đơn = 2 câu SQL (UPDATE có điều kiện + đọc projection)
+     * - Đơn không tồn tại bị từ chối với "Order not found"
+     */
+    @Test
+    public void testConcurrentTransitions_ExactlyOneWins() throws InterruptedException {
+        User user = userRepository.save(User.builder()
+                .fullName("User Transition")
+                .email("userTransition@test.com")
+                .password("password")
+                .phoneNumber("0123456789")
+                .role(role)
+                .build());
+        Long orderId = orderService.createOrder(user, UserOrderRequest.builder()
+                .orderItems(List.of(new UserOrderRequest.OrderItemRequest(product.getId(), size.getId(), 2)))
+                .shippingAddress("Address Transition")
+                .receiverPhoneNumber("0111222343")
+                .paymentMethod(PaymentMethod.COD)
+                .build()).getId();
+        SqlStatementCounter.reset();
+        assertEquals(OrderStatus.SHIPPING, orderService.confirmOrder(orderId).getStatus());
+        assertEquals(2, SqlStatementCounter.count(), "UPDATE có điều kiện + 1 projection, không nạp entity");
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        CountDownLatch startLatch = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            boolean deliver = i % 2 == 0;
+            results.add(executor.submit(() -> {
+                startLatch.await();
+                try {
+                    if (deliver) {
+                        orderService.deliveredOrder(orderId);
+                    } else {
+                        orderService.cancelOrder(orderId);
+                    }
+                    return true;
+                } catch (RuntimeException e) {
+                    return false;
+                }
+            }));
+        }
+        startLatch.countDown();
+        int success = 0;
+        for (Future<Boolean> result : results) {
+            try {
+                success += result.get(30, TimeUnit.SECONDS) ? 1 : 0;
+            } catch (ExecutionException | TimeoutException e) {
+                fail(e);
+            }
+        }
+        executor.shutdown();
+
+        assertEquals(1, success, "Chỉ đúng 1 lần chuyển trạng thái được thành công");
+        OrderStatus finalStatus = orderRepository.findById(orderId).orElseThrow().getStatus();
+        Integer cancelRows = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM inventory_movements WHERE type = 'CANCEL'", Integer.class);
+        Long deliveredCount = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(order_count), 0) FROM daily_sales_summary", Long.class);
+        if (finalStatus == OrderStatus.CANCELLED) {
+            assertEquals(5, readStock(productSize).getStock());
+            assertEquals(1, cancelRows);
+            assertEquals(0L, deliveredCount);
+        } else {
+            assertEquals(OrderStatus.DELIVERED, finalStatus);
+            assertEquals(3, readStock(productSize).getStock());
+            assertEquals(0, cancelRows);
+            assertEquals(1L, deliveredCount);
+        }
+
+        RuntimeException missing = assertThrows(RuntimeException.class, () -> orderService.confirmOrder(-1L));
+        assertEquals("Order not found", missing.getMessage());
+    }
+}
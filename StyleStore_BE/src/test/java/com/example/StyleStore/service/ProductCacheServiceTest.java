@@ -0,0 +1,94 @@
+package com.example.StyleStore.service;
+
+import com.example.StyleStore.model.*;
+import com.example.StyleStore.model.enums.ProductStatus;
+import com.example.StyleStore.repository.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ✅ Test: Cache chi tiết sản phẩm (L1) - đọc từ cache và bị xóa khi sản phẩm thay đổi
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+public class ProductCacheServiceTest {
+
+    @Autowired private ProductService productService;
+    @Autowired private ProductCacheService productCacheService;
+    @Autowired private ProductRepository productRepository;
+    @Autowired private ProductSizeRepository productSizeRepository;
+    @Autowired private ProductImageRepository productImageRepository;
+    @Autowired private SizeRepository sizeRepository;
+    @Autowired private CategoryRepository categoryRepository;
+
+    private Product product;
+
+    @BeforeEach
+    public void setUp() {
+        Category category = categoryRepository.save(Category.builder()
+                .name("Cache Category")
+                .status("ACTIVE")
+                .build());
+        Size size = sizeRepository.save(Size.builder()
+                .name("XL")
+                .build());
+        product = productRepository.save(Product.builder()
+                .name("Cache Product")
+                .price(200.0)
+                .gender("UNISEX")
+                .color("White")
+                .thumbnail("cache.jpg")
+                .status(ProductStatus.ACTIVE)
+                .category(category)
+                .build());
+        productSizeRepository.save(ProductSize.builder()
+                .product(product)
+                .size(size)
+                .stock(7)
+                .build());
+        productImageRepository.save(ProductImage.builder()
+                .product(product)
+                .imageUrl("cache-1.jpg")
+                .displayOrder(1)
+                .build());
+        productCacheService.evict(product.getId());
+    }
+
+    @Test
+    public void testProductDetail_ServedFromCacheWithRelations() {
+        Product first = productService.getProductDetail(product.getId()).orElseThrow();
+        Product second = productService.getProductDetail(product.getId()).orElseThrow();
+
+        assertSame(first, second, "Lần đọc thứ 2 phải lấy từ L1");
+        assertEquals("Cache Category", first.getCategory().getName());
+        assertEquals(1, first.getProductSizes().size());
+        assertEquals("XL", first.getProductSizes().get(0).getSize().getName());
+        assertEquals(7, first.getProductSizes().get(0).getTotalStock());
+        assertEquals(1, first.getProductImages().size());
+    }
+
+    @Test
+    public void testProductDetail_EvictedOnUpdate() {
+        productService.getProductDetail(product.getId()).orElseThrow();
+
+        productService.updateProduct(product.getId(), Product.builder()
+                .name("Cache Product Updated")
+                .productSizes(List.of())
+                .build());
+
+        Product reloaded = productService.getProductDetail(product.getId()).orElseThrow();
+        assertEquals("Cache Product Updated", reloaded.getName(), "Cache phải bị xóa khi sản phẩm thay đổi");
+    }
+
+    @Test
+    public void testProductDetail_NotFound() {
+        assertTrue(productService.getProductDetail(-1L).isEmpty());
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.StyleStore.service;
+
+import com.example.StyleStore.dto.response.OrderResponse;
+import com.example.StyleStore.model.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ✅ Test: Bộ đếm bán chạy (product_sales) theo vòng đời đơn hàng
+ */
+public class ProductSalesServiceTest extends OrderTestBase {
+
+    @Autowired private ProductSalesService productSalesService;
+
+    /**
+     * ✅ TEST: Bộ đếm bán chạy cập nhật theo vòng đời đơn hàng
+     *
+     * Kịch bản:
+     * - Đơn 1 mua 2 cái → xác nhận → giao thành công
+     * - Đơn 2 mua 1 cái → hủy
+     *
+     * Kỳ vọng:
+     * - product_sales: units_sold = 2 (đơn hủy bị trừ lại), units_delivered = 2
+     * - Top 5 tổng / theo danh mục / bán chạy nhất mỗi danh mục đều trả về sản phẩm với totalSold = 2
+     */
+    @Test
+    public void testSalesCounters_FollowOrderLifecycle() {
+        productSalesService.reload();
+        User user = userRepository.save(User.builder()
+                .fullName("User Sales")
+                .email("userSales@test.com")
+                .password("password")
+                .phoneNumber("0123456789")
+                .role(role)
+                .build());
+
+        OrderResponse delivered = placeOrder(user, 2);
+        OrderResponse cancelled = placeOrder(user, 1);
+        orderService.confirmOrder(delivered.getId());
+        orderService.deliveredOrder(delivered.getId());
+        orderService.cancelOrder(cancelled.getId());
+
+        Map<String, Object> totals = jdbcTemplate.queryForMap(
+                "SELECT units_sold, units_delivered FROM product_sales WHERE product_id = ?", product.getId());
+        assertEquals(2L, ((Number) totals.get("units_sold")).longValue());
+        assertEquals(2L, ((Number) totals.get("units_delivered")).longValue());
+        Map<String, Object> daily = jdbcTemplate.queryForMap(
+                "SELECT units_sold, units_delivered FROM product_sales_daily WHERE product_id = ?", product.getId());
+        assertEquals(2L, ((Number) daily.get("units_sold")).longValue());
+        assertEquals(2L, ((Number) daily.get("units_delivered")).longValue());
+
+        productSalesService.refreshDirtyProducts();
+        var overall = orderService.getTop5ProductsOverall();
+        assertEquals(1, overall.size());
+        assertEquals(product.getId(), overall.get(0).getProductId());
+        assertEquals(2L, overall.get(0).getTotalSold());
+        assertEquals(2L, orderService.getTop5ProductsByCategory(category.getId()).get(0).getTotalSold());
+        assertTrue(orderService.getTop5ProductsByCategory(category.getId() + 1).isEmpty());
+
+        var bestInCategories = orderService.getBestSellingProductsInCategories();
+        assertEquals(1, bestInCategories.size());
+        assertEquals("Test Category", bestInCategories.get(0).getCategoryName());
+        assertEquals(2L, bestInCategories.get(0).getTotalSold());
+    }
+}
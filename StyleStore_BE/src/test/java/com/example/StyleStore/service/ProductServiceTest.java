@@ -0,0 +1,285 @@
+package com.example.StyleStore.service;
+
+import com.example.StyleStore.dto.request.ProductFacetRequest;
+import com.example.StyleStore.dto.response.CursorPage;
+import com.example.StyleStore.dto.response.ProductFacetResponse;
+import com.example.StyleStore.dto.response.SuggestionResponse;
+import com.example.StyleStore.dto.response.ProductCardResponse;
+import com.example.StyleStore.model.*;
+import com.example.StyleStore.model.enums.ProductStatus;
+import com.example.StyleStore.repository.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ✅ Test: Các API đọc danh sách sản phẩm cho trang user
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+public class ProductServiceTest {
+
+    @Autowired private ProductService productService;
+    @Autowired private ProductSearchService productSearchService;
+    @Autowired private ProductFacetService productFacetService;
+    @Autowired private ProductSuggestService productSuggestService;
+    @Autowired private ProductRepository productRepository;
+    @Autowired private ProductSizeRepository productSizeRepository;
+    @Autowired private SizeRepository sizeRepository;
+    @Autowired private CategoryRepository categoryRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    private Category shirts;
+    private Category pants;
+    private Size sizeS;
+    private Size sizeM;
+
+    @BeforeEach
+    public void setUp() {
+        jdbcTemplate.execute("SET REFERENTIAL_INTEGRITY FALSE");
+        try {
+            jdbcTemplate.execute("TRUNCATE TABLE product_size_stock_buckets");
+            jdbcTemplate.execute("TRUNCATE TABLE product_sizes");
+            jdbcTemplate.execute("TRUNCATE TABLE product_images");
+            jdbcTemplate.execute("TRUNCATE TABLE products");
+            jdbcTemplate.execute("TRUNCATE TABLE categories");
+            jdbcTemplate.execute("TRUNCATE TABLE sizes");
+        } finally {
+            jdbcTemplate.execute("SET REFERENTIAL_INTEGRITY TRUE");
+        }
+
+        shirts = categoryRepository.save(Category.builder().name("Áo").status("ACTIVE").build());
+        pants = categoryRepository.save(Category.builder().name("Quần").status("ACTIVE").build());
+        sizeS = sizeRepository.save(Size.builder().name("S").build());
+        sizeM = sizeRepository.save(Size.builder().name("M").build());
+    }
+
+    private Product createProduct(String name, Category category, String gender, ProductStatus status,
+            int stockS, int stockM) {
+        Product product = productRepository.save(Product.builder()
+                .name(name)
+                .price(150.0)
+                .gender(gender)
+                .thumbnail(name + ".jpg")
+                .status(status)
+                .category(category)
+                .build());
+        productSizeRepository.save(ProductSize.builder().product(product).size(sizeS).stock(stockS).build());
+        productSizeRepository.save(ProductSize.builder().product(product).size(sizeM).stock(stockM).build());
+        return product;
+    }
+
+    /**
+     * ✅ TEST: Thẻ sản phẩm - lọc theo danh mục/giới tính/tên, gắn size còn hàng
+     */
+    @Test
+    public void testProductCards_FiltersAndAvailableSizes() {
+        createProduct("Áo thun trắng", shirts, "nam", ProductStatus.ACTIVE, 3, 0);
+        createProduct("Áo sơ mi", shirts, "nữ", ProductStatus.ACTIVE, 0, 0);
+        createProduct("Quần jean", pants, "nam", ProductStatus.ACTIVE, 1, 2);
+        createProduct("Áo ngừng bán", shirts, "nam", ProductStatus.INACTIVE, 5, 5);
+
+        PageRequest pageable = PageRequest.of(0, 12, Sort.by("name").ascending());
+
+        Page<ProductCardResponse> all = productService.getProductCards(null, null, null, pageable);
+        assertEquals(3, all.getTotalElements(), "Chỉ lấy sản phẩm ACTIVE");
+
+        ProductCardResponse tee = all.getContent().stream()
+                .filter(card -> card.getName().equals("Áo thun trắng")).findFirst().orElseThrow();
+        assertEquals("Áo", tee.getCategoryName());
+        assertTrue(tee.isInStock());
+        assertEquals(List.of("S"), tee.getAvailableSizes());
+
+        ProductCardResponse shirt = all.getContent().stream()
+                .filter(card -> card.getName().equals("Áo sơ mi")).findFirst().orElseThrow();
+        assertFalse(shirt.isInStock());
+        assertTrue(shirt.getAvailableSizes().isEmpty());
+
+        assertEquals(2, productService.getProductCards(shirts.getId(), null, null, pageable).getTotalElements());
+        assertEquals(2, productService.getProductCards(null, "male", null, pageable).getTotalElements());
+        assertEquals(1, productService.getProductCards(shirts.getId(), "male", null, pageable).getTotalElements());
+
+        Page<ProductCardResponse> search = productService.getProductCards(null, null, "jean", pageable);
+        assertEquals(1, search.getTotalElements());
+        assertEquals(List.of("S", "M"), search.getContent().get(0).getAvailableSizes());
+    }
+
+    /**
+     * ✅ TEST: Cursor pagination - đi hết các trang không trùng, không sót (giá trùng nhau, tie-break bằng id)
+     */
+    @Test
+    public void testProductCardsAfter_WalksAllPagesWithoutDuplicates() {
+        List<Long> expected = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            expected.add(createProduct("Áo " + i, shirts, "nam", ProductStatus.ACTIVE, 1, 0).getId());
+        }
+        createProduct("Áo ngừng bán", shirts, "nam", ProductStatus.INACTIVE, 5, 5);
+
+        List<Long> seen = new ArrayList<>();
+        String after = null;
+        int pages = 0;
+        do {
+            CursorPage<ProductCardResponse> page = productService.getProductCardsAfter(after, 3, "price", "desc");
+            page.getContent().forEach(card -> {
+                assertTrue(card.isInStock());
+                seen.add(card.getId());
+            });
+            after = page.getNextCursor();
+            assertEquals(page.isHasNext(), after != null);
+            assertEquals(3, page.getSize());
+            pages++;
+        } while (after != null);
+
+        assertEquals(3, pages);
+        // Cùng giá nên thứ tự do id quyết định (desc)
+        Collections.reverse(expected);
+        assertEquals(expected, seen);
+
+        assertEquals(100, productService.getProductCardsAfter(null, 1000, "price", "desc").getSize(),
+                "size trả về là size đã bị giới hạn, không phải size yêu cầu");
+        assertThrows(RuntimeException.class,
+                () -> productService.getProductCardsAfter("không-hợp-lệ", 3, "price", "desc"));
+        assertThrows(RuntimeException.class,
+                () -> productService.getProductCardsAfter(null, 3, "thumbnail", "desc"));
+    }
+
+    /**
+     * ✅ TEST: Tìm kiếm full-text - không dấu, nhiều trường, xếp hạng và cập nhật index khi sửa/xóa
+     */
+    @Test
+    public void testSearchProductCards_AccentFoldingAndIncrementalIndex() {
+        Product tee = createProduct("Áo thun trắng", shirts, "nam", ProductStatus.ACTIVE, 3, 0);
+        Product polo = createProduct("Áo polo", shirts, "nam", ProductStatus.ACTIVE, 1, 1);
+        Product jeans = createProduct("Quần jean", pants, "nam", ProductStatus.ACTIVE, 1, 2);
+        createProduct("Áo thun ngừng bán", shirts, "nam", ProductStatus.INACTIVE, 5, 5);
+        jeans.setBrand("Levi's");
+        productRepository.save(jeans);
+        productSearchService.rebuild();
+
+        PageRequest pageable = PageRequest.of(0, 12);
+
+        Page<ProductCardResponse> result = productService.searchProductCards("ao thun", pageable);
+        assertEquals(tee.getId(), result.getContent().get(0).getId(), "Khớp cả 2 từ nên đứng đầu");
+        assertEquals(List.of("S"), result.getContent().get(0).getAvailableSizes());
+        assertTrue(result.getContent().stream().noneMatch(card -> card.getName().contains("ngừng bán")));
+
+        assertEquals(List.of(jeans.getId()), ids(productService.searchProductCards("LEVI", pageable)));
+        // Từ cuối đang gõ dở vẫn khớp theo tiền tố
+        assertEquals(List.of(jeans.getId()), ids(productService.searchProductCards("qua", pageable)));
+        assertEquals(2, productService.searchProductCards("áo", pageable).getTotalElements());
+
+        Product rename = new Product();
+        rename.setName("Áo khoác gió");
+        productService.updateProduct(polo.getId(), rename);
+        assertTrue(productService.searchProductCards("polo", pageable).isEmpty());
+        assertEquals(List.of(polo.getId()), ids(productService.searchProductCards("khoac gio", pageable)));
+
+        productService.deleteProduct(jeans.getId());
+        assertTrue(productService.searchProductCards("jean", pageable).isEmpty());
+    }
+
+    /**
+     * ✅ TEST: Lọc faceted - OR trong facet, AND giữa facet, đếm facet và cập nhật khi tồn kho đổi
+     */
+    @Test
+    public void testFilterProductCards_FacetsAndStockRefresh() {
+        Product nikeTee = createProduct("Áo thun Nike", shirts, "nam", ProductStatus.ACTIVE, 3, 0);
+        Product adidasTee = createProduct("Áo thun Adidas", shirts, "nữ", ProductStatus.ACTIVE, 0, 2);
+        Product nikePants = createProduct("Quần Nike", pants, "male", ProductStatus.ACTIVE, 1, 1);
+        createProduct("Áo Nike cũ", shirts, "nam", ProductStatus.INACTIVE, 5, 5);
+        for (Product product : List.of(nikeTee, adidasTee, nikePants)) {
+            product.setBrand(product.getName().contains("Nike") ? "Nike" : "Adidas");
+            productRepository.save(product);
+        }
+        productFacetService.rebuild();
+
+        PageRequest pageable = PageRequest.of(0, 12);
+
+        ProductFacetResponse all = productService.filterProductCards(new ProductFacetRequest(), pageable);
+        assertEquals(3, all.getProducts().getTotalElements());
+        assertEquals(2, facetCount(all, "brand", "nike"));
+        assertEquals(2, facetCount(all, "gender", "male"), "nam và male được gộp");
+        assertEquals(2, facetCount(all, "size", "s"));
+
+        ProductFacetRequest nikeSizeS = ProductFacetRequest.builder()
+                .brands(List.of("NIKE")).sizes(List.of("S")).build();
+        ProductFacetResponse filtered = productService.filterProductCards(nikeSizeS, pageable);
+        assertEquals(List.of(nikePants.getId(), nikeTee.getId()), ids(filtered.getProducts()));
+        // Facet brand được đếm với bộ lọc size, không với bộ lọc brand
+        assertEquals(0, facetCount(filtered, "brand", "adidas"));
+        assertEquals(1, facetCount(filtered, "category", String.valueOf(pants.getId())));
+
+        ProductFacetRequest sizeMInShirts = ProductFacetRequest.builder()
+                .categoryIds(List.of(shirts.getId())).sizes(List.of("M")).build();
+        assertEquals(List.of(adidasTee.getId()), ids(productService.filterProductCards(sizeMInShirts, pageable).getProducts()));
+
+        // Áo thun Nike có hàng size M → bitmap được nạp lại sau khi xử lý sản phẩm bị đánh dấu
+        Product restock = new Product();
+        restock.setProductSizes(List.of(ProductSize.builder().size(sizeM).stock(4).build()));
+        productService.updateProduct(nikeTee.getId(), restock);
+        productFacetService.refreshDirtyProducts();
+
+        assertEquals(List.of(adidasTee.getId(), nikeTee.getId()),
+                ids(productService.filterProductCards(sizeMInShirts, pageable).getProducts()));
+    }
+
+    /**
+     * ✅ TEST: Gợi ý khi gõ - tiền tố không dấu, khớp giữa tên, thương hiệu/danh mục xếp theo độ phổ biến, đổi tên
+     */
+    @Test
+    public void testSuggest_PrefixRankingAndRename() {
+        Product nikeTee = createProduct("Áo thun Nike", shirts, "nam", ProductStatus.ACTIVE, 1, 0);
+        Product nikeJacket = createProduct("Áo khoác gió", shirts, "nam", ProductStatus.ACTIVE, 1, 0);
+        createProduct("Áo ngừng bán", shirts, "nam", ProductStatus.INACTIVE, 1, 0);
+        for (Product product : List.of(nikeTee, nikeJacket)) {
+            product.setBrand("Nike");
+            productRepository.save(product);
+        }
+        productSuggestService.rebuild();
+
+        List<SuggestionResponse> ao = productSuggestService.suggest("ÁO", 10);
+        assertEquals("CATEGORY", ao.get(0).getType(), "Danh mục gộp độ phổ biến của 2 sản phẩm nên đứng đầu");
+        assertEquals(shirts.getId(), ao.get(0).getId());
+        assertEquals(3, ao.size());
+        assertEquals(1, productSuggestService.suggest("ao", 1).size());
+
+        assertEquals(List.of("Áo thun Nike"), texts(productSuggestService.suggest("thu", 10)));
+        assertEquals(List.of("Nike", "Áo thun Nike"), texts(productSuggestService.suggest("nik", 10)));
+        assertTrue(productSuggestService.suggest("ngung", 10).isEmpty(), "Sản phẩm INACTIVE không được gợi ý");
+
+        Product rename = new Product();
+        rename.setName("Áo polo");
+        productService.updateProduct(nikeJacket.getId(), rename);
+        productSuggestService.refreshDirtyProducts();
+
+        assertEquals(List.of("Áo polo"), texts(productSuggestService.suggest("pol", 10)));
+        assertTrue(productSuggestService.suggest("khoac", 10).isEmpty());
+    }
+
+    private static List<String> texts(List<SuggestionResponse> suggestions) {
+        return suggestions.stream().map(SuggestionResponse::getText).toList();
+    }
+
+    private static int facetCount(ProductFacetResponse response, String facet, String value) {
+        return response.getFacets().get(facet).stream()
+                .filter(count -> count.getValue().equals(value))
+                .mapToInt(ProductFacetResponse.FacetCount::getCount)
+                .findFirst().orElse(0);
+    }
+
+    private static List<Long> ids(Page<ProductCardResponse> page) {
+        return page.getContent().stream().map(ProductCardResponse::getId).toList();
+    }
+}
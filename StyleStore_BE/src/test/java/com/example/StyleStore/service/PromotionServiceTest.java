@@ -0,0 +1,75 @@
+package com.example.StyleStore.service;
+
+import com.example.StyleStore.dto.response.OrderResponse;
+import com.example.StyleStore.dto.response.PromotionResponse;
+import com.example.StyleStore.model.User;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ✅ Test: Registry khuyến mãi trong JVM
+ */
+public class PromotionServiceTest extends OrderTestBase {
+
+    /**
+     * ✅ TEST: Registry khuyến mãi trong JVM
+     *
+     * Kịch bản:
+     * - FLASH bắt đầu sau ~1s, kết thúc sau ~2s; SALE10 đang hiệu lực
+     *
+     * Kỳ vọng:
+     * - Danh sách công khai và tra mã (không phân biệt hoa thường) không chạy câu SQL nào
+     * - FLASH tự hiệu lực đúng lúc bắt đầu và tự hết hạn đúng lúc kết thúc, không cần nạp lại
+     * - Đặt hàng với mã đang hiệu lực lưu đúng khuyến mãi vào đơn; hết hạn thì bị từ chối
+     */
+    @Test
+    public void testPromotionRegistry_ExactActivationWithoutDatabase() throws InterruptedException {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime flashStart = now.plusSeconds(1);
+        LocalDateTime flashEnd = now.plusSeconds(2);
+        createPromotion("SALE10", "10", "100000", "0", now.minusDays(1), now.plusDays(1));
+        createPromotion("FLASH", "20", "100000", "0", flashStart, flashEnd);
+
+        SqlStatementCounter.reset();
+        assertEquals(List.of("SALE10"), promotionService.getAvailablePromotions().stream()
+                .map(PromotionResponse::getCode).toList());
+        assertTrue(promotionService.findActivePromotion("sale10", LocalDateTime.now()).isPresent());
+        assertTrue(promotionService.findActivePromotion("FLASH", LocalDateTime.now()).isEmpty());
+        assertEquals(0, SqlStatementCounter.count());
+
+        sleepUntil(flashStart);
+        assertEquals(List.of("SALE10", "FLASH"), promotionService.getActivePromotions(LocalDateTime.now()).stream()
+                .map(PromotionService.ActivePromotion::code).toList());
+
+        User user = userRepository.save(User.builder()
+                .fullName("User Flash")
+                .email("userFlash@test.com")
+                .password("password")
+                .phoneNumber("0123456789")
+                .role(role)
+                .build());
+        OrderResponse order = orderService.createOrder(user, quoteRequest(1, "flash"));
+        assertEquals("FLASH", order.getPromotionCode());
+        assertEquals(20.0, order.getDiscountAmount());
+        assertEquals("FLASH", orderRepository.findSummaryById(order.getId()).orElseThrow().getPromotionCode());
+
+        sleepUntil(flashEnd);
+        assertEquals(List.of("SALE10"), promotionService.getActivePromotions(LocalDateTime.now()).stream()
+                .map(PromotionService.ActivePromotion::code).toList());
+        RuntimeException expired = assertThrows(RuntimeException.class,
+                () -> orderService.createOrder(user, quoteRequest(1, "FLASH")));
+        assertEquals("Mã khuyến mãi đã hết hạn hoặc chưa bắt đầu", expired.getMessage());
+    }
+
+    private static void sleepUntil(LocalDateTime time) throws InterruptedException {
+        long millis = Duration.between(LocalDateTime.now(), time).toMillis();
+        if (millis > 0) {
+            Thread.sleep(millis + 50);
+        }
+    }
+}
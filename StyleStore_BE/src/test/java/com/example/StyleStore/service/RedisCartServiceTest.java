@@ -0,0 +1,242 @@
+package com.example.StyleStore.service;
+
+import com.example.StyleStore.dto.request.CartBatchRequest;
+import com.example.StyleStore.dto.request.CartBatchRequest.Action;
+import com.example.StyleStore.dto.request.CartBatchRequest.Operation;
+import com.example.StyleStore.dto.response.CartResponse;
+import com.example.StyleStore.model.*;
+import com.example.StyleStore.model.enums.ProductStatus;
+import com.example.StyleStore.repository.*;
+import com.example.StyleStore.service.impl.RedisCartServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ✅ Test: Giỏ hàng trên hash store (cart.store=redis), ghi xuống MySQL theo lô.
+ * Dùng store trong JVM cùng ngữ nghĩa với Redis; job flush được gọi tay.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "cart.store=redis",
+        "cart.redis.store=local",
+        "cart.redis.flush-interval-ms=3600000",
+        "cart.redis.flush-max-attempts=2"
+})
+public class RedisCartServiceTest {
+
+    @Autowired private RedisCartServiceImpl cartService;
+    @Autowired private CartHashStore cartStore;
+    @Autowired private CartRepository cartRepository;
+    @Autowired private CartItemRepository cartItemRepository;
+    @Autowired private ProductRepository productRepository;
+    @Autowired private ProductSizeRepository productSizeRepository;
+    @Autowired private SizeRepository sizeRepository;
+    @Autowired private CategoryRepository categoryRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private RoleRepository roleRepository;
+    @Autowired private ProductCacheService productCacheService;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    private Role role;
+    private Category category;
+    private Size size;
+
+    @BeforeEach
+    public void setUp() {
+        // Dọn các giỏ còn chờ ghi từ test trước.
+        // DELETE thay vì TRUNCATE để id user không bị dùng lại (hash giỏ cũ vẫn còn trong store)
+        cartService.flushDirtyCarts();
+        jdbcTemplate.execute("SET REFERENTIAL_INTEGRITY FALSE");
+        try {
+            jdbcTemplate.execute("DELETE FROM cart_items");
+            jdbcTemplate.execute("DELETE FROM carts");
+            jdbcTemplate.execute("DELETE FROM product_size_stock_buckets");
+            jdbcTemplate.execute("DELETE FROM product_sizes");
+            jdbcTemplate.execute("DELETE FROM products");
+            jdbcTemplate.execute("DELETE FROM categories");
+            jdbcTemplate.execute("DELETE FROM sizes");
+            jdbcTemplate.execute("DELETE FROM users");
+            jdbcTemplate.execute("DELETE FROM roles");
+        } finally {
+            jdbcTemplate.execute("SET REFERENTIAL_INTEGRITY TRUE");
+        }
+
+        role = roleRepository.save(Role.builder().name("CUSTOMER").build());
+        category = categoryRepository.save(Category.builder().name("Giỏ Redis").status("ACTIVE").build());
+        size = sizeRepository.save(Size.builder().name("M").build());
+    }
+
+    private Cart createUserWithCart(String email) {
+        User user = userRepository.save(User.builder()
+                .fullName("User Cart")
+                .email(email)
+                .password("password")
+                .phoneNumber("0123456789")
+                .role(role)
+                .build());
+        return cartRepository.save(Cart.builder().user(user).build());
+    }
+
+    private Product createProduct(String name, double price, int stock) {
+        Product product = productRepository.save(Product.builder()
+                .name(name)
+                .price(price)
+                .gender("UNISEX")
+                .color("Black")
+                .thumbnail(name + ".jpg")
+                .status(ProductStatus.ACTIVE)
+                .category(category)
+                .build());
+        productSizeRepository.save(ProductSize.builder().product(product).size(size).stock(stock).build());
+        return product;
+    }
+
+    private Map<Long, Integer> quantitiesInDatabase(Long cartId) {
+        return jdbcTemplate.query("SELECT product_id, quantity FROM cart_items WHERE cart_id = ?",
+                rs -> {
+                    Map<Long, Integer> quantities = new HashMap<>();
+                    while (rs.next()) {
+                        quantities.put(rs.getLong("product_id"), rs.getInt("quantity"));
+                    }
+                    return quantities;
+                }, cartId);
+    }
+
+    /**
+     * ✅ TEST: Nạp giỏ từ MySQL, thêm / sửa / xóa trên store, flush ghi lại đúng trạng thái
+     *
+     * Kịch bản:
+     * - MySQL đã có A x1 trong giỏ
+     * - Thêm A thêm 1, thêm B x2, sửa B thành 3, xóa A
+     * - Chạy flush
+     *
+     * Kỳ vọng:
+     * - Lần đọc đầu thấy A x1 (nạp từ MySQL)
+     * - Trước flush MySQL vẫn là A x1; sau flush chỉ còn B x3
+     * - Giỏ không còn dirty, đếm số dòng = 1
+     */
+    @Test
+    public void testHydrateMutateAndFlush_RoundTrip() {
+        Cart cart = createUserWithCart("redisCart@test.com");
+        Long userId = cart.getUser().getId();
+        Product a = createProduct("Redis A", 100.0, 10);
+        Product b = createProduct("Redis B", 200.0, 10);
+        cartItemRepository.save(CartItem.builder().cart(cart).product(a).size(size).quantity(1).price(100.0).build());
+
+        CartResponse hydrated = cartService.getCartView(userId);
+        assertEquals(cart.getId(), hydrated.getId());
+        assertEquals(1, hydrated.getCartItems().size());
+        assertEquals(1, hydrated.getCartItems().get(0).getQuantity());
+
+        Long aItemId = cartService.addToCart(userId, a.getId(), size.getId(), 1).getId();
+        assertEquals(2, cartService.getCartView(userId).getCartItems().get(0).getQuantity());
+        Long bItemId = cartService.addToCart(userId, b.getId(), size.getId(), 2).getId();
+        cartService.updateCartItemQuantity(userId, bItemId, 3);
+        cartService.removeFromCart(userId, aItemId);
+
+        assertEquals(Map.of(a.getId(), 1), quantitiesInDatabase(cart.getId()));
+        assertTrue(cartStore.isDirty(String.valueOf(userId)));
+
+        cartService.flushDirtyCarts();
+
+        assertEquals(Map.of(b.getId(), 3), quantitiesInDatabase(cart.getId()));
+        assertFalse(cartStore.isDirty(String.valueOf(userId)));
+        assertEquals(1, cartService.countItems(userId));
+    }
+
+    /**
+     * ✅ TEST: 1 giỏ lỗi không chặn cả lô, lỗi lặp lại thì bị park
+     *
+     * Kịch bản:
+     * - Giỏ 1 có sản phẩm X, giỏ 2 có sản phẩm Y
+     * - X bị xóa khỏi MySQL trước khi flush (dòng giỏ 1 vi phạm khóa ngoại)
+     * - Chạy flush 2 lần (flush-max-attempts = 2)
+     *
+     * Kỳ vọng:
+     * - Lần 1: giỏ 2 được ghi, giỏ 1 được đánh dấu dirty để thử lại
+     * - Lần 2: giỏ 1 lỗi tiếp nên bị park, không còn trong tập dirty, hash vẫn giữ nguyên
+     * - Trang giỏ 1 vẫn hiện dòng X (tồn kho 0, cảnh báo), khớp với số dòng đếm được
+     */
+    @Test
+    public void testFlush_IsolatesFailingCartAndParksIt() {
+        Cart broken = createUserWithCart("redisBroken@test.com");
+        Cart healthy = createUserWithCart("redisHealthy@test.com");
+        String brokenUser = String.valueOf(broken.getUser().getId());
+        Product x = createProduct("Redis X", 100.0, 10);
+        Product y = createProduct("Redis Y", 200.0, 10);
+        cartService.addToCart(broken.getUser().getId(), x.getId(), size.getId(), 1);
+        cartService.addToCart(healthy.getUser().getId(), y.getId(), size.getId(), 2);
+
+        jdbcTemplate.update("DELETE FROM product_size_stock_buckets WHERE product_size_id IN "
+                + "(SELECT id FROM product_sizes WHERE product_id = ?)", x.getId());
+        jdbcTemplate.update("DELETE FROM product_sizes WHERE product_id = ?", x.getId());
+        jdbcTemplate.update("DELETE FROM products WHERE id = ?", x.getId());
+
+        cartService.flushDirtyCarts();
+
+        assertEquals(Map.of(y.getId(), 2), quantitiesInDatabase(healthy.getId()));
+        assertTrue(quantitiesInDatabase(broken.getId()).isEmpty());
+        assertTrue(cartStore.isDirty(brokenUser));
+        assertFalse(cartStore.isParked(brokenUser));
+
+        cartService.flushDirtyCarts();
+
+        assertFalse(cartStore.isDirty(brokenUser));
+        assertTrue(cartStore.isParked(brokenUser));
+        assertEquals(2, cartStore.size(broken.getUser().getId()));
+        assertEquals(List.of(), cartStore.popDirty(10));
+
+        productCacheService.evict(x.getId());
+        CartResponse view = cartService.getCartView(broken.getUser().getId());
+        assertEquals(1, view.getCartItems().size());
+        assertEquals(x.getId(), view.getCartItems().get(0).getProduct().getId());
+        assertEquals(0, view.getCartItems().get(0).getAvailableStock());
+        assertTrue(view.isHasStockWarning());
+        assertEquals(1, cartService.countItems(broken.getUser().getId()));
+    }
+
+    /**
+     * ✅ TEST: Lô thay đổi chỉ được ghi nếu giỏ chưa bị sửa từ lúc đọc
+     *
+     * Kịch bản:
+     * - Giỏ có A x1
+     * - Ghi lô dựa trên snapshot cũ (tưởng A đang là 2) → bị từ chối
+     * - applyBatch bình thường: sửa A thành 3, thêm B x1
+     *
+     * Kỳ vọng:
+     * - Lần ghi trên snapshot cũ trả về CONFLICT, A vẫn là 1
+     * - applyBatch thành công: A x3, B x1
+     */
+    @Test
+    public void testApplyBatch_RejectsStaleSnapshot() {
+        Cart cart = createUserWithCart("redisBatch@test.com");
+        Long userId = cart.getUser().getId();
+        Product a = createProduct("Redis Batch A", 100.0, 10);
+        Product b = createProduct("Redis Batch B", 200.0, 10);
+        Long aItemId = cartService.addToCart(userId, a.getId(), size.getId(), 1).getId();
+
+        String aField = a.getId() + ":" + size.getId();
+        assertEquals(CartHashStore.CONFLICT, cartStore.apply(userId, Map.of(aField, 2),
+                Map.of(aField, "5|100.0|0|0")));
+        assertEquals(1, cartService.getCartView(userId).getCartItems().get(0).getQuantity());
+
+        CartResponse updated = cartService.applyBatch(userId, new CartBatchRequest(List.of(
+                Operation.builder().action(Action.UPDATE).cartItemId(aItemId).quantity(3).build(),
+                Operation.builder().action(Action.ADD).productId(b.getId()).sizeId(size.getId()).quantity(1).build())));
+        assertEquals(2, updated.getCartItems().size());
+        assertEquals(3, updated.getCartItems().get(0).getQuantity());
+        assertEquals(1, updated.getCartItems().get(1).getQuantity());
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.StyleStore.service;
+
+import com.example.StyleStore.dto.request.SalesCubeRequest;
+import com.example.StyleStore.dto.response.OrderResponse;
+import com.example.StyleStore.model.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ✅ Test: Cube doanh số trong JVM cho thống kê admin
+ */
+public class SalesCubeServiceTest extends OrderTestBase {
+
+    @Autowired private SalesCubeService salesCubeService;
+
+    /**
+     * ✅ TEST: Cube doanh số chỉ gồm dòng của đơn đã giao, nhóm và lọc theo chiều
+     *
+     * Kỳ vọng:
+     * - Nhóm theo category + size: 1 nhóm, số lượng 3, doanh số 300
+     * - Đơn chưa giao không xuất hiện trong cube
+     * - Lọc theo giới tính không có dữ liệu trả về rỗng, chiều không hợp lệ bị từ chối
+     */
+    @Test
+    public void testSalesCube_GroupsDeliveredLines() {
+        // setUp đã xóa bảng nên nạp lại cube từ trạng thái rỗng
+        salesCubeService.reload();
+        User user = userRepository.save(User.builder()
+                .fullName("User Cube")
+                .email("userCube@test.com")
+                .password("password")
+                .phoneNumber("0123456789")
+                .role(role)
+                .build());
+
+        OrderResponse delivered = placeOrder(user, 3);
+        placeOrder(user, 1);
+        orderService.confirmOrder(delivered.getId());
+        orderService.deliveredOrder(delivered.getId());
+
+        var byCategorySize = salesCubeService.query(SalesCubeRequest.builder()
+                .groupBy(List.of("category", "size"))
+                .build());
+        assertEquals(1, byCategorySize.getTotalGroups());
+        assertEquals(1L, byCategorySize.getMatchedLines());
+        var row = byCategorySize.getRows().get(0);
+        assertEquals(category.getId(), row.getDimensions().get("category"));
+        assertEquals(size.getId(), row.getDimensions().get("size"));
+        assertEquals(3L, row.getQuantity());
+        assertEquals(0, row.getAmount().compareTo(BigDecimal.valueOf(300)));
+
+        // Nạp lại từ MySQL cho cùng kết quả với bản append sau commit
+        salesCubeService.reload();
+        var byGender = salesCubeService.query(SalesCubeRequest.builder()
+                .groupBy(List.of("gender", "day"))
+                .build());
+        assertEquals(1, byGender.getRows().size());
+        assertEquals("UNISEX", byGender.getRows().get(0).getDimensions().get("gender"));
+        assertEquals(LocalDate.now().toString(), byGender.getRows().get(0).getDimensions().get("day"));
+        assertEquals(3L, byGender.getRows().get(0).getQuantity());
+
+        var noMatch = salesCubeService.query(SalesCubeRequest.builder().genders(List.of("MALE")).build());
+        assertEquals(0L, noMatch.getMatchedLines());
+
+        assertThrows(RuntimeException.class, () -> salesCubeService.query(SalesCubeRequest.builder()
+                .groupBy(List.of("color"))
+                .build()));
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.StyleStore.service;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Đếm câu SQL Hibernate gửi đi trên thread hiện tại (không lẫn với các job chạy nền).
+ * Được đăng ký qua hibernate.session_factory.statement_inspector trong application-test.properties.
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<int[]> COUNT = ThreadLocal.withInitial(() -> new int[1]);
+
+    @Override
+    public String inspect(String sql) {
+        COUNT.get()[0]++;
+        return sql;
+    }
+
+    public static void reset() {
+        COUNT.get()[0] = 0;
+    }
+
+    public static int count() {
+        return COUNT.get()[0];
+    }
+}
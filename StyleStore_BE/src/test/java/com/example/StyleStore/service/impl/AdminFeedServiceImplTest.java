@@ -0,0 +1,160 @@
+package com.example.StyleStore.service.impl;
+
+import com.example.StyleStore.dto.response.AdminOrderFeedFrame;
+import com.example.StyleStore.dto.response.AdminOrderFeedFrame.OrderChange;
+import com.example.StyleStore.dto.response.InventoryAlertResponse;
+import com.example.StyleStore.dto.response.stats.AdminStatsFeedFrame;
+import com.example.StyleStore.model.Order;
+import com.example.StyleStore.model.enums.OrderStatus;
+import com.example.StyleStore.service.AdminFeedService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * ✅ Test: Feed dashboard admin gom thay đổi theo chu kỳ (không cần Spring / DB)
+ *
+ * Không có transaction nên các thay đổi được gom ngay; mỗi lần flush gửi tối đa 1 frame cho mỗi topic.
+ */
+public class AdminFeedServiceImplTest {
+
+    private SimpMessagingTemplate messagingTemplate;
+    private AdminFeedServiceImpl adminFeedService;
+
+    @BeforeEach
+    public void setUp() {
+        messagingTemplate = mock(SimpMessagingTemplate.class);
+        adminFeedService = new AdminFeedServiceImpl(messagingTemplate);
+        ReflectionTestUtils.setField(adminFeedService, "maxItemsPerFrame", 200);
+    }
+
+    private static Order order(long id, OrderStatus status, double totalAmount) {
+        return Order.builder()
+                .id(id)
+                .status(status)
+                .totalAmount(totalAmount)
+                .finalAmount(totalAmount)
+                .build();
+    }
+
+    private void changeStatus(Order order, OrderStatus status) {
+        OrderStatus previousStatus = order.getStatus();
+        order.setStatus(status);
+        adminFeedService.orderStatusChanged(order, previousStatus);
+    }
+
+    private AdminOrderFeedFrame sentOrdersFrame() {
+        ArgumentCaptor<Object> frame = ArgumentCaptor.forClass(Object.class);
+        verify(messagingTemplate).convertAndSend(eq(AdminFeedService.ORDERS_TOPIC), frame.capture());
+        return (AdminOrderFeedFrame) frame.getValue();
+    }
+
+    private AdminStatsFeedFrame sentStatsFrame() {
+        ArgumentCaptor<Object> frame = ArgumentCaptor.forClass(Object.class);
+        verify(messagingTemplate).convertAndSend(eq(AdminFeedService.STATS_TOPIC), frame.capture());
+        return (AdminStatsFeedFrame) frame.getValue();
+    }
+
+    /**
+     * ✅ TEST: Nhiều thay đổi trong 1 chu kỳ → 1 frame mỗi topic
+     *
+     * Kịch bản:
+     * - Đơn 1: tạo mới → SHIPPING → DELIVERED
+     * - Đơn 2: tạo mới → CANCELLED
+     * - Đơn 3 (tạo từ chu kỳ trước): SHIPPING → DELIVERED
+     * - flush 1 lần, rồi flush thêm 1 lần không có thay đổi
+     *
+     * Kỳ vọng:
+     * - Mỗi đơn 1 dòng: giữ trạng thái đầu chu kỳ, trạng thái cuối là trạng thái mới nhất
+     * - Frame thống kê: 2 đơn mới, 2 đơn giao, 1 đơn hủy, doanh thu tăng = tổng 2 đơn đã giao
+     * - Lần flush thứ 2 không gửi gì
+     */
+    @Test
+    public void testFlush_CoalescesChangesIntoOneFramePerTopic() {
+        Order first = order(1L, OrderStatus.CREATED, 100_000);
+        adminFeedService.orderCreated(first);
+        changeStatus(first, OrderStatus.SHIPPING);
+        changeStatus(first, OrderStatus.DELIVERED);
+
+        Order second = order(2L, OrderStatus.CREATED, 50_000);
+        adminFeedService.orderCreated(second);
+        changeStatus(second, OrderStatus.CANCELLED);
+
+        Order third = order(3L, OrderStatus.CREATED, 250_000);
+        changeStatus(third, OrderStatus.SHIPPING);
+        changeStatus(third, OrderStatus.DELIVERED);
+
+        adminFeedService.flush();
+
+        Map<Long, OrderChange> orders = sentOrdersFrame().getOrders().stream()
+                .collect(Collectors.toMap(OrderChange::getOrderId, change -> change));
+        assertEquals(3, orders.size(), "Mỗi đơn chỉ 1 dòng");
+        assertTrue(orders.get(1L).isCreated());
+        assertNull(orders.get(1L).getPreviousStatus());
+        assertEquals(OrderStatus.DELIVERED, orders.get(1L).getStatus());
+        assertTrue(orders.get(2L).isCreated());
+        assertEquals(OrderStatus.CANCELLED, orders.get(2L).getStatus());
+        assertFalse(orders.get(3L).isCreated());
+        assertEquals(OrderStatus.CREATED, orders.get(3L).getPreviousStatus());
+        assertEquals(OrderStatus.DELIVERED, orders.get(3L).getStatus());
+
+        AdminStatsFeedFrame stats = sentStatsFrame();
+        assertEquals(2, stats.getNewOrders());
+        assertEquals(2, stats.getDeliveredOrders());
+        assertEquals(1, stats.getCancelledOrders());
+        assertEquals(0, BigDecimal.valueOf(350_000).compareTo(stats.getRevenueIncrement()),
+                "Doanh thu tăng = total_amount của đơn 1 + đơn 3");
+        assertTrue(stats.getStockAlerts().isEmpty());
+
+        adminFeedService.flush();
+        verifyNoMoreInteractions(messagingTemplate);
+    }
+
+    /**
+     * ✅ TEST: Đợt cao điểm vượt maxItemsPerFrame
+     *
+     * Kịch bản:
+     * - maxItemsPerFrame = 2
+     * - 5 đơn mới, 3 cảnh báo tồn kho, đơn đầu tiên đổi trạng thái thêm 1 lần
+     *
+     * Kỳ vọng:
+     * - Frame đơn hàng chỉ có 2 dòng, dropped = 3; đơn đã có trong frame vẫn được cập nhật
+     * - Bộ đếm đơn mới vẫn đủ 5, chỉ giữ 2 cảnh báo
+     */
+    @Test
+    public void testFlush_CapsItemsPerFrameAndCountsDropped() {
+        ReflectionTestUtils.setField(adminFeedService, "maxItemsPerFrame", 2);
+        Order first = order(1L, OrderStatus.CREATED, 100_000);
+        adminFeedService.orderCreated(first);
+        for (long id = 2; id <= 5; id++) {
+            adminFeedService.orderCreated(order(id, OrderStatus.CREATED, 100_000));
+        }
+        changeStatus(first, OrderStatus.SHIPPING);
+        for (long id = 1; id <= 3; id++) {
+            adminFeedService.stockAlertCreated(InventoryAlertResponse.builder().id(id).build());
+        }
+
+        adminFeedService.flush();
+
+        AdminOrderFeedFrame ordersFrame = sentOrdersFrame();
+        assertEquals(List.of(1L, 2L), ordersFrame.getOrders().stream().map(OrderChange::getOrderId).toList());
+        assertEquals(3, ordersFrame.getDropped());
+        assertEquals(OrderStatus.SHIPPING, ordersFrame.getOrders().get(0).getStatus());
+
+        AdminStatsFeedFrame stats = sentStatsFrame();
+        assertEquals(5, stats.getNewOrders());
+        assertEquals(2, stats.getStockAlerts().size());
+        assertEquals(0, BigDecimal.ZERO.compareTo(stats.getRevenueIncrement()));
+    }
+}
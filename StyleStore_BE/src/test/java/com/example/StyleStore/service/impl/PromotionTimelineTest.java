@@ -0,0 +1,134 @@
+package com.example.StyleStore.service.impl;
+
+import com.example.StyleStore.service.PromotionService.ActivePromotion;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ✅ Test: Dòng thời gian khuyến mãi (không cần Spring / DB)
+ *
+ * Khuyến mãi hiệu lực trong [startAt, endAt): tính từ đúng mốc bắt đầu, hết hiệu lực đúng mốc kết thúc.
+ */
+public class PromotionTimelineTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2026, 1, 1, 0, 0);
+
+    private static ActivePromotion promotion(long id, String code, LocalDateTime startAt, LocalDateTime endAt) {
+        return new ActivePromotion(id, code, "Khuyến mãi " + code, null, BigDecimal.TEN,
+                BigDecimal.valueOf(100000), BigDecimal.ZERO, startAt, endAt);
+    }
+
+    private static List<String> codes(List<ActivePromotion> promotions) {
+        return promotions.stream().map(ActivePromotion::code).toList();
+    }
+
+    /**
+     * ✅ TEST: Đúng mốc bắt đầu / kết thúc
+     *
+     * Kỳ vọng:
+     * - 1ns trước startAt chưa hiệu lực, đúng startAt đã hiệu lực
+     * - 1ns trước endAt còn hiệu lực, đúng endAt đã hết
+     */
+    @Test
+    public void testBoundaries_StartInclusiveEndExclusive() {
+        LocalDateTime start = T0.plusHours(1);
+        LocalDateTime end = T0.plusHours(2);
+        PromotionTimeline timeline = new PromotionTimeline(List.of(promotion(1, "SALE", start, end)), T0);
+
+        assertTrue(timeline.activeAt(start.minusNanos(1)).isEmpty());
+        assertEquals(List.of("SALE"), codes(timeline.activeAt(start)));
+        assertTrue(timeline.findActive("SALE", start).isPresent());
+        assertEquals(List.of("SALE"), codes(timeline.activeAt(end.minusNanos(1))));
+        assertTrue(timeline.activeAt(end).isEmpty());
+        assertTrue(timeline.findActive("SALE", end).isEmpty());
+        assertTrue(timeline.nextBoundary().isEmpty(), "Đã qua mốc cuối cùng");
+    }
+
+    /**
+     * ✅ TEST: Hai khuyến mãi nối tiếp, A kết thúc đúng lúc B bắt đầu
+     *
+     * Kỳ vọng:
+     * - Tại mốc chung chỉ còn B, không có thời điểm nào cả hai cùng hiệu lực
+     * - nextBoundary luôn là mốc gần nhất còn chờ
+     */
+    @Test
+    public void testAdjacentPromotions_HandOverAtSharedBoundary() {
+        LocalDateTime handover = T0.plusHours(1);
+        PromotionTimeline timeline = new PromotionTimeline(List.of(
+                promotion(1, "A", T0, handover),
+                promotion(2, "B", handover, T0.plusHours(2))), T0);
+
+        assertEquals(List.of("A"), codes(timeline.activeAt(T0)));
+        assertEquals(handover, timeline.nextBoundary().orElseThrow());
+
+        timeline.advanceTo(handover);
+        assertEquals(List.of("B"), codes(timeline.activeAt(handover)));
+        assertEquals(T0.plusHours(2), timeline.nextBoundary().orElseThrow());
+    }
+
+    /**
+     * ✅ TEST: Nhảy qua cả mốc bắt đầu lẫn kết thúc trong 1 lần advanceTo
+     *
+     * Kỳ vọng:
+     * - Khuyến mãi mở và đóng trong khoảng nhảy không còn trong tập hiệu lực
+     * - Khuyến mãi bắt đầu trong khoảng nhảy và chưa kết thúc thì có mặt
+     */
+    @Test
+    public void testAdvanceAcrossWholeWindow() {
+        PromotionTimeline timeline = new PromotionTimeline(List.of(
+                promotion(1, "FLASH", T0.plusMinutes(10), T0.plusMinutes(20)),
+                promotion(2, "WEEK", T0.plusMinutes(15), T0.plusDays(7))), T0);
+
+        timeline.advanceTo(T0.plusHours(1));
+        assertEquals(List.of("WEEK"), codes(timeline.activeAt(T0.plusHours(1))));
+        assertTrue(timeline.findActive("FLASH", T0.plusHours(1)).isEmpty());
+    }
+
+    /**
+     * ✅ TEST: Đọc sau mốc khi timer chưa kịp chạy advanceTo
+     *
+     * Kỳ vọng:
+     * - activeAt tự chuyển tới thời điểm hỏi, kết quả vẫn đúng
+     * - Hỏi về quá khứ (trước vị trí hiện tại) vẫn trả đúng tập hiệu lực lúc đó
+     */
+    @Test
+    public void testActiveAt_CatchesUpAndAnswersPast() {
+        LocalDateTime start = T0.plusMinutes(5);
+        PromotionTimeline timeline = new PromotionTimeline(List.of(
+                promotion(2, "LATE", start, T0.plusHours(1)),
+                promotion(1, "EARLY", T0.minusHours(1), T0.plusHours(1))), T0);
+
+        assertEquals(List.of("EARLY", "LATE"), codes(timeline.activeAt(start)), "Sắp theo id");
+        assertEquals(T0.plusHours(1), timeline.nextBoundary().orElseThrow());
+        assertEquals(List.of("EARLY"), codes(timeline.activeAt(T0)));
+
+        // Lùi thời gian không làm đổi vị trí hiện tại
+        timeline.advanceTo(T0);
+        assertEquals(List.of("EARLY", "LATE"), codes(timeline.activeAt(start)));
+    }
+
+    /**
+     * ✅ TEST: Dựng timeline và tra mã
+     *
+     * Kỳ vọng:
+     * - Khuyến mãi đã kết thúc (endAt <= lúc dựng) bị bỏ qua
+     * - Tra mã không phân biệt hoa thường, bỏ khoảng trắng; mã null / lạ trả về rỗng
+     */
+    @Test
+    public void testConstruction_SkipsExpiredAndNormalizesCodes() {
+        PromotionTimeline timeline = new PromotionTimeline(List.of(
+                promotion(1, "OLD", T0.minusDays(2), T0),
+                promotion(2, "Sale10", T0.minusDays(1), T0.plusDays(1))), T0);
+
+        assertEquals(List.of("Sale10"), codes(timeline.activeAt(T0)));
+        assertTrue(timeline.findActive("OLD", T0.minusDays(1)).isEmpty(), "Không giữ khuyến mãi đã hết hạn");
+        assertTrue(timeline.findActive("  sale10 ", T0).isPresent());
+        assertTrue(timeline.findActive(null, T0).isEmpty());
+        assertTrue(timeline.findActive("KHONGCO", T0).isEmpty());
+    }
+}
@@ -0,0 +1,195 @@
+package com.example.StyleStore.service.impl;
+
+import com.example.StyleStore.config.RedisTemplateConfig;
+import com.example.StyleStore.repository.ProductSizeRepositoryCustom.StockChange;
+import com.example.StyleStore.service.StockCounterStore.ReserveResult;
+import com.example.StyleStore.service.StockCounterStore.ReserveStatus;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ✅ Test: Lua script của bộ đếm tồn kho chạy trên redis-server thật (nhúng, không cần Spring / DB)
+ *
+ * Bất biến: counter = stock MySQL - pending - flushing - held.
+ */
+public class RedisStockCounterStoreTest {
+
+    private static RedisServer redisServer;
+    private static LettuceConnectionFactory connectionFactory;
+    private static RedisTemplate<String, String> redisTemplate;
+
+    private RedisStockCounterStore store;
+
+    @BeforeAll
+    public static void startRedis() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        redisServer = new RedisServer(port);
+        redisServer.start();
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", port));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redisTemplate = new RedisTemplateConfig().redisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    public static void stopRedis() throws IOException {
+        connectionFactory.destroy();
+        redisServer.stop();
+    }
+
+    @BeforeEach
+    public void setUp() {
+        redisTemplate.execute(connection -> {
+            connection.serverCommands().flushAll();
+            return null;
+        }, true);
+        store = new RedisStockCounterStore(redisTemplate);
+        store.hydrate(1L, 1L, 10);
+        store.hydrate(1L, 2L, 5);
+    }
+
+    private long counter(long productId, long sizeId) {
+        return Long.parseLong(redisTemplate.opsForValue().get("inventory:{stock}:qty:" + productId + ":" + sizeId));
+    }
+
+    private Map<Object, Object> hash(String name) {
+        return redisTemplate.opsForHash().entries("inventory:{stock}:" + name);
+    }
+
+    private ReserveResult reserve(String reservationId, Duration ttl) {
+        return store.reserve(reservationId, List.of(new StockChange(1L, 1L, 3), new StockChange(1L, 2L, 2)), ttl);
+    }
+
+    /**
+     * ✅ TEST: Giữ hàng rồi xác nhận
+     *
+     * Kỳ vọng:
+     * - reserve trừ counter của cả 2 SKU và ghi số lượng vào held
+     * - confirm chuyển held sang pending, gọi lần 2 trả về false
+     */
+    @Test
+    public void testReserveThenConfirm_MovesHeldToPending() {
+        ReserveResult result = reserve("r1", Duration.ofMinutes(5));
+
+        assertEquals(ReserveStatus.RESERVED, result.status());
+        assertEquals(7, counter(1, 1));
+        assertEquals(3, counter(1, 2));
+        assertEquals(Map.of("1:1", "3", "1:2", "2"), hash("held"));
+
+        assertTrue(store.confirm("r1"));
+        assertTrue(hash("held").isEmpty());
+        assertEquals(Map.of("1:1", "3", "1:2", "2"), hash("pending"));
+        assertEquals(7, counter(1, 1), "Xác nhận không đổi counter");
+        assertFalse(store.confirm("r1"));
+    }
+
+    /**
+     * ✅ TEST: Không đủ hàng / counter chưa nạp
+     *
+     * Kỳ vọng:
+     * - INSUFFICIENT kèm vị trí dòng lỗi và tồn kho hiện tại, không dòng nào bị trừ
+     * - SKU chưa nạp counter trả về NOT_LOADED
+     */
+    @Test
+    public void testReserve_InsufficientAndNotLoaded_ChangeNothing() {
+        ReserveResult insufficient = store.reserve("r1",
+                List.of(new StockChange(1L, 1L, 3), new StockChange(1L, 2L, 6)), Duration.ofMinutes(5));
+        assertEquals(ReserveStatus.INSUFFICIENT, insufficient.status());
+        assertEquals(1, insufficient.failedIndex());
+        assertEquals(5, insufficient.available());
+
+        ReserveResult notLoaded = store.reserve("r2",
+                List.of(new StockChange(1L, 1L, 1), new StockChange(9L, 9L, 1)), Duration.ofMinutes(5));
+        assertEquals(ReserveStatus.NOT_LOADED, notLoaded.status());
+        assertEquals(1, notLoaded.failedIndex());
+
+        assertEquals(10, counter(1, 1));
+        assertEquals(5, counter(1, 2));
+        assertTrue(hash("held").isEmpty());
+        assertTrue(store.findExpiredReservations(Long.MAX_VALUE, 10).isEmpty());
+    }
+
+    /**
+     * ✅ TEST: Trả lại reservation
+     *
+     * Kỳ vọng:
+     * - counter về như cũ, held trống, gọi lần 2 trả về false
+     * - reservation đã xác nhận thì không trả lại được
+     */
+    @Test
+    public void testRelease_ReturnsHeldStock() {
+        reserve("r1", Duration.ofMinutes(5));
+
+        assertTrue(store.release("r1"));
+        assertEquals(10, counter(1, 1));
+        assertEquals(5, counter(1, 2));
+        assertTrue(hash("held").isEmpty());
+        assertFalse(store.release("r1"));
+
+        reserve("r2", Duration.ofMinutes(5));
+        store.confirm("r2");
+        assertFalse(store.release("r2"), "Đã xác nhận thì không trả lại");
+        assertEquals(7, counter(1, 1));
+    }
+
+    /**
+     * ✅ TEST: Reservation hết hạn được tìm thấy và trả lại
+     *
+     * Kỳ vọng:
+     * - Chỉ reservation đã quá hạn nằm trong danh sách hết hạn
+     * - Trả lại xong thì counter khôi phục và không còn trong danh sách
+     */
+    @Test
+    public void testExpire_ReleasesOnlyExpiredReservations() {
+        reserve("expired", Duration.ZERO);
+        store.reserve("live", List.of(new StockChange(1L, 1L, 1)), Duration.ofMinutes(5));
+        long now = System.currentTimeMillis() + 1;
+
+        assertEquals(List.of("expired"), store.findExpiredReservations(now, 10));
+        store.findExpiredReservations(now, 10).forEach(store::release);
+
+        assertEquals(9, counter(1, 1), "Chỉ còn reservation live đang giữ 1");
+        assertEquals(5, counter(1, 2));
+        assertEquals(Map.of("1:1", "1"), hash("held"));
+        assertTrue(store.findExpiredReservations(now, 10).isEmpty());
+    }
+
+    /**
+     * ✅ TEST: Hủy đơn đã xác nhận cộng lại counter và trừ pending
+     *
+     * Kỳ vọng:
+     * - counter tăng lại, pending về 0 (field bị xóa)
+     * - SKU đã bị evict không được tạo lại counter
+     */
+    @Test
+    public void testRestock_AfterConfirm() {
+        reserve("r1", Duration.ofMinutes(5));
+        store.confirm("r1");
+        store.evict(1L, 2L);
+
+        store.restock(List.of(new StockChange(1L, 1L, 3), new StockChange(1L, 2L, 2)));
+
+        assertEquals(10, counter(1, 1));
+        assertFalse(Boolean.TRUE.equals(redisTemplate.hasKey("inventory:{stock}:qty:1:2")));
+        assertTrue(hash("pending").isEmpty());
+        assertTrue(store.hydrate(1L, 2L, 5), "Nạp lại từ MySQL sau khi evict");
+        assertEquals(5, counter(1, 2));
+    }
+}